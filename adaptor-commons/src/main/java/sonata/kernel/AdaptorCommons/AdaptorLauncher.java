@@ -24,53 +24,45 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor;
+package sonata.kernel.AdaptorCommons;
 
-import java.util.UUID;
+import org.slf4j.LoggerFactory;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import java.util.ArrayList;
 
-public class HeartBeat implements Runnable {
+/**
+ * Runs several adaptors in the same JVM, e.g. the VIM and the WIM adaptors of a small PoP. The
+ * adaptors keep their own MsgBus connections and exchange their internal requests through the
+ * LocalChannel. The arguments are the class names of the adaptor cores to start, in order.
+ */
+public class AdaptorLauncher {
 
-  private WimAdaptorMux mux;
-  private WimAdaptorCore core;
-  private double rate; // measured in beat/s
-  private boolean stop;
+  private static final double rate = 0.1;
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(AdaptorLauncher.class);
 
   /**
-   * Create the Heart-beat runnable.
+   * Main method.
    * 
-   * @param mux the mux to which send the outgoing messages.
-   * @param rate the rate of the heart-beat
-   * @param core the WimAdaptorCore which created this heart-beat
+   * @param args the class names of the adaptor cores
    */
-  public HeartBeat(WimAdaptorMux mux, double rate, WimAdaptorCore core) {
-    this.mux = mux;
-    this.rate = rate;
-    this.core = core;
-  }
-
-  @Override
-  public void run() {
-    String uuid = core.getUuid();
-    while (!stop) {
-      try {
-        String body = "{\"uuid\":\"" + uuid + "\",\"state\":\"" + core.getState() + "\"}";
-        ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json",
-            "platform.management.plugin." + uuid + ".heartbeat", UUID.randomUUID().toString(),
-            null);
-        mux.enqueue(message);
-        Thread.sleep((int) ((1 / rate) * 1000));
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+  public static void main(String[] args) throws Exception {
+    final ArrayList<AdaptorPlugin> adaptors = new ArrayList<AdaptorPlugin>();
+    for (String className : args) {
+      Logger.info("Creating adaptor " + className);
+      adaptors.add((AdaptorPlugin) Class.forName(className).getConstructor(double.class)
+          .newInstance(rate));
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        for (int i = adaptors.size() - 1; i >= 0; i--) {
+          adaptors.get(i).stop();
+        }
       }
+    });
+    for (AdaptorPlugin adaptor : adaptors) {
+      adaptor.start();
     }
-
-  }
-
-  public void stop() {
-    this.stop = true;
-
   }
 
 }
@@ -24,9 +24,9 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor;
+package sonata.kernel.AdaptorCommons;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
 import java.util.concurrent.BlockingQueue;
 
@@ -44,12 +44,16 @@ public class AdaptorMux {
   }
 
   /**
-   * enqueue the message in the queue.
+   * enqueue the message in the queue. Messages on a topic served by another adaptor of the same
+   * JVM are handed over to it through the LocalChannel instead.
    * 
    * @param message the message to enqueue
    * @return true if the message is correctly enqueued, false otherwise.
    */
   public boolean enqueue(ServicePlatformMessage message) {
+    if (LocalChannel.getInstance().deliver(message, this)) {
+      return true;
+    }
     return this.muxQueue.add(message);
   }
 }
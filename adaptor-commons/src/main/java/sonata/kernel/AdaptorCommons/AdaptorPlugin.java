@@ -24,33 +24,35 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.messaging;
+package sonata.kernel.AdaptorCommons;
 
 import java.io.IOException;
 
 /**
- * This is the interface to implement for any implementation of a Message bus producer.
+ * The view of an adaptor plug-in needed by the components shared between the adaptors.
  */
-public interface MsgBusProducer {
+public interface AdaptorPlugin {
 
   /**
-   * Connect to the Message Bus.
+   * @return the UUID assigned to the plug-in by the plugin-manager.
    */
-  public void connectToBus() throws IOException;
+  public String getUuid();
 
   /**
-   * Start producing messages in the bus de-queuing them from the mux queue.
+   * @return the status of the plug-in.
    */
-  public boolean startProducing();
+  public String getState();
 
   /**
-   * Stop producing messages.
+   * Start the plug-in: connect to the MsgBus and register to the plugin-manager.
+   * 
+   * @throws IOException if the plug-in cannot connect to the MsgBus
    */
-  public boolean stopProducing();
+  public void start() throws IOException;
 
   /**
-   * Send a message on the Message Bus.
+   * Deregister from the plugin-manager and stop the plug-in.
    */
-  public boolean sendMessage(ServicePlatformMessage message);
+  public void stop();
 
 }
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import org.json.JSONObject;
+import org.slf4j.LoggerFactory;
+
+import java.util.Hashtable;
+
+/**
+ * Rate limiter for the API calls made to an infrastructure endpoint, e.g. a VIM or a SDN
+ * controller. All the calls share the budget of the endpoint, its sustainable rate, and each class
+ * of operation can be capped by a token bucket of its own, so the status polls of the running
+ * deployments cannot take the whole budget and delay the creation of new ones. The limiters are
+ * shared by all the clients talking to the same endpoint, and do not limit any call until a rate is
+ * configured.
+ */
+public class ApiRateLimiter {
+
+  /**
+   * The classes of API calls limited separately.
+   */
+  public enum Operation {
+    CREATE, POLL, DELETE, LIST
+  }
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(ApiRateLimiter.class);
+
+  private static Hashtable<String, ApiRateLimiter> limiters =
+      new Hashtable<String, ApiRateLimiter>();
+
+  private TokenBucket endpointBucket;
+  private Hashtable<Operation, TokenBucket> buckets;
+
+  /**
+   * Get the shared rate limiter of an endpoint.
+   *
+   * @param endpoint the address of the endpoint
+   * @return the rate limiter of that endpoint
+   */
+  public static synchronized ApiRateLimiter getInstance(String endpoint) {
+    ApiRateLimiter limiter = limiters.get(endpoint);
+    if (limiter == null) {
+      limiter = new ApiRateLimiter(endpoint);
+      limiters.put(endpoint, limiter);
+    }
+    return limiter;
+  }
+
+  /**
+   * Forget all the shared rate limiters.
+   */
+  public static synchronized void resetInstances() {
+    limiters.clear();
+  }
+
+  private ApiRateLimiter(String endpoint) {
+    this.endpointBucket = new TokenBucket(endpoint, 0, 1);
+    this.buckets = new Hashtable<Operation, TokenBucket>();
+    for (Operation operation : Operation.values()) {
+      buckets.put(operation, new TokenBucket(endpoint + " " + operation, 0, 1));
+    }
+  }
+
+  /**
+   * Set the sustainable rate of the endpoint, shared by all the classes of operation, with bursts
+   * of up to one second of calls.
+   *
+   * @param rate the number of calls per second to the endpoint, 0 or less for no limit
+   */
+  public void setRate(double rate) {
+    endpointBucket.setRate(rate, (int) Math.max(1, Math.ceil(rate)));
+  }
+
+  /**
+   * Cap the rate of a class of operation, within the budget of the endpoint, with bursts of up to
+   * one second of calls.
+   *
+   * @param operation the class of the calls
+   * @param rate the number of calls per second of that class, 0 or less for no cap
+   */
+  public void setRate(Operation operation, double rate) {
+    buckets.get(operation).setRate(rate, (int) Math.max(1, Math.ceil(rate)));
+  }
+
+  /**
+   * Cap the rate of some classes of operation.
+   *
+   * @param classRates a JSON object with the number of calls per second of each capped class,
+   *        keyed by the lower case name of the class, e.g. {"create": 2, "poll": 10}
+   */
+  public void setRates(String classRates) {
+    JSONObject rates = new JSONObject(classRates);
+    for (String key : rates.keySet()) {
+      Operation operation;
+      try {
+        operation = Operation.valueOf(key.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        Logger.warn("Ignoring the rate of unknown API call class \"" + key + "\"");
+        continue;
+      }
+      setRate(operation, rates.getDouble(key));
+    }
+  }
+
+  /**
+   * Wait until a call of the given class can be sent to the endpoint.
+   *
+   * @param operation the class of the call
+   */
+  public void acquire(Operation operation) {
+    // Wait for the cap of the class first, so a capped class does not hold the endpoint tokens.
+    buckets.get(operation).acquire();
+    endpointBucket.acquire();
+  }
+
+  /**
+   * @return the bucket limiting all the calls to the endpoint, with its queueing counters.
+   */
+  public TokenBucket getEndpointBucket() {
+    return endpointBucket;
+  }
+
+  /**
+   * @param operation a class of API calls
+   * @return the bucket limiting that class of calls, with its queueing counters.
+   */
+  public TokenBucket getBucket(Operation operation) {
+    return buckets.get(operation);
+  }
+
+  @Override
+  public String toString() {
+    String out = endpointBucket + "\n";
+    for (Operation operation : Operation.values()) {
+      out += buckets.get(operation) + "\n";
+    }
+    return out;
+  }
+
+}
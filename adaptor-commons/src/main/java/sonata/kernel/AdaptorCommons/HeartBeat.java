@@ -24,18 +24,18 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor;
+package sonata.kernel.AdaptorCommons;
 
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
 import java.util.UUID;
 
 public class HeartBeat implements Runnable {
 
   private AdaptorMux mux;
-  private AdaptorCore core;
+  private AdaptorPlugin core;
   private double rate; // measured in beat/s
   private boolean stop;
 
@@ -46,9 +46,9 @@ public class HeartBeat implements Runnable {
    * 
    * @param mux the mux to which send the outgoing messages.
    * @param rate the rate of the heart-beat
-   * @param core the AdaptorCore which created this heart-beat
+   * @param core the adaptor which created this heart-beat
    */
-  public HeartBeat(AdaptorMux mux, double rate, AdaptorCore core) {
+  public HeartBeat(AdaptorMux mux, double rate, AdaptorPlugin core) {
     this.mux = mux;
     this.rate = rate;
     this.core = core;
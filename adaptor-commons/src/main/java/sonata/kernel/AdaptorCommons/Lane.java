@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.AdaptorCommons;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.TrafficClass;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lane of the adaptor dispatcher. It takes the messages of a traffic class from its own queue
+ * and handles them on its own worker pool, so a burst of slow calls in one class only delays the
+ * calls of the same class. The delivery of a message is acknowledged to the broker once its route
+ * has handled it, so the prefetch of the class bounds the calls waiting or running in the lane.
+ */
+public class Lane implements Runnable {
+
+  private static final long pollTimeout = 1000;
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(Lane.class);
+
+  private String name;
+  private BlockingQueue<ServicePlatformMessage> queue;
+  private RoutingTable routingTable;
+  private ExecutorService workers;
+  private volatile boolean stop;
+
+  /**
+   * Create a dispatcher lane.
+   * 
+   * @param name the name of the traffic class served by this lane
+   * @param queue the queue the lane takes the messages from
+   * @param routingTable the routes handling the messages
+   * @param workers the size of the worker pool, 0 for an unbounded pool
+   */
+  public Lane(String name, BlockingQueue<ServicePlatformMessage> queue, RoutingTable routingTable,
+      int workers) {
+    this.name = name;
+    this.queue = queue;
+    this.routingTable = routingTable;
+    if (workers > 0) {
+      this.workers = Executors.newFixedThreadPool(workers);
+    } else {
+      this.workers = Executors.newCachedThreadPool();
+    }
+  }
+
+  /**
+   * Create the dispatcher lane of a traffic class.
+   * 
+   * @param trafficClass the traffic class served by this lane
+   * @param queue the queue the lane takes the messages from
+   * @param routingTable the routes handling the messages
+   */
+  public Lane(TrafficClass trafficClass, BlockingQueue<ServicePlatformMessage> queue,
+      RoutingTable routingTable) {
+    this(trafficClass.getName(), queue, routingTable, trafficClass.getWorkers());
+  }
+
+  @Override
+  public void run() {
+    while (!stop) {
+      try {
+        final ServicePlatformMessage message = queue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+        if (message == null) {
+          continue;
+        }
+        if (!routingTable.hasRoute(message.getTopic())) {
+          Logger.info("Received a message on a topic with no route: " + message.getTopic());
+          message.acknowledge();
+          continue;
+        }
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              routingTable.dispatch(message);
+            } finally {
+              message.acknowledge();
+            }
+          }
+        });
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    }
+    workers.shutdown();
+  }
+
+  public void start() {
+    Thread thread = new Thread(this, "lane-" + name);
+    thread.start();
+  }
+
+  /**
+   * Stop taking messages. The calls already handed to the workers are completed.
+   */
+  public void stop() {
+    this.stop = true;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public BlockingQueue<ServicePlatformMessage> getQueue() {
+    return queue;
+  }
+
+}
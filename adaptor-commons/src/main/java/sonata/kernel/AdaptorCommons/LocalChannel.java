@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+
+import java.util.Hashtable;
+
+/**
+ * In-process channel between adaptors running in the same JVM. An adaptor registers the topics it
+ * serves, and the messages other adaptors send on them are handed to its consumer as they are,
+ * instead of being published on the MsgBus. The receiver gets the message object, with the object
+ * payload it was built from, and replies as it would to a request received from the MsgBus.
+ */
+public class LocalChannel {
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(LocalChannel.class);
+
+  private static LocalChannel myInstance = null;
+
+  private Hashtable<String, Receiver> receivers;
+
+  private LocalChannel() {
+    this.receivers = new Hashtable<String, Receiver>();
+  }
+
+  /**
+   * @return the channel shared by the adaptors of this JVM.
+   */
+  public static synchronized LocalChannel getInstance() {
+    if (myInstance == null) {
+      myInstance = new LocalChannel();
+    }
+    return myInstance;
+  }
+
+  /**
+   * Serve a topic in-process.
+   * 
+   * @param topic the topic, without wildcards
+   * @param consumer the consumer of the adaptor serving the topic
+   * @param mux the mux of the same adaptor, whose own messages are not handed back to it
+   */
+  public void register(String topic, AbstractMsgBusConsumer consumer, AdaptorMux mux) {
+    receivers.put(topic, new Receiver(consumer, mux));
+    Logger.info("Serving topic \"" + topic + "\" in-process");
+  }
+
+  /**
+   * Stop serving a topic in-process. The messages on the topic go through the MsgBus again.
+   * 
+   * @param topic the topic
+   */
+  public void unregister(String topic) {
+    receivers.remove(topic);
+  }
+
+  /**
+   * Hand a message to the adaptor serving its topic in-process, if any.
+   * 
+   * @param message the message to send
+   * @param sender the mux of the sending adaptor
+   * @return true if the message has been handed over, false if it has to go through the MsgBus
+   */
+  public boolean deliver(ServicePlatformMessage message, AdaptorMux sender) {
+    if (receivers.isEmpty() || message.getTopic() == null) {
+      return false;
+    }
+    Receiver receiver = receivers.get(message.getTopic());
+    if (receiver == null || receiver.mux == sender) {
+      return false;
+    }
+    return receiver.consumer.deliver(message);
+  }
+
+  private static class Receiver {
+
+    private AbstractMsgBusConsumer consumer;
+    private AdaptorMux mux;
+
+    private Receiver(AbstractMsgBusConsumer consumer, AdaptorMux mux) {
+      this.consumer = consumer;
+      this.mux = mux;
+    }
+  }
+
+}
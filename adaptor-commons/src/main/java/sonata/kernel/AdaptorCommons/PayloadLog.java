@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logging of large payloads (Heat templates, stack compositions, message bodies) on the hot paths
+ * of the adaptors. Payloads are logged as one-line events of the form
+ * {@code <event> size=<chars> payload=<text>}, with the text cut to a bounded length, so that a
+ * big service does not turn each request into megabytes of log I/O. The full text of every payload
+ * is sent to the separate {@value #CHANNEL} logger at DEBUG level, which is off unless it is
+ * explicitly enabled in the logging configuration.
+ */
+public class PayloadLog {
+
+  /**
+   * The name of the logger that receives the full payloads.
+   */
+  public static final String CHANNEL = "sonata.payload";
+
+  /**
+   * The default number of payload characters kept in the abbreviated events.
+   */
+  public static final int DEFAULT_MAX_LENGTH = 512;
+
+  private static final org.slf4j.Logger Payloads = LoggerFactory.getLogger(CHANNEL);
+
+  private static volatile int maxLength =
+      Integer.getInteger("sonata.log.payload.max", DEFAULT_MAX_LENGTH);
+
+  /**
+   * Set the number of payload characters kept in the abbreviated events.
+   *
+   * @param length the number of characters, 0 to log the size only
+   */
+  public static void setMaxLength(int length) {
+    maxLength = Math.max(0, length);
+  }
+
+  /**
+   * @return the number of payload characters kept in the abbreviated events.
+   */
+  public static int getMaxLength() {
+    return maxLength;
+  }
+
+  /**
+   * @return true if the full payloads are logged on the {@value #CHANNEL} logger.
+   */
+  public static boolean isFullPayloadEnabled() {
+    return Payloads.isDebugEnabled();
+  }
+
+  /**
+   * Cut a payload to the configured length and put it on a single line.
+   *
+   * @param payload the payload to abbreviate
+   * @return the abbreviated payload
+   */
+  public static String abbreviate(String payload) {
+    if (payload == null) {
+      return "null";
+    }
+    int length = Math.min(payload.length(), maxLength);
+    StringBuilder builder = new StringBuilder(length + 24);
+    for (int i = 0; i < length; i++) {
+      char character = payload.charAt(i);
+      if (character == '\n') {
+        builder.append("\\n");
+      } else if (character != '\r') {
+        builder.append(character);
+      }
+    }
+    if (length < payload.length()) {
+      builder.append("...[+").append(payload.length() - length).append(" chars]");
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Log a payload event at INFO level.
+   *
+   * @param logger the logger of the caller
+   * @param event the name of the event
+   * @param payload the payload
+   */
+  public static void info(org.slf4j.Logger logger, String event, String payload) {
+    if (logger.isInfoEnabled()) {
+      logger.info("{} size={} payload={}", event, size(payload), abbreviate(payload));
+    }
+    full(logger, event, payload);
+  }
+
+  /**
+   * Log a payload event at DEBUG level.
+   *
+   * @param logger the logger of the caller
+   * @param event the name of the event
+   * @param payload the payload
+   */
+  public static void debug(org.slf4j.Logger logger, String event, String payload) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{} size={} payload={}", event, size(payload), abbreviate(payload));
+    }
+    full(logger, event, payload);
+  }
+
+  private static void full(org.slf4j.Logger logger, String event, String payload) {
+    if (Payloads.isDebugEnabled()) {
+      Payloads.debug("{} source={} size={}\n{}", event, logger.getName(), size(payload), payload);
+    }
+  }
+
+  private static int size(String payload) {
+    return payload == null ? 0 : payload.length();
+  }
+
+}
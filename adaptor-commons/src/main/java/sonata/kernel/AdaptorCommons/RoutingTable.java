@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.AdaptorCommons;
+
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * Maps the topics an adaptor serves to the routes handling them. The adaptor queue is bound to
+ * exactly the request topics of the table and the reply queue to its reply topics, so the broker
+ * only delivers the messages the adaptor has a route for.
+ */
+public class RoutingTable {
+
+  private Hashtable<String, Route> routes;
+  private ArrayList<String> requestTopics;
+  private ArrayList<String> replyTopics;
+
+  public RoutingTable() {
+    this.routes = new Hashtable<String, Route>();
+    this.requestTopics = new ArrayList<String>();
+    this.replyTopics = new ArrayList<String>();
+  }
+
+  /**
+   * Route the requests published on a topic.
+   * 
+   * @param topic the topic of the requests, without wildcards
+   * @param route the route handling them
+   */
+  public void addRoute(String topic, Route route) {
+    if (routes.put(topic, route) == null) {
+      requestTopics.add(topic);
+    }
+  }
+
+  /**
+   * Route the replies to the requests of this adaptor published on a topic.
+   * 
+   * @param topic the topic set as reply-to in the requests, without wildcards
+   * @param route the route handling the replies
+   */
+  public void addReplyRoute(String topic, Route route) {
+    if (routes.put(topic, route) == null) {
+      replyTopics.add(topic);
+    }
+  }
+
+  /**
+   * Hand a message to the route of its topic.
+   * 
+   * @param message the message to route
+   * @return true if a route exists for the topic of the message, false otherwise
+   */
+  public boolean dispatch(ServicePlatformMessage message) {
+    Route route = routes.get(message.getTopic());
+    if (route == null) {
+      return false;
+    }
+    route.handle(message);
+    return true;
+  }
+
+  /**
+   * @param topic the topic of a message
+   * @return true if a route exists for the topic.
+   */
+  public boolean hasRoute(String topic) {
+    return routes.containsKey(topic);
+  }
+
+  /**
+   * @return the request topics, to be bound to the adaptor queue.
+   */
+  public ArrayList<String> getRequestTopics() {
+    return requestTopics;
+  }
+
+  /**
+   * @return the reply topics, to be bound to the reply queue.
+   */
+  public ArrayList<String> getReplyTopics() {
+    return replyTopics;
+  }
+
+  /**
+   * The handler of the messages published on a topic.
+   */
+  public interface Route {
+
+    /**
+     * Handle a message. It is called by a worker of the dispatcher lane serving the topic.
+     * 
+     * @param message the message to handle
+     */
+    public void handle(ServicePlatformMessage message);
+  }
+
+}
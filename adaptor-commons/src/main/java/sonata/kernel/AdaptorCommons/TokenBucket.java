@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket smoothing the calls made to an API. Tokens are refilled at a fixed rate up to the
+ * capacity of the bucket, and each call takes one. A call finding the bucket empty takes a token in
+ * advance and waits for the time it needs to be refilled, so the callers are released one after the
+ * other at the configured rate, in the order they arrived.
+ */
+public class TokenBucket {
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(TokenBucket.class);
+
+  private String name;
+  private double rate;
+  private int capacity;
+  private double tokens;
+  private long lastRefill;
+
+  private AtomicLong acquired = new AtomicLong();
+  private AtomicLong delayed = new AtomicLong();
+  private AtomicLong waitTime = new AtomicLong();
+  private AtomicLong maxWait = new AtomicLong();
+  private AtomicInteger queued = new AtomicInteger();
+
+  /**
+   * Create a token bucket, initially full.
+   *
+   * @param name the name of the bucket, used for logging
+   * @param rate the number of tokens refilled per second, 0 or less for no limit
+   * @param capacity the maximum number of tokens, i.e. the number of calls allowed in a burst
+   */
+  public TokenBucket(String name, double rate, int capacity) {
+    this.name = name;
+    this.lastRefill = System.nanoTime();
+    setRate(rate, capacity);
+  }
+
+  /**
+   * Change the rate and the capacity of the bucket. The calls already waiting are not affected.
+   *
+   * @param rate the number of tokens refilled per second, 0 or less for no limit
+   * @param capacity the maximum number of tokens, at least 1
+   */
+  public synchronized void setRate(double rate, int capacity) {
+    refill();
+    if (this.rate <= 0) {
+      this.tokens = capacity;
+    }
+    this.rate = rate;
+    this.capacity = Math.max(1, capacity);
+    this.tokens = Math.min(this.tokens, this.capacity);
+  }
+
+  /**
+   * Take a token, waiting for it to be refilled if the bucket is empty.
+   */
+  public void acquire() {
+    long wait = reserve();
+    acquired.incrementAndGet();
+    if (wait <= 0) {
+      return;
+    }
+    long waitMillis = TimeUnit.NANOSECONDS.toMillis(wait);
+    Logger.debug("Call to " + name + " delayed by " + waitMillis + " ms");
+    delayed.incrementAndGet();
+    queued.incrementAndGet();
+    try {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      queued.decrementAndGet();
+    }
+    waitTime.addAndGet(waitMillis);
+    long max = maxWait.get();
+    while (waitMillis > max && !maxWait.compareAndSet(max, waitMillis)) {
+      max = maxWait.get();
+    }
+  }
+
+  /**
+   * Take a token, possibly in advance.
+   *
+   * @return the time the caller has to wait before using the token, in nanoseconds
+   */
+  synchronized long reserve() {
+    if (rate <= 0) {
+      return 0;
+    }
+    refill();
+    tokens -= 1;
+    if (tokens >= 0) {
+      return 0;
+    }
+    return (long) (-tokens / rate * 1e9);
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    if (rate > 0) {
+      tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e9 * rate);
+    }
+    lastRefill = now;
+  }
+
+  /**
+   * @return the number of tokens refilled per second, 0 or less if the bucket does not limit calls.
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  /**
+   * @return the number of calls that took a token.
+   */
+  public long getAcquired() {
+    return acquired.get();
+  }
+
+  /**
+   * @return the number of calls that had to wait for a token.
+   */
+  public long getDelayed() {
+    return delayed.get();
+  }
+
+  /**
+   * @return the number of calls currently waiting for a token.
+   */
+  public int getQueued() {
+    return queued.get();
+  }
+
+  /**
+   * @return the total time spent by the calls waiting for a token, in milliseconds.
+   */
+  public long getWaitTime() {
+    return waitTime.get();
+  }
+
+  /**
+   * @return the longest time a call waited for a token, in milliseconds.
+   */
+  public long getMaxWait() {
+    return maxWait.get();
+  }
+
+  @Override
+  public String toString() {
+    return name + " - rate: " + getRate() + "/s - acquired: " + acquired + " - delayed: "
+        + delayed + " - queued: " + queued + " - wait: " + waitTime + " ms (max " + maxWait
+        + " ms)";
+  }
+
+}
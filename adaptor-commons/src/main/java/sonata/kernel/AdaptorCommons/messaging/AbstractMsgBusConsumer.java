@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.RoutingTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.BlockingQueue;
+
+public abstract class AbstractMsgBusConsumer implements MsgBusConsumer {
+
+  private BlockingQueue<ServicePlatformMessage> dispatcherQueue;
+  private String appId;
+  private ArrayList<String> topics;
+  private ArrayList<String> replyTopics;
+  private ArrayList<String> retiredTopics;
+  private Hashtable<String, ArrayList<String>> ignoredTopics;
+  private ArrayList<TrafficClass> trafficClasses;
+  private Hashtable<String, BlockingQueue<ServicePlatformMessage>> laneQueues;
+  private TransportMetrics metrics;
+
+  private static final String registerTopic = "platform.management.plugin.register";
+  private static final String deregisterTopic = "platform.management.plugin.deregister";
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(AbstractMsgBusConsumer.class);
+
+  /**
+   * Create a MsgBusConsumer.
+   * 
+   * @param dispatcherQueue the queue in which enqueue incoming messages
+   */
+  public AbstractMsgBusConsumer(BlockingQueue<ServicePlatformMessage> dispatcherQueue) {
+    this(dispatcherQueue, null);
+  }
+
+  /**
+   * Create a MsgBusConsumer that ignores the messages sent by the adaptor itself.
+   * 
+   * @param dispatcherQueue the queue in which enqueue incoming messages
+   * @param appId the application ID of the adaptor owning this consumer
+   */
+  public AbstractMsgBusConsumer(BlockingQueue<ServicePlatformMessage> dispatcherQueue,
+      String appId) {
+    this.dispatcherQueue = dispatcherQueue;
+    this.appId = appId;
+    this.topics = new ArrayList<String>();
+    this.topics.add(registerTopic);
+    this.topics.add(deregisterTopic);
+    this.replyTopics = new ArrayList<String>();
+    this.retiredTopics = new ArrayList<String>();
+    this.ignoredTopics = new Hashtable<String, ArrayList<String>>();
+    this.trafficClasses = new ArrayList<TrafficClass>();
+    this.laneQueues = new Hashtable<String, BlockingQueue<ServicePlatformMessage>>();
+    this.metrics = new TransportMetrics();
+  }
+
+  /**
+   * Subscribe to a topic. It must be called before connecting to the bus. The plug-in management
+   * topics are always subscribed.
+   * 
+   * @param topic the topic, or topic pattern, to subscribe to
+   */
+  public void addTopic(String topic) {
+    topics.add(topic);
+  }
+
+  /**
+   * @return the topics, or topic patterns, this consumer subscribes to.
+   */
+  public ArrayList<String> getTopics() {
+    return topics;
+  }
+
+  /**
+   * Subscribe to the topics of a routing table, in place of the plug-in management topics. The
+   * request topics are bound to the adaptor queue and the reply topics to a separate reply queue,
+   * so that the adaptor does not get back the requests it sends to the plug-in manager. It must be
+   * called before connecting to the bus.
+   * 
+   * @param table the routing table of the adaptor
+   */
+  public void subscribe(RoutingTable table) {
+    topics.remove(registerTopic);
+    topics.remove(deregisterTopic);
+    for (String topic : table.getRequestTopics()) {
+      if (!topics.contains(topic)) {
+        topics.add(topic);
+      }
+    }
+    for (String topic : table.getReplyTopics()) {
+      addReplyTopic(topic);
+    }
+  }
+
+  /**
+   * Receive the messages published on a topic from the reply queue. The reply queue is private to
+   * this consumer and deleted when it disconnects. It must be called before connecting to the bus.
+   * The requests of the adaptor with this topic as reply-to advertise gzip support.
+   * 
+   * @param topic the topic set as reply-to in the requests of the adaptor
+   */
+  public void addReplyTopic(String topic) {
+    if (!replyTopics.contains(topic)) {
+      replyTopics.add(topic);
+    }
+    PayloadCodec.getInstance().addReplyTopic(appId, topic);
+  }
+
+  /**
+   * @return the topics bound to the reply queue.
+   */
+  public ArrayList<String> getReplyTopics() {
+    return replyTopics;
+  }
+
+  /**
+   * Remove a binding left on the adaptor queue by a previous subscription. The adaptor queue is
+   * durable and keeps its bindings across restarts. It must be called before connecting to the bus.
+   * 
+   * @param topic the topic, or topic pattern, no longer subscribed
+   */
+  public void retireTopic(String topic) {
+    retiredTopics.add(topic);
+  }
+
+  /**
+   * @return the topics to be unbound from the adaptor queue: the retired topics that are not
+   *         subscribed again and the topics served by the lane of a traffic class.
+   */
+  public ArrayList<String> getRetiredTopics() {
+    ArrayList<String> defaultTopics = getLaneTopics(TrafficClass.DEFAULT);
+    ArrayList<String> out = new ArrayList<String>();
+    for (String topic : retiredTopics) {
+      if (!defaultTopics.contains(topic)) {
+        out.add(topic);
+      }
+    }
+    for (String topic : topics) {
+      if (!defaultTopics.contains(topic) && !out.contains(topic)) {
+        out.add(topic);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Serve the topics of a traffic class on their own lane. The messages of the class are received
+   * on a queue of their own and enqueued in the given dispatcher queue. It must be called before
+   * connecting to the bus.
+   * 
+   * @param trafficClass the traffic class
+   * @param queue the dispatcher queue of the lane
+   */
+  public void addLane(TrafficClass trafficClass, BlockingQueue<ServicePlatformMessage> queue) {
+    trafficClasses.add(trafficClass);
+    laneQueues.put(trafficClass.getName(), queue);
+  }
+
+  /**
+   * @return the traffic classes served by their own lane.
+   */
+  public ArrayList<TrafficClass> getTrafficClasses() {
+    return trafficClasses;
+  }
+
+  /**
+   * Return the subscribed topics served by a lane. A topic belongs to the first traffic class
+   * matching it, or to the default lane.
+   * 
+   * @param lane the name of the traffic class, or TrafficClass.DEFAULT
+   * @return the topics to be bound to the queue of the lane
+   */
+  public ArrayList<String> getLaneTopics(String lane) {
+    ArrayList<String> out = new ArrayList<String>();
+    for (String topic : topics) {
+      if (getLane(topic).equals(lane)) {
+        out.add(topic);
+      }
+    }
+    return out;
+  }
+
+  private String getLane(String topic) {
+    for (TrafficClass trafficClass : trafficClasses) {
+      if (trafficClass.matches(topic)) {
+        return trafficClass.getName();
+      }
+    }
+    return TrafficClass.DEFAULT;
+  }
+
+  /**
+   * Ignore the messages published by another application on the given topic.
+   * 
+   * @param senderAppId the application ID of the sender
+   * @param topic the topic of the messages to ignore
+   */
+  public void ignore(String senderAppId, String topic) {
+    ArrayList<String> topics = ignoredTopics.get(senderAppId);
+    if (topics == null) {
+      topics = new ArrayList<String>();
+      ignoredTopics.put(senderAppId, topics);
+    }
+    topics.add(topic);
+  }
+
+  public String getAppId() {
+    return appId;
+  }
+
+  public TransportMetrics getMetrics() {
+    return metrics;
+  }
+
+  private void enqueue(ServicePlatformMessage message) {
+    String lane = getLane(message.getTopic());
+    if (lane.equals(TrafficClass.DEFAULT)) {
+      dispatcherQueue.add(message);
+    } else {
+      laneQueues.get(lane).add(message);
+    }
+  }
+
+  /**
+   * Enqueue a message handed over in-process by another adaptor running in the same JVM, as if it
+   * had been received from the MsgBus.
+   * 
+   * @param message the message
+   * @return true if the message has been enqueued, false if the dispatcher queue is full
+   */
+  public boolean deliver(ServicePlatformMessage message) {
+    try {
+      this.enqueue(message);
+    } catch (IllegalStateException e) {
+      return false;
+    }
+    metrics.recordLocal();
+    return true;
+  }
+
+  /**
+   * process the message coming from the MsgBus and enqueue it towards the dispatcher lane of its
+   * topic.
+   * 
+   * @param message a string with the body of the message
+   * @param contentType the type of content
+   * @param topic from which the message has been received
+   * @param sid the session id of the message
+   * @param replyTo the topic to which reply
+   */
+  protected void processMessage(String message, String contentType, String topic, String sid,
+      String replyTo) {
+
+    ServicePlatformMessage spMessage =
+        new ServicePlatformMessage(message, contentType, topic, sid, replyTo);
+    this.enqueue(spMessage);
+  }
+
+  /**
+   * Process a delivery in wire format. The payload is decoded and, unless it comes from this
+   * adaptor or from an ignored sender, enqueued towards the dispatcher. The delivery is
+   * acknowledged to the broker by the dispatcher lane, once the message has been handled, so the
+   * prefetch of the channel bounds the messages waiting or being handled. Ignored deliveries are
+   * acknowledged at once, and deliveries that cannot be decoded or enqueued are rejected.
+   * 
+   * @param source the lane, or queue, the delivery has been received from
+   * @param deliveryTag the tag identifying the delivery on its channel
+   * @param topic the routing key of the delivery
+   * @param properties the AMQP properties of the delivery, can be null
+   * @param body the raw payload
+   */
+  protected void handleDelivery(final String source, final long deliveryTag, String topic,
+      BasicProperties properties, byte[] body) {
+    metrics.recordConsumed(body.length);
+    String message;
+    try {
+      message = PayloadCodec.decode(body, properties == null ? null
+          : properties.getContentEncoding());
+    } catch (IOException e) {
+      Logger.error("Unable to decode message on " + topic + ": " + e.getMessage(), e);
+      metrics.recordRejected();
+      reject(source, deliveryTag, false);
+      return;
+    }
+    String sender = properties == null ? null : properties.getAppId();
+    if (sender == null || sender.equals(appId)) {
+      Logger.info("Message ignored: " + properties);
+      metrics.recordIgnored();
+    } else if (ignoredTopics.containsKey(sender) && ignoredTopics.get(sender).contains(topic)) {
+      Logger.info("Ignoring message from " + sender + " on " + topic);
+      metrics.recordIgnored();
+    } else {
+      PayloadCodec.getInstance().trackSession(properties.getCorrelationId(),
+          properties.getReplyTo(), properties.getHeaders());
+      Logger.info("Received message on " + topic);
+      ServicePlatformMessage spMessage = new ServicePlatformMessage(message,
+          properties.getContentType(), topic, properties.getCorrelationId(),
+          properties.getReplyTo());
+      spMessage.setAcknowledgement(new Runnable() {
+        @Override
+        public void run() {
+          metrics.recordAcked();
+          acknowledge(source, deliveryTag);
+        }
+      });
+      try {
+        this.enqueue(spMessage);
+      } catch (IllegalStateException e) {
+        Logger.error("Dispatcher queue full, returning message on " + topic + " to the broker");
+        reject(source, deliveryTag, true);
+      }
+      return;
+    }
+    metrics.recordAcked();
+    acknowledge(source, deliveryTag);
+  }
+
+  /**
+   * Acknowledge a delivery to the broker. Transports without acknowledgements do nothing.
+   * 
+   * @param source the lane, or queue, the delivery has been received from
+   * @param deliveryTag the tag identifying the delivery on its channel
+   */
+  protected void acknowledge(String source, long deliveryTag) {
+    // Nothing to do without a broker.
+  }
+
+  /**
+   * Reject a delivery. Transports without acknowledgements do nothing.
+   * 
+   * @param source the lane, or queue, the delivery has been received from
+   * @param deliveryTag the tag identifying the delivery on its channel
+   * @param requeue true if the broker should deliver the message again
+   */
+  protected void reject(String source, long deliveryTag, boolean requeue) {
+    // Nothing to do without a broker.
+  }
+
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the outgoing messages from the mux queue and publishes them on parallel lanes. The
+ * messages of a session are always published on the same lane, chosen by hashing the session ID,
+ * so they reach the MsgBus in the order they have been queued. The plug-in management messages
+ * (registration and heart-beats) have a priority lane of their own and do not wait behind the
+ * responses.
+ */
+public abstract class AbstractMsgBusProducer implements MsgBusProducer, Runnable {
+
+  public static final int PRIORITY_LANE = 0;
+  public static final int DEFAULT_SESSION_LANES = 1;
+
+  private BlockingQueue<ServicePlatformMessage> muxQueue;
+  private String appId;
+  private TransportMetrics metrics;
+  private Thread thread;
+  private volatile boolean stop = false;
+  private volatile boolean stopLanes = false;
+  private int sessionLanes;
+  private ArrayList<BlockingDeque<ServicePlatformMessage>> laneQueues;
+  private ArrayList<Thread> laneThreads;
+
+  private static final long pollTimeout = 100;
+  private static final String priorityTopicPrefix = "platform.management.plugin.";
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(AbstractMsgBusProducer.class);
+
+  public AbstractMsgBusProducer(BlockingQueue<ServicePlatformMessage> muxQueue) {
+    this(muxQueue, null);
+  }
+
+  /**
+   * Create a MsgBusProducer that tags the outgoing messages with the application ID of the
+   * adaptor.
+   * 
+   * @param muxQueue the queue from which de-queue outgoing messages
+   * @param appId the application ID of the adaptor owning this producer
+   */
+  public AbstractMsgBusProducer(BlockingQueue<ServicePlatformMessage> muxQueue, String appId) {
+    this.muxQueue = muxQueue;
+    this.appId = appId;
+    this.metrics = new TransportMetrics();
+    this.sessionLanes = DEFAULT_SESSION_LANES;
+    this.laneQueues = new ArrayList<BlockingDeque<ServicePlatformMessage>>();
+    this.laneThreads = new ArrayList<Thread>();
+  }
+
+  public String getAppId() {
+    return appId;
+  }
+
+  public TransportMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set the number of lanes the sessions are spread over, besides the priority lane. It must be
+   * called before starting to produce.
+   * 
+   * @param sessionLanes the number of session lanes, at least 1
+   */
+  public void setSessionLanes(int sessionLanes) {
+    if (sessionLanes < 1) {
+      throw new IllegalArgumentException("At least one session lane is needed");
+    }
+    this.sessionLanes = sessionLanes;
+  }
+
+  public int getSessionLanes() {
+    return sessionLanes;
+  }
+
+  /**
+   * Return the lane a message is published on: the priority lane for the plug-in management
+   * topics, otherwise a session lane chosen by the session ID.
+   * 
+   * @param message the message to publish
+   * @return the index of the lane, PRIORITY_LANE or between 1 and the number of session lanes
+   */
+  public int getLane(ServicePlatformMessage message) {
+    String topic = message.getTopic();
+    if (topic != null && topic.startsWith(priorityTopicPrefix)) {
+      return PRIORITY_LANE;
+    }
+    String sid = message.getSid();
+    int hash = sid == null ? 0 : sid.hashCode() & Integer.MAX_VALUE;
+    return 1 + hash % sessionLanes;
+  }
+
+  /**
+   * Send a message in the MsgBus. It is called concurrently by the lanes, but never concurrently
+   * for the same lane.
+   * 
+   * @param message the SP message to send
+   */
+  public abstract boolean sendMessage(ServicePlatformMessage message);
+
+  /**
+   * Put a message back at the head of its lane, to be sent again before the newer messages of its
+   * session. Messages put back once the lanes have stopped are not sent and count as failed.
+   * 
+   * @param message the SP message to send again
+   * @return true if the message has been enqueued
+   */
+  protected boolean requeue(ServicePlatformMessage message) {
+    if (stopLanes) {
+      Logger.error("Producer stopped, unable to send again: " + message.getTopic() + " - sid: "
+          + message.getSid());
+      metrics.recordFailed();
+      return false;
+    }
+    metrics.recordRepublished();
+    laneQueues.get(getLane(message)).addFirst(message);
+    return true;
+  }
+
+  /**
+   * Wait for the messages already handed to the MsgBus to be accepted by it. Transports that do
+   * not buffer messages return immediately.
+   */
+  protected void flush() {
+    // Nothing buffered.
+  }
+
+  /**
+   * Start consuming SP messages from the mux queue.
+   */
+  public boolean startProducing() {
+    boolean out = true;
+    laneQueues.clear();
+    laneThreads.clear();
+    for (int lane = 0; lane <= sessionLanes; lane++) {
+      final BlockingDeque<ServicePlatformMessage> laneQueue =
+          new LinkedBlockingDeque<ServicePlatformMessage>();
+      laneQueues.add(laneQueue);
+      laneThreads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          publish(laneQueue);
+        }
+      }, "producer-lane-" + lane));
+    }
+    thread = new Thread(this);
+    try {
+      for (Thread laneThread : laneThreads) {
+        laneThread.start();
+      }
+      thread.start();
+    } catch (Exception e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    }
+    return out;
+  }
+
+  /**
+   * Stop consuming SP messages from the mux queue. The messages already queued are sent, and the
+   * ones the MsgBus refuses while stopping count as failed.
+   */
+  public boolean stopProducing() {
+    boolean out = true;
+    waitUntilEmpty(muxQueue);
+    this.stop = true;
+    join(thread);
+    for (BlockingQueue<ServicePlatformMessage> laneQueue : laneQueues) {
+      waitUntilEmpty(laneQueue);
+    }
+    this.stopLanes = true;
+    for (Thread laneThread : laneThreads) {
+      join(laneThread);
+    }
+    this.flush();
+    // Messages put back just before the lanes stopped.
+    for (BlockingQueue<ServicePlatformMessage> laneQueue : laneQueues) {
+      ServicePlatformMessage message;
+      while ((message = laneQueue.poll()) != null) {
+        Logger.error("Producer stopped, unable to send again: " + message.getTopic() + " - sid: "
+            + message.getSid());
+        metrics.recordFailed();
+        out = false;
+      }
+    }
+    Logger.info("Producer stopped - " + metrics);
+    return out;
+  }
+
+  @Override
+  public void run() {
+    do {
+      try {
+        ServicePlatformMessage message = muxQueue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+        if (message != null) {
+          laneQueues.get(getLane(message)).add(message);
+        }
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    } while (!stop);
+  }
+
+  private void publish(BlockingQueue<ServicePlatformMessage> laneQueue) {
+    do {
+      try {
+        ServicePlatformMessage message = laneQueue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+        if (message != null) {
+          this.sendMessage(message);
+        }
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    } while (!stopLanes);
+  }
+
+  private void waitUntilEmpty(BlockingQueue<ServicePlatformMessage> queue) {
+    while (!queue.isEmpty()) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    }
+  }
+
+  private void join(Thread thread) {
+    if (thread != null) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    }
+  }
+
+}
@@ -24,26 +24,20 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.messaging;
-
-import java.io.IOException;
-
-import org.slf4j.LoggerFactory;
+package sonata.kernel.AdaptorCommons.messaging;
 
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 
-import sonata.kernel.WimAdaptor.WimAdaptorCore;
+import java.io.IOException;
 
 
 public class AdaptorDefaultConsumer extends DefaultConsumer {
 
-  private static final org.slf4j.Logger Logger =
-      LoggerFactory.getLogger(AdaptorDefaultConsumer.class);
-
-  private RabbitMqConsumer msgBusConsumer;
+  private AbstractMsgBusConsumer msgBusConsumer;
+  private String lane;
 
   /**
    * Create a RabbitMq consumer for the MsgBus plug-in.
@@ -51,25 +45,29 @@ public class AdaptorDefaultConsumer extends DefaultConsumer {
    * @param channel the RabbitMQ channel for this consumer
    * @param msgBusConsumer the Adaptor consumer, responsible for msg processing and queuing.
    */
-  public AdaptorDefaultConsumer(Channel channel, RabbitMqConsumer msgBusConsumer) {
+  public AdaptorDefaultConsumer(Channel channel, AbstractMsgBusConsumer msgBusConsumer) {
+    this(channel, msgBusConsumer, TrafficClass.DEFAULT);
+  }
+
+  /**
+   * Create a RabbitMq consumer for a lane of the MsgBus plug-in.
+   * 
+   * @param channel the RabbitMQ channel of the lane
+   * @param msgBusConsumer the Adaptor consumer, responsible for msg processing and queuing.
+   * @param lane the name of the traffic class served on the channel
+   */
+  public AdaptorDefaultConsumer(Channel channel, AbstractMsgBusConsumer msgBusConsumer,
+      String lane) {
     super(channel);
     this.msgBusConsumer = msgBusConsumer;
+    this.lane = lane;
   }
 
   @Override
   public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties,
       byte[] body) throws IOException {
-    String message = new String(body, "UTF-8");
-    // System.out
-    // .println(" [northbound] Received message:" + message + " on " + envelope.getRoutingKey());
-    Logger.info("Received message on " + envelope.getRoutingKey());
-    if (properties != null && properties.getAppId() != null
-        && !properties.getAppId().equals(WimAdaptorCore.APP_ID)) {
-      this.msgBusConsumer.processMessage(message, properties.getContentType(),
-          envelope.getRoutingKey(), properties.getCorrelationId(), properties.getReplyTo());
-    } else {
-      Logger.info("Message ignored: " + properties);
-    }
+    msgBusConsumer.handleDelivery(lane, envelope.getDeliveryTag(), envelope.getRoutingKey(),
+        properties, body);
   }
 
 }
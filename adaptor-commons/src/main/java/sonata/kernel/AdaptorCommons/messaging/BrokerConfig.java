@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * The configuration of the connection to the MsgBus broker, shared by the producer and the
+ * consumer of an adaptor. Only broker_url and exchange are mandatory in the configuration file.
+ */
+public class BrokerConfig {
+
+  public static final String DEFAULT_PATH = "/etc/son-mano/broker.config";
+  public static final int DEFAULT_PREFETCH = 64;
+  public static final long DEFAULT_CONFIRM_TIMEOUT = 30000;
+  public static final int DEFAULT_PRODUCER_LANES = 4;
+
+  private String brokerUrl;
+  private String exchange;
+  private int compressionThreshold;
+  private ArrayList<String> compressedTopics;
+  private int prefetch;
+  private boolean publisherConfirms;
+  private long confirmTimeout;
+  private int producerLanes;
+  private ArrayList<TrafficClass> trafficClasses;
+
+  /**
+   * Create a configuration with the default tuning.
+   * 
+   * @param brokerUrl the AMQP URI of the broker
+   * @param exchange the name of the topic exchange of the Service Platform
+   */
+  public BrokerConfig(String brokerUrl, String exchange) {
+    this.brokerUrl = brokerUrl;
+    this.exchange = exchange;
+    this.compressionThreshold = PayloadCodec.DISABLED;
+    this.compressedTopics = new ArrayList<String>();
+    this.prefetch = DEFAULT_PREFETCH;
+    this.publisherConfirms = true;
+    this.confirmTimeout = DEFAULT_CONFIRM_TIMEOUT;
+    this.producerLanes = DEFAULT_PRODUCER_LANES;
+    this.trafficClasses = new ArrayList<TrafficClass>();
+  }
+
+  /**
+   * Load the broker configuration from the default location.
+   * 
+   * @return the configuration
+   * @throws IOException if the file cannot be read or is not valid
+   */
+  public static BrokerConfig load() throws IOException {
+    return load(DEFAULT_PATH);
+  }
+
+  /**
+   * Load the broker configuration from a JSON file.
+   * 
+   * @param path the path of the configuration file
+   * @return the configuration
+   * @throws IOException if the file cannot be read or is not valid
+   */
+  public static BrokerConfig load(String path) throws IOException {
+    InputStreamReader in =
+        new InputStreamReader(new FileInputStream(path), Charset.forName("UTF-8"));
+    try {
+      return parse((JSONObject) new JSONTokener(in).nextValue());
+    } catch (JSONException | ClassCastException e) {
+      throw new IOException("Invalid broker configuration in " + path + ": " + e.getMessage(), e);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Build the broker configuration from its JSON representation.
+   * 
+   * @param jsonObject the JSON configuration
+   * @return the configuration
+   */
+  public static BrokerConfig parse(JSONObject jsonObject) {
+    BrokerConfig config =
+        new BrokerConfig(jsonObject.getString("broker_url"), jsonObject.getString("exchange"));
+    config.compressionThreshold =
+        jsonObject.optInt("compression_threshold", PayloadCodec.DISABLED);
+    JSONArray topics = jsonObject.optJSONArray("compressed_topics");
+    if (topics != null) {
+      for (int i = 0; i < topics.length(); i++) {
+        config.compressedTopics.add(topics.getString(i));
+      }
+    }
+    config.prefetch = jsonObject.optInt("prefetch", DEFAULT_PREFETCH);
+    config.publisherConfirms = jsonObject.optBoolean("publisher_confirms", true);
+    config.confirmTimeout = jsonObject.optLong("confirm_timeout", DEFAULT_CONFIRM_TIMEOUT);
+    config.producerLanes = jsonObject.optInt("producer_lanes", DEFAULT_PRODUCER_LANES);
+    JSONArray classes = jsonObject.optJSONArray("traffic_classes");
+    if (classes != null) {
+      for (int i = 0; i < classes.length(); i++) {
+        config.trafficClasses.add(TrafficClass.parse(classes.getJSONObject(i)));
+      }
+    }
+    return config;
+  }
+
+  public String getBrokerUrl() {
+    return brokerUrl;
+  }
+
+  public String getExchange() {
+    return exchange;
+  }
+
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public ArrayList<String> getCompressedTopics() {
+    return compressedTopics;
+  }
+
+  /**
+   * @return the maximum number of unacknowledged deliveries the broker pushes to a consumer.
+   */
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  public void setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  /**
+   * @return true if the producer asks the broker to confirm every published message.
+   */
+  public boolean isPublisherConfirms() {
+    return publisherConfirms;
+  }
+
+  public void setPublisherConfirms(boolean publisherConfirms) {
+    this.publisherConfirms = publisherConfirms;
+  }
+
+  /**
+   * @return the time in milliseconds to wait for the outstanding confirms when stopping.
+   */
+  public long getConfirmTimeout() {
+    return confirmTimeout;
+  }
+
+  public void setConfirmTimeout(long confirmTimeout) {
+    this.confirmTimeout = confirmTimeout;
+  }
+
+  /**
+   * @return the number of parallel lanes, each with its own channel, the producer spreads the
+   *         sessions over.
+   */
+  public int getProducerLanes() {
+    return producerLanes;
+  }
+
+  public void setProducerLanes(int producerLanes) {
+    this.producerLanes = producerLanes;
+  }
+
+  /**
+   * @return the traffic classes served by their own lane, in order of precedence.
+   */
+  public ArrayList<TrafficClass> getTrafficClasses() {
+    return trafficClasses;
+  }
+
+}
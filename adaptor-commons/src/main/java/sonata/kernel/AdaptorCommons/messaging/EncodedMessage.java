@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A Service Platform message in its wire format: the AMQP properties and the, possibly compressed,
+ * payload. Both the RabbitMQ and the in-memory transports publish messages in this form, so they
+ * encode and decode them in exactly the same way.
+ */
+public class EncodedMessage {
+
+  private String topic;
+  private BasicProperties properties;
+  private byte[] body;
+  private int uncompressedSize;
+
+  /**
+   * Wrap a message already in wire format.
+   * 
+   * @param topic the routing key of the message
+   * @param properties the AMQP properties of the message
+   * @param body the payload of the message
+   */
+  public EncodedMessage(String topic, BasicProperties properties, byte[] body) {
+    this.topic = topic;
+    this.properties = properties;
+    this.body = body;
+    this.uncompressedSize = body.length;
+  }
+
+  /**
+   * Serialize a Service Platform message, compressing its payload if the PayloadCodec says so.
+   * 
+   * @param message the message to encode
+   * @param appId the application ID of the sender
+   * @return the encoded message
+   * @throws IOException if the payload of the message cannot be serialized
+   */
+  public static EncodedMessage encode(ServicePlatformMessage message, String appId)
+      throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    message.writeBody(buffer);
+    byte[] payload = buffer.toByteArray();
+    int uncompressedSize = payload.length;
+    String contentEncoding = null;
+    if (PayloadCodec.getInstance().shouldCompress(message, payload.length)) {
+      payload = PayloadCodec.compress(payload);
+      contentEncoding = PayloadCodec.GZIP;
+    }
+    Map<String, Object> headers = new HashMap<String, Object>();
+    if (PayloadCodec.getInstance().acceptsReplies(message, appId)) {
+      headers.put(PayloadCodec.ACCEPT_ENCODING_HEADER, PayloadCodec.GZIP);
+    }
+    BasicProperties properties = new BasicProperties().builder().appId(appId)
+        .contentType(message.getContentType()).contentEncoding(contentEncoding).headers(headers)
+        .replyTo(message.getReplyTo()).correlationId(message.getSid()).build();
+    EncodedMessage encoded = new EncodedMessage(message.getTopic(), properties, payload);
+    encoded.uncompressedSize = uncompressedSize;
+    return encoded;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public BasicProperties getProperties() {
+    return properties;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  /**
+   * @return the size of the payload before compression.
+   */
+  public int getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+}
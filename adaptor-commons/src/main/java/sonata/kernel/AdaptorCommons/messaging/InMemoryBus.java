@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process replacement of the RabbitMQ broker, with a single topic exchange. Queues are bound
+ * to topic patterns with the AMQP semantics, deliveries stay unacknowledged until the consumer
+ * acknowledges or rejects them, and messages travel in the same wire format used on RabbitMQ. It
+ * is meant to run the adaptors and their tests without a broker.
+ */
+public class InMemoryBus {
+
+  private Hashtable<String, InMemoryQueue> queues;
+  private AtomicLong nextDeliveryTag;
+
+  public InMemoryBus() {
+    this.queues = new Hashtable<String, InMemoryQueue>();
+    this.nextDeliveryTag = new AtomicLong(0);
+  }
+
+  /**
+   * Declare a queue. Declaring an existing queue has no effect.
+   * 
+   * @param queueName the name of the queue
+   */
+  public synchronized void declareQueue(String queueName) {
+    if (!queues.containsKey(queueName)) {
+      queues.put(queueName, new InMemoryQueue());
+    }
+  }
+
+  /**
+   * Bind a queue to a topic pattern.
+   * 
+   * @param queueName the name of the queue, it must have been declared
+   * @param pattern the topic pattern, where * matches one word and # zero or more words
+   */
+  public synchronized void bind(String queueName, String pattern) {
+    getQueue(queueName).patterns.add(pattern);
+  }
+
+  /**
+   * Remove a binding of a queue. Removing a binding that does not exist has no effect.
+   * 
+   * @param queueName the name of the queue, it must have been declared
+   * @param pattern the topic pattern
+   */
+  public synchronized void unbind(String queueName, String pattern) {
+    getQueue(queueName).patterns.remove(pattern);
+  }
+
+  /**
+   * Route a message to all the queues bound to its topic. A queue receives a single copy of the
+   * message even if more than one of its bindings match.
+   * 
+   * @param message the message to publish
+   * @return the number of queues the message has been routed to
+   */
+  public int publish(EncodedMessage message) {
+    ArrayList<InMemoryQueue> targets = new ArrayList<InMemoryQueue>();
+    synchronized (this) {
+      for (InMemoryQueue queue : queues.values()) {
+        for (String pattern : queue.patterns) {
+          if (TopicPattern.matches(pattern, message.getTopic())) {
+            targets.add(queue);
+            break;
+          }
+        }
+      }
+    }
+    for (InMemoryQueue queue : targets) {
+      queue.ready.add(new Delivery(nextDeliveryTag.incrementAndGet(), message, false));
+    }
+    return targets.size();
+  }
+
+  /**
+   * Take the next delivery from a queue. The delivery stays unacknowledged until it is acknowledged
+   * or rejected.
+   * 
+   * @param queueName the name of the queue
+   * @param timeout the maximum time to wait for a delivery, in milliseconds
+   * @return the delivery, or null if the queue is still empty after the timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public Delivery take(String queueName, long timeout) throws InterruptedException {
+    InMemoryQueue queue = getQueue(queueName);
+    Delivery delivery = queue.ready.poll(timeout, TimeUnit.MILLISECONDS);
+    if (delivery != null) {
+      queue.unacked.put(delivery.getDeliveryTag(), delivery);
+    }
+    return delivery;
+  }
+
+  /**
+   * Acknowledge a delivery, removing it from the queue.
+   * 
+   * @param queueName the name of the queue
+   * @param deliveryTag the tag of the delivery
+   */
+  public void ack(String queueName, long deliveryTag) {
+    getQueue(queueName).unacked.remove(deliveryTag);
+  }
+
+  /**
+   * Reject a delivery, either discarding it or putting it back in the queue.
+   * 
+   * @param queueName the name of the queue
+   * @param deliveryTag the tag of the delivery
+   * @param requeue true to deliver the message again
+   */
+  public void reject(String queueName, long deliveryTag, boolean requeue) {
+    InMemoryQueue queue = getQueue(queueName);
+    Delivery delivery = queue.unacked.remove(deliveryTag);
+    if (delivery != null && requeue) {
+      queue.ready.add(new Delivery(nextDeliveryTag.incrementAndGet(), delivery.getMessage(), true));
+    }
+  }
+
+  /**
+   * @param queueName the name of the queue
+   * @return the number of messages waiting to be delivered.
+   */
+  public int getReadyCount(String queueName) {
+    return getQueue(queueName).ready.size();
+  }
+
+  /**
+   * @param queueName the name of the queue
+   * @return the number of messages delivered and not yet acknowledged.
+   */
+  public int getUnackedCount(String queueName) {
+    return getQueue(queueName).unacked.size();
+  }
+
+  private synchronized InMemoryQueue getQueue(String queueName) {
+    InMemoryQueue queue = queues.get(queueName);
+    if (queue == null) {
+      throw new IllegalArgumentException("Queue " + queueName + " not declared");
+    }
+    return queue;
+  }
+
+  /**
+   * A message delivered to a queue.
+   */
+  public static class Delivery {
+
+    private long deliveryTag;
+    private EncodedMessage message;
+    private boolean redelivered;
+
+    private Delivery(long deliveryTag, EncodedMessage message, boolean redelivered) {
+      this.deliveryTag = deliveryTag;
+      this.message = message;
+      this.redelivered = redelivered;
+    }
+
+    public long getDeliveryTag() {
+      return deliveryTag;
+    }
+
+    public EncodedMessage getMessage() {
+      return message;
+    }
+
+    public boolean isRedelivered() {
+      return redelivered;
+    }
+  }
+
+  private static class InMemoryQueue {
+
+    private ArrayList<String> patterns = new ArrayList<String>();
+    private LinkedBlockingQueue<Delivery> ready = new LinkedBlockingQueue<Delivery>();
+    private ConcurrentHashMap<Long, Delivery> unacked = new ConcurrentHashMap<Long, Delivery>();
+  }
+
+}
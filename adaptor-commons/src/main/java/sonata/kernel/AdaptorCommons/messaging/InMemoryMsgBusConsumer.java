@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A MsgBusConsumer reading the adaptor queue of an InMemoryBus. The reply topics are bound to a
+ * second queue, named after the adaptor queue, and each traffic class to a queue of its own, every
+ * queue being read by its own thread. As on the broker, a queue is not read while "prefetch" of
+ * its deliveries are waiting to be acknowledged.
+ */
+public class InMemoryMsgBusConsumer extends AbstractMsgBusConsumer
+    implements MsgBusConsumer, Runnable {
+
+  private static final long pollTimeout = 100;
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(InMemoryMsgBusConsumer.class);
+
+  private InMemoryBus bus;
+  private String queueName;
+  private String replyQueueName;
+  private Thread thread;
+  private ArrayList<Thread> laneThreads;
+  private volatile boolean stop;
+  private int prefetch;
+
+  /**
+   * Create a consumer for an adaptor queue on the in-memory bus.
+   * 
+   * @param dispatcherQueue the queue in which enqueue incoming messages
+   * @param appId the application ID of the adaptor, whose own messages are ignored
+   * @param queueName the name of the adaptor queue
+   * @param bus the bus to consume from
+   */
+  public InMemoryMsgBusConsumer(BlockingQueue<ServicePlatformMessage> dispatcherQueue,
+      String appId, String queueName, InMemoryBus bus) {
+    super(dispatcherQueue, appId);
+    this.queueName = queueName;
+    this.replyQueueName = queueName + ".reply";
+    this.bus = bus;
+    this.laneThreads = new ArrayList<Thread>();
+    this.prefetch = BrokerConfig.DEFAULT_PREFETCH;
+  }
+
+  /**
+   * Set the unacknowledged deliveries in flight on the adaptor and reply queues. The queue of a
+   * traffic class uses the prefetch of the class, if any.
+   * 
+   * @param prefetch the maximum number of unacknowledged deliveries
+   */
+  public void setPrefetch(int prefetch) {
+    this.prefetch = prefetch;
+  }
+
+  @Override
+  public void connectToBus() throws IOException {
+    bus.declareQueue(queueName);
+    for (String topic : getLaneTopics(TrafficClass.DEFAULT)) {
+      bus.bind(queueName, topic);
+    }
+    for (String topic : getRetiredTopics()) {
+      bus.unbind(queueName, topic);
+    }
+    if (!getReplyTopics().isEmpty()) {
+      bus.declareQueue(replyQueueName);
+      for (String topic : getReplyTopics()) {
+        bus.bind(replyQueueName, topic);
+      }
+    }
+    for (TrafficClass trafficClass : getTrafficClasses()) {
+      String laneQueueName = getLaneQueueName(trafficClass);
+      bus.declareQueue(laneQueueName);
+      for (String topic : getLaneTopics(trafficClass.getName())) {
+        bus.bind(laneQueueName, topic);
+      }
+    }
+  }
+
+  /**
+   * Return the name of the queue of a traffic class.
+   * 
+   * @param trafficClass the traffic class
+   * @return the name of the queue, after the adaptor queue
+   */
+  public String getLaneQueueName(TrafficClass trafficClass) {
+    return queueName + "." + trafficClass.getName();
+  }
+
+  @Override
+  public boolean startConsuming() {
+    stop = false;
+    thread = new Thread(this);
+    thread.start();
+    laneThreads.clear();
+    if (!getReplyTopics().isEmpty()) {
+      startLaneThread(replyQueueName, prefetch);
+    }
+    for (TrafficClass trafficClass : getTrafficClasses()) {
+      startLaneThread(getLaneQueueName(trafficClass),
+          trafficClass.getPrefetch() > 0 ? trafficClass.getPrefetch() : prefetch);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean stopConsuming() {
+    stop = true;
+    if (thread != null) {
+      try {
+        thread.join();
+        for (Thread laneThread : laneThreads) {
+          laneThread.join();
+        }
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void run() {
+    consume(queueName, prefetch);
+  }
+
+  private void startLaneThread(final String queue, final int queuePrefetch) {
+    Thread laneThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        consume(queue, queuePrefetch);
+      }
+    });
+    laneThreads.add(laneThread);
+    laneThread.start();
+  }
+
+  private void consume(String queue, int queuePrefetch) {
+    while (!stop) {
+      try {
+        if (bus.getUnackedCount(queue) >= queuePrefetch) {
+          Thread.sleep(pollTimeout / 10);
+          continue;
+        }
+        InMemoryBus.Delivery delivery = bus.take(queue, pollTimeout);
+        if (delivery != null) {
+          EncodedMessage message = delivery.getMessage();
+          handleDelivery(queue, delivery.getDeliveryTag(), message.getTopic(),
+              message.getProperties(), message.getBody());
+        }
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    }
+  }
+
+  @Override
+  protected void acknowledge(String source, long deliveryTag) {
+    bus.ack(source, deliveryTag);
+  }
+
+  @Override
+  protected void reject(String source, long deliveryTag, boolean requeue) {
+    bus.reject(source, deliveryTag, requeue);
+  }
+
+}
@@ -24,73 +24,55 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.messaging;
-
-import java.util.concurrent.BlockingQueue;
+package sonata.kernel.AdaptorCommons.messaging;
 
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
 
-public abstract class AbstractMsgBusProducer implements MsgBusProducer, Runnable {
+/**
+ * A MsgBusProducer publishing on an InMemoryBus. Messages are encoded exactly as on RabbitMQ and
+ * are confirmed as soon as they are routed.
+ */
+public class InMemoryMsgBusProducer extends AbstractMsgBusProducer {
 
   private static final org.slf4j.Logger Logger =
-      LoggerFactory.getLogger(AbstractMsgBusProducer.class);
+      LoggerFactory.getLogger(InMemoryMsgBusProducer.class);
 
-  private BlockingQueue<ServicePlatformMessage> muxQueue;
-  private boolean stop = false;
-
-  public AbstractMsgBusProducer(BlockingQueue<ServicePlatformMessage> muxQueue) {
-    this.muxQueue = muxQueue;
-  }
+  private InMemoryBus bus;
 
   /**
-   * Send a message in the MsgBus.
+   * Create a producer on the in-memory bus.
    * 
-   * @param the SP message to send
-   */
-  public abstract boolean sendMessage(ServicePlatformMessage message);
-
-
-  /**
-   * Start consuming SP messages from the mux queue.
+   * @param muxQueue the queue from which de-queue outgoing messages
+   * @param appId the application ID the outgoing messages are tagged with
+   * @param bus the bus to publish on
    */
-  public boolean startProducing() {
-    boolean out = true;
-    Thread thread = new Thread(this);
-    try {
-      thread.start();
-    } catch (Exception e) {
-      Logger.error(e.getMessage(), e);
-      out = false;
-    }
-    return out;
+  public InMemoryMsgBusProducer(BlockingQueue<ServicePlatformMessage> muxQueue, String appId,
+      InMemoryBus bus) {
+    super(muxQueue, appId);
+    this.bus = bus;
   }
 
-  /**
-   * Stop consuming SP messages from the mux queue.
-   */
-  public boolean stopProducing() {
-    boolean out = true;
-    while (!muxQueue.isEmpty()) {
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException e) {
-        Logger.error(e.getMessage(), e);
-      }
-    }
-    this.stop = true;
-    return out;
+  @Override
+  public void connectToBus() throws IOException {
+    // Nothing to connect to.
   }
 
   @Override
-  public void run() {
-    do {
-      try {
-        this.sendMessage(muxQueue.take());
-      } catch (InterruptedException e) {
-        Logger.error(e.getMessage(), e);
-      }
-    } while (!stop);
+  public boolean sendMessage(ServicePlatformMessage message) {
+    try {
+      EncodedMessage encoded = EncodedMessage.encode(message, getAppId());
+      bus.publish(encoded);
+      getMetrics().recordPublished(encoded.getBody().length, encoded.getUncompressedSize());
+      getMetrics().recordConfirmed(1);
+      return true;
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+      getMetrics().recordFailed();
+      return false;
+    }
   }
 
 }
@@ -24,29 +24,22 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.messaging;
+package sonata.kernel.AdaptorCommons.messaging;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
- * This is the interface to implement for any implementation of a Message bus consumer.
+ * A message body that is serialized on demand, directly into the stream that carries it.
  */
-public interface MsgBusConsumer {
+public interface MessagePayload {
 
   /**
-   * Connect to the Message Bus.
+   * Write the UTF-8 encoded body into the given stream.
+   * 
+   * @param out the stream to write into, not closed by this method
+   * @throws IOException if the body cannot be serialized or written
    */
-  public void connectToBus() throws IOException;
-
-  /**
-   * Start consuming messages from the bus and queuing them in the dispatcher queue.
-   */
-  public boolean startConsuming();
-
-  /**
-   * Stop consuming messages.
-   */
-  public boolean stopConsuming();
-  // TODO still not sure what is needed in this interface
+  public void writeTo(OutputStream out) throws IOException;
 
 }
@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.messaging;
+package sonata.kernel.AdaptorCommons.messaging;
 
 import java.io.IOException;
 
@@ -24,29 +24,28 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.vnfd;
+package sonata.kernel.AdaptorCommons.messaging;
 
-public class FsmOption {
+/**
+ * A message payload serialized from an object. The object is serialized only when the message
+ * leaves the JVM: an adaptor receiving the message in-process takes the object itself, and may
+ * modify it. The sender must not use the object after sending the message.
+ */
+public abstract class ObjectPayload implements MessagePayload {
 
-  private String key;
-  private String value;
+  private Object value;
 
-  public String getKey() {
-    return key;
+  /**
+   * Create a payload for an object.
+   * 
+   * @param value the object to send
+   */
+  public ObjectPayload(Object value) {
+    this.value = value;
   }
 
-  public String getValue() {
+  public Object getValue() {
     return value;
   }
 
-  public void setKey(String key) {
-    this.key = key;
-  }
-
-  public void setValue(String value) {
-    this.value = value;
-  }
-
-
-
 }
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes the payload of the messages exchanged on the MsgBus. Large payloads are
+ * gzip-compressed and tagged with the AMQP content-encoding property. Compression is only applied
+ * when the receiver is known to support it: either the request being answered advertised it through
+ * the accept_encoding header, or the topic has been configured as compressed. Receivers that do not
+ * advertise support keep getting plain UTF-8 payloads.
+ *
+ * <p>
+ * An adaptor advertises gzip only in the requests whose reply-to is one of its own reply topics,
+ * since the replies to a request forwarded with the reply-to of another component go to that
+ * component. The acceptance is recorded per session together with the advertised reply-to, and only
+ * the messages of that session sent back on that topic are compressed.
+ */
+public class PayloadCodec {
+
+  public static final String GZIP = "gzip";
+  public static final String ACCEPT_ENCODING_HEADER = "accept_encoding";
+  public static final int DISABLED = -1;
+
+  private static final int maxTrackedSessions = 10000;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static PayloadCodec myInstance = null;
+
+  private int threshold;
+  private ArrayList<String> compressedTopics;
+  private Hashtable<String, ArrayList<String>> replyTopics;
+  private LinkedHashMap<String, String> acceptingSessions;
+
+  private PayloadCodec() {
+    this.threshold = DISABLED;
+    this.compressedTopics = new ArrayList<String>();
+    this.replyTopics = new Hashtable<String, ArrayList<String>>();
+    this.acceptingSessions = new LinkedHashMap<String, String>() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > maxTrackedSessions;
+      }
+    };
+  }
+
+  /**
+   * Singleton method to get the instance of the codec.
+   *
+   * @return the instance of the codec
+   */
+  public static synchronized PayloadCodec getInstance() {
+    if (myInstance == null) {
+      myInstance = new PayloadCodec();
+    }
+    return myInstance;
+  }
+
+  /**
+   * Configure when outgoing payloads are compressed.
+   *
+   * @param threshold the minimum payload size in bytes to compress, or DISABLED
+   * @param compressedTopics the topics whose consumers are known to decode compressed payloads
+   */
+  public synchronized void configure(int threshold, ArrayList<String> compressedTopics) {
+    this.threshold = threshold;
+    this.compressedTopics = new ArrayList<String>(compressedTopics);
+  }
+
+  /**
+   * Declare a topic on which an adaptor consumes the replies to its requests. The requests it sends
+   * with this topic as reply-to advertise that compressed replies are accepted.
+   *
+   * @param appId the application ID of the adaptor
+   * @param topic the reply topic
+   */
+  public synchronized void addReplyTopic(String appId, String topic) {
+    String key = appId == null ? "" : appId;
+    ArrayList<String> topics = replyTopics.get(key);
+    if (topics == null) {
+      topics = new ArrayList<String>();
+      replyTopics.put(key, topics);
+    }
+    if (!topics.contains(topic)) {
+      topics.add(topic);
+    }
+  }
+
+  /**
+   * Decide whether an outgoing message advertises that compressed replies are accepted.
+   *
+   * @param message the message to send
+   * @param appId the application ID of the sender
+   * @return true if the replies to the message are consumed by the sender itself
+   */
+  public synchronized boolean acceptsReplies(ServicePlatformMessage message, String appId) {
+    ArrayList<String> topics = replyTopics.get(appId == null ? "" : appId);
+    return message.getReplyTo() != null && topics != null
+        && topics.contains(message.getReplyTo());
+  }
+
+  /**
+   * Record whether the sender of a message accepts compressed replies, and on which topic.
+   *
+   * @param sid the session ID of the received message
+   * @param replyTo the reply-to topic of the received message
+   * @param headers the AMQP headers of the received message, can be null
+   */
+  public synchronized void trackSession(String sid, String replyTo, Map<String, Object> headers) {
+    if (sid == null || replyTo == null || headers == null) {
+      return;
+    }
+    Object accepted = headers.get(ACCEPT_ENCODING_HEADER);
+    if (accepted != null && accepted.toString().contains(GZIP)) {
+      acceptingSessions.put(sid, replyTo);
+    }
+  }
+
+  /**
+   * Decide whether the payload of an outgoing message should be compressed.
+   *
+   * @param message the message to send
+   * @param size the size of its UTF-8 payload in bytes
+   * @return true if the payload should be compressed
+   */
+  public synchronized boolean shouldCompress(ServicePlatformMessage message, int size) {
+    if (threshold == DISABLED || size < threshold) {
+      return false;
+    }
+    return compressedTopics.contains(message.getTopic()) || (message.getSid() != null
+        && message.getTopic().equals(acceptingSessions.get(message.getSid())));
+  }
+
+  /**
+   * Compress a payload with gzip.
+   *
+   * @param payload the payload to compress
+   * @return the compressed payload
+   */
+  public static byte[] compress(byte[] payload) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length / 4 + 64);
+    try {
+      GZIPOutputStream out = new GZIPOutputStream(buffer) {
+        {
+          def.setLevel(Deflater.BEST_SPEED);
+        }
+      };
+      out.write(payload);
+      out.close();
+    } catch (IOException e) {
+      // Not thrown by in-memory streams.
+      throw new IllegalStateException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Decode a received payload.
+   *
+   * @param body the raw payload
+   * @param contentEncoding the AMQP content-encoding of the payload, null if not encoded
+   * @return the payload as a String
+   * @throws IOException if the payload uses an unsupported encoding or is corrupted
+   */
+  public static String decode(byte[] body, String contentEncoding) throws IOException {
+    if (contentEncoding == null || contentEncoding.isEmpty()) {
+      return new String(body, UTF8);
+    }
+    if (!contentEncoding.equals(GZIP)) {
+      throw new IOException("Unsupported content encoding: " + contentEncoding);
+    }
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body));
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 4);
+    byte[] chunk = new byte[8192];
+    int read;
+    while ((read = in.read(chunk)) != -1) {
+      out.write(chunk, 0, read);
+    }
+    in.close();
+    return new String(out.toByteArray(), UTF8);
+  }
+
+}
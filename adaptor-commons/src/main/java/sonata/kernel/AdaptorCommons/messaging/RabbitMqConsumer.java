@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DefaultConsumer;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumes the messages routed to the adaptor queue. Deliveries are acknowledged manually, once
+ * the dispatcher lane has handled the message, and the broker keeps at most "prefetch"
+ * unacknowledged deliveries in flight towards this consumer, which bounds the calls waiting or
+ * running in the lane. Each traffic class is consumed from a durable queue of its own, on a
+ * channel of its own with the prefetch of the class, so a backlog in one class does not hold back
+ * the deliveries of the others.
+ */
+public class RabbitMqConsumer extends AbstractMsgBusConsumer implements MsgBusConsumer, Runnable {
+
+  DefaultConsumer consumer;
+  private String configFilePath;
+  private String queueSuffix;
+  private Connection connection;
+  private Channel channel;
+  private String queueName;
+  private String replyQueueName;
+  private Hashtable<String, Channel> laneChannels;
+  private Hashtable<String, String> laneQueueNames;
+  private Hashtable<String, DefaultConsumer> laneConsumers;
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(RabbitMqConsumer.class);
+
+  /**
+   * Create a consumer for the adaptor queue. The queue is bound to the topics added with addTopic
+   * when connecting to the bus, and the reply topics to a separate queue consumed on the same
+   * channel.
+   * 
+   * @param dispatcherQueue the queue in which enqueue incoming messages
+   * @param appId the application ID of the adaptor, whose own messages are ignored
+   * @param queueSuffix the name of the adaptor queue, relative to the exchange
+   */
+  public RabbitMqConsumer(BlockingQueue<ServicePlatformMessage> dispatcherQueue, String appId,
+      String queueSuffix) {
+    super(dispatcherQueue, appId);
+    this.queueSuffix = queueSuffix;
+    this.configFilePath = BrokerConfig.DEFAULT_PATH;
+    this.laneChannels = new Hashtable<String, Channel>();
+    this.laneQueueNames = new Hashtable<String, String>();
+    this.laneConsumers = new Hashtable<String, DefaultConsumer>();
+  }
+
+  public void setConfigFilePath(String configFilePath) {
+    this.configFilePath = configFilePath;
+  }
+
+  @Override
+  public void connectToBus() {
+    BrokerConfig brokerConfig = null;
+    try {
+      brokerConfig = BrokerConfig.load(configFilePath);
+    } catch (IOException e) {
+      Logger.error("Unable to load Broker Config file", e);
+      System.exit(1);
+    }
+    Logger.info("Connecting to broker...");
+    ConnectionFactory cf = new ConnectionFactory();
+    try {
+
+      Logger.info("Connecting to: " + brokerConfig.getBrokerUrl());
+      cf.setUri(brokerConfig.getBrokerUrl());
+      connection = cf.newConnection();
+      channel = connection.createChannel();
+      String exchangeName = brokerConfig.getExchange();
+      channel.exchangeDeclare(exchangeName, "topic");
+      queueName = exchangeName + "." + queueSuffix;
+      channel.queueDeclare(queueName, true, false, false, null);
+      channel.basicQos(brokerConfig.getPrefetch());
+      Logger.info("Binding queue to topics...");
+      for (String topic : getLaneTopics(TrafficClass.DEFAULT)) {
+        channel.queueBind(queueName, exchangeName, topic);
+        Logger.info("Bound to topic \"" + topic + "\"");
+      }
+      for (String topic : getRetiredTopics()) {
+        channel.queueUnbind(queueName, exchangeName, topic);
+        Logger.info("Removed binding to topic \"" + topic + "\"");
+      }
+      if (!getReplyTopics().isEmpty()) {
+        // Exclusive, auto-delete queue named by the broker.
+        replyQueueName = channel.queueDeclare().getQueue();
+        for (String topic : getReplyTopics()) {
+          channel.queueBind(replyQueueName, exchangeName, topic);
+          Logger.info("Bound reply queue to topic \"" + topic + "\"");
+        }
+      }
+
+      consumer = new AdaptorDefaultConsumer(channel, this);
+      laneChannels.put(TrafficClass.DEFAULT, channel);
+
+      for (TrafficClass trafficClass : getTrafficClasses()) {
+        String lane = trafficClass.getName();
+        Channel laneChannel = connection.createChannel();
+        String laneQueueName = queueName + "." + lane;
+        laneChannel.queueDeclare(laneQueueName, true, false, false, null);
+        laneChannel.basicQos(trafficClass.getPrefetch() > 0 ? trafficClass.getPrefetch()
+            : brokerConfig.getPrefetch());
+        ArrayList<String> laneTopics = getLaneTopics(lane);
+        for (String topic : getTopics()) {
+          if (laneTopics.contains(topic)) {
+            laneChannel.queueBind(laneQueueName, exchangeName, topic);
+            Logger.info("Bound lane \"" + lane + "\" to topic \"" + topic + "\"");
+          } else {
+            // The topic may have been served by this lane with a previous configuration.
+            laneChannel.queueUnbind(laneQueueName, exchangeName, topic);
+          }
+        }
+        laneChannels.put(lane, laneChannel);
+        laneQueueNames.put(lane, laneQueueName);
+        laneConsumers.put(lane, new AdaptorDefaultConsumer(laneChannel, this, lane));
+      }
+    } catch (TimeoutException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (KeyManagementException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (NoSuchAlgorithmException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (URISyntaxException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+    }
+
+  }
+
+  @Override
+  public boolean startConsuming() {
+    boolean out = true;
+    Thread thread;
+    try {
+      thread = new Thread(this);
+      thread.start();
+    } catch (Exception e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    }
+    return out;
+  }
+
+  @Override
+  public boolean stopConsuming() {
+    boolean out = true;
+    try {
+      for (Channel laneChannel : laneChannels.values()) {
+        laneChannel.close();
+      }
+      connection.close();
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } catch (TimeoutException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    }
+    Logger.info("Consumer stopped - " + getMetrics());
+    return out;
+  }
+
+  @Override
+  public void run() {
+    try {
+      Logger.info("Starting consumer thread");
+      channel.basicConsume(queueName, false, consumer);
+      if (replyQueueName != null) {
+        channel.basicConsume(replyQueueName, false, consumer);
+      }
+      for (String lane : laneQueueNames.keySet()) {
+        laneChannels.get(lane).basicConsume(laneQueueNames.get(lane), false,
+            laneConsumers.get(lane));
+      }
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  protected void acknowledge(String source, long deliveryTag) {
+    try {
+      laneChannels.get(source).basicAck(deliveryTag, false);
+    } catch (IOException e) {
+      Logger.error("Unable to acknowledge delivery " + deliveryTag, e);
+    }
+  }
+
+  @Override
+  protected void reject(String source, long deliveryTag, boolean requeue) {
+    try {
+      laneChannels.get(source).basicReject(deliveryTag, requeue);
+    } catch (IOException e) {
+      Logger.error("Unable to reject delivery " + deliveryTag, e);
+    }
+  }
+
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the adaptor messages on the Service Platform exchange. Each lane of the producer
+ * publishes on its own channel, opened when its first message is sent and reused for all the
+ * following ones. When publisher confirms are enabled the producer does not wait for each confirm:
+ * published messages are tracked by channel and sequence number and the broker confirms them
+ * asynchronously. Messages the broker nacks are put back at the head of their lane, ahead of the
+ * newer messages of their session, up to MAX_PUBLISH_ATTEMPTS times. Nacks received while the
+ * producer stops count as failed.
+ */
+public class RabbitMqProducer extends AbstractMsgBusProducer {
+
+  public static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(RabbitMqProducer.class);
+
+  private String configFilePath;
+  private Connection connection;
+  private BrokerConfig brokerConfig;
+  private Hashtable<Integer, LaneChannel> channels;
+  private Hashtable<ServicePlatformMessage, Integer> attempts;
+
+  /**
+   * Create a producer for the adaptor.
+   * 
+   * @param muxQueue the queue from which de-queue outgoing messages
+   * @param appId the application ID the outgoing messages are tagged with
+   */
+  public RabbitMqProducer(BlockingQueue<ServicePlatformMessage> muxQueue, String appId) {
+    super(muxQueue, appId);
+    this.configFilePath = BrokerConfig.DEFAULT_PATH;
+    this.channels = new Hashtable<Integer, LaneChannel>();
+    this.attempts = new Hashtable<ServicePlatformMessage, Integer>();
+  }
+
+  public void setConfigFilePath(String configFilePath) {
+    this.configFilePath = configFilePath;
+  }
+
+  @Override
+  public void connectToBus() {
+    try {
+      brokerConfig = BrokerConfig.load(configFilePath);
+    } catch (IOException e) {
+      Logger.error("Unable to load Broker Config file", e);
+      System.exit(1);
+    }
+    setSessionLanes(brokerConfig.getProducerLanes());
+
+    ConnectionFactory cf = new ConnectionFactory();
+    try {
+      cf.setUri(brokerConfig.getBrokerUrl());
+    } catch (KeyManagementException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (NoSuchAlgorithmException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (URISyntaxException e) {
+      Logger.error(e.getMessage(), e);
+    }
+
+    PayloadCodec.getInstance().configure(brokerConfig.getCompressionThreshold(),
+        brokerConfig.getCompressedTopics());
+
+    try {
+      connection = cf.newConnection();
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+    } catch (TimeoutException e) {
+      Logger.error(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public boolean sendMessage(ServicePlatformMessage message) {
+    try {
+      EncodedMessage encoded = EncodedMessage.encode(message, getAppId());
+      getChannel(getLane(message)).publish(message, encoded);
+      getMetrics().recordPublished(encoded.getBody().length, encoded.getUncompressedSize());
+      return true;
+    } catch (Exception e) {
+      Logger.error(e.getMessage(), e);
+      getMetrics().recordFailed();
+      return false;
+    }
+  }
+
+  /**
+   * Return the channel of a lane, opening it if needed.
+   */
+  private synchronized LaneChannel getChannel(int lane) {
+    LaneChannel channel = channels.get(lane);
+    if (channel == null) {
+      channel = new LaneChannel();
+      channels.put(lane, channel);
+    }
+    return channel;
+  }
+
+  /**
+   * Send again messages of a lane, in their publishing order. Each one is put back at the head of
+   * the lane, so the last one is put back first.
+   */
+  private void retry(ArrayList<ServicePlatformMessage> messages) {
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      retry(messages.get(i));
+    }
+  }
+
+  private void retry(ServicePlatformMessage message) {
+    Integer previous = attempts.get(message);
+    int attempt = previous == null ? 1 : previous + 1;
+    if (attempt < MAX_PUBLISH_ATTEMPTS) {
+      Logger.warn("Message not confirmed by the broker, sending it again: " + message.getTopic());
+      attempts.put(message, attempt);
+      if (!requeue(message)) {
+        attempts.remove(message);
+      }
+    } else {
+      attempts.remove(message);
+      Logger.error("Message not confirmed by the broker after " + attempt + " attempts: "
+          + message.getTopic() + " - sid: " + message.getSid());
+      getMetrics().recordFailed();
+    }
+  }
+
+  @Override
+  protected void flush() {
+    if (brokerConfig == null || !brokerConfig.isPublisherConfirms()) {
+      return;
+    }
+    ArrayList<LaneChannel> current;
+    synchronized (this) {
+      current = new ArrayList<LaneChannel>(channels.values());
+    }
+    for (LaneChannel channel : current) {
+      channel.waitForConfirms(brokerConfig.getConfirmTimeout());
+    }
+  }
+
+  @Override
+  public boolean stopProducing() {
+    boolean out = super.stopProducing();
+    try {
+      if (connection != null) {
+        connection.close();
+      }
+    } catch (IOException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    }
+    return out;
+  }
+
+  /**
+   * The publishing channel of a lane and the messages still unconfirmed on it. Sequence numbers
+   * are assigned by channel, so each lane tracks its own confirms.
+   */
+  private class LaneChannel implements ConfirmListener {
+
+    private Channel channel;
+    private ConcurrentSkipListMap<Long, ServicePlatformMessage> unconfirmed;
+
+    private LaneChannel() {
+      this.unconfirmed = new ConcurrentSkipListMap<Long, ServicePlatformMessage>();
+    }
+
+    private synchronized void publish(ServicePlatformMessage message, EncodedMessage encoded)
+        throws IOException {
+      Channel current = open();
+      long sequenceNumber = -1;
+      if (brokerConfig.isPublisherConfirms()) {
+        sequenceNumber = current.getNextPublishSeqNo();
+        unconfirmed.put(sequenceNumber, message);
+      }
+      try {
+        current.basicPublish(brokerConfig.getExchange(), encoded.getTopic(),
+            encoded.getProperties(), encoded.getBody());
+      } catch (IOException e) {
+        if (sequenceNumber >= 0) {
+          unconfirmed.remove(sequenceNumber);
+        }
+        throw e;
+      }
+    }
+
+    /**
+     * Return the channel, opening it if needed. Messages still unconfirmed on a channel that has
+     * been closed are sent again.
+     */
+    private Channel open() throws IOException {
+      if (channel != null && channel.isOpen()) {
+        return channel;
+      }
+      if (channel != null) {
+        Logger.warn("Publishing channel closed, opening a new one");
+        ArrayList<ServicePlatformMessage> pending =
+            new ArrayList<ServicePlatformMessage>(unconfirmed.values());
+        unconfirmed.clear();
+        retry(pending);
+      }
+      Channel newChannel = connection.createChannel();
+      newChannel.exchangeDeclare(brokerConfig.getExchange(), "topic");
+      if (brokerConfig.isPublisherConfirms()) {
+        newChannel.confirmSelect();
+        newChannel.addConfirmListener(this);
+      }
+      channel = newChannel;
+      return channel;
+    }
+
+    @Override
+    public void handleAck(long deliveryTag, boolean multiple) throws IOException {
+      ArrayList<ServicePlatformMessage> confirmed = settle(deliveryTag, multiple);
+      for (ServicePlatformMessage message : confirmed) {
+        attempts.remove(message);
+      }
+      getMetrics().recordConfirmed(confirmed.size());
+    }
+
+    @Override
+    public void handleNack(long deliveryTag, boolean multiple) throws IOException {
+      ArrayList<ServicePlatformMessage> refused = settle(deliveryTag, multiple);
+      getMetrics().recordNacked(refused.size());
+      retry(refused);
+    }
+
+    private ArrayList<ServicePlatformMessage> settle(long deliveryTag, boolean multiple) {
+      ArrayList<ServicePlatformMessage> settled = new ArrayList<ServicePlatformMessage>();
+      if (multiple) {
+        ConcurrentNavigableMap<Long, ServicePlatformMessage> head =
+            unconfirmed.headMap(deliveryTag, true);
+        settled.addAll(head.values());
+        head.clear();
+      } else {
+        ServicePlatformMessage message = unconfirmed.remove(deliveryTag);
+        if (message != null) {
+          settled.add(message);
+        }
+      }
+      return settled;
+    }
+
+    private void waitForConfirms(long timeout) {
+      Channel current;
+      synchronized (this) {
+        current = channel;
+      }
+      if (current == null) {
+        return;
+      }
+      try {
+        current.waitForConfirms(timeout);
+      } catch (TimeoutException e) {
+        Logger.error(unconfirmed.size() + " messages still unconfirmed by the broker");
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+public class ServicePlatformMessage {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  String body;
+  MessagePayload payload;
+  String topic;
+  String replyTo;
+  String sid;
+  String contentType;
+  private Runnable acknowledgement;
+
+  /**
+   * Create the Service Platform Message.
+   * 
+   * @param message a JSON or YAML formatted String to wrap in the SP Message
+   * @param topic the topic on which the message has been received
+   * @param sid the session ID of this message
+   * @param reply the topic on which a response is expected. null if no response is expected.
+   */
+  public ServicePlatformMessage(String message, String contentType, String topic, String sid,
+      String reply) {
+    body = message;
+    this.topic = topic;
+    this.sid = sid;
+    this.replyTo = reply;
+    this.contentType = contentType;
+  }
+
+  /**
+   * Create a Service Platform Message whose body is serialized only when the message is sent.
+   * 
+   * @param payload the payload to serialize in the SP Message
+   * @param contentType the content type of the serialized payload
+   * @param topic the topic on which the message has been received
+   * @param sid the session ID of this message
+   * @param reply the topic on which a response is expected. null if no response is expected.
+   * @return the message wrapping the payload
+   */
+  public static ServicePlatformMessage withPayload(MessagePayload payload, String contentType,
+      String topic, String sid, String reply) {
+    ServicePlatformMessage message =
+        new ServicePlatformMessage(null, contentType, topic, sid, reply);
+    message.payload = payload;
+    return message;
+  }
+
+  /**
+   * Set the action acknowledging the delivery of this message to the broker.
+   * 
+   * @param acknowledgement the action to run once the message has been handled
+   */
+  public synchronized void setAcknowledgement(Runnable acknowledgement) {
+    this.acknowledgement = acknowledgement;
+  }
+
+  /**
+   * Acknowledge the delivery of this message to the broker, once it has been handled. It does
+   * nothing for messages not received from the broker or already acknowledged.
+   */
+  public void acknowledge() {
+    Runnable action;
+    synchronized (this) {
+      action = acknowledgement;
+      acknowledgement = null;
+    }
+    if (action != null) {
+      action.run();
+    }
+  }
+
+  public String getReplyTo() {
+    return replyTo;
+  }
+
+  public void setReplyTo(String reply) {
+    this.replyTo = reply;
+  }
+
+  /**
+   * @return a String representing the message wrapped in this object.
+   */
+  public synchronized String getBody() {
+    if (body == null && payload != null) {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      try {
+        payload.writeTo(buffer);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to serialize message payload", e);
+      }
+      body = new String(buffer.toByteArray(), UTF8);
+    }
+    return body;
+  }
+
+  /**
+   * Write the UTF-8 encoded body of this message into a stream, serializing the payload directly
+   * into it if the body has not been materialised as a String.
+   * 
+   * @param out the stream to write into
+   * @throws IOException if the body cannot be serialized or written
+   */
+  public void writeBody(OutputStream out) throws IOException {
+    String text;
+    synchronized (this) {
+      text = body;
+    }
+    if (text == null && payload != null) {
+      payload.writeTo(out);
+    } else if (text != null) {
+      out.write(text.getBytes(UTF8));
+    }
+  }
+
+  /**
+   * set the topic of this message.
+   * 
+   * @param topic a String representing the Topic to set
+   */
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  /**
+   * @return a String representing the topic of this message.
+   */
+  public String getTopic() {
+    return topic;
+  }
+
+  /**
+   * @return a String representing the session ID of this message.
+   */
+  public String getSid() {
+    return this.sid;
+  }
+
+  @Override
+  public String toString() {
+    String message = (body == null && payload != null) ? "<payload not serialized>" : body;
+    return "sid: " + sid + " - message: " + message + " - topic: " + topic;
+  }
+
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * @return the object the payload of this message is serialized from, or null if the message
+   *         has no object payload. Messages received from the MsgBus never carry one.
+   */
+  public Object getValue() {
+    return payload instanceof ObjectPayload ? ((ObjectPayload) payload).getValue() : null;
+  }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+/**
+ * AMQP topic patterns, as used by the bindings of a topic exchange: the words of a topic are
+ * separated by dots, * in a pattern matches exactly one word and # matches zero or more words.
+ * Shared by the traffic classes of the consumers and by the in-memory bus, so both route a topic
+ * the way the broker does.
+ */
+public class TopicPattern {
+
+  /**
+   * Check a routing key against a topic pattern, with the AMQP topic exchange semantics.
+   * 
+   * @param pattern the pattern, where * matches one word and # zero or more words
+   * @param routingKey the routing key of the message
+   * @return true if the routing key matches the pattern
+   */
+  public static boolean matches(String pattern, String routingKey) {
+    return matches(pattern.split("\\."), 0, routingKey.split("\\."), 0);
+  }
+
+  private static boolean matches(String[] pattern, int patternIndex, String[] key, int keyIndex) {
+    if (patternIndex == pattern.length) {
+      return keyIndex == key.length;
+    }
+    String word = pattern[patternIndex];
+    if (word.equals("#")) {
+      for (int skip = keyIndex; skip <= key.length; skip++) {
+        if (matches(pattern, patternIndex + 1, key, skip)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (keyIndex == key.length) {
+      return false;
+    }
+    if (word.equals("*") || word.equals(key[keyIndex])) {
+      return matches(pattern, patternIndex + 1, key, keyIndex + 1);
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.AdaptorCommons.messaging;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+
+/**
+ * A class of MsgBus traffic served by its own lane: a queue on the broker consumed on its own
+ * channel and prefetch, and a dispatcher queue drained by its own worker pool. The topics of a
+ * class are given as AMQP topic patterns. The topics not matched by any class are served by the
+ * default lane.
+ */
+public class TrafficClass {
+
+  public static final String DEFAULT = "default";
+
+  private String name;
+  private ArrayList<String> topics;
+  private int prefetch;
+  private int workers;
+
+  /**
+   * Create a traffic class.
+   * 
+   * @param name the name of the class, used to name its queue on the broker
+   * @param prefetch the unacknowledged deliveries in flight on its channel, that is the calls
+   *        waiting in its lane or being handled, 0 to use the broker configuration prefetch
+   * @param workers the size of its worker pool, 0 for an unbounded pool
+   */
+  public TrafficClass(String name, int prefetch, int workers) {
+    this.name = name;
+    this.topics = new ArrayList<String>();
+    this.prefetch = prefetch;
+    this.workers = workers;
+  }
+
+  /**
+   * Build a traffic class from its JSON representation.
+   * 
+   * @param jsonObject the JSON configuration of the class
+   * @return the traffic class
+   */
+  public static TrafficClass parse(JSONObject jsonObject) {
+    String name = jsonObject.getString("name");
+    if (name.equals(DEFAULT)) {
+      throw new JSONException("The traffic class name \"" + DEFAULT + "\" is reserved");
+    }
+    TrafficClass trafficClass =
+        new TrafficClass(name, jsonObject.optInt("prefetch", 0), jsonObject.optInt("workers", 0));
+    JSONArray topics = jsonObject.getJSONArray("topics");
+    for (int i = 0; i < topics.length(); i++) {
+      trafficClass.addTopic(topics.getString(i));
+    }
+    return trafficClass;
+  }
+
+  /**
+   * Add a topic pattern to this class.
+   * 
+   * @param pattern the topic pattern, where * matches one word and # zero or more words
+   */
+  public void addTopic(String pattern) {
+    topics.add(pattern);
+  }
+
+  /**
+   * Check if a topic belongs to this class.
+   * 
+   * @param topic the topic of a message, or of a binding
+   * @return true if one of the patterns of this class matches the topic
+   */
+  public boolean matches(String topic) {
+    for (String pattern : topics) {
+      if (TopicPattern.matches(pattern, topic)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public ArrayList<String> getTopics() {
+    return topics;
+  }
+
+  public int getPrefetch() {
+    return prefetch;
+  }
+
+  public int getWorkers() {
+    return workers;
+  }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing the traffic handled by a MsgBus producer or consumer. All the counters are
+ * cumulative since the creation of the plug-in and can be read while it is running.
+ */
+public class TransportMetrics {
+
+  private AtomicLong published = new AtomicLong();
+  private AtomicLong publishedBytes = new AtomicLong();
+  private AtomicLong compressed = new AtomicLong();
+  private AtomicLong savedBytes = new AtomicLong();
+  private AtomicLong confirmed = new AtomicLong();
+  private AtomicLong nacked = new AtomicLong();
+  private AtomicLong republished = new AtomicLong();
+  private AtomicLong failed = new AtomicLong();
+  private AtomicLong consumed = new AtomicLong();
+  private AtomicLong consumedBytes = new AtomicLong();
+  private AtomicLong acked = new AtomicLong();
+  private AtomicLong rejected = new AtomicLong();
+  private AtomicLong ignored = new AtomicLong();
+  private AtomicLong local = new AtomicLong();
+
+  void recordPublished(int size, int uncompressedSize) {
+    published.incrementAndGet();
+    publishedBytes.addAndGet(size);
+    if (size != uncompressedSize) {
+      compressed.incrementAndGet();
+      savedBytes.addAndGet(uncompressedSize - size);
+    }
+  }
+
+  void recordConfirmed(int count) {
+    confirmed.addAndGet(count);
+  }
+
+  void recordNacked(int count) {
+    nacked.addAndGet(count);
+  }
+
+  void recordRepublished() {
+    republished.incrementAndGet();
+  }
+
+  void recordFailed() {
+    failed.incrementAndGet();
+  }
+
+  void recordConsumed(int size) {
+    consumed.incrementAndGet();
+    consumedBytes.addAndGet(size);
+  }
+
+  void recordAcked() {
+    acked.incrementAndGet();
+  }
+
+  void recordRejected() {
+    rejected.incrementAndGet();
+  }
+
+  void recordIgnored() {
+    ignored.incrementAndGet();
+  }
+
+  void recordLocal() {
+    local.incrementAndGet();
+  }
+
+  /**
+   * @return the number of messages handed to the broker.
+   */
+  public long getPublished() {
+    return published.get();
+  }
+
+  /**
+   * @return the number of bytes handed to the broker, after compression.
+   */
+  public long getPublishedBytes() {
+    return publishedBytes.get();
+  }
+
+  /**
+   * @return the number of published messages whose payload has been compressed.
+   */
+  public long getCompressed() {
+    return compressed.get();
+  }
+
+  /**
+   * @return the number of bytes saved on the wire by compression.
+   */
+  public long getSavedBytes() {
+    return savedBytes.get();
+  }
+
+  /**
+   * @return the number of published messages confirmed by the broker.
+   */
+  public long getConfirmed() {
+    return confirmed.get();
+  }
+
+  /**
+   * @return the number of published messages the broker refused to take responsibility for.
+   */
+  public long getNacked() {
+    return nacked.get();
+  }
+
+  /**
+   * @return the number of messages published again after a negative or missing confirm.
+   */
+  public long getRepublished() {
+    return republished.get();
+  }
+
+  /**
+   * @return the number of messages that could not be published.
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * @return the number of messages delivered by the broker.
+   */
+  public long getConsumed() {
+    return consumed.get();
+  }
+
+  /**
+   * @return the number of bytes delivered by the broker, before decompression.
+   */
+  public long getConsumedBytes() {
+    return consumedBytes.get();
+  }
+
+  /**
+   * @return the number of deliveries acknowledged to the broker.
+   */
+  public long getAcked() {
+    return acked.get();
+  }
+
+  /**
+   * @return the number of deliveries rejected because they could not be decoded.
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  /**
+   * @return the number of deliveries acknowledged without being dispatched.
+   */
+  public long getIgnored() {
+    return ignored.get();
+  }
+
+  /**
+   * @return the number of messages handed over in-process, without going through the broker.
+   */
+  public long getLocal() {
+    return local.get();
+  }
+
+  @Override
+  public String toString() {
+    return "published: " + published + " (" + publishedBytes + " bytes, " + compressed
+        + " compressed, " + savedBytes + " bytes saved) - confirmed: " + confirmed + " - nacked: "
+        + nacked + " - republished: " + republished + " - failed: " + failed + " - consumed: "
+        + consumed + " (" + consumedBytes + " bytes) - acked: " + acked + " - rejected: "
+        + rejected + " - ignored: " + ignored + " - local: " + local;
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import sonata.kernel.AdaptorCommons.ApiRateLimiter.Operation;
+
+public class ApiRateLimiterTest {
+
+  @After
+  public void tearDown() {
+    ApiRateLimiter.resetInstances();
+  }
+
+  /**
+   * An endpoint without a configured rate never delays a call.
+   */
+  @Test
+  public void testUnlimited() {
+    ApiRateLimiter limiter = ApiRateLimiter.getInstance("unlimited-vim");
+    for (int i = 0; i < 1000; i++) {
+      limiter.acquire(Operation.POLL);
+    }
+    TokenBucket bucket = limiter.getBucket(Operation.POLL);
+    Assert.assertEquals(1000, bucket.getAcquired());
+    Assert.assertEquals(0, bucket.getDelayed());
+    Assert.assertSame(limiter, ApiRateLimiter.getInstance("unlimited-vim"));
+  }
+
+  /**
+   * Past the burst the calls are released at the configured rate, and all the classes of operation
+   * share the budget of the endpoint.
+   */
+  @Test
+  public void testRate() {
+    ApiRateLimiter limiter = ApiRateLimiter.getInstance("limited-vim");
+    limiter.setRate(20);
+    long start = System.nanoTime();
+    for (int i = 0; i < 30; i++) {
+      limiter.acquire(Operation.CREATE);
+    }
+    long elapsed = (System.nanoTime() - start) / 1000000;
+    // 20 calls in the burst, the other 10 one every 50 ms.
+    Assert.assertTrue("Calls released too early: " + elapsed + " ms", elapsed >= 400);
+    TokenBucket endpoint = limiter.getEndpointBucket();
+    Assert.assertEquals(30, endpoint.getAcquired());
+    Assert.assertEquals(10, endpoint.getDelayed());
+    Assert.assertEquals(0, endpoint.getQueued());
+    Assert.assertTrue(endpoint.getMaxWait() >= 40);
+    Assert.assertEquals(30, limiter.getBucket(Operation.CREATE).getAcquired());
+    Assert.assertEquals(0, limiter.getBucket(Operation.CREATE).getDelayed());
+
+    start = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire(Operation.DELETE);
+    }
+    elapsed = (System.nanoTime() - start) / 1000000;
+    Assert.assertTrue("Deletes sent above the endpoint rate: " + elapsed + " ms", elapsed >= 400);
+    Assert.assertEquals(20, endpoint.getDelayed());
+  }
+
+  /**
+   * A capped class of operation is released at its own rate, without delaying the other classes
+   * while the endpoint has budget left.
+   */
+  @Test
+  public void testClassRates() {
+    ApiRateLimiter limiter = ApiRateLimiter.getInstance("capped-vim");
+    limiter.setRate(100);
+    limiter.setRates("{\"poll\": 10, \"reboot\": 1}");
+    Assert.assertEquals(10, limiter.getBucket(Operation.POLL).getRate(), 0);
+    Assert.assertEquals(0, limiter.getBucket(Operation.CREATE).getRate(), 0);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 15; i++) {
+      limiter.acquire(Operation.POLL);
+    }
+    long elapsed = (System.nanoTime() - start) / 1000000;
+    // 10 polls in the burst, the other 5 one every 100 ms.
+    Assert.assertTrue("Polls released too early: " + elapsed + " ms", elapsed >= 400);
+    Assert.assertEquals(5, limiter.getBucket(Operation.POLL).getDelayed());
+
+    start = System.nanoTime();
+    for (int i = 0; i < 20; i++) {
+      limiter.acquire(Operation.CREATE);
+    }
+    elapsed = (System.nanoTime() - start) / 1000000;
+    Assert.assertTrue("Creates delayed by the polls: " + elapsed + " ms", elapsed < 200);
+    Assert.assertEquals(0, limiter.getEndpointBucket().getDelayed());
+  }
+
+}
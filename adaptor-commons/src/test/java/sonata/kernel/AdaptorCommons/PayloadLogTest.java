@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.read.ListAppender;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+public class PayloadLogTest {
+
+  @After
+  public void tearDown() {
+    PayloadLog.setMaxLength(PayloadLog.DEFAULT_MAX_LENGTH);
+  }
+
+  /**
+   * Short payloads are kept whole on a single line, long ones are cut to the configured length.
+   */
+  @Test
+  public void testAbbreviate() {
+    Assert.assertEquals("a: 1\\nb: 2\\n", PayloadLog.abbreviate("a: 1\r\nb: 2\n"));
+    Assert.assertEquals("null", PayloadLog.abbreviate(null));
+
+    PayloadLog.setMaxLength(4);
+    Assert.assertEquals("abcd...[+6 chars]", PayloadLog.abbreviate("abcdefghij"));
+    Assert.assertEquals("abcd", PayloadLog.abbreviate("abcd"));
+
+    PayloadLog.setMaxLength(0);
+    Assert.assertEquals("...[+10 chars]", PayloadLog.abbreviate("abcdefghij"));
+  }
+
+  /**
+   * A large payload is logged as one event cut to the configured length. Its full text reaches the
+   * payload channel only when the channel is enabled at DEBUG level, which the adaptors do not do
+   * by default.
+   */
+  @Test
+  public void testPayloadEvents() {
+    ch.qos.logback.classic.Logger channel =
+        (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PayloadLog.CHANNEL);
+    Level channelLevel = channel.getLevel();
+    ListAppender<ILoggingEvent> full = new ListAppender<ILoggingEvent>();
+    full.setContext(channel.getLoggerContext());
+    full.start();
+    channel.addAppender(full);
+
+    LoggerContext context = new LoggerContext();
+    ListAppender<ILoggingEvent> events = new ListAppender<ILoggingEvent>();
+    events.setContext(context);
+    events.start();
+    ch.qos.logback.classic.Logger logger = context.getLogger("deploy");
+    logger.setLevel(Level.INFO);
+    logger.addAppender(events);
+    String template = buildPayload(128 * 1024);
+    String expected = "stack-template size=" + template.length() + " payload="
+        + PayloadLog.abbreviate(template);
+    try {
+      // The level of the channel in the logging configuration of the adaptors.
+      channel.setLevel(Level.INFO);
+      Assert.assertFalse(PayloadLog.isFullPayloadEnabled());
+      PayloadLog.info(logger, "stack-template", template);
+      Assert.assertEquals(1, events.list.size());
+      Assert.assertEquals(expected, events.list.get(0).getFormattedMessage());
+      Assert.assertTrue(expected.endsWith(
+          "...[+" + (template.length() - PayloadLog.DEFAULT_MAX_LENGTH) + " chars]"));
+      // Line breaks are escaped, so a kept character takes at most two.
+      Assert.assertTrue(expected.length() < 2 * PayloadLog.DEFAULT_MAX_LENGTH + 64);
+      Assert.assertTrue(full.list.isEmpty());
+
+      // DEBUG events are not logged, their payload is not even abbreviated.
+      PayloadLog.debug(logger, "stack-composition", template);
+      Assert.assertEquals(1, events.list.size());
+
+      channel.setLevel(Level.DEBUG);
+      Assert.assertTrue(PayloadLog.isFullPayloadEnabled());
+      PayloadLog.info(logger, "stack-template", template);
+      Assert.assertEquals(2, events.list.size());
+      Assert.assertEquals(expected, events.list.get(1).getFormattedMessage());
+      Assert.assertEquals(1, full.list.size());
+      Assert.assertTrue(full.list.get(0).getFormattedMessage().endsWith("\n" + template));
+    } finally {
+      channel.setLevel(channelLevel);
+      channel.detachAppender(full);
+    }
+  }
+
+  /**
+   * Benchmark the time a deployment request spends logging its template and stack composition,
+   * comparing full payloads written through a synchronous appender with abbreviated payloads
+   * written through an asynchronous one. The log output stands for a disk that writes 50 MB/s.
+   * Timings depend on the machine, so the benchmark only runs with -Dbenchmark=true.
+   */
+  @Test
+  public void benchmarkPayloadLogging() {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    ch.qos.logback.classic.Logger channel =
+        (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PayloadLog.CHANNEL);
+    Level channelLevel = channel.getLevel();
+    channel.setLevel(Level.INFO);
+    try {
+      String template = buildPayload(128 * 1024);
+      int requests = 200;
+
+      LoggerContext context = new LoggerContext();
+      Appender<ILoggingEvent> sync = slowAppender(context);
+      ch.qos.logback.classic.Logger syncLogger = context.getLogger("sync");
+      syncLogger.setAdditive(false);
+      syncLogger.addAppender(sync);
+      long start = System.nanoTime();
+      for (int i = 0; i < requests; i++) {
+        syncLogger.info("Template:\n" + template);
+        syncLogger.info(template);
+      }
+      double syncLatency = (System.nanoTime() - start) / 1e6 / requests;
+      sync.stop();
+
+      AsyncAppender async = new AsyncAppender();
+      async.setContext(context);
+      async.addAppender(slowAppender(context));
+      async.start();
+      ch.qos.logback.classic.Logger asyncLogger = context.getLogger("async");
+      asyncLogger.setAdditive(false);
+      asyncLogger.addAppender(async);
+      start = System.nanoTime();
+      for (int i = 0; i < requests; i++) {
+        PayloadLog.info(asyncLogger, "stack-template", template);
+        PayloadLog.info(asyncLogger, "stack-composition", template);
+      }
+      double asyncLatency = (System.nanoTime() - start) / 1e6 / requests;
+      async.stop();
+
+      System.out.println(String.format(
+          "Payload logging per request: sync full %.3f ms, async abbreviated %.3f ms",
+          syncLatency, asyncLatency));
+      Assert.assertTrue(asyncLatency < syncLatency);
+    } finally {
+      channel.setLevel(channelLevel);
+    }
+  }
+
+  private Appender<ILoggingEvent> slowAppender(LoggerContext context) {
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+    encoder.start();
+    OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<ILoggingEvent>();
+    appender.setContext(context);
+    appender.setEncoder(encoder);
+    appender.setOutputStream(new OutputStream() {
+      @Override
+      public void write(int value) {
+        LockSupport.parkNanos(20);
+      }
+
+      @Override
+      public void write(byte[] buffer, int offset, int length) {
+        LockSupport.parkNanos(20L * length);
+      }
+    });
+    appender.start();
+    return appender;
+  }
+
+  private String buildPayload(int size) {
+    StringBuilder builder = new StringBuilder();
+    int index = 0;
+    while (builder.length() < size) {
+      builder.append("  vdu-").append(index).append(":\n    type: OS::Nova::Server\n")
+          .append("    properties:\n      flavor: m1.small\n      image: sonata-vtc\n");
+      index++;
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,741 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.Lane;
+import sonata.kernel.AdaptorCommons.LocalChannel;
+import sonata.kernel.AdaptorCommons.RoutingTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The behaviour both adaptors expect from the MsgBus transport, checked against the in-memory bus.
+ * The in-memory transport shares the encoding, decoding, filtering and acknowledgement logic with
+ * the RabbitMQ one, so the same contract holds on a real broker.
+ */
+public class MsgBusContractTest {
+
+  private static final String ADAPTOR_ID = "sonata.kernel.InfrAdaptor";
+  private static final String WIM_ID = "sonata.kernel.WimAdapter";
+  private static final String PLATFORM_ID = "sonata.kernel.Gatekeeper";
+  private static final String ADAPTOR_QUEUE = "son-kernel.InfraAbstract";
+  private static final String PLATFORM_QUEUE = "son-kernel.Platform";
+  private static final long timeout = 5000;
+
+  private InMemoryBus bus;
+  private BlockingQueue<ServicePlatformMessage> adaptorDispatcher;
+  private BlockingQueue<ServicePlatformMessage> platformDispatcher;
+  private InMemoryMsgBusConsumer adaptorConsumer;
+  private InMemoryMsgBusConsumer platformConsumer;
+  private InMemoryMsgBusProducer adaptorProducer;
+  private InMemoryMsgBusProducer platformProducer;
+  private InMemoryMsgBusProducer wimProducer;
+
+  /**
+   * Connect an adaptor and a Service Platform stand-in to the same in-memory bus.
+   */
+  @Before
+  public void setUp() throws IOException {
+    bus = new InMemoryBus();
+    adaptorDispatcher = new LinkedBlockingQueue<ServicePlatformMessage>();
+    platformDispatcher = new LinkedBlockingQueue<ServicePlatformMessage>();
+    adaptorConsumer =
+        new InMemoryMsgBusConsumer(adaptorDispatcher, ADAPTOR_ID, ADAPTOR_QUEUE, bus);
+    adaptorConsumer.addTopic("infrastructure.#");
+    adaptorConsumer.ignore(WIM_ID, "infrastructure.service.deploy");
+    platformConsumer =
+        new InMemoryMsgBusConsumer(platformDispatcher, PLATFORM_ID, PLATFORM_QUEUE, bus);
+    platformConsumer.addTopic("infrastructure.#");
+    adaptorConsumer.connectToBus();
+    platformConsumer.connectToBus();
+    adaptorConsumer.startConsuming();
+    platformConsumer.startConsuming();
+
+    BlockingQueue<ServicePlatformMessage> unused = new LinkedBlockingQueue<ServicePlatformMessage>();
+    adaptorProducer = new InMemoryMsgBusProducer(unused, ADAPTOR_ID, bus);
+    platformProducer = new InMemoryMsgBusProducer(unused, PLATFORM_ID, bus);
+    wimProducer = new InMemoryMsgBusProducer(unused, WIM_ID, bus);
+  }
+
+  /**
+   * Stop the consumers and restore the codec defaults.
+   */
+  @After
+  public void tearDown() {
+    adaptorConsumer.stopConsuming();
+    platformConsumer.stopConsuming();
+    PayloadCodec.getInstance().configure(PayloadCodec.DISABLED, new ArrayList<String>());
+  }
+
+  /**
+   * Check the AMQP topic pattern semantics used for the bindings.
+   */
+  @Test
+  public void testTopicMatching() {
+    Assert.assertTrue(TopicPattern.matches("infrastructure.#", "infrastructure.service.deploy"));
+    Assert.assertTrue(TopicPattern.matches("infrastructure.#", "infrastructure"));
+    Assert.assertTrue(TopicPattern.matches("infrastructure.wan.#", "infrastructure.wan.configure"));
+    Assert.assertFalse(
+        TopicPattern.matches("infrastructure.wan.#", "infrastructure.service.deploy"));
+    Assert.assertTrue(TopicPattern.matches("platform.management.plugin.*.heartbeat",
+        "platform.management.plugin.1234.heartbeat"));
+    Assert.assertFalse(TopicPattern.matches("platform.management.plugin.*",
+        "platform.management.plugin.1234.heartbeat"));
+    Assert.assertTrue(TopicPattern.matches("#.heartbeat", "platform.management.plugin.heartbeat"));
+    Assert.assertFalse(TopicPattern.matches("platform.management.plugin.register",
+        "platform.management.plugin.deregister"));
+  }
+
+  /**
+   * A request published by the platform reaches the adaptor dispatcher with all its fields, and
+   * the delivery is acknowledged once the message has been handled.
+   */
+  @Test
+  public void testRoundTrip() throws InterruptedException {
+    ServicePlatformMessage request = new ServicePlatformMessage("{\"vim_list\":[]}",
+        "application/json", "infrastructure.management.compute.list", "sid-1",
+        "infrastructure.management.compute.list");
+    Assert.assertTrue(platformProducer.sendMessage(request));
+
+    ServicePlatformMessage received = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(received);
+    Assert.assertEquals(request.getBody(), received.getBody());
+    Assert.assertEquals(request.getContentType(), received.getContentType());
+    Assert.assertEquals(request.getTopic(), received.getTopic());
+    Assert.assertEquals(request.getSid(), received.getSid());
+    Assert.assertEquals(request.getReplyTo(), received.getReplyTo());
+
+    Assert.assertEquals(1, bus.getUnackedCount(ADAPTOR_QUEUE));
+    received.acknowledge();
+    // A message is acknowledged only once.
+    received.acknowledge();
+    waitForAcks(adaptorConsumer, 1);
+    Assert.assertEquals(0, bus.getUnackedCount(ADAPTOR_QUEUE));
+    Assert.assertEquals(0, bus.getReadyCount(ADAPTOR_QUEUE));
+    Assert.assertEquals(1, platformProducer.getMetrics().getConfirmed());
+  }
+
+  /**
+   * Only the subscribed topics and the plug-in management topics reach the adaptor.
+   */
+  @Test
+  public void testSubscriptions() throws InterruptedException {
+    platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/json",
+        "service.instances.create", "sid-2", null));
+    platformProducer.sendMessage(new ServicePlatformMessage("{\"status\":\"OK\"}",
+        "application/json", "platform.management.plugin.register", "sid-3", null));
+
+    ServicePlatformMessage received = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(received);
+    Assert.assertEquals("platform.management.plugin.register", received.getTopic());
+    Assert.assertNull(adaptorDispatcher.poll(200, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * A consumer subscribed from a routing table only gets the routed request topics on its queue,
+   * and the replies to its own requests on the reply queue, so its requests to the plug-in manager
+   * and the traffic of the other adaptors are not delivered to it at all.
+   */
+  @Test
+  public void testRoutingTableBindings() throws InterruptedException, IOException {
+    String routedQueue = "son-kernel.Routed";
+    String replyTopic = ADAPTOR_ID + ".reply.register";
+    // Binding left on the durable queue by a previous version of the adaptor.
+    bus.declareQueue(routedQueue);
+    bus.bind(routedQueue, "infrastructure.#");
+
+    RoutingTable.Route noop = new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {}
+    };
+    RoutingTable table = new RoutingTable();
+    table.addRoute("infrastructure.service.deploy", noop);
+    table.addRoute("infrastructure.service.remove", noop);
+    table.addReplyRoute(replyTopic, noop);
+    BlockingQueue<ServicePlatformMessage> routedDispatcher =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    InMemoryMsgBusConsumer routedConsumer =
+        new InMemoryMsgBusConsumer(routedDispatcher, ADAPTOR_ID, routedQueue, bus);
+    routedConsumer.subscribe(table);
+    routedConsumer.retireTopic("infrastructure.#");
+    routedConsumer.connectToBus();
+    routedConsumer.startConsuming();
+    try {
+      Assert.assertFalse(routedConsumer.getTopics().contains("platform.management.plugin.register"));
+
+      adaptorProducer.sendMessage(new ServicePlatformMessage("{}", "application/json",
+          "platform.management.plugin.register", "sid-8", replyTopic));
+      wimProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+          "infrastructure.wan.configure", "sid-9", "infrastructure.wan.configure"));
+      platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+          "infrastructure.service.deploy", "sid-10", "infrastructure.service.deploy"));
+      platformProducer.sendMessage(new ServicePlatformMessage("{\"status\":\"OK\"}",
+          "application/json", replyTopic, "sid-8", null));
+
+      ArrayList<String> topics = new ArrayList<String>();
+      for (int i = 0; i < 2; i++) {
+        ServicePlatformMessage received = routedDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(received);
+        topics.add(received.getTopic());
+        received.acknowledge();
+      }
+      Assert.assertTrue(topics.contains("infrastructure.service.deploy"));
+      Assert.assertTrue(topics.contains(replyTopic));
+      Assert.assertNull(routedDispatcher.poll(200, TimeUnit.MILLISECONDS));
+      waitForAcks(routedConsumer, 2);
+      Assert.assertEquals(2, routedConsumer.getMetrics().getConsumed());
+      Assert.assertEquals(0, routedConsumer.getMetrics().getIgnored());
+      Assert.assertEquals(0, bus.getUnackedCount(routedQueue));
+      Assert.assertEquals(0, bus.getUnackedCount(routedQueue + ".reply"));
+    } finally {
+      routedConsumer.stopConsuming();
+    }
+  }
+
+  /**
+   * The topics of a traffic class are received on the queue of the class and handled by its own
+   * lane, so management calls are answered while the deployment lane is saturated. A class holds
+   * at most "prefetch" deliveries, the others wait on the broker until the lane has handled some.
+   */
+  @Test
+  public void testTrafficClassLanes() throws InterruptedException, IOException {
+    String lanedQueue = "son-kernel.Laned";
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch listed = new CountDownLatch(1);
+    RoutingTable table = new RoutingTable();
+    table.addRoute("infrastructure.service.deploy", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    table.addRoute("infrastructure.management.compute.list", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        listed.countDown();
+      }
+    });
+    TrafficClass management = new TrafficClass("management", 4, 2);
+    management.addTopic("infrastructure.management.#");
+    TrafficClass deployment = new TrafficClass("deployment", 2, 1);
+    deployment.addTopic("infrastructure.service.deploy");
+
+    BlockingQueue<ServicePlatformMessage> defaultQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    BlockingQueue<ServicePlatformMessage> managementQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    BlockingQueue<ServicePlatformMessage> deploymentQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    Lane defaultLane = new Lane(TrafficClass.DEFAULT, defaultQueue, table, 1);
+    Lane managementLane = new Lane(management, managementQueue, table);
+    Lane deploymentLane = new Lane(deployment, deploymentQueue, table);
+    InMemoryMsgBusConsumer lanedConsumer =
+        new InMemoryMsgBusConsumer(defaultQueue, ADAPTOR_ID, lanedQueue, bus);
+    lanedConsumer.subscribe(table);
+    lanedConsumer.addLane(management, managementQueue);
+    lanedConsumer.addLane(deployment, deploymentQueue);
+    lanedConsumer.connectToBus();
+    lanedConsumer.startConsuming();
+    defaultLane.start();
+    managementLane.start();
+    deploymentLane.start();
+    String deploymentQueueName = lanedConsumer.getLaneQueueName(deployment);
+    try {
+      Assert.assertTrue(lanedConsumer.getLaneTopics(TrafficClass.DEFAULT).isEmpty());
+      Assert.assertEquals("infrastructure.management.compute.list",
+          lanedConsumer.getLaneTopics("management").get(0));
+      Assert.assertEquals("infrastructure.service.deploy",
+          lanedConsumer.getLaneTopics("deployment").get(0));
+      Assert.assertTrue(
+          lanedConsumer.getRetiredTopics().contains("infrastructure.management.compute.list"));
+
+      for (int i = 0; i < 3; i++) {
+        platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+            "infrastructure.service.deploy", "sid-deploy-" + i, null));
+      }
+      platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/json",
+          "infrastructure.management.compute.list", "sid-list", null));
+
+      Assert.assertTrue(listed.await(timeout, TimeUnit.MILLISECONDS));
+      waitForAcks(lanedConsumer, 1);
+      Assert.assertEquals(0,
+          bus.getUnackedCount(lanedConsumer.getLaneQueueName(management)));
+      // One deployment is running and one is waiting in the lane, the last one on the broker.
+      long deadline = System.currentTimeMillis() + timeout;
+      while (bus.getReadyCount(deploymentQueueName) > 1
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(2, bus.getUnackedCount(deploymentQueueName));
+      Assert.assertEquals(1, bus.getReadyCount(deploymentQueueName));
+      Thread.sleep(200);
+      Assert.assertEquals(1, bus.getReadyCount(deploymentQueueName));
+
+      release.countDown();
+      waitForAcks(lanedConsumer, 4);
+      Assert.assertEquals(0, bus.getUnackedCount(deploymentQueueName));
+      Assert.assertEquals(0, bus.getReadyCount(deploymentQueueName));
+    } finally {
+      release.countDown();
+      defaultLane.stop();
+      managementLane.stop();
+      deploymentLane.stop();
+      lanedConsumer.stopConsuming();
+    }
+  }
+
+  /**
+   * Check that a message on a topic served in-process reaches the serving adaptor with its object
+   * payload and without going through the MsgBus, and that the MsgBus takes over again after the
+   * topic is released.
+   */
+  @Test
+  public void testLocalChannel() throws InterruptedException {
+    String topic = "infrastructure.wan.configure";
+    BlockingQueue<ServicePlatformMessage> vimQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    BlockingQueue<ServicePlatformMessage> wimQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    AdaptorMux vimMux = new AdaptorMux(vimQueue);
+    AdaptorMux wimMux = new AdaptorMux(wimQueue);
+    final Hashtable<String, String> record = new Hashtable<String, String>();
+    record.put("instance_uuid", "1234");
+    MessagePayload payload = new ObjectPayload(record) {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        out.write("instance_uuid: '1234'".getBytes(Charset.forName("UTF-8")));
+      }
+    };
+
+    LocalChannel.getInstance().register(topic, adaptorConsumer, wimMux);
+    try {
+      Assert.assertTrue(vimMux.enqueue(ServicePlatformMessage.withPayload(payload,
+          "application/x-yaml", topic, "sid-local", "infrastructure.service.deploy")));
+      ServicePlatformMessage received = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      Assert.assertSame(record, received.getValue());
+      Assert.assertEquals("sid-local", received.getSid());
+      Assert.assertEquals("infrastructure.service.deploy", received.getReplyTo());
+      Assert.assertTrue(vimQueue.isEmpty());
+      Assert.assertEquals(1, adaptorConsumer.getMetrics().getLocal());
+
+      // The serving adaptor does not receive its own messages on the topic.
+      Assert.assertTrue(wimMux.enqueue(new ServicePlatformMessage("{}", "application/json", topic,
+          "sid-error", null)));
+      Assert.assertEquals(1, wimQueue.size());
+      Assert.assertTrue(adaptorDispatcher.isEmpty());
+    } finally {
+      LocalChannel.getInstance().unregister(topic);
+    }
+
+    Assert.assertTrue(vimMux.enqueue(ServicePlatformMessage.withPayload(payload,
+        "application/x-yaml", topic, "sid-bus", null)));
+    Assert.assertEquals(1, vimQueue.size());
+    Assert.assertNull(adaptorDispatcher.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * The adaptor does not dispatch its own messages nor the ones of ignored senders, but it
+   * acknowledges them so they do not pile up in its queue.
+   */
+  @Test
+  public void testIgnoredSenders() throws InterruptedException {
+    adaptorProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+        "infrastructure.service.deploy", "sid-4", null));
+    wimProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+        "infrastructure.service.deploy", "sid-4", null));
+    wimProducer.sendMessage(new ServicePlatformMessage("{}", "application/json",
+        "infrastructure.wan.list", "sid-5", null));
+
+    ServicePlatformMessage received = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+    Assert.assertNotNull(received);
+    Assert.assertEquals("sid-5", received.getSid());
+    Assert.assertNull(adaptorDispatcher.poll(200, TimeUnit.MILLISECONDS));
+    received.acknowledge();
+    waitForAcks(adaptorConsumer, 3);
+    Assert.assertEquals(2, adaptorConsumer.getMetrics().getIgnored());
+    Assert.assertEquals(0, bus.getUnackedCount(ADAPTOR_QUEUE));
+
+    // The platform gets all of them.
+    for (int i = 0; i < 3; i++) {
+      Assert.assertNotNull(platformDispatcher.poll(timeout, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  /**
+   * Large responses are compressed only for the sessions whose sender accepts it, and are decoded
+   * transparently by the receiver.
+   */
+  @Test
+  public void testCompressionNegotiation() throws InterruptedException {
+    ArrayList<String> topics = new ArrayList<String>();
+    PayloadCodec.getInstance().configure(1024, topics);
+    // The platform consumes the replies on the deploy topic itself.
+    PayloadCodec.getInstance().addReplyTopic(PLATFORM_ID, "infrastructure.service.deploy");
+    final String body = buildBody(64 * 1024);
+
+    // The platform request advertises gzip support, so the response in its session is compressed.
+    platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+        "infrastructure.service.deploy", "sid-6", "infrastructure.service.deploy"));
+    Assert.assertNotNull(adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS));
+    adaptorProducer.sendMessage(ServicePlatformMessage.withPayload(new MessagePayload() {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        out.write(body.getBytes(Charset.forName("UTF-8")));
+      }
+    }, "application/x-yaml", "infrastructure.service.deploy", "sid-6", null));
+    // No request has been received in this session: the response stays plain.
+    adaptorProducer.sendMessage(new ServicePlatformMessage(body, "application/x-yaml",
+        "infrastructure.service.deploy", "sid-7", null));
+
+    // The platform ignores its own request and gets both responses, decoded.
+    for (int i = 0; i < 2; i++) {
+      ServicePlatformMessage received = platformDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      Assert.assertEquals(body, received.getBody());
+    }
+    Assert.assertEquals(1, adaptorProducer.getMetrics().getCompressed());
+    Assert.assertTrue(adaptorProducer.getMetrics().getSavedBytes() > body.length() / 2);
+  }
+
+  /**
+   * A request forwarded by the VIM adaptor to the WIM adaptor with the reply-to of the platform does
+   * not advertise gzip, so the WIM answers the platform in plain text. Replies sent back to the VIM
+   * adaptor on its own reply topic are compressed.
+   */
+  @Test
+  public void testCompressionForwardedRequest() throws Exception {
+    PayloadCodec.getInstance().configure(1024, new ArrayList<String>());
+    PayloadCodec.getInstance().addReplyTopic(ADAPTOR_ID, "infrastructure.wan.reply");
+    BlockingQueue<ServicePlatformMessage> wimDispatcher =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    InMemoryMsgBusConsumer wimConsumer =
+        new InMemoryMsgBusConsumer(wimDispatcher, WIM_ID, "son-kernel.WimAdaptor", bus);
+    wimConsumer.addTopic("infrastructure.wan.configure");
+    wimConsumer.connectToBus();
+    wimConsumer.startConsuming();
+    String body = buildBody(64 * 1024);
+    try {
+      // VIM -> WIM, on behalf of the platform: the WIM answers the platform uncompressed.
+      adaptorProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+          "infrastructure.wan.configure", "sid-8", "infrastructure.service.deploy"));
+      Assert.assertNotNull(wimDispatcher.poll(timeout, TimeUnit.MILLISECONDS));
+      wimProducer.sendMessage(new ServicePlatformMessage(body, "application/x-yaml",
+          "infrastructure.service.deploy", "sid-8", null));
+      Assert.assertEquals(0, wimProducer.getMetrics().getCompressed());
+
+      // VIM -> WIM, with the reply-to of the VIM: the reply is compressed, but only on that topic.
+      adaptorProducer.sendMessage(new ServicePlatformMessage("{}", "application/x-yaml",
+          "infrastructure.wan.configure", "sid-9", "infrastructure.wan.reply"));
+      Assert.assertNotNull(wimDispatcher.poll(timeout, TimeUnit.MILLISECONDS));
+      wimProducer.sendMessage(new ServicePlatformMessage(body, "application/x-yaml",
+          "infrastructure.service.deploy", "sid-9", null));
+      Assert.assertEquals(0, wimProducer.getMetrics().getCompressed());
+      wimProducer.sendMessage(new ServicePlatformMessage(body, "application/x-yaml",
+          "infrastructure.wan.reply", "sid-9", null));
+      Assert.assertEquals(1, wimProducer.getMetrics().getCompressed());
+
+      ServicePlatformMessage reply = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      while (reply != null && !reply.getTopic().equals("infrastructure.wan.reply")) {
+        reply = adaptorDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      }
+      Assert.assertNotNull(reply);
+      Assert.assertEquals(body, reply.getBody());
+    } finally {
+      wimConsumer.stopConsuming();
+    }
+  }
+
+  /**
+   * Undecodable deliveries are rejected without being requeued.
+   */
+  @Test
+  public void testRejectUndecodable() throws InterruptedException {
+    BasicProperties properties = new BasicProperties().builder().appId(PLATFORM_ID)
+        .contentEncoding(PayloadCodec.GZIP).contentType("application/json").build();
+    bus.publish(new EncodedMessage("infrastructure.management.compute.list", properties,
+        "not compressed".getBytes(Charset.forName("UTF-8"))));
+
+    long deadline = System.currentTimeMillis() + timeout;
+    while (adaptorConsumer.getMetrics().getRejected() < 1
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(1, adaptorConsumer.getMetrics().getRejected());
+    Assert.assertNull(adaptorDispatcher.poll(200, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(0, bus.getUnackedCount(ADAPTOR_QUEUE));
+    Assert.assertEquals(0, bus.getReadyCount(ADAPTOR_QUEUE));
+  }
+
+  /**
+   * When the dispatcher cannot take a message, the delivery goes back to the broker and is
+   * delivered again instead of being lost.
+   */
+  @Test
+  public void testRedeliveryWhenDispatcherFull() throws Exception {
+    adaptorConsumer.stopConsuming();
+    BlockingQueue<ServicePlatformMessage> smallDispatcher =
+        new LinkedBlockingQueue<ServicePlatformMessage>(1);
+    adaptorConsumer =
+        new InMemoryMsgBusConsumer(smallDispatcher, ADAPTOR_ID, ADAPTOR_QUEUE, bus);
+    adaptorConsumer.startConsuming();
+
+    for (int i = 0; i < 3; i++) {
+      platformProducer.sendMessage(new ServicePlatformMessage("{}", "application/json",
+          "infrastructure.management.compute.list", "sid-" + i, null));
+    }
+    ArrayList<String> sids = new ArrayList<String>();
+    while (sids.size() < 3) {
+      ServicePlatformMessage received = smallDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      sids.add(received.getSid());
+      received.acknowledge();
+    }
+    Assert.assertTrue(sids.contains("sid-0"));
+    Assert.assertTrue(sids.contains("sid-1"));
+    Assert.assertTrue(sids.contains("sid-2"));
+    waitForAcks(adaptorConsumer, 3);
+  }
+
+  /**
+   * The producer thread sends messages in the order they are queued, and stopping it waits for
+   * the queue to drain.
+   */
+  @Test
+  public void testOrderingAndDrain() throws InterruptedException {
+    BlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    InMemoryMsgBusProducer producer = new InMemoryMsgBusProducer(muxQueue, ADAPTOR_ID, bus);
+    producer.startProducing();
+    int messages = 1000;
+    for (int i = 0; i < messages; i++) {
+      muxQueue.add(new ServicePlatformMessage("{\"index\":" + i + "}", "application/json",
+          "infrastructure.management.compute.list", "sid-" + i, null));
+    }
+    producer.stopProducing();
+    Assert.assertEquals(messages, producer.getMetrics().getPublished());
+
+    for (int i = 0; i < messages; i++) {
+      ServicePlatformMessage received = platformDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      Assert.assertEquals("sid-" + i, received.getSid());
+      received.acknowledge();
+    }
+  }
+
+  /**
+   * With several producer lanes the messages of a session are still published in order, and the
+   * plug-in management messages take the priority lane.
+   */
+  @Test
+  public void testSessionOrderingAcrossLanes() throws InterruptedException {
+    BlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    InMemoryMsgBusProducer producer = new InMemoryMsgBusProducer(muxQueue, ADAPTOR_ID, bus);
+    producer.setSessionLanes(4);
+    Assert.assertEquals(AbstractMsgBusProducer.PRIORITY_LANE,
+        producer.getLane(new ServicePlatformMessage("{}", "application/json",
+            "platform.management.plugin.1234.heartbeat", "sid-hb", null)));
+    Assert.assertEquals(AbstractMsgBusProducer.PRIORITY_LANE,
+        producer.getLane(new ServicePlatformMessage("{}", "application/json",
+            "platform.management.plugin.register", "sid-reg", null)));
+
+    producer.startProducing();
+    int sessions = 16;
+    int messages = 100;
+    for (int i = 0; i < messages; i++) {
+      for (int session = 0; session < sessions; session++) {
+        muxQueue.add(new ServicePlatformMessage("{\"index\":" + i + "}", "application/json",
+            "infrastructure.management.compute.list", "sid-" + session, null));
+      }
+    }
+    producer.stopProducing();
+    Assert.assertEquals(sessions * messages, producer.getMetrics().getPublished());
+
+    Hashtable<String, Integer> next = new Hashtable<String, Integer>();
+    for (int i = 0; i < sessions * messages; i++) {
+      ServicePlatformMessage received = platformDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      Integer expected = next.get(received.getSid());
+      expected = expected == null ? 0 : expected;
+      Assert.assertEquals("{\"index\":" + expected + "}", received.getBody());
+      next.put(received.getSid(), expected + 1);
+      received.acknowledge();
+    }
+  }
+
+  /**
+   * A message refused by the MsgBus is sent again ahead of the newer messages of its session.
+   */
+  @Test
+  public void testRetryKeepsSessionOrder() throws InterruptedException {
+    BlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    InMemoryMsgBusProducer producer = new InMemoryMsgBusProducer(muxQueue, ADAPTOR_ID, bus) {
+      private boolean refused = false;
+
+      @Override
+      public boolean sendMessage(ServicePlatformMessage message) {
+        if (!refused && message.getBody().equals("{\"index\":0}")) {
+          // Stands for a nack of the broker.
+          refused = true;
+          requeue(message);
+          return false;
+        }
+        return super.sendMessage(message);
+      }
+    };
+    int messages = 5;
+    for (int i = 0; i < messages; i++) {
+      muxQueue.add(new ServicePlatformMessage("{\"index\":" + i + "}", "application/json",
+          "infrastructure.management.compute.list", "sid-retry", null));
+    }
+    producer.startProducing();
+    producer.stopProducing();
+    Assert.assertEquals(1, producer.getMetrics().getRepublished());
+    Assert.assertEquals(messages, producer.getMetrics().getPublished());
+
+    for (int i = 0; i < messages; i++) {
+      ServicePlatformMessage received = platformDispatcher.poll(timeout, TimeUnit.MILLISECONDS);
+      Assert.assertNotNull(received);
+      Assert.assertEquals("{\"index\":" + i + "}", received.getBody());
+      received.acknowledge();
+    }
+  }
+
+  /**
+   * A message refused by the MsgBus while the producer is stopping is not sent again, and counts
+   * as failed instead of being silently dropped.
+   */
+  @Test
+  public void testNackWhileStopping() {
+    BlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    final ServicePlatformMessage message = new ServicePlatformMessage("{}", "application/json",
+        "infrastructure.management.compute.list", "sid-stop", null);
+    InMemoryMsgBusProducer producer = new InMemoryMsgBusProducer(muxQueue, ADAPTOR_ID, bus) {
+      @Override
+      protected void flush() {
+        // Stands for a nack received while waiting for the outstanding confirms.
+        Assert.assertFalse(requeue(message));
+      }
+    };
+    producer.startProducing();
+    muxQueue.add(message);
+    producer.stopProducing();
+    Assert.assertEquals(1, producer.getMetrics().getPublished());
+    Assert.assertEquals(0, producer.getMetrics().getRepublished());
+    Assert.assertEquals(1, producer.getMetrics().getFailed());
+  }
+
+  /**
+   * Benchmark the producer throughput at several levels of parallelism. Each publish waits half a
+   * millisecond, standing for the socket write and flow control of a real broker, so the gain
+   * comes from overlapping the publishes of different sessions. Timings depend on the machine, so
+   * the benchmark only runs with -Dbenchmark=true.
+   */
+  @Test
+  public void benchmarkProducerLanes() {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    int messages = 1000;
+    int sessions = 64;
+    final long publishNanos = 500000;
+    double sequential = 0;
+    double parallel = 0;
+    for (int lanes : new int[] {1, 2, 4, 8}) {
+      BlockingQueue<ServicePlatformMessage> muxQueue =
+          new LinkedBlockingQueue<ServicePlatformMessage>();
+      InMemoryMsgBusProducer producer = new InMemoryMsgBusProducer(muxQueue, ADAPTOR_ID, bus) {
+        @Override
+        public boolean sendMessage(ServicePlatformMessage message) {
+          LockSupport.parkNanos(publishNanos);
+          return super.sendMessage(message);
+        }
+      };
+      producer.setSessionLanes(lanes);
+      long start = System.nanoTime();
+      producer.startProducing();
+      for (int i = 0; i < messages; i++) {
+        muxQueue.add(new ServicePlatformMessage("{}", "application/json", "benchmark.lanes",
+            "sid-" + (i % sessions), null));
+      }
+      producer.stopProducing();
+      double throughput = messages / ((System.nanoTime() - start) / 1e9);
+      Assert.assertEquals(messages, producer.getMetrics().getPublished());
+      System.out.println(
+          String.format("Producer lanes: %d - %.0f messages/s", lanes, throughput));
+      if (lanes == 1) {
+        sequential = throughput;
+      }
+      parallel = throughput;
+    }
+    Assert.assertTrue(parallel > sequential);
+  }
+
+  private void waitForAcks(AbstractMsgBusConsumer consumer, long acks)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while (consumer.getMetrics().getAcked() < acks && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(acks, consumer.getMetrics().getAcked());
+  }
+
+  private String buildBody(int size) {
+    StringBuilder builder = new StringBuilder();
+    int index = 0;
+    while (builder.length() < size) {
+      builder.append("- name: vdu-").append(index).append("\n  image: sonata-vtc\n")
+          .append("  flavor: m1.small\n");
+      index++;
+    }
+    return builder.toString();
+  }
+
+}
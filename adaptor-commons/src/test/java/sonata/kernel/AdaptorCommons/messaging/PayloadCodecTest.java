@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.AdaptorCommons.messaging;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PayloadCodecTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @After
+  public void tearDown() {
+    PayloadCodec.getInstance().configure(PayloadCodec.DISABLED, new ArrayList<String>());
+  }
+
+  /**
+   * Compress and decode a payload, and check plain payloads are still decoded.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    String payload = buildPayload(256 * 1024);
+    byte[] compressed = PayloadCodec.compress(payload.getBytes(UTF8));
+    Assert.assertTrue(compressed.length < payload.length() / 4);
+    Assert.assertEquals(payload, PayloadCodec.decode(compressed, PayloadCodec.GZIP));
+    Assert.assertEquals(payload, PayloadCodec.decode(payload.getBytes(UTF8), null));
+    try {
+      PayloadCodec.decode(compressed, "lz4");
+      Assert.fail("Unsupported encoding accepted");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Check payloads are compressed only above the threshold and for receivers known to decode them.
+   */
+  @Test
+  public void testCompressionPolicy() {
+    PayloadCodec codec = PayloadCodec.getInstance();
+    ServicePlatformMessage response = new ServicePlatformMessage("body", "application/x-yaml",
+        "infrastructure.service.deploy", "sid-accepting", null);
+    ServicePlatformMessage legacy = new ServicePlatformMessage("body", "application/x-yaml",
+        "infrastructure.service.deploy", "sid-legacy", null);
+    ServicePlatformMessage hook = new ServicePlatformMessage("body", "application/x-yaml",
+        "infrastructure.wan.configure", "sid-legacy", null);
+
+    Map<String, Object> headers = new HashMap<String, Object>();
+    headers.put(PayloadCodec.ACCEPT_ENCODING_HEADER, PayloadCodec.GZIP);
+    codec.trackSession("sid-accepting", "infrastructure.service.deploy", headers);
+    codec.trackSession("sid-legacy", "infrastructure.service.deploy", null);
+
+    Assert.assertFalse(codec.shouldCompress(response, 1024 * 1024));
+
+    ArrayList<String> topics = new ArrayList<String>();
+    topics.add("infrastructure.wan.configure");
+    codec.configure(64 * 1024, topics);
+    Assert.assertTrue(codec.shouldCompress(response, 64 * 1024));
+    Assert.assertFalse(codec.shouldCompress(response, 64 * 1024 - 1));
+    Assert.assertFalse(codec.shouldCompress(legacy, 1024 * 1024));
+    Assert.assertTrue(codec.shouldCompress(hook, 1024 * 1024));
+  }
+
+  /**
+   * Benchmark the compression of a deployment-sized payload, reporting throughput, CPU cost and
+   * the bytes saved on the wire. It only runs with -Dbenchmark=true.
+   */
+  @Test
+  public void benchmarkCompression() throws IOException {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    String payload = buildPayload(512 * 1024);
+    byte[] raw = payload.getBytes(UTF8);
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    int iterations = 50;
+
+    // Warm-up.
+    byte[] compressed = null;
+    for (int i = 0; i < 10; i++) {
+      compressed = PayloadCodec.compress(raw);
+      PayloadCodec.decode(compressed, PayloadCodec.GZIP);
+    }
+
+    long cpuStart = threads.getCurrentThreadCpuTime();
+    long wallStart = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      compressed = PayloadCodec.compress(raw);
+    }
+    long compressWall = System.nanoTime() - wallStart;
+    long compressCpu = threads.getCurrentThreadCpuTime() - cpuStart;
+
+    cpuStart = threads.getCurrentThreadCpuTime();
+    wallStart = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      PayloadCodec.decode(compressed, PayloadCodec.GZIP);
+    }
+    long decodeWall = System.nanoTime() - wallStart;
+    long decodeCpu = threads.getCurrentThreadCpuTime() - cpuStart;
+
+    double megaBytes = (double) raw.length * iterations / (1024 * 1024);
+    System.out.println(String.format(
+        "Payload %d bytes -> %d bytes (%.1f%%)%n"
+            + "compress: %.1f MB/s, %.2f ms CPU per message%n"
+            + "decode:   %.1f MB/s, %.2f ms CPU per message",
+        raw.length, compressed.length, 100.0 * compressed.length / raw.length,
+        megaBytes / (compressWall / 1e9), compressCpu / 1e6 / iterations,
+        megaBytes / (decodeWall / 1e9), decodeCpu / 1e6 / iterations));
+    Assert.assertTrue(compressed.length < raw.length);
+  }
+
+  private String buildPayload(int size) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    String[] files = {"./YAML/sonata-demo.yml", "./YAML/vtc-vnf-vnfd.yml",
+        "./YAML/fw-vnf-vnfd.yml"};
+    int index = 0;
+    while (builder.length() < size) {
+      builder.append(new String(Files.readAllBytes(new File(files[index % files.length]).toPath()),
+          UTF8));
+      builder.append("\n---\n");
+      index++;
+    }
+    return builder.toString();
+  }
+
+}
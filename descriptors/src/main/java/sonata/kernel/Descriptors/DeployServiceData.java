@@ -24,14 +24,15 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons;
-
-import java.util.ArrayList;
+package sonata.kernel.Descriptors;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.WimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.WimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 
 public class DeployServiceData {
 
@@ -39,6 +40,9 @@ public class DeployServiceData {
   private String vimUuid;
   private ServiceDescriptor nsd;
   private ArrayList<VnfDescriptor> vnfds;
+  // The compute VIM of the VNFs not deployed on vim_uuid, by NSD vnf_id.
+  @JsonProperty("vim_mapping")
+  private HashMap<String, String> vimMapping;
 
   public DeployServiceData() {
     this.vnfds = new ArrayList<VnfDescriptor>();
@@ -76,5 +80,13 @@ public class DeployServiceData {
     this.vnfds = vnfds;
   }
 
+  public HashMap<String, String> getVimMapping() {
+    return vimMapping;
+  }
+
+  public void setVimMapping(HashMap<String, String> vimMapping) {
+    this.vimMapping = vimMapping;
+  }
+
 
 }
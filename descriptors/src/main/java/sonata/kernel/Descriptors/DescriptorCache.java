@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the descriptors parsed from deployment requests. Services are usually deployed
+ * many times with the same NSD and VNFDs, which differ only in their instance UUID. The cache keeps
+ * each descriptor bound once, keyed by its uuid, version and a digest of its content; a request
+ * whose descriptors are all known only pays for reading the YAML tree and binding the envelope.
+ * 
+ * <p>
+ * A cached descriptor is only handed out if its content is equal to the one in the request, so a
+ * descriptor changed without a new version, or a digest collision, is parsed again. Each request
+ * gets its own shallow copy of the descriptors, carrying its instance UUID, while their sections
+ * are shared between requests and must not be modified.
+ */
+public class DescriptorCache {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private static final String instanceField = "instance_uuid";
+  private static final String nsdField = "nsd";
+  private static final String[] vnfdFields = {"vnfdList", "vnfds"};
+
+  private static DescriptorCache myInstance = null;
+
+  private Map<String, CachedDescriptor> descriptors;
+  private long hits;
+  private long misses;
+
+  /**
+   * Create a descriptor cache.
+   * 
+   * @param capacity the maximum number of descriptors kept, the least recently used are evicted
+   */
+  public DescriptorCache(final int capacity) {
+    this.descriptors = new LinkedHashMap<String, CachedDescriptor>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedDescriptor> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * @return the cache shared by the adaptor.
+   */
+  public static synchronized DescriptorCache getInstance() {
+    if (myInstance == null) {
+      myInstance = new DescriptorCache(DEFAULT_CAPACITY);
+    }
+    return myInstance;
+  }
+
+  /**
+   * Parse the YAML body of a deployment request, reusing the descriptors already known.
+   * 
+   * @param body the YAML body of the request
+   * @return the deployment data of the request
+   * @throws IOException if the body cannot be parsed
+   */
+  public DeployServiceData readDeployServiceData(String body) throws IOException {
+    JsonNode root = DescriptorMapper.readYamlTree(body);
+    if (!(root instanceof ObjectNode)) {
+      return DescriptorMapper.readYaml(body, DeployServiceData.class);
+    }
+    return readDeployServiceData(root);
+  }
+
+  /**
+   * Bind the tree of a deployment request, reusing the descriptors already known. The descriptor
+   * nodes are removed from the tree.
+   * 
+   * @param root the YAML tree of the request, as read by DescriptorMapper
+   * @return the deployment data of the request
+   * @throws IOException if the tree cannot be bound
+   */
+  public DeployServiceData readDeployServiceData(JsonNode root) throws IOException {
+    if (!(root instanceof ObjectNode)) {
+      return DescriptorMapper.treeToValue(root, DeployServiceData.class);
+    }
+    ObjectNode envelope = (ObjectNode) root;
+    JsonNode nsdNode = envelope.remove(nsdField);
+    ArrayList<JsonNode> vnfdNodes = new ArrayList<JsonNode>();
+    for (String field : vnfdFields) {
+      JsonNode list = envelope.remove(field);
+      if (list != null && list.isArray()) {
+        for (JsonNode vnfdNode : list) {
+          vnfdNodes.add(vnfdNode);
+        }
+      }
+    }
+
+    DeployServiceData data = DescriptorMapper.treeToValue(envelope, DeployServiceData.class);
+    if (nsdNode instanceof ObjectNode) {
+      ObjectNode node = (ObjectNode) nsdNode;
+      String instanceUuid = node.path(instanceField).textValue();
+      node.remove(instanceField);
+      ServiceDescriptor nsd = lookup(node, ServiceDescriptor.class).copy();
+      nsd.setInstanceUuid(instanceUuid);
+      data.setNsd(nsd);
+    }
+    ArrayList<VnfDescriptor> vnfds = new ArrayList<VnfDescriptor>(vnfdNodes.size());
+    for (JsonNode vnfdNode : vnfdNodes) {
+      if (!(vnfdNode instanceof ObjectNode)) {
+        vnfds.add(DescriptorMapper.treeToValue(vnfdNode, VnfDescriptor.class));
+        continue;
+      }
+      ObjectNode node = (ObjectNode) vnfdNode;
+      String instanceUuid = node.path(instanceField).textValue();
+      node.remove(instanceField);
+      VnfDescriptor vnfd = lookup(node, VnfDescriptor.class).copy();
+      vnfd.setInstanceUuid(instanceUuid);
+      vnfds.add(vnfd);
+    }
+    data.setVnfds(vnfds);
+    return data;
+  }
+
+  private <T> T lookup(ObjectNode node, Class<T> type) throws IOException {
+    String key = type.getSimpleName() + ":" + node.path("uuid").asText() + ":"
+        + node.path("version").asText() + ":" + Integer.toHexString(node.hashCode());
+    synchronized (this) {
+      CachedDescriptor cached = descriptors.get(key);
+      if (cached != null && cached.node.equals(node)) {
+        hits++;
+        return type.cast(cached.descriptor);
+      }
+      misses++;
+    }
+    T descriptor = DescriptorMapper.treeToValue(node, type);
+    synchronized (this) {
+      descriptors.put(key, new CachedDescriptor(node, descriptor));
+    }
+    return descriptor;
+  }
+
+  /**
+   * @return the number of descriptors currently cached.
+   */
+  public synchronized int size() {
+    return descriptors.size();
+  }
+
+  /**
+   * @return the number of descriptors taken from the cache.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of descriptors that had to be bound.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Forget all the cached descriptors.
+   */
+  public synchronized void clear() {
+    descriptors.clear();
+  }
+
+  private static class CachedDescriptor {
+
+    private JsonNode node;
+    private Object descriptor;
+
+    private CachedDescriptor(JsonNode node, Object descriptor) {
+      this.node = node;
+      this.descriptor = descriptor;
+    }
+  }
+
+}
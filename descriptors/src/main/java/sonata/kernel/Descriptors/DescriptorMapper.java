@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+
+/**
+ * Shared, pre-configured mappers for service and function descriptors. Building an ObjectMapper
+ * and its deserializers for each message costs far more than the parse itself; the readers
+ * returned here are immutable and can be used by any number of threads.
+ */
+public class DescriptorMapper {
+
+  private static final ObjectMapper yamlMapper = newMapper(new YAMLFactory());
+  private static final ObjectMapper jsonMapper = newMapper(new JsonFactory());
+
+  /**
+   * Create a new mapper configured for descriptors, for the callers that need to add their own
+   * serialization settings.
+   * 
+   * @param factory the factory for the data format to read
+   * @return the configured mapper
+   */
+  public static ObjectMapper newMapper(JsonFactory factory) {
+    ObjectMapper mapper = new ObjectMapper(factory);
+    mapper.registerModule(new DescriptorModule());
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    return mapper;
+  }
+
+  /**
+   * Parse a YAML document into the given descriptor type.
+   * 
+   * @param body the YAML document
+   * @param type the class of the object to read
+   * @return the parsed object
+   * @throws IOException if the document cannot be parsed
+   */
+  public static <T> T readYaml(String body, Class<T> type) throws IOException {
+    return yamlMapper.readerFor(type).readValue(body);
+  }
+
+  /**
+   * Parse a YAML document into a tree, without binding it to the descriptor classes.
+   * 
+   * @param body the YAML document
+   * @return the root of the document tree
+   * @throws IOException if the document cannot be parsed
+   */
+  public static JsonNode readYamlTree(String body) throws IOException {
+    return yamlMapper.readTree(body);
+  }
+
+  /**
+   * Bind a document tree to the given descriptor type.
+   * 
+   * @param node the root of the tree to bind
+   * @param type the class of the object to read
+   * @return the bound object
+   * @throws IOException if the tree does not match the type
+   */
+  public static <T> T treeToValue(JsonNode node, Class<T> type) throws IOException {
+    return yamlMapper.treeToValue(node, type);
+  }
+
+  /**
+   * Parse a JSON document into the given descriptor type.
+   * 
+   * @param body the JSON document
+   * @param type the class of the object to read
+   * @return the parsed object
+   * @throws IOException if the document cannot be parsed
+   */
+  public static <T> T readJson(String body, Class<T> type) throws IOException {
+    return jsonMapper.readerFor(type).readValue(body);
+  }
+
+}
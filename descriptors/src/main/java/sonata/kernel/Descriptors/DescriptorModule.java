@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Jackson module for service and function descriptors. It registers the Unit deserializer, pools
+ * the identifier strings through the shared IdentifierPool and trims the parsed lists to their
+ * size, so the descriptors kept in memory carry neither duplicate strings nor empty list slots.
+ */
+public class DescriptorModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  public DescriptorModule() {
+    this(IdentifierPool.getInstance());
+  }
+
+  /**
+   * Create a descriptor module pooling the identifiers in the given pool.
+   * 
+   * @param pool the pool for the parsed strings
+   */
+  public DescriptorModule(IdentifierPool pool) {
+    super("SonataDescriptorModule");
+    addDeserializer(Unit.class, new UnitDeserializer());
+    addDeserializer(String.class, new IdentifierDeserializer(pool));
+    setDeserializerModifier(new CompactCollectionModifier());
+  }
+
+  private static class CompactCollectionModifier extends BeanDeserializerModifier {
+
+    @Override
+    public JsonDeserializer<?> modifyCollectionDeserializer(DeserializationConfig config,
+        CollectionType type, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+      return new CompactCollectionDeserializer(deserializer);
+    }
+  }
+
+  private static class CompactCollectionDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    public CompactCollectionDeserializer(JsonDeserializer<?> delegatee) {
+      super(delegatee);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+      return new CompactCollectionDeserializer(newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(JsonParser jp, DeserializationContext context) throws IOException {
+      return trim(super.deserialize(jp, context));
+    }
+
+    @Override
+    public Object deserialize(JsonParser jp, DeserializationContext context, Object intoValue)
+        throws IOException {
+      return trim(super.deserialize(jp, context, intoValue));
+    }
+
+    private static Object trim(Object value) {
+      if (value instanceof ArrayList) {
+        ((ArrayList<?>) value).trimToSize();
+      }
+      return value;
+    }
+  }
+
+}
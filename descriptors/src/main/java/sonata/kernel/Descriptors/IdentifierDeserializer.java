@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * String deserializer that returns the canonical copy of each value from an IdentifierPool. When
+ * the parser exposes its character buffer the pooled values are matched without allocating a new
+ * String.
+ */
+public class IdentifierDeserializer extends StdScalarDeserializer<String> {
+
+  private static final long serialVersionUID = 1L;
+
+  private transient IdentifierPool pool;
+
+  public IdentifierDeserializer(IdentifierPool pool) {
+    super(String.class);
+    this.pool = pool;
+  }
+
+  @Override
+  public boolean isCachable() {
+    return true;
+  }
+
+  @Override
+  public String deserialize(JsonParser jp, DeserializationContext context) throws IOException {
+    if (jp.getCurrentToken() == JsonToken.VALUE_STRING) {
+      if (jp.hasTextCharacters()) {
+        return pool.canonical(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+      }
+      return pool.canonical(jp.getText());
+    }
+    return pool.canonical(StringDeserializer.instance.deserialize(jp, context));
+  }
+
+}
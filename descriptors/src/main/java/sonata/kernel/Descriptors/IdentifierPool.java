@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.Descriptors;
+
+/**
+ * Canonical copies of the short strings found in service and function descriptors. Vendors,
+ * versions, connection point ids and the like are repeated across every descriptor of a catalog;
+ * the pool hands back the same String instance for equal values so the copies produced by each
+ * parse can be collected right away.
+ * 
+ * <p>
+ * The pool is a direct-mapped cache: each value hashes to one slot and a colliding value replaces
+ * the previous one. Memory is bounded by the number of slots and lookups need no locking; a racy
+ * read at worst misses the cached copy and returns an equal, non canonical, string.
+ */
+public class IdentifierPool {
+
+  /**
+   * Values longer than this are not pooled, descriptions and free text are rarely repeated.
+   */
+  public static final int MAX_LENGTH = 64;
+  public static final int DEFAULT_SLOTS = 16384;
+
+  private static IdentifierPool myInstance = new IdentifierPool(DEFAULT_SLOTS);
+
+  private String[] slots;
+  private int mask;
+
+  /**
+   * Create a pool with at least the given number of slots, rounded up to a power of two.
+   * 
+   * @param size the minimum number of slots
+   */
+  public IdentifierPool(int size) {
+    int capacity = 1;
+    while (capacity < size) {
+      capacity <<= 1;
+    }
+    this.slots = new String[capacity];
+    this.mask = capacity - 1;
+  }
+
+  public static IdentifierPool getInstance() {
+    return myInstance;
+  }
+
+  /**
+   * Return the canonical copy of the given string.
+   * 
+   * @param value the string to canonicalize
+   * @return an equal string, shared with the other callers when the value is pooled
+   */
+  public String canonical(String value) {
+    if (value == null || value.length() > MAX_LENGTH) {
+      return value;
+    }
+    int index = spread(value.hashCode()) & mask;
+    String cached = slots[index];
+    if (value.equals(cached)) {
+      return cached;
+    }
+    slots[index] = value;
+    return value;
+  }
+
+  /**
+   * Return the canonical copy of the string held in the given buffer. When the value is already
+   * pooled no String is allocated at all.
+   * 
+   * @param buffer the buffer holding the characters
+   * @param offset the offset of the first character in the buffer
+   * @param length the number of characters
+   * @return an equal string, shared with the other callers when the value is pooled
+   */
+  public String canonical(char[] buffer, int offset, int length) {
+    if (length > MAX_LENGTH) {
+      return new String(buffer, offset, length);
+    }
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    int index = spread(hash) & mask;
+    String cached = slots[index];
+    if (cached != null && matches(cached, buffer, offset, length)) {
+      return cached;
+    }
+    String value = new String(buffer, offset, length);
+    slots[index] = value;
+    return value;
+  }
+
+  /**
+   * @return the number of strings currently pooled.
+   */
+  public int size() {
+    int count = 0;
+    for (String slot : slots) {
+      if (slot != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Forget all the pooled strings.
+   */
+  public void clear() {
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = null;
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String cached, char[] buffer, int offset, int length) {
+    if (cached.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (cached.charAt(i) != buffer[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.nsd;
+package sonata.kernel.Descriptors.nsd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
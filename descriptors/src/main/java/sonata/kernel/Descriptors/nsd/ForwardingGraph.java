@@ -24,12 +24,12 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.nsd;
-
-import java.util.ArrayList;
+package sonata.kernel.Descriptors.nsd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+
 public class ForwardingGraph {
 
   // Forwarding Graph reference case.
@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.nsd;
+package sonata.kernel.Descriptors.nsd;
 
 public class MonitoringParameter {
 
@@ -24,11 +24,11 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.nsd;
+package sonata.kernel.Descriptors.nsd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.ConnectionPointReference;
+import sonata.kernel.Descriptors.vnfd.ConnectionPointReference;
 
 import java.util.ArrayList;
 
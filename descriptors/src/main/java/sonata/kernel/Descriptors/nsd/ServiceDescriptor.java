@@ -25,15 +25,16 @@
  */
 
 
-package sonata.kernel.VimAdaptor.commons.nsd;
+package sonata.kernel.Descriptors.nsd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.AutoScalePolicy;
+import sonata.kernel.Descriptors.vnfd.AutoScalePolicy;
 
 import java.util.ArrayList;
 
-public class ServiceDescriptor {
+public class ServiceDescriptor implements Cloneable {
 
   @JsonProperty("descriptor_version")
   private String descriptorVersion;
@@ -132,6 +133,19 @@ public class ServiceDescriptor {
     this.servicesDependency = servicesDependency;
   }
 
+  /**
+   * Accept the spelling of the dependency fields used by the WIM adaptor messages.
+   */
+  @JsonSetter("vnf_depencency")
+  private void setVnfDepencencyAlternate(ArrayList<String> vnfDepencency) {
+    this.vnfDepencency = vnfDepencency;
+  }
+
+  @JsonSetter("services_dependency")
+  private void setServicesDependencyAlternate(ArrayList<String> servicesDependency) {
+    this.servicesDependency = servicesDependency;
+  }
+
   public void setMonitoringParameters(ArrayList<MonitoringParameter> monitoringParameters) {
     this.monitoringParameters = monitoringParameters;
   }
@@ -240,6 +254,17 @@ public class ServiceDescriptor {
     this.instanceUuid = instanceUuid;
   }
 
+  /**
+   * @return a shallow copy of this descriptor, sharing all its sections with it.
+   */
+  public ServiceDescriptor copy() {
+    try {
+      return (ServiceDescriptor) super.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
 
 
 }
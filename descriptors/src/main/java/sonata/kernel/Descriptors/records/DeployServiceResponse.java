@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons;
+package sonata.kernel.Descriptors.records;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -35,6 +35,7 @@ public class DeployServiceResponse {
   private String instanceName;
   private String instanceVimUuid;
   private String vimUuid;
+  private ArrayList<String> vimList;
   @JsonProperty("request_status")
   private String requestStatus;
   private ServiceRecord nsr;
@@ -110,6 +111,17 @@ public class DeployServiceResponse {
     this.vimUuid = vimUuid;
   }
 
+  /**
+   * @return the UUIDs of all the VIMs hosting the service, when it spans several PoPs.
+   */
+  public ArrayList<String> getVimList() {
+    return vimList;
+  }
+
+  public void setVimList(ArrayList<String> vimList) {
+    this.vimList = vimList;
+  }
+
 
 
 }
@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons;
+package sonata.kernel.Descriptors.records;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
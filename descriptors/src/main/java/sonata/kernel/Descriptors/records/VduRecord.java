@@ -24,11 +24,11 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons;
+package sonata.kernel.Descriptors.records;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.ResourceRequirements;
+import sonata.kernel.Descriptors.vnfd.ResourceRequirements;
 
 import java.util.ArrayList;
 
@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons;
+package sonata.kernel.Descriptors.records;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
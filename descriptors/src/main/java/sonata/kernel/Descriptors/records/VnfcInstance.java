@@ -24,11 +24,11 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons;
+package sonata.kernel.Descriptors.records;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPointRecord;
+import sonata.kernel.Descriptors.nsd.ConnectionPointRecord;
 
 import java.util.ArrayList;
 
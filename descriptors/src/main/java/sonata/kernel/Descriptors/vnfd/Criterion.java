@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 public class Criterion {
 
@@ -24,12 +24,12 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
-
-import java.util.ArrayList;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+
 public class DeploymentFlavor {
 
   @JsonProperty("vdu_reference")
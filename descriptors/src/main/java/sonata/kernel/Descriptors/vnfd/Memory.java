@@ -24,11 +24,11 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
 
 public class Memory {
 
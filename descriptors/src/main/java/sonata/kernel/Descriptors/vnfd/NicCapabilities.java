@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
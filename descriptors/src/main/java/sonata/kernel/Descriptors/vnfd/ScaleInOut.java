@@ -24,7 +24,7 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 public class ScaleInOut {
 
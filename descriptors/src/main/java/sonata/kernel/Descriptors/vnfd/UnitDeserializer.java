@@ -24,9 +24,7 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
-
-import java.io.IOException;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -34,10 +32,12 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonNode;
 
-import sonata.kernel.WimAdaptor.commons.vnfd.Unit.BandwidthUnit;
-import sonata.kernel.WimAdaptor.commons.vnfd.Unit.FrequencyUnit;
-import sonata.kernel.WimAdaptor.commons.vnfd.Unit.GeneralUnit;
-import sonata.kernel.WimAdaptor.commons.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.BandwidthUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.FrequencyUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.GeneralUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
+
+import java.io.IOException;
 
 public class UnitDeserializer extends JsonDeserializer<Unit> {
 
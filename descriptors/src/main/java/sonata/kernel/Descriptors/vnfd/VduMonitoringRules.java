@@ -24,11 +24,11 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit.TimeUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.TimeUnit;
 
 import java.util.ArrayList;
 
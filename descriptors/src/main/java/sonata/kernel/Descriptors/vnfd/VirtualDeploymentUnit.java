@@ -24,13 +24,13 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
-
-import java.util.ArrayList;
+package sonata.kernel.Descriptors.vnfd;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.WimAdaptor.commons.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+
+import java.util.ArrayList;
 
 public class VirtualDeploymentUnit {
 
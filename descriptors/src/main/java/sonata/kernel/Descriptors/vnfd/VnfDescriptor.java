@@ -24,16 +24,16 @@
  * 
  */
 
-package sonata.kernel.VimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
 
 import java.util.ArrayList;
 
-public class VnfDescriptor {
+public class VnfDescriptor implements Cloneable {
 
 
 
@@ -196,6 +196,17 @@ public class VnfDescriptor {
     this.instanceUuid = instanceUuid;
   }
 
+  /**
+   * @return a shallow copy of this descriptor, sharing all its sections with it.
+   */
+  public VnfDescriptor copy() {
+    try {
+      return (VnfDescriptor) super.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
   public ArrayList<FunctionSpecificManager> getFunctionSpecificManagers() {
     return functionSpecificManagers;
   }
@@ -24,14 +24,14 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons.vnfd;
+package sonata.kernel.Descriptors.vnfd;
 
 
-import java.util.ArrayList;
-
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.WimAdaptor.commons.nsd.VirtualLink.ConnectivityType;
+import sonata.kernel.Descriptors.nsd.VirtualLink.ConnectivityType;
+
+import java.util.ArrayList;
 
 public class VnfVirtualLink {
 
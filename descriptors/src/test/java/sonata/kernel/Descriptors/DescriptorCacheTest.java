@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+public class DescriptorCacheTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private ObjectMapper mapper;
+  private ObjectNode nsd;
+  private ObjectNode vtc;
+  private ObjectNode fw;
+
+  @Before
+  public void setUp() throws IOException {
+    mapper = new ObjectMapper(new YAMLFactory());
+    nsd = (ObjectNode) mapper.readTree(read("./YAML/sonata-demo.yml"));
+    vtc = (ObjectNode) mapper.readTree(read("./YAML/vtc-vnf-vnfd.yml"));
+    fw = (ObjectNode) mapper.readTree(read("./YAML/fw-vnf-vnfd.yml"));
+  }
+
+  /**
+   * Check repeated deployments of the same service share the cached descriptors, each with its own
+   * instance UUID, and get the same data as a full parse.
+   */
+  @Test
+  public void testRepeatedDeployment() throws IOException {
+    DescriptorCache cache = new DescriptorCache(DescriptorCache.DEFAULT_CAPACITY);
+    String firstBody = buildRequest("1");
+    DeployServiceData first = cache.readDeployServiceData(firstBody);
+    DeployServiceData second = cache.readDeployServiceData(buildRequest("2"));
+    Assert.assertEquals(3, cache.getMisses());
+    Assert.assertEquals(3, cache.getHits());
+    Assert.assertEquals(3, cache.size());
+
+    DeployServiceData parsed = DescriptorMapper.readYaml(firstBody, DeployServiceData.class);
+    Assert.assertEquals(parsed.getVimUuid(), first.getVimUuid());
+    Assert.assertEquals(parsed.getNsd().getInstanceUuid(), first.getNsd().getInstanceUuid());
+    Assert.assertEquals(parsed.getNsd().getName(), first.getNsd().getName());
+    Assert.assertEquals(parsed.getNsd().getVirtualLinks().size(),
+        first.getNsd().getVirtualLinks().size());
+    Assert.assertEquals(2, first.getVnfdList().size());
+    for (int i = 0; i < 2; i++) {
+      VnfDescriptor expected = parsed.getVnfdList().get(i);
+      VnfDescriptor actual = first.getVnfdList().get(i);
+      Assert.assertEquals(expected.getInstanceUuid(), actual.getInstanceUuid());
+      Assert.assertEquals(expected.getName(), actual.getName());
+      Assert.assertEquals(expected.getVirtualDeploymentUnits().get(0).getResourceRequirements()
+          .getMemory().getSize(), actual.getVirtualDeploymentUnits().get(0)
+          .getResourceRequirements().getMemory().getSize(), 0);
+    }
+
+    Assert.assertNotSame(first.getNsd(), second.getNsd());
+    Assert.assertEquals("nsd-instance-2", second.getNsd().getInstanceUuid());
+    Assert.assertEquals("vtc-instance-2", second.getVnfdList().get(0).getInstanceUuid());
+    Assert.assertEquals("nsd-instance-1", first.getNsd().getInstanceUuid());
+    Assert.assertSame(first.getNsd().getVirtualLinks(), second.getNsd().getVirtualLinks());
+    Assert.assertSame(first.getVnfdList().get(1).getVirtualDeploymentUnits(),
+        second.getVnfdList().get(1).getVirtualDeploymentUnits());
+  }
+
+  /**
+   * Check a descriptor changed without a new version is parsed again, and the least recently used
+   * descriptors are evicted.
+   */
+  @Test
+  public void testIntegrityAndEviction() throws IOException {
+    DescriptorCache cache = new DescriptorCache(3);
+    cache.readDeployServiceData(buildRequest("1"));
+    vtc.put("description", "changed in place");
+    DeployServiceData changed = cache.readDeployServiceData(buildRequest("2"));
+    Assert.assertEquals("changed in place", changed.getVnfdList().get(0).getDescription());
+    Assert.assertEquals(4, cache.getMisses());
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(3, cache.size());
+
+    vtc.put("version", "0.2");
+    cache.readDeployServiceData(buildRequest("3"));
+    Assert.assertEquals(3, cache.size());
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+  }
+
+  /**
+   * Benchmark repeated deployments of the same service, comparing a full parse of each request
+   * against the descriptor cache. It only runs with -Dbenchmark=true.
+   */
+  @Test
+  public void benchmarkRepeatedDeployment() throws IOException {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    int requests = 1000;
+    String[] bodies = new String[requests];
+    for (int i = 0; i < requests; i++) {
+      bodies[i] = buildRequest(Integer.toString(i));
+    }
+    DescriptorCache cache = new DescriptorCache(DescriptorCache.DEFAULT_CAPACITY);
+    // Warm-up.
+    for (int i = 0; i < 100; i++) {
+      DescriptorMapper.readYaml(bodies[i], DeployServiceData.class);
+      cache.readDeployServiceData(bodies[i]);
+    }
+
+    long start = System.nanoTime();
+    for (String body : bodies) {
+      DescriptorMapper.readYaml(body, DeployServiceData.class);
+    }
+    long plain = System.nanoTime() - start;
+    start = System.nanoTime();
+    for (String body : bodies) {
+      cache.readDeployServiceData(body);
+    }
+    long cached = System.nanoTime() - start;
+
+    System.out.println(String.format(
+        "%d deployment requests%nfull parse: %d us per request%ncached:     %d us per request",
+        requests, plain / requests / 1000, cached / requests / 1000));
+    Assert.assertEquals(3 * (requests + 100) - 3, cache.getHits());
+  }
+
+  private String buildRequest(String instance) throws IOException {
+    ObjectNode request = mapper.createObjectNode();
+    request.put("vim_uuid", "vim-" + instance);
+    request.set("nsd", nsd.deepCopy().put("instance_uuid", "nsd-instance-" + instance));
+    ArrayNode vnfds = request.putArray("vnfdList");
+    vnfds.add(vtc.deepCopy().put("instance_uuid", "vtc-instance-" + instance));
+    vnfds.add(fw.deepCopy().put("instance_uuid", "fw-instance-" + instance));
+    return mapper.writeValueAsString(request);
+  }
+
+  private String read(String path) throws IOException {
+    return new String(Files.readAllBytes(new File(path).toPath()), UTF8);
+  }
+
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.Descriptors;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class DescriptorMapperTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private String nsdBody;
+  private String vtcBody;
+  private String fwBody;
+
+  @Before
+  public void setUp() throws IOException {
+    nsdBody = read("./YAML/sonata-demo.yml");
+    vtcBody = read("./YAML/vtc-vnf-vnfd.yml");
+    fwBody = read("./YAML/fw-vnf-vnfd.yml");
+  }
+
+  /**
+   * Check the identifiers of descriptors parsed separately are the same String instances.
+   */
+  @Test
+  public void testIdentifiersShared() throws IOException {
+    VnfDescriptor first = DescriptorMapper.readYaml(vtcBody, VnfDescriptor.class);
+    VnfDescriptor second = DescriptorMapper.readYaml(vtcBody, VnfDescriptor.class);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals("eu.sonata-nfv", first.getVendor());
+    Assert.assertSame(first.getVendor(), second.getVendor());
+    Assert.assertSame(first.getVersion(), second.getVersion());
+    Assert.assertSame(first.getVirtualDeploymentUnits().get(0).getId(),
+        second.getVirtualDeploymentUnits().get(0).getId());
+
+    ServiceDescriptor nsd = DescriptorMapper.readYaml(nsdBody, ServiceDescriptor.class);
+    Assert.assertSame(first.getVendor(), nsd.getNetworkFunctions().get(0).getVnfVendor());
+
+    // A mapper built for each parse, as the adaptors used to do, keeps a copy per descriptor.
+    VnfDescriptor plain = plainMapper().readValue(vtcBody, VnfDescriptor.class);
+    Assert.assertEquals(first.getVendor(), plain.getVendor());
+    Assert.assertNotSame(first.getVendor(), plain.getVendor());
+  }
+
+  /**
+   * Check both spellings of the dependency fields are accepted.
+   */
+  @Test
+  public void testDependencySpellings() throws IOException {
+    ServiceDescriptor nsd = DescriptorMapper.readJson(
+        "{\"vnf_depedency\":[\"a\"],\"services_depedency\":[\"b\"]}", ServiceDescriptor.class);
+    Assert.assertEquals("a", nsd.getVnfDepencency().get(0));
+    Assert.assertEquals("b", nsd.getServicesDependency().get(0));
+    nsd = DescriptorMapper.readJson(
+        "{\"vnf_depencency\":[\"c\"],\"services_dependency\":[\"d\"]}", ServiceDescriptor.class);
+    Assert.assertEquals("c", nsd.getVnfDepencency().get(0));
+    Assert.assertEquals("d", nsd.getServicesDependency().get(0));
+  }
+
+  /**
+   * Check the pool returns the same instance from a String or a character buffer, and leaves long
+   * values alone.
+   */
+  @Test
+  public void testIdentifierPool() {
+    IdentifierPool pool = new IdentifierPool(16);
+    String vendor = pool.canonical(new String("eu.sonata-nfv"));
+    char[] buffer = "xxeu.sonata-nfvyy".toCharArray();
+    Assert.assertSame(vendor, pool.canonical(buffer, 2, 13));
+    Assert.assertSame(vendor, pool.canonical(new String("eu.sonata-nfv")));
+    Assert.assertEquals(1, pool.size());
+
+    char[] text = new char[IdentifierPool.MAX_LENGTH + 1];
+    Arrays.fill(text, 'a');
+    String first = pool.canonical(new String(text));
+    Assert.assertNotSame(first, pool.canonical(new String(text)));
+    Assert.assertNotSame(first, pool.canonical(text, 0, text.length));
+    Assert.assertEquals(1, pool.size());
+
+    pool.clear();
+    Assert.assertEquals(0, pool.size());
+  }
+
+  /**
+   * Benchmark a catalog of parsed descriptors, comparing a mapper built for each parse as the
+   * adaptors used to do against the shared descriptor mapper. Reports the bytes allocated per parse
+   * and the heap retained by the catalog. Heap figures depend on the JVM and the garbage
+   * collector, so the benchmark only runs with -Dbenchmark=true.
+   */
+  @Test
+  public void benchmarkCatalog() throws IOException {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    int services = 1000;
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    boolean allocationSupported = threads instanceof com.sun.management.ThreadMXBean;
+
+    // Warm-up.
+    loadCatalog(50, false);
+    loadCatalog(50, true);
+
+    long baseline = usedHeap();
+    long allocStart = allocatedBytes(threads, allocationSupported);
+    ArrayList<Object> catalog = loadCatalog(services, false);
+    long plainAllocated = allocatedBytes(threads, allocationSupported) - allocStart;
+    long plainRetained = usedHeap() - baseline;
+    Assert.assertEquals(services * 3, catalog.size());
+    catalog = null;
+
+    baseline = usedHeap();
+    allocStart = allocatedBytes(threads, allocationSupported);
+    catalog = loadCatalog(services, true);
+    long compactAllocated = allocatedBytes(threads, allocationSupported) - allocStart;
+    long compactRetained = usedHeap() - baseline;
+    Assert.assertEquals(services * 3, catalog.size());
+
+    int descriptors = services * 3;
+    System.out.println(String.format(
+        "Catalog of %d descriptors%n"
+            + "plain:   %d bytes retained per descriptor, %d bytes allocated per parse%n"
+            + "compact: %d bytes retained per descriptor, %d bytes allocated per parse",
+        descriptors, plainRetained / descriptors, plainAllocated / descriptors,
+        compactRetained / descriptors, compactAllocated / descriptors));
+    Assert.assertTrue(compactRetained < plainRetained);
+    if (allocationSupported) {
+      Assert.assertTrue(compactAllocated < plainAllocated);
+    }
+  }
+
+  private ArrayList<Object> loadCatalog(int services, boolean compact) throws IOException {
+    ArrayList<Object> catalog = new ArrayList<Object>();
+    for (int i = 0; i < services; i++) {
+      if (compact) {
+        catalog.add(DescriptorMapper.readYaml(nsdBody, ServiceDescriptor.class));
+        catalog.add(DescriptorMapper.readYaml(vtcBody, VnfDescriptor.class));
+        catalog.add(DescriptorMapper.readYaml(fwBody, VnfDescriptor.class));
+      } else {
+        catalog.add(plainMapper().readValue(nsdBody, ServiceDescriptor.class));
+        catalog.add(plainMapper().readValue(vtcBody, VnfDescriptor.class));
+        catalog.add(plainMapper().readValue(fwBody, VnfDescriptor.class));
+      }
+    }
+    return catalog;
+  }
+
+  private ObjectMapper plainMapper() {
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    return mapper;
+  }
+
+  private long allocatedBytes(ThreadMXBean threads, boolean supported) {
+    if (!supported) {
+      return 0;
+    }
+    return ((com.sun.management.ThreadMXBean) threads)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private String read(String path) throws IOException {
+    return new String(Files.readAllBytes(new File(path).toPath()), UTF8);
+  }
+
+}
@@ -6,14 +6,12 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorModule;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 import sonata.kernel.placement.config.PlacementConfig;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.pd.*;
@@ -167,9 +165,7 @@ public class Catalogue {
         mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
         mapper.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        SimpleModule module = new SimpleModule();
-        module.addDeserializer(Unit.class, new UnitDeserializer());
-        mapper.registerModule(module);
+        mapper.registerModule(new DescriptorModule());
         mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
         return mapper;
     }
@@ -9,11 +9,11 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.VimAdaptor.commons.heat.HeatResource;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.placement.config.PlacementConfig;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.config.PopResource;
@@ -9,8 +9,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import fi.iki.elonen.NanoHTTPD;
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.monitor.FunctionMonitor;
 import sonata.kernel.placement.monitor.MonitorManager;
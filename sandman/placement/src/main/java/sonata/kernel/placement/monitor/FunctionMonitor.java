@@ -10,8 +10,8 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.config.PopResource;
 import sonata.kernel.placement.service.FunctionInstance;
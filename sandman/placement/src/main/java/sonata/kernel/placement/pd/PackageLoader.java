@@ -7,11 +7,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.apache.commons.io.IOUtils;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorMapper;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 
 import java.io.*;
 import java.math.BigInteger;
@@ -206,9 +205,6 @@ public class PackageLoader {
      * @throws Exception
      */
     public static ServiceDescriptor byteArrayToServiceDescriptor(byte[] data) throws Exception {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        SimpleModule module = new SimpleModule();
-
         ServiceDescriptor sd;
 
 
@@ -220,10 +216,7 @@ public class PackageLoader {
         while ((line = in.readLine()) != null)
             bodyBuilder.append(line + "\n\r");
 
-        module.addDeserializer(Unit.class, new UnitDeserializer());
-        mapper.registerModule(module);
-        mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
-        sd = mapper.readValue(bodyBuilder.toString(), ServiceDescriptor.class);
+        sd = DescriptorMapper.readYaml(bodyBuilder.toString(), ServiceDescriptor.class);
 
 
         return sd;
@@ -251,9 +244,6 @@ public class PackageLoader {
      */
     public static VnfDescriptor byteArrayToVnfDescriptor(byte[] data) throws Exception {
     	logger.debug("Byte array to VNF descriptor");
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        SimpleModule module = new SimpleModule();
-
         VnfDescriptor vnfd;
 
         StringBuilder bodyBuilder = new StringBuilder();
@@ -263,10 +253,7 @@ public class PackageLoader {
         while ((line = in.readLine()) != null)
             bodyBuilder.append(line + "\n\r");
 
-        module.addDeserializer(Unit.class, new UnitDeserializer());
-        mapper.registerModule(module);
-        mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
-        vnfd = mapper.readValue(bodyBuilder.toString(), VnfDescriptor.class);
+        vnfd = DescriptorMapper.readYaml(bodyBuilder.toString(), VnfDescriptor.class);
 
         return vnfd;
     }
@@ -1,8 +1,8 @@
 package sonata.kernel.placement.pd;
 
 
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -1,7 +1,7 @@
 package sonata.kernel.placement.pd;
 
-import sonata.kernel.VimAdaptor.commons.nsd.*;
-import sonata.kernel.VimAdaptor.commons.vnfd.*;
+import sonata.kernel.Descriptors.nsd.*;
+import sonata.kernel.Descriptors.vnfd.*;
 
 import org.apache.log4j.Logger;
 import sonata.kernel.placement.Catalogue;
@@ -1,6 +1,6 @@
 package sonata.kernel.placement.service;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.placement.DatacenterManager;
 import sonata.kernel.placement.config.PopResource;
 
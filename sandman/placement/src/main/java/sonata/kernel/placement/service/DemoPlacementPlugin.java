@@ -1,7 +1,7 @@
 package sonata.kernel.placement.service;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -1,10 +1,10 @@
 package sonata.kernel.placement.service;
 
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkFunction;
-import sonata.kernel.VimAdaptor.commons.vnfd.VirtualDeploymentUnit;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.NetworkFunction;
+import sonata.kernel.Descriptors.vnfd.VirtualDeploymentUnit;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 import sonata.kernel.placement.TranslatorCore;
 
 import java.util.ArrayList;
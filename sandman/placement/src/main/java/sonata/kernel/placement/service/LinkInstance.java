@@ -1,6 +1,6 @@
 package sonata.kernel.placement.service;
 
-import sonata.kernel.VimAdaptor.commons.nsd.VirtualLink;
+import sonata.kernel.Descriptors.nsd.VirtualLink;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -8,7 +8,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 
 public class LinkInstance {
 	final static Logger logger = Logger.getLogger(LinkInstance.class);
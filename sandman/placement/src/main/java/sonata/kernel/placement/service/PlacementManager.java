@@ -3,7 +3,7 @@ package sonata.kernel.placement.service;
 
 import org.apache.bcel.generic.POP;
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.placement.DatacenterManager;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.config.PerformanceThreshold;
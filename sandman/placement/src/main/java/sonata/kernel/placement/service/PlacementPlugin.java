@@ -1,8 +1,8 @@
 package sonata.kernel.placement.service;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 import sonata.kernel.VimAdaptor.wrapper.openstack.DeployServiceFsm;
 import sonata.kernel.placement.config.PopResource;
 
@@ -1,10 +1,10 @@
 package sonata.kernel.placement.service;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
-import sonata.kernel.VimAdaptor.commons.nsd.ForwardingGraph;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkForwardingPath;
-import sonata.kernel.VimAdaptor.commons.vnfd.ConnectionPointReference;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.ForwardingGraph;
+import sonata.kernel.Descriptors.nsd.NetworkForwardingPath;
+import sonata.kernel.Descriptors.vnfd.ConnectionPointReference;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -2,14 +2,14 @@ package sonata.kernel.placement.service;
 
 import org.apache.bcel.generic.POP;
 import org.apache.commons.net.util.SubnetUtils;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.VimAdaptor.commons.heat.HeatModel;
 import sonata.kernel.VimAdaptor.commons.heat.HeatResource;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.nsd.VirtualLink;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.nsd.VirtualLink;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
 import sonata.kernel.VimAdaptor.wrapper.openstack.Flavor;
 import sonata.kernel.VimAdaptor.wrapper.openstack.OpenStackHeatWrapper;
@@ -3,14 +3,14 @@ package sonata.kernel.placement.service;
 import org.apache.commons.collections.MultiHashMap;
 import org.apache.commons.collections.MultiMap;
 import org.apache.commons.lang3.tuple.Pair;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkFunction;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.nsd.NetworkFunction;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 
 public class ServiceInstance {
 	final static Logger logger = Logger.getLogger(ServiceInstance.class);
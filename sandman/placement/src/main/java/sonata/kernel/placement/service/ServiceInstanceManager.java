@@ -3,15 +3,15 @@ package sonata.kernel.placement.service;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.nsd.*;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.*;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 import sonata.kernel.placement.Catalogue;
 import sonata.kernel.placement.DatacenterManager;
 import sonata.kernel.placement.config.PlacementConfigLoader;
@@ -10,10 +10,10 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.apache.log4j.Logger;
 import org.junit.Ignore;
 import org.junit.Test;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.placement.pd.PackageLoader;
 import sonata.kernel.placement.config.PlacementConfigLoader;
 import sonata.kernel.placement.config.PlacementConfig;
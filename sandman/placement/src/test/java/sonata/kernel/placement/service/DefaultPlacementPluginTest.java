@@ -14,11 +14,11 @@ import org.openstack4j.api.Builders;
 import org.openstack4j.api.OSClient;
 import org.openstack4j.model.heat.Stack;
 import org.openstack4j.openstack.OSFactory;
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.vnfd.ResourceRequirements;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.ResourceRequirements;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.placement.DatacenterManager;
 import sonata.kernel.placement.HeatStackCreate;
 import sonata.kernel.placement.pd.PackageLoader;
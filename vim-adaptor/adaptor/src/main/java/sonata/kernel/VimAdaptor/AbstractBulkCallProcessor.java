@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for the processors of the bulk lifecycle API calls, which apply the same operation to
+ * many service instances. The instances are grouped by target VIM; each group is served by at most
+ * a given number of workers, each running one instance at a time and taking the next as soon as
+ * the previous one finishes, so a slow VIM does not hold back the others. The outcome of each
+ * instance is sent back as soon as it is known, in the format of the single call with the UUID of
+ * the instance added under "instance_uuid", and a summary once the whole batch is done on the
+ * VIMs. The summary only covers the VIM stage: it is marked with "scope": "vim", and the items
+ * handed to another adaptor, like the WIM adaptor for the WAN configuration of a deployment, may
+ * still be answered after it.
+ *
+ * @param <T> the type of the items of the batch
+ */
+public abstract class AbstractBulkCallProcessor<T> extends AbstractCallProcessor {
+
+  public static final int DEFAULT_PARALLELISM = 4;
+  public static final int MAX_PARALLELISM = 32;
+
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(AbstractBulkCallProcessor.class);
+
+  private AtomicInteger activeWorkers;
+  private AtomicInteger succeeded;
+  private ArrayList<String> failed;
+  private int total;
+
+  /**
+   * Create a CallProcessor to process a bulk API call.
+   *
+   * @param message the message to the API call.
+   * @param sid the session ID of the API call.
+   * @param mux the AdaptorMux to which send back responses.
+   */
+  public AbstractBulkCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
+    super(message, sid, mux);
+    this.activeWorkers = new AtomicInteger(0);
+    this.succeeded = new AtomicInteger(0);
+    this.failed = new ArrayList<String>();
+  }
+
+  /**
+   * Start the operation on an item of the batch.
+   *
+   * @param wr the wrapper of the VIM the item belongs to
+   * @param item the item
+   * @return a future completed with the outcome of the operation
+   * @throws Exception if the operation cannot be started
+   */
+  protected abstract WrapperFuture start(ComputeWrapper wr, T item) throws Exception;
+
+  /**
+   * Report the outcome of the operation on an item of the batch.
+   *
+   * @param item the item
+   * @param update the outcome of the operation
+   * @return true if the operation succeeded
+   */
+  protected abstract boolean finish(T item, WrapperStatusUpdate update);
+
+  /**
+   * @param item an item of the batch
+   * @return the UUID of the service instance of the item
+   */
+  protected abstract String getInstanceUuid(T item);
+
+  /**
+   * Run the batch. Each VIM is looked up once; the items of an unknown VIM fail right away.
+   *
+   * @param groups the items of the batch, by VIM UUID, the items without a VIM under ""
+   * @param parallelism the maximum number of items run at the same time on each VIM
+   */
+  protected void runBatch(Hashtable<String, ArrayList<T>> groups, int parallelism) {
+    parallelism = Math.max(1, Math.min(parallelism, MAX_PARALLELISM));
+    ArrayList<Runnable> workers = new ArrayList<Runnable>();
+    for (Map.Entry<String, ArrayList<T>> group : groups.entrySet()) {
+      total += group.getValue().size();
+      final ComputeWrapper wr = getComputeWrapper(group.getKey());
+      final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<T>(group.getValue());
+      if (wr == null) {
+        Logger.warn("VIM " + group.getKey() + " not found, failing " + queue.size() + " items");
+      }
+      int size = wr == null ? 1 : Math.min(parallelism, queue.size());
+      for (int i = 0; i < size; i++) {
+        workers.add(new Runnable() {
+          @Override
+          public void run() {
+            T item;
+            while ((item = queue.poll()) != null) {
+              runItem(wr, item);
+            }
+            if (activeWorkers.decrementAndGet() == 0) {
+              sendSummary();
+            }
+          }
+        });
+      }
+    }
+    Logger.info("Bulk call " + this.getSid() + ": " + total + " items on " + groups.size()
+        + " VIMs, " + workers.size() + " workers");
+    if (workers.isEmpty()) {
+      sendSummary();
+      return;
+    }
+    activeWorkers.set(workers.size());
+    int index = 0;
+    for (Runnable worker : workers) {
+      Thread thread = new Thread(worker, "bulk-" + this.getSid() + "-" + index++);
+      thread.start();
+    }
+  }
+
+  /**
+   * Look up the wrapper of a VIM of the batch.
+   *
+   * @param vimUuid the UUID of the VIM
+   * @return the wrapper of the VIM, or null if the VIM is not known
+   */
+  protected ComputeWrapper getComputeWrapper(String vimUuid) {
+    if (vimUuid.isEmpty()) {
+      return null;
+    }
+    try {
+      return WrapperBay.getInstance().getComputeWrapper(vimUuid);
+    } catch (Exception e) {
+      Logger.warn("Error retrieving the wrapper of VIM " + vimUuid + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  private void runItem(ComputeWrapper wr, T item) {
+    WrapperStatusUpdate update;
+    if (wr == null) {
+      update = new WrapperStatusUpdate(this.getSid(), "ERROR", "VIM not found");
+    } else {
+      try {
+        update = start(wr, item).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        update = new WrapperStatusUpdate(this.getSid(), "ERROR", "Interrupted");
+      } catch (Exception e) {
+        Logger.error("Bulk call " + this.getSid() + " - " + getInstanceUuid(item) + ": "
+            + e.getMessage(), e);
+        update = new WrapperStatusUpdate(this.getSid(), "ERROR", e.getMessage());
+      }
+    }
+    if (finish(item, update)) {
+      succeeded.incrementAndGet();
+    } else {
+      synchronized (failed) {
+        failed.add(getInstanceUuid(item));
+      }
+    }
+  }
+
+  /**
+   * Send the result of an item of the batch back to the caller.
+   *
+   * @param instanceUuid the UUID of the service instance of the item
+   * @param status the request status of the item
+   * @param message the error message, or null
+   */
+  protected void sendItemResponse(String instanceUuid, String status, String message) {
+    JSONObject body = new JSONObject();
+    body.put("request_status", status);
+    body.put("instance_uuid", instanceUuid);
+    if (message != null) {
+      body.put("message", message);
+    }
+    this.sendToMux(new ServicePlatformMessage(body.toString(), "application/json",
+        this.getMessage().getReplyTo(), this.getSid(), null));
+  }
+
+  /**
+   * Fail the whole call, before any item is run.
+   *
+   * @param message the error message
+   */
+  protected void sendError(String message) {
+    JSONObject body = new JSONObject();
+    body.put("request_status", "fail");
+    body.put("message", message);
+    this.sendToMux(new ServicePlatformMessage(body.toString(), "application/json",
+        this.getMessage().getReplyTo(), this.getSid(), null));
+  }
+
+  private void sendSummary() {
+    JSONObject body = new JSONObject();
+    body.put("request_status", "COMPLETED");
+    body.put("scope", "vim");
+    body.put("total", total);
+    body.put("succeeded", succeeded.get());
+    synchronized (failed) {
+      body.put("failed", new JSONArray(failed));
+    }
+    Logger.info("Bulk call " + this.getSid() + " completed: " + succeeded.get() + "/" + total
+        + " succeeded");
+    this.sendToMux(new ServicePlatformMessage(body.toString(), "application/json",
+        this.getMessage().getReplyTo(), this.getSid(), null));
+  }
+
+}
@@ -27,11 +27,10 @@
 package sonata.kernel.VimAdaptor;
 
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
-import java.util.Observer;
-
-public abstract class AbstractCallProcessor implements Runnable, Observer {
+public abstract class AbstractCallProcessor implements Runnable {
 
   public ServicePlatformMessage getMessage() {
     return message;
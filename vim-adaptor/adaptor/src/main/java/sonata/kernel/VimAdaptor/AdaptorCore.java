@@ -30,40 +30,51 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.messaging.AbstractMsgBusConsumer;
-import sonata.kernel.VimAdaptor.messaging.AbstractMsgBusProducer;
-import sonata.kernel.VimAdaptor.messaging.MsgBusConsumer;
-import sonata.kernel.VimAdaptor.messaging.MsgBusProducer;
-import sonata.kernel.VimAdaptor.messaging.RabbitMqConsumer;
-import sonata.kernel.VimAdaptor.messaging.RabbitMqProducer;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.AdaptorPlugin;
+import sonata.kernel.AdaptorCommons.HeartBeat;
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusProducer;
+import sonata.kernel.AdaptorCommons.messaging.BrokerConfig;
+import sonata.kernel.AdaptorCommons.messaging.MsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.MsgBusProducer;
+import sonata.kernel.AdaptorCommons.messaging.RabbitMqConsumer;
+import sonata.kernel.AdaptorCommons.messaging.RabbitMqProducer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.TrafficClass;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
 import sonata.kernel.VimAdaptor.wrapper.VimRepo;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 
 
-public class AdaptorCore {
+public class AdaptorCore implements AdaptorPlugin {
 
   public static final String APP_ID = "sonata.kernel.InfrAdaptor";
+  private static final String WIM_APP_ID = "sonata.kernel.WimAdapter";
   private MsgBusConsumer northConsumer;
   private MsgBusProducer northProducer;
   private AdaptorDispatcher dispatcher;
   private AdaptorMux mux;
-  private String status;
+  private volatile String status;
   private HeartBeat heartbeat;
   private double rate;
   private Object writeLock = new Object();
   private String uuid;
   private String registrationSid;
+  private String replyTopic = APP_ID + ".reply." + UUID.randomUUID().toString();
 
   private static final String version = "0.0.1";
   private static final String description = "Service Platform Infrastructure Adaptor";
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(AdaptorCore.class);
   private static final int writeLockCoolDown = 100000;
+  private static final int registrationRetryDelay = 5000;
 
 
   /**
@@ -80,6 +91,7 @@ public class AdaptorCore {
       AbstractMsgBusProducer producer, double rate) {
     mux = new AdaptorMux(muxQueue);
     dispatcher = new AdaptorDispatcher(dispatcherQueue, mux, this);
+    consumer.subscribe(dispatcher.getRoutingTable());
     northConsumer = consumer;
     northProducer = producer;
     VimRepo repo = new VimRepo();
@@ -112,13 +124,32 @@ public class AdaptorCore {
 
     // - Northbound interface
 
-    northConsumer = new RabbitMqConsumer(dispatcherQueue);
-    northProducer = new RabbitMqProducer(muxQueue);
+    RabbitMqConsumer consumer = new RabbitMqConsumer(dispatcherQueue, APP_ID, "InfraAbstract");
+    consumer.subscribe(dispatcher.getRoutingTable());
+    consumer.retireTopic("infrastructure.#");
+    consumer.retireTopic("platform.management.plugin.register");
+    consumer.retireTopic("platform.management.plugin.deregister");
+    consumer.ignore(WIM_APP_ID, "infrastructure.service.deploy");
+    for (TrafficClass trafficClass : loadTrafficClasses()) {
+      consumer.addLane(trafficClass, dispatcher.addLane(trafficClass));
+    }
+    northConsumer = consumer;
+    northProducer = new RabbitMqProducer(muxQueue, APP_ID);
 
     status = "READY";
 
   }
 
+  private static ArrayList<TrafficClass> loadTrafficClasses() {
+    try {
+      return BrokerConfig.load().getTrafficClasses();
+    } catch (IOException e) {
+      Logger.warn("Unable to load the traffic classes, all the topics share the default lane: "
+          + e.getMessage());
+      return new ArrayList<TrafficClass>();
+    }
+  }
+
   /**
    * Start the adaptor engines. Starts reading messages from the MsgBus
    * 
@@ -132,36 +163,95 @@ public class AdaptorCore {
     northConsumer.startConsuming();
 
     dispatcher.start();
+    UtilisationCache.getInstance().start();
 
-    register();
+    // Requests are served while the registration is in progress and the VIMs are warming up.
     status = "RUNNING";
-    // - Start pumping blood
-    this.heartbeat = new HeartBeat(mux, rate, this);
-    new Thread(this.heartbeat).start();
+    register();
+    WrapperBay.getInstance().warmUp();
   }
 
+  /**
+   * Register to the plugin manager in background, sending the registration again with an
+   * increasing delay until it is answered. The heart-beat starts once the plug-in has its UUID.
+   */
   private void register() {
     String body = "{\"name\":\"" + AdaptorCore.APP_ID + "\",\"version\":\"" + AdaptorCore.version
         + "\",\"description\":\"" + AdaptorCore.description + "\"}";
     String topic = "platform.management.plugin.register";
-    ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json", topic,
-        java.util.UUID.randomUUID().toString(), topic);
+    final ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json",
+        topic, UUID.randomUUID().toString(), getRegistrationReplyTopic());
+    // The same session ID is used by all the attempts, so a late answer to any of them is taken.
+    this.registrationSid = message.getSid();
+    Thread registration = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        long wait = registrationRetryDelay;
+        synchronized (writeLock) {
+          while (uuid == null && status.equals("RUNNING")) {
+            mux.enqueue(message);
+            try {
+              writeLock.wait(wait);
+            } catch (InterruptedException e) {
+              Logger.error(e.getMessage(), e);
+              return;
+            }
+            if (uuid == null && status.equals("RUNNING")) {
+              Logger.warn("No registration response after " + wait + " ms, retrying");
+            }
+            wait = Math.min(wait * 2, writeLockCoolDown);
+          }
+        }
+        startHeartbeat();
+      }
+    }, "plugin-registration");
+    registration.setDaemon(true);
+    registration.start();
+  }
+
+  private synchronized void startHeartbeat() {
+    if (uuid == null || !status.equals("RUNNING") || heartbeat != null) {
+      return;
+    }
+    // - Start pumping blood
+    this.heartbeat = new HeartBeat(mux, rate, this);
+    new Thread(this.heartbeat).start();
+  }
+
+  /**
+   * Wait for the plug-in to be registered to the plugin manager.
+   * 
+   * @param timeout the maximum time to wait, in milliseconds
+   * @return true if the plug-in is registered, false if the timeout expired
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public boolean awaitRegistration(long timeout) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
     synchronized (writeLock) {
-      try {
-        this.registrationSid = message.getSid();
-        mux.enqueue(message);
-        writeLock.wait(writeLockCoolDown);
-      } catch (InterruptedException e) {
-        Logger.error(e.getMessage(), e);
+      while (uuid == null) {
+        long left = deadline - System.currentTimeMillis();
+        if (left <= 0) {
+          return false;
+        }
+        writeLock.wait(left);
       }
     }
+    return true;
   }
 
   private void deregister() {
+    if (this.uuid == null) {
+      // Never registered, just stop the registration attempts.
+      synchronized (writeLock) {
+        this.status = "STOPPED";
+        writeLock.notifyAll();
+      }
+      return;
+    }
     String body = "{\"uuid\":\"" + this.uuid + "\"}";
     String topic = "platform.management.plugin.deregister";
     ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json", topic,
-        java.util.UUID.randomUUID().toString(), topic);
+        UUID.randomUUID().toString(), getDeregistrationReplyTopic());
     synchronized (writeLock) {
       try {
         this.registrationSid = message.getSid();
@@ -179,10 +269,15 @@ public class AdaptorCore {
    */
   public void stop() {
     this.deregister();
-    this.heartbeat.stop();
+    synchronized (this) {
+      if (this.heartbeat != null) {
+        this.heartbeat.stop();
+      }
+    }
     northProducer.stopProducing();
     northConsumer.stopConsuming();
     dispatcher.stop();
+    UtilisationCache.getInstance().stop();
   }
 
 
@@ -207,6 +302,7 @@ public class AdaptorCore {
   /**
    * @return this plug-in UUID.
    */
+  @Override
   public String getUuid() {
     return this.uuid;
   }
@@ -215,12 +311,16 @@ public class AdaptorCore {
   /**
    * @return The status of this plug-in.
    */
+  @Override
   public String getState() {
     return this.status;
   }
 
   /**
-   * Handle the RegistrationResponse message from the MANO Plugin Manager.
+   * Handle the RegistrationResponse message from the MANO Plugin Manager. The first positive
+   * answer gives the plug-in its UUID. A late answer to a retried registration is ignored, and the
+   * UUID it carries, if different, is deregistered so the plugin manager does not keep a stale
+   * plug-in.
    * 
    * @param message the response message
    */
@@ -231,9 +331,19 @@ public class AdaptorCore {
     String status = object.getString("status");
     String pid = object.getString("uuid");
     if (status.equals("OK")) {
+      String registered;
       synchronized (writeLock) {
-        uuid = pid;
-        writeLock.notifyAll();
+        registered = uuid;
+        if (registered == null) {
+          uuid = pid;
+          writeLock.notifyAll();
+          return;
+        }
+      }
+      if (!registered.equals(pid)) {
+        Logger.warn("Registered again as " + pid + ", already registered as " + registered
+            + ". Deregistering " + pid);
+        deregisterExtra(pid);
       }
     } else {
       String error = object.getString("error");
@@ -243,6 +353,16 @@ public class AdaptorCore {
 
   }
 
+  private void deregisterExtra(String pid) {
+    String body = "{\"uuid\":\"" + pid + "\"}";
+    String topic = "platform.management.plugin.deregister";
+    ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json", topic,
+        UUID.randomUUID().toString(), getDeregistrationReplyTopic());
+    // The answer has its own session ID, so the dispatcher does not take it for the answer to the
+    // deregistration of this plug-in.
+    mux.enqueue(message);
+  }
+
   /**
    * Handle the DeregistrationResponse message from the MANO Plugin Manager.
    * 
@@ -273,4 +393,18 @@ public class AdaptorCore {
   public String getRegistrationSid() {
     return registrationSid;
   }
+
+  /**
+   * @return the private topic on which the plugin-manager replies to the registration.
+   */
+  public String getRegistrationReplyTopic() {
+    return replyTopic + ".register";
+  }
+
+  /**
+   * @return the private topic on which the plugin-manager replies to the deregistration.
+   */
+  public String getDeregistrationReplyTopic() {
+    return replyTopic + ".deregister";
+  }
 }
@@ -28,20 +28,24 @@ package sonata.kernel.VimAdaptor;
 
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.Lane;
+import sonata.kernel.AdaptorCommons.RoutingTable;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.TrafficClass;
 
+import java.util.ArrayList;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 
 public class AdaptorDispatcher implements Runnable {
 
-  private BlockingQueue<ServicePlatformMessage> myQueue;
-  private Executor myThreadPool;
-  private boolean stop = false;
+  private Lane defaultLane;
+  private ArrayList<Lane> lanes;
   private AdaptorMux mux;
   private AdaptorCore core;
+  private RoutingTable routingTable;
 
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(AdaptorDispatcher.class);
 
@@ -55,108 +59,141 @@ public class AdaptorDispatcher implements Runnable {
    */
   public AdaptorDispatcher(BlockingQueue<ServicePlatformMessage> queue, AdaptorMux mux,
       AdaptorCore core) {
-    myQueue = queue;
-    myThreadPool = Executors.newCachedThreadPool();
     this.mux = mux;
     this.core = core;
+    this.routingTable = buildRoutingTable();
+    this.defaultLane = new Lane(TrafficClass.DEFAULT, queue, routingTable, 0);
+    this.lanes = new ArrayList<Lane>();
+    this.lanes.add(defaultLane);
   }
 
   @Override
   public void run() {
-    ServicePlatformMessage message;
-    do {
-      try {
-        message = myQueue.take();
-
-        if (isRegistrationResponse(message)) {
-          this.core.handleRegistrationResponse(message);
-        } else if (isDeregistrationResponse(message)) {
-          this.core.handleDeregistrationResponse(message);
-        } else if (isManagementMsg(message)) {
-          handleManagementMessage(message);
-        } else if (isServiceMsg(message)) {
-          this.handleServiceMsg(message);
-        } else if (isMonitoringMessage(message)) {
-          this.handleMonitoringMessage(message);
-        }
-      } catch (InterruptedException e) {
-        Logger.error(e.getMessage(), e);
-      }
-    } while (!stop);
+    defaultLane.run();
   }
 
-  private void handleMonitoringMessage(ServicePlatformMessage message) {
-    if (message.getTopic().contains("compute")) {
-      Logger.info("Received a \"monitoring\" API call on topic: " + message.getTopic());
-    } else if (message.getTopic().contains("storage")) {
-      Logger.info("Received a \"monitoring\" API call on topic: " + message.getTopic());
-    } else if (message.getTopic().contains("network")) {
-      Logger.info("Received a \"monitoring\" API call on topic: " + message.getTopic());
-    }
+  /**
+   * Serve a traffic class on its own lane, with its own queue and worker pool.
+   * 
+   * @param trafficClass the traffic class
+   * @return the queue of the lane, in which the consumer enqueues the messages of the class
+   */
+  public BlockingQueue<ServicePlatformMessage> addLane(TrafficClass trafficClass) {
+    BlockingQueue<ServicePlatformMessage> queue = new LinkedBlockingQueue<ServicePlatformMessage>();
+    lanes.add(new Lane(trafficClass, queue, routingTable));
+    return queue;
   }
 
-  private void handleServiceMsg(ServicePlatformMessage message) {
-    if (message.getTopic().endsWith("deploy")) {
-      myThreadPool.execute(new DeployServiceCallProcessor(message, message.getSid(), mux));
-    } else if (message.getTopic().endsWith("remove")) {
-      Logger.info("Received a \"remove-service\" API call on topic: " + message.getTopic());
-      myThreadPool.execute(new RemoveServiceCallProcessor(message, message.getSid(), mux));
-    }
+  /**
+   * @return the routing table of this dispatcher, from which the MsgBus bindings are generated.
+   */
+  public RoutingTable getRoutingTable() {
+    return routingTable;
   }
 
-  private void handleManagementMessage(ServicePlatformMessage message) {
-
-    if (message.getTopic().contains("compute")) { // compute menagement API
-      if (message.getTopic().endsWith("add")) {
-        myThreadPool.execute(new AddVimCallProcessor(message, message.getSid(), mux));
-      } else if (message.getTopic().endsWith("remove")) {
-        myThreadPool.execute(new RemoveVimCallProcessor(message, message.getSid(), mux));
-      } else if (message.getTopic().endsWith("resourceAvailability")) {
-        myThreadPool.execute(new ResourceAvailabilityCallProcessor(message, message.getSid(), mux));
-      } else if (message.getTopic().endsWith("list")) {
+  private RoutingTable buildRoutingTable() {
+    RoutingTable table = new RoutingTable();
+    // Management API
+    table.addRoute("infrastructure.management.compute.add", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new AddVimCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.management.compute.remove", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new RemoveVimCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.management.compute.resourceAvailability",
+        new RoutingTable.Route() {
+          @Override
+          public void handle(ServicePlatformMessage message) {
+            new ResourceAvailabilityCallProcessor(message, message.getSid(), mux).run();
+          }
+        });
+    table.addRoute("infrastructure.management.compute.list", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
         Logger.info("Received a \"List VIMs\" API call on topic: " + message.getTopic());
-        myThreadPool.execute(new ListVimCallProcessor(message, message.getSid(), mux));
+        new ListVimCallProcessor(message, message.getSid(), mux).run();
       }
-    } else if (message.getTopic().contains("storage")) {
-      // TODO Storage Management API
-    } else if (message.getTopic().contains("network")) {
-      if (message.getTopic().endsWith("add")) {
-        myThreadPool.execute(new AddVimCallProcessor(message, message.getSid(), mux));
+    });
+    table.addRoute("infrastructure.management.networking.add", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new AddVimCallProcessor(message, message.getSid(), mux).run();
       }
-    } else {
-      Logger.info("Received an unknown menagement API call on topic: " + message.getTopic());
-    }
-
-  }
-
-  private boolean isManagementMsg(ServicePlatformMessage message) {
-    return message.getTopic().contains("infrastructure.management");
-  }
-
-  private boolean isServiceMsg(ServicePlatformMessage message) {
-    return message.getTopic().contains("infrastructure.service");
-  }
-
-  private boolean isMonitoringMessage(ServicePlatformMessage message) {
-    return message.getTopic().contains("infrastructure.monitoring");
-  }
-
-  private boolean isRegistrationResponse(ServicePlatformMessage message) {
-    return message.getTopic().equals("platform.management.plugin.register")
-        && message.getSid().equals(core.getRegistrationSid());
-  }
-
-  private boolean isDeregistrationResponse(ServicePlatformMessage message) {
-    return message.getTopic().equals("platform.management.plugin.deregister")
-        && message.getSid().equals(core.getRegistrationSid());
+    });
+    // Service API
+    table.addRoute("infrastructure.service.deploy", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new DeployServiceCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.service.update", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new UpdateServiceCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.service.bulk.deploy", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new BulkDeployCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.service.bulk.remove", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        Logger.info("Received a \"bulk-remove\" API call on topic: " + message.getTopic());
+        new BulkRemoveCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.service.remove", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        Logger.info("Received a \"remove-service\" API call on topic: " + message.getTopic());
+        new RemoveServiceCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    // Plug-in manager replies
+    table.addReplyRoute(core.getRegistrationReplyTopic(), new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        if (message.getSid().equals(core.getRegistrationSid())) {
+          core.handleRegistrationResponse(message);
+        }
+      }
+    });
+    table.addReplyRoute(core.getDeregistrationReplyTopic(), new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        if (message.getSid().equals(core.getRegistrationSid())) {
+          core.handleDeregistrationResponse(message);
+        }
+      }
+    });
+    return table;
   }
 
+  /**
+   * Start the lanes of the dispatcher.
+   */
   public void start() {
-    Thread thread = new Thread(this);
-    thread.start();
+    for (Lane lane : lanes) {
+      lane.start();
+    }
   }
 
+  /**
+   * Stop the lanes of the dispatcher.
+   */
   public void stop() {
-    this.stop = true;
+    for (Lane lane : lanes) {
+      lane.stop();
+    }
   }
 }
@@ -29,11 +29,11 @@ package sonata.kernel.VimAdaptor;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
 
-import java.util.Observable;
 import java.util.UUID;
 
 public class AddVimCallProcessor extends AbstractCallProcessor {
@@ -70,11 +70,20 @@ public class AddVimCallProcessor extends AbstractCallProcessor {
 
     String tenantExtNet = null;
     String tenantExtRouter = null;
+    String tenantCidr = null;
+    int nestedStacks = 0;
+    // Optional rate of the API calls sent to the VIM.
+    double apiRate = jsonObject.optDouble("api_rate", 0);
+    JSONObject jsonApiRates = jsonObject.optJSONObject("api_rates");
     String computeVimRef = null;
 
     if (wrapperType.equals("compute")) {
       tenantExtNet = jsonObject.getString("tenant_ext_net");
       tenantExtRouter = jsonObject.getString("tenant_ext_router");
+      // Optional address space for the service networks of this VIM.
+      tenantCidr = jsonObject.optString("tenant_cidr", null);
+      // Optional number of VNFs from which services are split in nested stacks.
+      nestedStacks = jsonObject.optInt("nested_stacks", 0);
     } else if (wrapperType.equals("networking")) {
       computeVimRef = jsonObject.getString("compute_uuid");
     }
@@ -87,6 +96,12 @@ public class AddVimCallProcessor extends AbstractCallProcessor {
     config.setTenantName(tenantName);
     config.setTenantExtNet(tenantExtNet);
     config.setTenantExtRouter(tenantExtRouter);
+    config.setTenantCidr(tenantCidr);
+    config.setNestedStacks(nestedStacks);
+    config.setApiRate(apiRate);
+    if (jsonApiRates != null) {
+      config.setApiRates(jsonApiRates.toString());
+    }
 
     String output = null;
     boolean out = true;
@@ -117,9 +132,4 @@ public class AddVimCallProcessor extends AbstractCallProcessor {
         this.getMessage().getTopic(), this.getMessage().getSid(), null);
     this.sendToMux(spMessage);
   }
-
-  @Override
-  public void update(Observable observable, Object arg) {
-    // This call does not need to be updated by any observable (wrapper).
-  }
 }
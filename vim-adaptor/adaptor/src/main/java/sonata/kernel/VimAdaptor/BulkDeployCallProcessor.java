@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorCache;
+import sonata.kernel.Descriptors.DescriptorMapper;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache.Demand;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * Processor of the bulk deployment API call. The YAML body carries a list of deployment requests
+ * under "services", each with the same content as a single deployment request, and optionally the
+ * maximum number of deployments to run at the same time on each VIM under "max_parallel".
+ * 
+ * <p>
+ * Each deployment is handled as a single one: a successful deployment is handed to the WIM adaptor
+ * for the WAN configuration, which answers the caller, while a failed one is reported to the caller
+ * directly. The summary is sent once every deployment is done on its VIM, so it counts as succeeded
+ * the deployments handed to the WIM adaptor, whose answers may follow it.
+ */
+public class BulkDeployCallProcessor extends AbstractBulkCallProcessor<DeployServiceData> {
+
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(BulkDeployCallProcessor.class);
+
+  /**
+   * Create a CallProcessor to process a bulk DeployService API call.
+   * 
+   * @param message the message to the API call.
+   * @param sid the session ID of the API call.
+   * @param mux the AdaptorMux to which send back responses.
+   */
+  public BulkDeployCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
+    super(message, sid, mux);
+  }
+
+  @Override
+  public boolean process(ServicePlatformMessage message) {
+    Hashtable<String, ArrayList<DeployServiceData>> groups =
+        new Hashtable<String, ArrayList<DeployServiceData>>();
+    int parallelism;
+    try {
+      JsonNode root = DescriptorMapper.readYamlTree(message.getBody());
+      JsonNode services = root.path("services");
+      if (!services.isArray()) {
+        Logger.warn("Bulk deployment " + this.getSid() + " without a list of services");
+        sendError("No services to deploy");
+        return false;
+      }
+      parallelism = root.path("max_parallel").asInt(DEFAULT_PARALLELISM);
+      for (JsonNode service : services) {
+        DeployServiceData data = DescriptorCache.getInstance().readDeployServiceData(service);
+        String vimUuid = data.getVimUuid() == null ? "" : data.getVimUuid();
+        ArrayList<DeployServiceData> group = groups.get(vimUuid);
+        if (group == null) {
+          group = new ArrayList<DeployServiceData>();
+          groups.put(vimUuid, group);
+        }
+        group.add(data);
+      }
+    } catch (Exception e) {
+      Logger.error("Error parsing the bulk deployment: " + e.getMessage(), e);
+      sendError("Deployment Error");
+      return false;
+    }
+    runBatch(groups, parallelism);
+    return true;
+  }
+
+  @Override
+  protected WrapperFuture start(ComputeWrapper wr, DeployServiceData data) throws Exception {
+    if (MultiVimDeployment.split(data).size() > 1) {
+      return WrapperFuture.completed(this.getSid(), "ERROR",
+          "Services split over several VIMs cannot be deployed in bulk");
+    }
+    if (!UtilisationCache.getInstance().reserve(data.getVimUuid(), getInstanceUuid(data),
+        Demand.of(data))) {
+      return WrapperFuture.completed(this.getSid(), "ERROR", "Not enough resources on the VIM");
+    }
+    try {
+      return wr.deployService(data, this.getSid());
+    } catch (Exception e) {
+      UtilisationCache.getInstance().release(getInstanceUuid(data));
+      throw e;
+    }
+  }
+
+  @Override
+  protected boolean finish(DeployServiceData data, WrapperStatusUpdate update) {
+    if (update.getStatus().equals("SUCCESS")) {
+      Logger.info("Deploy " + getInstanceUuid(data) + " of " + this.getSid() + " succeed");
+      UtilisationCache.getInstance().commit(getInstanceUuid(data));
+      ServicePlatformMessage response;
+      if (update.getPayload() != null) {
+        response = ServicePlatformMessage.withPayload(update.getPayload(), "application/x-yaml",
+            "infrastructure.wan.configure", this.getSid(), this.getMessage().getReplyTo());
+      } else {
+        response = new ServicePlatformMessage(update.getBody(), "application/x-yaml",
+            "infrastructure.wan.configure", this.getSid(), this.getMessage().getReplyTo());
+      }
+      this.sendToMux(response);
+      return true;
+    }
+    Logger.warn("Deploy " + getInstanceUuid(data) + " of " + this.getSid() + " error - "
+        + update.getStatus());
+    UtilisationCache.getInstance().release(getInstanceUuid(data));
+    sendItemResponse(getInstanceUuid(data), "fail", update.getBody());
+    return false;
+  }
+
+  @Override
+  protected String getInstanceUuid(DeployServiceData data) {
+    return data.getNsd() == null ? null : data.getNsd().getInstanceUuid();
+  }
+
+}
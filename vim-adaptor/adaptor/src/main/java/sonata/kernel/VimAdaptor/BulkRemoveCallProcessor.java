@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * Processor of the bulk service removal API call. The JSON body carries the UUIDs of the service
+ * instances to remove under "instance_uuids", and optionally the maximum number of removals to run
+ * at the same time on each VIM under "max_parallel". The VIMs of all the instances are looked up
+ * with a single query to the repository.
+ */
+public class BulkRemoveCallProcessor extends AbstractBulkCallProcessor<String> {
+
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(BulkRemoveCallProcessor.class);
+
+  /**
+   * Create a CallProcessor to process a bulk RemoveService API call.
+   * 
+   * @param message the message to the API call.
+   * @param sid the session ID of the API call.
+   * @param mux the AdaptorMux to which send back responses.
+   */
+  public BulkRemoveCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
+    super(message, sid, mux);
+  }
+
+  @Override
+  public boolean process(ServicePlatformMessage message) {
+    ArrayList<String> instances = new ArrayList<String>();
+    int parallelism;
+    try {
+      JSONTokener tokener = new JSONTokener(message.getBody());
+      JSONObject jsonObject = (JSONObject) tokener.nextValue();
+      JSONArray list = jsonObject.getJSONArray("instance_uuids");
+      for (int i = 0; i < list.length(); i++) {
+        instances.add(list.getString(i));
+      }
+      parallelism = jsonObject.optInt("max_parallel", DEFAULT_PARALLELISM);
+    } catch (Exception e) {
+      Logger.error("Error parsing the bulk removal: " + e.getMessage(), e);
+      sendError("Malformed request");
+      return false;
+    }
+
+    Hashtable<String, String> vims =
+        WrapperBay.getInstance().getVimRepo().getComputeVimUuidsFromInstances(instances);
+    if (vims == null) {
+      sendError("Unable to read the instance repository");
+      return false;
+    }
+    Hashtable<String, ArrayList<String>> groups = new Hashtable<String, ArrayList<String>>();
+    for (String instanceUuid : instances) {
+      String vimUuid = vims.get(instanceUuid);
+      if (vimUuid == null) {
+        // Unknown instances are reported as failed without involving any VIM.
+        vimUuid = "";
+      }
+      ArrayList<String> group = groups.get(vimUuid);
+      if (group == null) {
+        group = new ArrayList<String>();
+        groups.put(vimUuid, group);
+      }
+      group.add(instanceUuid);
+    }
+    runBatch(groups, parallelism);
+    return true;
+  }
+
+  @Override
+  protected WrapperFuture start(ComputeWrapper wr, String instanceUuid) throws Exception {
+    return wr.removeService(instanceUuid, this.getSid());
+  }
+
+  @Override
+  protected boolean finish(String instanceUuid, WrapperStatusUpdate update) {
+    Logger.info("Removal of " + instanceUuid + " - " + update.getStatus());
+    if (update.getStatus().equals("SUCCESS")) {
+      sendItemResponse(instanceUuid, "SUCCESS", null);
+      return true;
+    }
+    sendItemResponse(instanceUuid, "fail", update.getBody());
+    return false;
+  }
+
+  @Override
+  protected String getInstanceUuid(String instanceUuid) {
+    return instanceUuid;
+  }
+
+}
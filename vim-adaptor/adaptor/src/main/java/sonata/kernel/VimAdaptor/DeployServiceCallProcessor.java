@@ -26,24 +26,22 @@
 
 package sonata.kernel.VimAdaptor;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorCache;
 import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache.Demand;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperCallback;
 import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
 
-import java.util.Observable;
+import java.util.LinkedHashMap;
 
-public class DeployServiceCallProcessor extends AbstractCallProcessor {
+public class DeployServiceCallProcessor extends AbstractCallProcessor implements WrapperCallback {
 
   private static final org.slf4j.Logger Logger =
       LoggerFactory.getLogger(DeployServiceCallProcessor.class);
@@ -68,15 +66,15 @@ public class DeployServiceCallProcessor extends AbstractCallProcessor {
     // parse the payload to get Wrapper UUID and NSD/VNFD from the request body
     Logger.info("Parsing payload...");
     data = null;
-    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    SimpleModule module = new SimpleModule();
-    module.addDeserializer(Unit.class, new UnitDeserializer());
-    mapper.registerModule(module);
-    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
-    mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     try {
-      data = mapper.readValue(message.getBody(), DeployServiceData.class);
+      // Only the envelope is bound for the descriptors already deployed.
+      data = DescriptorCache.getInstance().readDeployServiceData(message.getBody());
       Logger.info("payload parsed");
+      LinkedHashMap<String, DeployServiceData> parts = MultiVimDeployment.split(data);
+      if (parts.size() > 1) {
+        new MultiVimDeployment(this, data, parts).start();
+        return true;
+      }
       ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(data.getVimUuid());
       Logger.info("Wrapper retrieved");
       if (wr == null) {
@@ -86,14 +84,21 @@ public class DeployServiceCallProcessor extends AbstractCallProcessor {
             "{\"request_status\":\"fail\",\"message\":\"VIM not found\"}", "application/json",
             message.getReplyTo(), message.getSid(), null));
         out = false;
+      } else if (!UtilisationCache.getInstance().reserve(data.getVimUuid(), this.getSid(),
+          Demand.of(data))) {
+        Logger.warn("Not enough resources on VIM " + data.getVimUuid());
+        this.sendToMux(new ServicePlatformMessage(
+            "{\"request_status\":\"fail\",\"message\":\"Not enough resources on the VIM\"}",
+            "application/json", message.getReplyTo(), message.getSid(), null));
+        out = false;
       } else {
         // use wrapper interface to send the NSD/VNFD, along with meta-data
         // to the wrapper, triggering the service instantiation.
         Logger.info("Calling wrapper: " + wr);
-        wr.addObserver(this);
-        wr.deployService(data, this.getSid());
+        wr.deployService(data, this.getSid()).whenComplete(this);
       }
     } catch (Exception e) {
+      UtilisationCache.getInstance().release(this.getSid());
       Logger.error("Error deploying the system: " + e.getMessage(), e);
       this.sendToMux(new ServicePlatformMessage(
           "{\"request_status\":\"fail\",\"message\":\"Deployment Error\"}", "application/json",
@@ -104,32 +109,31 @@ public class DeployServiceCallProcessor extends AbstractCallProcessor {
   }
 
   @Override
-  public void update(Observable arg0, Object arg1) {
-    WrapperStatusUpdate update = (WrapperStatusUpdate) arg1;
-    if (update.getSid().equals(this.getSid())) {
-      Logger.info("Received an update from the wrapper...");
-      if (update.getStatus().equals("SUCCESS")) {
-        Logger.info("Deploy " + this.getSid() + " succeed");
-
-        // Sending a hook to trigger the WIM adaptor
-        Logger.info("Sending partial response to WIM adaptor...");
-        ServicePlatformMessage response =
-            new ServicePlatformMessage(update.getBody(), "application/x-yaml",
-                "infrastructure.wan.configure", this.getSid(), this.getMessage().getReplyTo());
-        this.sendToMux(response);
-      } else if (update.getStatus().equals("ERROR")) {
-        Logger.warn("Deploy " + this.getSid() + " error");
-        Logger.warn("Pushing back error...");
-        ServicePlatformMessage response = new ServicePlatformMessage(
-            "{\"request_status\":\"fail\",\"message\":\"" + update.getBody() + "\"}",
-            "application/x-yaml", this.getMessage().getReplyTo(), this.getSid(), null);
-        this.sendToMux(response);
+  public void onComplete(WrapperStatusUpdate update) {
+    Logger.info("Received an update from the wrapper...");
+    if (update.getStatus().equals("SUCCESS")) {
+      Logger.info("Deploy " + this.getSid() + " succeed");
+      UtilisationCache.getInstance().commit(this.getSid());
+
+      // Sending a hook to trigger the WIM adaptor
+      Logger.info("Sending partial response to WIM adaptor...");
+      ServicePlatformMessage response;
+      if (update.getPayload() != null) {
+        response = ServicePlatformMessage.withPayload(update.getPayload(), "application/x-yaml",
+            "infrastructure.wan.configure", this.getSid(), this.getMessage().getReplyTo());
       } else {
-        Logger.info("Deploy " + this.getSid() + " - " + update.getStatus());
-        Logger.info("Message " + update.getBody());
+        response = new ServicePlatformMessage(update.getBody(), "application/x-yaml",
+            "infrastructure.wan.configure", this.getSid(), this.getMessage().getReplyTo());
       }
-
-      // TODO handle other update from the compute wrapper;
+      this.sendToMux(response);
+    } else {
+      Logger.warn("Deploy " + this.getSid() + " error - " + update.getStatus());
+      UtilisationCache.getInstance().release(this.getSid());
+      Logger.warn("Pushing back error...");
+      ServicePlatformMessage response = new ServicePlatformMessage(
+          "{\"request_status\":\"fail\",\"message\":\"" + update.getBody() + "\"}",
+          "application/x-yaml", this.getMessage().getReplyTo(), this.getSid(), null);
+      this.sendToMux(response);
     }
   }
 
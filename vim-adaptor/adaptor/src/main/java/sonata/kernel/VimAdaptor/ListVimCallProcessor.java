@@ -34,14 +34,15 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import org.slf4j.LoggerFactory;
 
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.commons.VimResources;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
-import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
 import sonata.kernel.VimAdaptor.wrapper.ResourceUtilisation;
-import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
 
 import java.util.ArrayList;
-import java.util.Observable;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
 
 public class ListVimCallProcessor extends AbstractCallProcessor {
   
@@ -52,34 +53,30 @@ public class ListVimCallProcessor extends AbstractCallProcessor {
     super(message, sid, mux);
   }
 
-  @Override
-  public void update(Observable obs, Object arg) {
-    // This call does not need to be updated by any observable (wrapper).
-  }
-
   @Override
   public boolean process(ServicePlatformMessage message) {
     Logger.info("Retrieving VIM list from vim repository");
-    ArrayList<String> vimList = WrapperBay.getInstance().getComputeWrapperList();
-    Logger.info("Found "+vimList.size()+" VIMs");
+    UtilisationCache cache = UtilisationCache.getInstance();
+    LinkedHashMap<String, String> vimStatus =
+        cache.collect(UtilisationCache.REFRESH_PERIOD * 1000, UtilisationCache.VIM_DEADLINE);
+    Logger.info("Found " + vimStatus.size() + " VIMs");
     Logger.info("Retrieving VIM(s) resource utilisation");
     ArrayList<VimResources> resList = new ArrayList<VimResources>();
-    for (String vimUuid : vimList) {
-      ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(vimUuid);
-
-      ResourceUtilisation resource = wr.getResourceUtilisation();
+    for (Entry<String, String> entry : vimStatus.entrySet()) {
+      String vimUuid = entry.getKey();
+      ResourceUtilisation resource = cache.getUtilisation(vimUuid);
 
+      VimResources bodyElement = new VimResources();
+      bodyElement.setVimUuid(vimUuid);
+      bodyElement.setStatus(entry.getValue());
       if (resource != null) {
-
-        VimResources bodyElement = new VimResources();
-
-        bodyElement.setVimUuid(vimUuid);
+        bodyElement.setLastUpdate(cache.getSnapshotTime(vimUuid));
         bodyElement.setCoreTotal(resource.getTotCores());
         bodyElement.setCoreUsed(resource.getUsedCores());
         bodyElement.setMemoryTotal(resource.getTotMemory());
         bodyElement.setMemoryUsed(resource.getUsedMemory());
-        resList.add(bodyElement);
       }
+      resList.add(bodyElement);
     }
 
     ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
@@ -0,0 +1,356 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.messaging.MessagePayload;
+import sonata.kernel.AdaptorCommons.messaging.ObjectPayload;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorMapper;
+import sonata.kernel.Descriptors.nsd.NetworkFunction;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.StreamingSerializer;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache.Demand;
+import sonata.kernel.VimAdaptor.wrapper.VimRepo;
+import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperCallback;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deployment of a service whose VNFs are assigned to several compute VIMs through the vim_mapping
+ * of the request. The service is split in one part per VIM, each carrying the VNFs of that VIM and
+ * deployed as a service instance of its own, identified by a part UUID derived from the instance
+ * UUID. All the parts are deployed in parallel, and their records are merged in a single response
+ * listing all the VIMs of the service, which goes to the WIM adaptor as for a single VIM service.
+ * If a part fails, the parts already deployed are removed.
+ */
+public class MultiVimDeployment {
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(MultiVimDeployment.class);
+
+  private AbstractCallProcessor processor;
+  private DeployServiceData data;
+  private LinkedHashMap<String, DeployServiceData> parts;
+  private Hashtable<String, WrapperStatusUpdate> outcomes;
+  private AtomicInteger pending;
+
+  /**
+   * Create the deployment of a service split over several VIMs.
+   * 
+   * @param processor the call processor of the deployment request, used to send the response
+   * @param data the deployment request
+   * @param parts the parts of the service, by part UUID, as returned by split
+   */
+  public MultiVimDeployment(AbstractCallProcessor processor, DeployServiceData data,
+      LinkedHashMap<String, DeployServiceData> parts) {
+    this.processor = processor;
+    this.data = data;
+    this.parts = parts;
+    this.outcomes = new Hashtable<String, WrapperStatusUpdate>();
+    this.pending = new AtomicInteger(parts.size());
+  }
+
+  /**
+   * Split a service in one part per compute VIM. The VNFs not in the vim_mapping of the request go
+   * to its vim_uuid, whose part comes first.
+   * 
+   * @param data the deployment request
+   * @return the parts of the service by part UUID, a single one with the request itself if the
+   *         service is not split
+   * @throws Exception if a VNF has no VIM or is not part of the service
+   */
+  public static LinkedHashMap<String, DeployServiceData> split(DeployServiceData data)
+      throws Exception {
+    ServiceDescriptor nsd = data.getNsd();
+    HashMap<String, String> mapping = data.getVimMapping();
+    LinkedHashMap<String, ArrayList<VnfDescriptor>> groups =
+        new LinkedHashMap<String, ArrayList<VnfDescriptor>>();
+    if (data.getVimUuid() != null) {
+      groups.put(data.getVimUuid(), new ArrayList<VnfDescriptor>());
+    }
+    for (VnfDescriptor vnfd : data.getVnfdList()) {
+      String vimUuid = data.getVimUuid();
+      if (mapping != null) {
+        String vnfId = null;
+        for (NetworkFunction vnf : nsd.getNetworkFunctions()) {
+          if (vnf.getVnfName().equals(vnfd.getName())) {
+            vnfId = vnf.getVnfId();
+          }
+        }
+        if (vnfId == null) {
+          throw new Exception("VNF " + vnfd.getName() + " not found in the NSD network functions");
+        }
+        if (mapping.get(vnfId) != null) {
+          vimUuid = mapping.get(vnfId);
+        }
+      }
+      if (vimUuid == null) {
+        throw new Exception("No VIM assigned to VNF " + vnfd.getName());
+      }
+      ArrayList<VnfDescriptor> group = groups.get(vimUuid);
+      if (group == null) {
+        group = new ArrayList<VnfDescriptor>();
+        groups.put(vimUuid, group);
+      }
+      group.add(vnfd);
+    }
+
+    LinkedHashMap<String, DeployServiceData> parts =
+        new LinkedHashMap<String, DeployServiceData>();
+    if (groups.size() <= 1) {
+      parts.put(nsd.getInstanceUuid(), data);
+      return parts;
+    }
+    int index = 0;
+    for (Map.Entry<String, ArrayList<VnfDescriptor>> group : groups.entrySet()) {
+      if (group.getValue().isEmpty()) {
+        continue;
+      }
+      String partUuid = nsd.getInstanceUuid() + "-" + index++;
+      ServiceDescriptor partNsd = nsd.copy();
+      partNsd.setInstanceUuid(partUuid);
+      DeployServiceData part = new DeployServiceData();
+      part.setVimUuid(group.getKey());
+      part.setNsd(partNsd);
+      part.setVnfds(group.getValue());
+      parts.put(partUuid, part);
+    }
+    return parts;
+  }
+
+  /**
+   * Deploy all the parts in parallel.
+   */
+  public void start() {
+    VimRepo repo = WrapperBay.getInstance().getVimRepo();
+    Logger.info("Deploying " + data.getNsd().getInstanceUuid() + " on " + parts.size() + " VIMs");
+    for (Map.Entry<String, DeployServiceData> entry : parts.entrySet()) {
+      final String partUuid = entry.getKey();
+      final DeployServiceData part = entry.getValue();
+      repo.writeInstancePart(partUuid, data.getNsd().getInstanceUuid(), part.getVimUuid());
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          deployPart(partUuid, part);
+        }
+      }, "deploy-" + partUuid);
+      thread.start();
+    }
+  }
+
+  private void deployPart(final String partUuid, DeployServiceData part) {
+    WrapperFuture future;
+    try {
+      ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(part.getVimUuid());
+      if (wr == null) {
+        future = WrapperFuture.completed(processor.getSid(), "ERROR",
+            "VIM " + part.getVimUuid() + " not found");
+      } else if (!UtilisationCache.getInstance().reserve(part.getVimUuid(), partUuid,
+          Demand.of(part))) {
+        future = WrapperFuture.completed(processor.getSid(), "ERROR",
+            "Not enough resources on VIM " + part.getVimUuid());
+      } else {
+        Logger.info("Deploying part " + partUuid + " on " + wr);
+        future = wr.deployService(part, processor.getSid());
+      }
+    } catch (Exception e) {
+      Logger.error("Error deploying part " + partUuid + ": " + e.getMessage(), e);
+      future = WrapperFuture.completed(processor.getSid(), "ERROR", e.getMessage());
+    }
+    future.whenComplete(new WrapperCallback() {
+      @Override
+      public void onComplete(WrapperStatusUpdate update) {
+        if (update.getStatus().equals("SUCCESS")) {
+          UtilisationCache.getInstance().commit(partUuid);
+        } else {
+          UtilisationCache.getInstance().release(partUuid);
+        }
+        outcomes.put(partUuid, update);
+        if (pending.decrementAndGet() == 0) {
+          finish();
+        }
+      }
+    });
+  }
+
+  private void finish() {
+    ArrayList<String> deployed = new ArrayList<String>();
+    String error = null;
+    for (String partUuid : parts.keySet()) {
+      WrapperStatusUpdate update = outcomes.get(partUuid);
+      if (update.getStatus().equals("SUCCESS")) {
+        deployed.add(partUuid);
+      } else if (error == null) {
+        error = update.getBody();
+      }
+    }
+    DeployServiceResponse merged = null;
+    if (error == null) {
+      try {
+        merged = merge(deployed);
+      } catch (Exception e) {
+        Logger.error("Error merging the deployment of " + data.getNsd().getInstanceUuid(), e);
+        error = "Unable to merge the records of the service parts";
+      }
+    }
+    ServicePlatformMessage request = processor.getMessage();
+    if (error != null) {
+      Logger.warn("Deploy " + processor.getSid() + " error - " + error);
+      // Roll back the parts already deployed, and forget the others.
+      Hashtable<String, String> rollback = new Hashtable<String, String>();
+      for (String partUuid : parts.keySet()) {
+        if (deployed.contains(partUuid)) {
+          rollback.put(partUuid, parts.get(partUuid).getVimUuid());
+        } else {
+          WrapperBay.getInstance().getVimRepo().removeInstancePart(partUuid);
+        }
+      }
+      removeParts(rollback, processor.getSid());
+      processor.sendToMux(new ServicePlatformMessage(
+          "{\"request_status\":\"fail\",\"message\":\"" + error + "\"}", "application/x-yaml",
+          request.getReplyTo(), processor.getSid(), null));
+      return;
+    }
+    Logger.info("Deploy " + processor.getSid() + " succeed on " + merged.getVimList());
+    processor.sendToMux(ServicePlatformMessage.withPayload(
+        StreamingSerializer.yamlPayload(merged), "application/x-yaml",
+        "infrastructure.wan.configure", processor.getSid(), request.getReplyTo()));
+  }
+
+  private DeployServiceResponse merge(ArrayList<String> partUuids) throws Exception {
+    DeployServiceResponse merged = null;
+    ArrayList<String> vimList = new ArrayList<String>();
+    ArrayList<String> stackUuids = new ArrayList<String>();
+    ArrayList<String> stackNames = new ArrayList<String>();
+    for (String partUuid : partUuids) {
+      DeployServiceResponse response = readResponse(outcomes.get(partUuid));
+      vimList.add(parts.get(partUuid).getVimUuid());
+      stackUuids.add(response.getInstanceVimUuid());
+      stackNames.add(response.getInstanceName());
+      if (merged == null) {
+        merged = response;
+      } else if (response.getVnfrs() != null) {
+        for (int i = 0; i < response.getVnfrs().size(); i++) {
+          merged.addVnfRecord(response.getVnfrs().get(i));
+        }
+      }
+    }
+    merged.getNsr().setId(data.getNsd().getInstanceUuid());
+    merged.setVimUuid(vimList.get(0));
+    merged.setVimList(vimList);
+    merged.setInstanceVimUuid(join(stackUuids));
+    merged.setInstanceName(join(stackNames));
+    return merged;
+  }
+
+  private static DeployServiceResponse readResponse(WrapperStatusUpdate update) throws Exception {
+    MessagePayload payload = update.getPayload();
+    if (payload instanceof ObjectPayload
+        && ((ObjectPayload) payload).getValue() instanceof DeployServiceResponse) {
+      return (DeployServiceResponse) ((ObjectPayload) payload).getValue();
+    }
+    return DescriptorMapper.readYaml(update.getBody(), DeployServiceResponse.class);
+  }
+
+  private static String join(ArrayList<String> values) {
+    StringBuilder builder = new StringBuilder();
+    for (String value : values) {
+      if (builder.length() > 0) {
+        builder.append(",");
+      }
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Remove the parts of a service split over several VIMs, in parallel. The record of each part
+   * removed is deleted from the repository.
+   * 
+   * @param parts the VIM of each part, by part UUID
+   * @param sid the session ID of the call requesting the removal
+   * @return a future completed once all the parts have been processed, with SUCCESS if all of them
+   *         have been removed
+   */
+  public static WrapperFuture removeParts(final Hashtable<String, String> parts,
+      final String sid) {
+    final WrapperFuture future = new WrapperFuture();
+    if (parts.isEmpty()) {
+      future.complete(new WrapperStatusUpdate(sid, "SUCCESS", "SUCCESS"));
+      return future;
+    }
+    final AtomicInteger remaining = new AtomicInteger(parts.size());
+    final ArrayList<String> failed = new ArrayList<String>();
+    for (final Map.Entry<String, String> part : parts.entrySet()) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          String status;
+          try {
+            ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(part.getValue());
+            status = wr.removeService(part.getKey(), sid).get().getStatus();
+          } catch (Exception e) {
+            Logger.error("Error removing part " + part.getKey() + ": " + e.getMessage(), e);
+            status = "ERROR";
+          }
+          if (status.equals("SUCCESS")) {
+            WrapperBay.getInstance().getVimRepo().removeInstancePart(part.getKey());
+          } else {
+            synchronized (failed) {
+              failed.add(part.getKey());
+            }
+          }
+          if (remaining.decrementAndGet() == 0) {
+            if (failed.isEmpty()) {
+              future.complete(new WrapperStatusUpdate(sid, "SUCCESS", "SUCCESS"));
+            } else {
+              future.complete(new WrapperStatusUpdate(sid, "ERROR",
+                  "Unable to remove the service parts " + failed));
+            }
+          }
+        }
+      }, "remove-" + part.getKey());
+      thread.start();
+    }
+    return future;
+  }
+
+}
@@ -30,14 +30,17 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.PayloadLog;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperCallback;
 import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
 
-import java.util.Observable;
+import java.util.Hashtable;
 
-public class RemoveServiceCallProcessor extends AbstractCallProcessor {
+public class RemoveServiceCallProcessor extends AbstractCallProcessor implements WrapperCallback {
 
   private static final org.slf4j.Logger Logger =
       LoggerFactory.getLogger(RemoveServiceCallProcessor.class);
@@ -63,9 +66,18 @@ public class RemoveServiceCallProcessor extends AbstractCallProcessor {
     String instanceUuid = jsonObject.getString("instance_uuid");
     String vimUuid =
         WrapperBay.getInstance().getVimRepo().getComputeVimUuidFromInstance(instanceUuid);
+    if (vimUuid == null) {
+      // The service may be split over several VIMs.
+      Hashtable<String, String> parts =
+          WrapperBay.getInstance().getVimRepo().getInstanceParts(instanceUuid);
+      if (parts != null && !parts.isEmpty()) {
+        Logger.info("Removing the " + parts.size() + " parts of " + instanceUuid);
+        MultiVimDeployment.removeParts(parts, this.getSid()).whenComplete(this);
+        return true;
+      }
+    }
     ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(vimUuid);
-    wr.addObserver(this);
-    wr.removeService(instanceUuid, this.getSid());
+    wr.removeService(instanceUuid, this.getSid()).whenComplete(this);
 
     boolean out = true;
     return out;
@@ -78,10 +90,8 @@ public class RemoveServiceCallProcessor extends AbstractCallProcessor {
   }
 
   @Override
-  public void update(Observable observable, Object arg) {
-
-    WrapperStatusUpdate update = (WrapperStatusUpdate) arg;
-    Logger.info("Received an update:\n" + update.getBody());
+  public void onComplete(WrapperStatusUpdate update) {
+    PayloadLog.info(Logger, "remove-update", update.getBody());
 
     sendResponse("{\"request_status\":\"" + update.getBody() + "\"}");
     return;
@@ -29,10 +29,10 @@ package sonata.kernel.VimAdaptor;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
 
-import java.util.Observable;
 
 public class RemoveVimCallProcessor extends AbstractCallProcessor {
 
@@ -78,9 +78,4 @@ public class RemoveVimCallProcessor extends AbstractCallProcessor {
         this.getMessage().getTopic(), this.getMessage().getSid(), this.getMessage().getReplyTo());
     this.sendToMux(spMessage);
   }
-
-  @Override
-  public void update(Observable observable, Object arg) {
-    // This call does not need to be updated by any observable (wrapper).
-  }
 }
@@ -33,13 +33,15 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import org.slf4j.LoggerFactory;
 
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
 import sonata.kernel.VimAdaptor.commons.ResourceAvailabilityData;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache.Demand;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache;
 
 import java.io.IOException;
-import java.util.Observable;
 
 
 public class ResourceAvailabilityCallProcessor extends AbstractCallProcessor {
@@ -76,10 +78,17 @@ public class ResourceAvailabilityCallProcessor extends AbstractCallProcessor {
 
       Logger
           .info("Checking availability of resource. Minimum:\n" + mapper.writeValueAsString(data));
-      // TODO get resource availability
-
-      // By now we just answer OK, for resource available.
-      String responseMessage = "status: \"OK\"";
+      UtilisationCache cache = UtilisationCache.getInstance();
+      Demand demand = Demand.of(data);
+      String responseMessage;
+      if (cache.ensureLoaded().isEmpty()) {
+        responseMessage = "status: \"ERROR\"\nmessage: \"No compute VIM registered\"";
+      } else if (cache.findVimWithHeadroom(demand) == null) {
+        Logger.info("No VIM can host the requested resources: " + demand);
+        responseMessage = "status: \"ERROR\"\nmessage: \"Not enough resources available\"";
+      } else {
+        responseMessage = "status: \"OK\"";
+      }
       ServicePlatformMessage response = new ServicePlatformMessage(responseMessage,
           "application/x-yaml", message.getTopic(), message.getSid(), null);
 
@@ -91,10 +100,4 @@ public class ResourceAvailabilityCallProcessor extends AbstractCallProcessor {
 
     return out;
   }
-
-
-  @Override
-  public void update(Observable observable, Object arg) {
-    // This call does not need to be updated by any observable (wrapper).
-  }
 }
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.DescriptorCache;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperCallback;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+public class UpdateServiceCallProcessor extends AbstractCallProcessor implements WrapperCallback {
+
+  private static final org.slf4j.Logger Logger =
+      LoggerFactory.getLogger(UpdateServiceCallProcessor.class);
+
+  /**
+   * Create a CallProcessor to process an UpdateService API call.
+   * 
+   * @param message the message to the API call.
+   * @param sid the session ID of the API call.
+   * @param mux the AdaptorMux to which send back responses.
+   */
+  public UpdateServiceCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
+    super(message, sid, mux);
+  }
+
+  @Override
+  public boolean process(ServicePlatformMessage message) {
+    boolean out = true;
+    Logger.info("Call received...");
+    // parse the payload to get the running instance and its updated NSD/VNFD
+    try {
+      DeployServiceData data =
+          DescriptorCache.getInstance().readDeployServiceData(message.getBody());
+      Logger.info("payload parsed");
+      String vimUuid = data.getVimUuid();
+      if (vimUuid == null) {
+        vimUuid = WrapperBay.getInstance().getVimRepo()
+            .getComputeVimUuidFromInstance(data.getNsd().getInstanceUuid());
+        data.setVimUuid(vimUuid);
+      }
+      ComputeWrapper wr =
+          vimUuid == null ? null : WrapperBay.getInstance().getComputeWrapper(vimUuid);
+      if (wr == null) {
+        Logger.warn("Error retrieving the wrapper");
+        this.sendToMux(new ServicePlatformMessage(
+            "{\"request_status\":\"fail\",\"message\":\"VIM not found\"}", "application/json",
+            message.getReplyTo(), message.getSid(), null));
+        out = false;
+      } else {
+        Logger.info("Calling wrapper: " + wr);
+        wr.updateService(data, this.getSid()).whenComplete(this);
+      }
+    } catch (Exception e) {
+      Logger.error("Error updating the service: " + e.getMessage(), e);
+      this.sendToMux(new ServicePlatformMessage(
+          "{\"request_status\":\"fail\",\"message\":\"Update Error\"}", "application/json",
+          message.getReplyTo(), message.getSid(), null));
+      out = false;
+    }
+    return out;
+  }
+
+  @Override
+  public void onComplete(WrapperStatusUpdate update) {
+    Logger.info("Received an update from the wrapper...");
+    ServicePlatformMessage response;
+    if (update.getStatus().equals("SUCCESS")) {
+      Logger.info("Update " + this.getSid() + " succeed");
+      if (update.getPayload() != null) {
+        response = ServicePlatformMessage.withPayload(update.getPayload(), "application/x-yaml",
+            this.getMessage().getReplyTo(), this.getSid(), null);
+      } else {
+        response = new ServicePlatformMessage(update.getBody(), "application/x-yaml",
+            this.getMessage().getReplyTo(), this.getSid(), null);
+      }
+    } else {
+      Logger.warn("Update " + this.getSid() + " error - " + update.getStatus());
+      response = new ServicePlatformMessage(
+          "{\"request_status\":\"fail\",\"message\":\"" + update.getBody() + "\"}",
+          "application/x-yaml", this.getMessage().getReplyTo(), this.getSid(), null);
+    }
+    this.sendToMux(response);
+  }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ *
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ *
+ */
+
+package sonata.kernel.VimAdaptor.commons;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Buddy allocator for IPv4 address blocks. The managed space is a single aligned prefix; every
+ * allocated or free block is an aligned prefix contained in it. Free blocks are kept in one sorted
+ * set per prefix length, so both allocation and release cost O(log n) per prefix level, with at most
+ * 32 levels.
+ */
+public class BuddyAllocator {
+
+  private long base;
+  private int basePrefix;
+  private int minPrefix;
+  private long freeAddresses;
+
+  private ArrayList<TreeSet<Long>> freeBlocks;
+  private HashMap<Long, Integer> allocatedBlocks;
+
+  /**
+   * Create a buddy allocator managing the given aligned address space.
+   *
+   * @param base the first address of the space, it must be aligned to the prefix length
+   * @param basePrefix the prefix length of the managed space
+   * @param minPrefix the longest prefix (i.e. the smallest block) this allocator will hand out
+   */
+  public BuddyAllocator(long base, int basePrefix, int minPrefix) {
+    if (basePrefix < 0 || minPrefix > 32 || basePrefix > minPrefix) {
+      throw new IllegalArgumentException(
+          "Invalid prefix lengths: base /" + basePrefix + " min /" + minPrefix);
+    }
+    if ((base & (blockSize(basePrefix) - 1)) != 0) {
+      throw new IllegalArgumentException("Base address not aligned to /" + basePrefix);
+    }
+    this.base = base;
+    this.basePrefix = basePrefix;
+    this.minPrefix = minPrefix;
+    this.freeBlocks = new ArrayList<TreeSet<Long>>(33);
+    for (int i = 0; i <= 32; i++) {
+      this.freeBlocks.add(new TreeSet<Long>());
+    }
+    this.allocatedBlocks = new HashMap<Long, Integer>();
+    this.freeBlocks.get(basePrefix).add(base);
+    this.freeAddresses = blockSize(basePrefix);
+  }
+
+  /**
+   * Allocate the lowest free block with the given prefix length.
+   *
+   * @param prefix the prefix length of the block to allocate
+   * @return the first address of the allocated block, or -1 if no block of that size is available
+   */
+  public synchronized long allocate(int prefix) {
+    if (prefix < basePrefix || prefix > minPrefix) {
+      throw new IllegalArgumentException("Prefix /" + prefix + " outside of the allocator range /"
+          + basePrefix + " - /" + minPrefix);
+    }
+    int level = prefix;
+    while (level >= basePrefix && freeBlocks.get(level).isEmpty()) {
+      level--;
+    }
+    if (level < basePrefix) {
+      return -1;
+    }
+    long block = freeBlocks.get(level).pollFirst();
+    // Split the block, keeping the lower half and freeing the upper buddies.
+    while (level < prefix) {
+      level++;
+      freeBlocks.get(level).add(block + blockSize(level));
+    }
+    allocatedBlocks.put(block, prefix);
+    freeAddresses -= blockSize(prefix);
+    return block;
+  }
+
+  /**
+   * Release a previously allocated block, merging it with its free buddies.
+   *
+   * @param block the first address of the block to release
+   * @return the prefix length of the released block, or -1 if the block was not allocated
+   */
+  public synchronized int free(long block) {
+    Integer allocatedPrefix = allocatedBlocks.remove(block);
+    if (allocatedPrefix == null) {
+      return -1;
+    }
+    int level = allocatedPrefix;
+    freeAddresses += blockSize(level);
+    long current = block;
+    while (level > basePrefix) {
+      long buddy = base + ((current - base) ^ blockSize(level));
+      if (!freeBlocks.get(level).remove(buddy)) {
+        break;
+      }
+      current = Math.min(current, buddy);
+      level--;
+    }
+    freeBlocks.get(level).add(current);
+    return allocatedPrefix;
+  }
+
+  /**
+   * Return the prefix length of an allocated block.
+   *
+   * @param block the first address of the block
+   * @return the prefix length, or -1 if the block is not allocated
+   */
+  public synchronized int getAllocatedPrefix(long block) {
+    Integer prefix = allocatedBlocks.get(block);
+    return prefix == null ? -1 : prefix;
+  }
+
+  /**
+   * @return the number of addresses not allocated in the managed space.
+   */
+  public synchronized long getFreeAddresses() {
+    return freeAddresses;
+  }
+
+  /**
+   * @return the number of free blocks across all prefix lengths, a measure of fragmentation.
+   */
+  public synchronized int getFreeBlockCount() {
+    int count = 0;
+    for (TreeSet<Long> level : freeBlocks) {
+      count += level.size();
+    }
+    return count;
+  }
+
+  public long getBase() {
+    return base;
+  }
+
+  public int getBasePrefix() {
+    return basePrefix;
+  }
+
+  public int getMinPrefix() {
+    return minPrefix;
+  }
+
+  /**
+   * Return the number of addresses in a block with the given prefix length.
+   *
+   * @param prefix the prefix length
+   * @return the number of addresses in the block
+   */
+  public static long blockSize(int prefix) {
+    return 1L << (32 - prefix);
+  }
+
+}
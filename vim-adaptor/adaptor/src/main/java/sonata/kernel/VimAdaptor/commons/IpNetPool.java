@@ -32,6 +32,8 @@ import java.util.Hashtable;
 public class IpNetPool {
 
   private static final int sizeOfSubnet = 8;
+  private static final int smallestSubnet = 4;
+  private static final String defaultCidr = "192.0.0.0/8";
   private static final int[] CIDR2MASK =
       new int[] {0x00000000, 0x80000000, 0xC0000000, 0xE0000000, 0xF0000000, 0xF8000000, 0xFC000000,
           0xFE000000, 0xFF000000, 0xFF800000, 0xFFC00000, 0xFFE00000, 0xFFF00000, 0xFFF80000,
@@ -39,11 +41,13 @@ public class IpNetPool {
           0xFFFFF800, 0xFFFFFC00, 0xFFFFFE00, 0xFFFFFF00, 0xFFFFFF80, 0xFFFFFFC0, 0xFFFFFFE0,
           0xFFFFFFF0, 0xFFFFFFF8, 0xFFFFFFFC, 0xFFFFFFFE, 0xFFFFFFFF};
   private static IpNetPool myInstance = null;
+  private static Hashtable<String, IpNetPool> vimPools = new Hashtable<String, IpNetPool>();
 
 
   private Hashtable<String, String> reservedSubnets;
   private Hashtable<String, ArrayList<String>> reservationTable;
-  private ArrayList<String> freeSubnets;
+  private BuddyAllocator allocator;
+  private String cidr;
 
 
   /**
@@ -51,15 +55,45 @@ public class IpNetPool {
    * 
    * @return the singleton instance of IpNetPool
    */
-  public static IpNetPool getInstance() {
+  public static synchronized IpNetPool getInstance() {
     if (myInstance == null) {
-      myInstance = new IpNetPool("192.0.0.0/8");
+      myInstance = new IpNetPool(defaultCidr);
     }
     return myInstance;
   }
 
-  public static void resetInstance() {
+  /**
+   * get the pool of the given VIM, creating it on first use. Each VIM manages its own tenant address
+   * space, as configured in the VIM repository.
+   * 
+   * @param vimUuid the UUID of the compute VIM
+   * @param cidr the tenant address space of the VIM in CIDR format, null to use the default one
+   * @return the IpNetPool of the given VIM
+   */
+  public static synchronized IpNetPool getInstance(String vimUuid, String cidr) {
+    if (vimUuid == null) {
+      return getInstance();
+    }
+    IpNetPool pool = vimPools.get(vimUuid);
+    if (pool == null) {
+      pool = new IpNetPool(cidr == null ? defaultCidr : cidr);
+      vimPools.put(vimUuid, pool);
+    }
+    return pool;
+  }
+
+  /**
+   * Drop the pool of the given VIM, e.g. when the VIM is removed from the repository.
+   * 
+   * @param vimUuid the UUID of the compute VIM
+   */
+  public static synchronized void removeInstance(String vimUuid) {
+    vimPools.remove(vimUuid);
+  }
+
+  public static synchronized void resetInstance() {
     myInstance = null;
+    vimPools.clear();
   }
 
   /**
@@ -70,32 +104,15 @@ public class IpNetPool {
   private IpNetPool(String cidr) {
 
     reservedSubnets = new Hashtable<String, String>();
-    freeSubnets = new ArrayList<String>();
     reservationTable = new Hashtable<String, ArrayList<String>>();
 
     int slash = Integer.parseInt(cidr.split("/")[1]);
     String strAddr = cidr.split("/")[0];
 
-    long[] addr = new long[4];
-
-    String[] temp = strAddr.split("\\.");
-
-    for (int i = 0; i < 4; i++) {
-      addr[i] = Integer.parseInt(temp[i]);
-    }
-
-    int numberOfSubnets = (int) Math.pow(2, (32 - slash)) / sizeOfSubnet;
-    long addrLong = ipToLong(addr);
-    addrLong = addrLong & CIDR2MASK[slash];
-    for (int i = 0; i < numberOfSubnets; i++) {
-      // System.out.println(i);
-      long prefixLong = addrLong + (i * sizeOfSubnet);
-      // System.out.println(prefixLong);
-      String stringCidr = longToIp(prefixLong) + "/" + (32 - getSlash(sizeOfSubnet));
-      // System.out.println(i + " = " + stringCidr);
-      this.freeSubnets.add(stringCidr);
-    }
-
+    long addrLong = ipToLong(parseAddress(strAddr));
+    addrLong = addrLong & (CIDR2MASK[slash] & 0xFFFFFFFFL);
+    this.cidr = longToIp(addrLong) + "/" + slash;
+    allocator = new BuddyAllocator(addrLong, slash, 32 - getSlash(smallestSubnet));
   }
 
   /**
@@ -107,8 +124,33 @@ public class IpNetPool {
    */
 
   public ArrayList<String> reserveSubnets(String instanceUuid, int numberOfSubnets) {
+    ArrayList<Integer> prefixes = new ArrayList<Integer>();
+    for (int i = 0; i < numberOfSubnets; i++) {
+      prefixes.add(32 - getSlash(sizeOfSubnet));
+    }
+    return reserveSubnets(instanceUuid, prefixes);
+  }
 
-    if (numberOfSubnets > freeSubnets.size()) {
+  /**
+   * Reserve a set of sub-nets of arbitrary size for a given service instance. Either all the
+   * requested sub-nets are reserved, or none is.
+   * 
+   * @param instanceUuid the UUID of the service instance
+   * @param prefixLengths the prefix length of each needed sub-net
+   * @return an ArrayList of string representing the reserved CIDRs, in the same order as the
+   *         requested prefix lengths, or null if the address space cannot fit them
+   */
+  public synchronized ArrayList<String> reserveSubnets(String instanceUuid,
+      ArrayList<Integer> prefixLengths) {
+
+    long neededAddresses = 0;
+    for (int prefix : prefixLengths) {
+      if (prefix < allocator.getBasePrefix() || prefix > allocator.getMinPrefix()) {
+        return null;
+      }
+      neededAddresses += BuddyAllocator.blockSize(prefix);
+    }
+    if (neededAddresses > allocator.getFreeAddresses()) {
       return null;
     }
     ArrayList<String> previousReservation = null;
@@ -117,25 +159,114 @@ public class IpNetPool {
       return previousReservation;
     }
     ArrayList<String> output = new ArrayList<String>();
-    ArrayList<String> subnetPool = new ArrayList<String>();
+    ArrayList<Long> allocated = new ArrayList<Long>();
+
+    for (int prefix : prefixLengths) {
+      long block = allocator.allocate(prefix);
+      if (block < 0) {
+        // Not enough contiguous space: roll back the partial reservation.
+        for (long previous : allocated) {
+          allocator.free(previous);
+        }
+        return null;
+      }
+      allocated.add(block);
+      output.add(longToIp(block) + "/" + prefix);
+    }
 
-    for (int i = 0; i < numberOfSubnets; i++) {
-      String subnet = freeSubnets.remove(0);
+    for (String subnet : output) {
       reservedSubnets.put(subnet, instanceUuid);
-      subnetPool.add(subnet);
-      output.add(subnet);
     }
+    reservationTable.put(instanceUuid, new ArrayList<String>(output));
+    return output;
+  }
+
+  /**
+   * Reserve additional sub-nets for a service instance, keeping the ones already reserved. Either
+   * all the requested sub-nets are reserved, or none is.
+   * 
+   * @param instanceUuid the UUID of the service instance
+   * @param numberOfSubnets the number of additional sub-nets
+   * @return an ArrayList of string representing the newly reserved CIDRs, or null if the address
+   *         space cannot fit them
+   */
+  public ArrayList<String> extendReservation(String instanceUuid, int numberOfSubnets) {
+    ArrayList<Integer> prefixes = new ArrayList<Integer>();
+    for (int i = 0; i < numberOfSubnets; i++) {
+      prefixes.add(32 - getSlash(sizeOfSubnet));
+    }
+    return extendReservation(instanceUuid, prefixes);
+  }
 
-    reservationTable.put(instanceUuid, subnetPool);
+  /**
+   * Reserve additional sub-nets of arbitrary size for a service instance, keeping the ones already
+   * reserved. Either all the requested sub-nets are reserved, or none is.
+   * 
+   * @param instanceUuid the UUID of the service instance
+   * @param prefixLengths the prefix length of each additional sub-net
+   * @return an ArrayList of string representing the newly reserved CIDRs, in the same order as the
+   *         requested prefix lengths, or null if the address space cannot fit them
+   */
+  public synchronized ArrayList<String> extendReservation(String instanceUuid,
+      ArrayList<Integer> prefixLengths) {
+    for (int prefix : prefixLengths) {
+      if (prefix < allocator.getBasePrefix() || prefix > allocator.getMinPrefix()) {
+        return null;
+      }
+    }
+    ArrayList<String> output = new ArrayList<String>();
+    ArrayList<Long> allocated = new ArrayList<Long>();
+    for (int prefix : prefixLengths) {
+      long block = allocator.allocate(prefix);
+      if (block < 0) {
+        for (long previous : allocated) {
+          allocator.free(previous);
+        }
+        return null;
+      }
+      allocated.add(block);
+      output.add(longToIp(block) + "/" + prefix);
+    }
+    ArrayList<String> reservation = reservationTable.get(instanceUuid);
+    if (reservation == null) {
+      reservation = new ArrayList<String>();
+      reservationTable.put(instanceUuid, reservation);
+    }
+    for (String subnet : output) {
+      reservedSubnets.put(subnet, instanceUuid);
+      reservation.add(subnet);
+    }
     return output;
   }
 
+  /**
+   * De-allocate some of the subnets reserved for a service instance, keeping the others.
+   * 
+   * @param instanceUuid the uuid of the service instance
+   * @param subnets the CIDRs to release, those not reserved for the instance are ignored
+   */
+  public synchronized void releaseSubnets(String instanceUuid, ArrayList<String> subnets) {
+    ArrayList<String> reservation = reservationTable.get(instanceUuid);
+    if (reservation == null) {
+      return;
+    }
+    for (String subnet : subnets) {
+      if (reservation.remove(subnet)) {
+        reservedSubnets.remove(subnet);
+        allocator.free(ipToLong(parseAddress(subnet.split("/")[0])));
+      }
+    }
+    if (reservation.isEmpty()) {
+      reservationTable.remove(instanceUuid);
+    }
+  }
+
   /**
    * De-allocate the subnets reserved for this service instance.
    * 
    * @param instanceUuid the uuid of instance to remove from the reservation
    */
-  public void freeSubnets(String instanceUuid) throws Exception {
+  public synchronized void freeSubnets(String instanceUuid) throws Exception {
 
     ArrayList<String> subnetPool = reservationTable.get(instanceUuid);
 
@@ -147,11 +278,38 @@ public class IpNetPool {
 
     for (String subnet : subnetPool) {
       reservedSubnets.remove(subnet);
-      freeSubnets.add(subnet);
+      allocator.free(ipToLong(parseAddress(subnet.split("/")[0])));
     }
     reservationTable.remove(instanceUuid);
   }
 
+  /**
+   * Returns the shortest prefix able to host the given number of addresses on a single segment,
+   * besides the network, gateway and broadcast addresses.
+   * 
+   * @param hosts the number of host addresses needed
+   * @return the prefix length of the smallest suitable sub-net
+   */
+  public static int getPrefixForHosts(int hosts) {
+    int needed = Math.max(hosts + 3, smallestSubnet);
+    int size = Integer.highestOneBit(needed);
+    if (size < needed) {
+      size = size << 1;
+    }
+    return 32 - getSlash(size);
+  }
+
+  private static long[] parseAddress(String strAddr) {
+    long[] addr = new long[4];
+
+    String[] temp = strAddr.split("\\.");
+
+    for (int i = 0; i < 4; i++) {
+      addr[i] = Integer.parseInt(temp[i]);
+    }
+    return addr;
+  }
+
   private static long ipToLong(long[] ip) {
 
     return (ip[0] << 24) + (ip[1] << 16) + (ip[2] << 8) + ip[3];
@@ -184,7 +342,23 @@ public class IpNetPool {
    */
 
   public int getFreeSubnetsNumber() {
-    return freeSubnets.size();
+    return (int) (allocator.getFreeAddresses() / sizeOfSubnet);
+  }
+
+  /**
+   * Returns the number of free addresses in the tenant's address space.
+   * 
+   * @return the number of addresses not reserved by any service instance
+   */
+  public long getFreeAddressesNumber() {
+    return allocator.getFreeAddresses();
+  }
+
+  /**
+   * @return the tenant address space managed by this pool, in CIDR format.
+   */
+  public String getCidr() {
+    return cidr;
   }
 
   /**
@@ -28,7 +28,7 @@ package sonata.kernel.VimAdaptor.commons;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
 
 public class ResourceAvailabilityData {
 
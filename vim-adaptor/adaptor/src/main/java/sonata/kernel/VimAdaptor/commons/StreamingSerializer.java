@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.commons;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import sonata.kernel.AdaptorCommons.messaging.MessagePayload;
+import sonata.kernel.AdaptorCommons.messaging.ObjectPayload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Shared, thread-safe serializers for the objects the adaptor sends out (Heat templates, service
+ * deployment responses). Objects are written straight into the destination stream, so large
+ * documents never need to be materialised as a String.
+ */
+public class StreamingSerializer {
+
+  private static final ObjectWriter yamlWriter = configure(new ObjectMapper(new YAMLFactory()));
+  private static final ObjectWriter jsonWriter = configure(new ObjectMapper());
+
+  private static ObjectWriter configure(ObjectMapper mapper) {
+    mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+    mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+    mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
+    mapper.setSerializationInclusion(Include.NON_NULL);
+    mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    return mapper.writer();
+  }
+
+  /**
+   * Write an object as UTF-8 YAML into a stream.
+   *
+   * @param value the object to serialize
+   * @param out the stream to write into, left open
+   * @throws IOException if the object cannot be serialized or written
+   */
+  public static void writeYaml(Object value, OutputStream out) throws IOException {
+    yamlWriter.writeValue(out, value);
+  }
+
+  /**
+   * Write an object as UTF-8 JSON into a stream.
+   *
+   * @param value the object to serialize
+   * @param out the stream to write into, left open
+   * @throws IOException if the object cannot be serialized or written
+   */
+  public static void writeJson(Object value, OutputStream out) throws IOException {
+    jsonWriter.writeValue(out, value);
+  }
+
+  /**
+   * Serialize an object to a YAML String, for logging or for consumers that need the full text.
+   *
+   * @param value the object to serialize
+   * @return the YAML representation of the object
+   * @throws JsonProcessingException if the object cannot be serialized
+   */
+  public static String toYaml(Object value) throws JsonProcessingException {
+    return yamlWriter.writeValueAsString(value);
+  }
+
+  /**
+   * Serialize an object to a JSON String.
+   *
+   * @param value the object to serialize
+   * @return the JSON representation of the object
+   * @throws JsonProcessingException if the object cannot be serialized
+   */
+  public static String toJson(Object value) throws JsonProcessingException {
+    return jsonWriter.writeValueAsString(value);
+  }
+
+  /**
+   * Wrap an object in a message payload that is serialized as YAML when the message is sent.
+   *
+   * @param value the object to serialize
+   * @return the YAML payload
+   */
+  public static MessagePayload yamlPayload(final Object value) {
+    return new ObjectPayload(value) {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        writeYaml(value, out);
+      }
+    };
+  }
+
+}
@@ -40,6 +40,10 @@ public class VimResources {
   private int coreUsed;
   @JsonProperty("core_total")
   private int coreTotal;
+  @JsonProperty("status")
+  private String status;
+  @JsonProperty("last_update")
+  private Long lastUpdate;
 
   public String getVimUuid() {
     return vimUuid;
@@ -61,6 +65,14 @@ public class VimResources {
     return coreTotal;
   }
 
+  public String getStatus() {
+    return status;
+  }
+
+  public Long getLastUpdate() {
+    return lastUpdate;
+  }
+
   public void setVimUuid(String vimUuid) {
     this.vimUuid = vimUuid;
   }
@@ -81,5 +93,13 @@ public class VimResources {
     this.coreTotal = coreTotal;
   }
 
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public void setLastUpdate(Long lastUpdate) {
+    this.lastUpdate = lastUpdate;
+  }
+
 
 }
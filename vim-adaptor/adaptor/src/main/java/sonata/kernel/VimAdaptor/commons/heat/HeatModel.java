@@ -28,19 +28,42 @@ package sonata.kernel.VimAdaptor.commons.heat;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 
 public class HeatModel {
 
   private ArrayList<HeatResource> resources;
+  private HashMap<String, String> groups;
 
   public HeatModel() {
     this.resources = new ArrayList<HeatResource>();
+    this.groups = new HashMap<String, String>();
   }
 
   public void addResource(HeatResource res) {
     this.resources.add(res);
   }
 
+  /**
+   * Add a resource that belongs to a group of the model, e.g. the resources of a single VNF. The
+   * resources of a group can be deployed together in a nested stack.
+   * 
+   * @param res the resource to add
+   * @param group the name of the group of the resource
+   */
+  public void addResource(HeatResource res, String group) {
+    this.resources.add(res);
+    this.groups.put(res.getResourceName(), group);
+  }
+
+  /**
+   * @param resourceName the name of a resource of the model
+   * @return the group of the resource, or null if it does not belong to any group.
+   */
+  public String getGroup(String resourceName) {
+    return this.groups.get(resourceName);
+  }
+
   public void prepare() {
     Collections.sort(resources);
     return;
@@ -27,19 +27,25 @@
 
 package sonata.kernel.VimAdaptor.commons.heat;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.util.HashMap;
 
-@JsonPropertyOrder({"templateVersion", "resources"})
+@JsonPropertyOrder({"templateVersion", "parameters", "resources"})
 public class HeatTemplate {
 
   @JsonProperty("heat_template_version")
   private String templateVersion = "2015-04-30";
 
+  private HashMap<String, Object> parameters;
+
   private HashMap<String, Object> resources;
 
+  @JsonIgnore
+  private HashMap<String, HeatTemplate> files;
+
   public HeatTemplate() {
     resources = new HashMap<String, Object>();
   }
@@ -63,4 +69,48 @@ public class HeatTemplate {
   public void putResource(String key, Object value) {
     this.resources.put(key, value);
   }
+
+  public HashMap<String, Object> getParameters() {
+    return parameters;
+  }
+
+  public void setParameters(HashMap<String, Object> parameters) {
+    this.parameters = parameters;
+  }
+
+  /**
+   * Declare a string input parameter of the template.
+   * 
+   * @param key the name of the parameter
+   */
+  public void putParameter(String key) {
+    if (this.parameters == null) {
+      this.parameters = new HashMap<String, Object>();
+    }
+    HashMap<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("type", "string");
+    this.parameters.put(key, parameter);
+  }
+
+  /**
+   * @return the templates of the nested stacks used by this template, by file name. Null if the
+   *         template has no nested stacks.
+   */
+  @JsonIgnore
+  public HashMap<String, HeatTemplate> getFiles() {
+    return files;
+  }
+
+  @JsonIgnore
+  public void setFiles(HashMap<String, HeatTemplate> files) {
+    this.files = files;
+  }
+
+  /**
+   * @return true if this template uses nested stacks.
+   */
+  @JsonIgnore
+  public boolean hasNestedStacks() {
+    return files != null && !files.isEmpty();
+  }
 }
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.commons.heat;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Resource by resource difference between the template of a running stack and the template
+ * translated from the updated service descriptors. Resources are matched by name and compared on
+ * their type and properties as they are sent to Heat, so a resource whose definition did not change
+ * is left untouched by the stack update. The resources of nested stacks are compared with the ones
+ * of the nested template with the same file name.
+ */
+public class HeatTemplateDiff {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  static {
+    mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+    mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+    mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
+    mapper.setSerializationInclusion(Include.NON_NULL);
+  }
+
+  private ArrayList<String> added;
+  private ArrayList<String> removed;
+  private ArrayList<String> changed;
+  private int unchanged;
+
+  /**
+   * Compute the difference between two templates.
+   * 
+   * @param current the template of the running stack
+   * @param updated the template to update the stack to
+   */
+  public HeatTemplateDiff(HeatTemplate current, HeatTemplate updated) {
+    this.added = new ArrayList<String>();
+    this.removed = new ArrayList<String>();
+    this.changed = new ArrayList<String>();
+    compare(current.getResources(), updated.getResources());
+    TreeSet<String> files = new TreeSet<String>();
+    if (current.hasNestedStacks()) {
+      files.addAll(current.getFiles().keySet());
+    }
+    if (updated.hasNestedStacks()) {
+      files.addAll(updated.getFiles().keySet());
+    }
+    for (String file : files) {
+      compare(getNestedResources(current, file), getNestedResources(updated, file));
+    }
+  }
+
+  private static HashMap<String, Object> getNestedResources(HeatTemplate template, String file) {
+    if (!template.hasNestedStacks() || !template.getFiles().containsKey(file)) {
+      return new HashMap<String, Object>();
+    }
+    return template.getFiles().get(file).getResources();
+  }
+
+  private void compare(HashMap<String, Object> current, HashMap<String, Object> updated) {
+    TreeSet<String> names = new TreeSet<String>(current.keySet());
+    names.addAll(updated.keySet());
+    for (String name : names) {
+      Object before = current.get(name);
+      Object after = updated.get(name);
+      if (before == null) {
+        added.add(name);
+      } else if (after == null) {
+        removed.add(name);
+      } else if (toTree(before).equals(toTree(after))) {
+        unchanged++;
+      } else {
+        changed.add(name);
+      }
+    }
+  }
+
+  private static JsonNode toTree(Object resource) {
+    return mapper.valueToTree(resource);
+  }
+
+  /**
+   * @return true if the two templates define the same resources.
+   */
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+  }
+
+  public ArrayList<String> getAdded() {
+    return added;
+  }
+
+  public ArrayList<String> getRemoved() {
+    return removed;
+  }
+
+  public ArrayList<String> getChanged() {
+    return changed;
+  }
+
+  public int getUnchanged() {
+    return unchanged;
+  }
+
+  @Override
+  public String toString() {
+    return "added: " + added.size() + " - removed: " + removed.size() + " - changed: "
+        + changed.size() + " - unchanged: " + unchanged;
+  }
+
+}
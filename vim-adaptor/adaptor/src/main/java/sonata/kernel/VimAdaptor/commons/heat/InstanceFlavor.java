@@ -29,7 +29,7 @@ package sonata.kernel.VimAdaptor.commons.heat;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
 
 public class InstanceFlavor {
 
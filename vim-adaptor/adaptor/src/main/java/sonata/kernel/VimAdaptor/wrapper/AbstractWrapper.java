@@ -26,9 +26,7 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
-import java.util.Observable;
-
-public abstract class AbstractWrapper extends Observable {
+public abstract class AbstractWrapper {
 
   private String type;
 
@@ -45,14 +43,6 @@ public abstract class AbstractWrapper extends Observable {
     return type;
   }
 
-  /**
-   * expose this observable object's method setChanged().
-   * 
-   */
-  public void markAsChanged() {
-    this.setChanged();
-  }
-
 
 
 }
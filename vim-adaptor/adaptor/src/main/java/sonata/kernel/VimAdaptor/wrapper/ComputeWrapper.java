@@ -26,7 +26,7 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 
 public abstract class ComputeWrapper extends AbstractWrapper implements Wrapper {
 
@@ -40,24 +40,37 @@ public abstract class ComputeWrapper extends AbstractWrapper implements Wrapper
   }
 
   /**
-   * Remove a service instance from this VIM.
+   * Deploy a service instance on this VIM.
    * 
    * @param data the payload containing the service descriptors and the metadata for this service
    *        deployment
-   * @param callSid the call processor to notify on completion
+   * @param callSid the session ID of the call requesting the deployment
    * 
-   * @return true if the remove process has started correctly, false otherwise
+   * @return a future completed with the outcome of the deployment
    */
-  public abstract boolean deployService(DeployServiceData data, String callSid) throws Exception;
+  public abstract WrapperFuture deployService(DeployServiceData data, String callSid);
+
+  /**
+   * Update a service instance running on this VIM to new versions of its descriptors, changing only
+   * the resources affected by the update.
+   * 
+   * @param data the payload containing the updated service descriptors, with the instance UUID of
+   *        the running service
+   * @param callSid the session ID of the call requesting the update
+   * 
+   * @return a future completed with the outcome of the update
+   */
+  public abstract WrapperFuture updateService(DeployServiceData data, String callSid);
 
   /**
    * Remove a service instance from this VIM.
    * 
    * @param instanceUuid the identifier of the instance in the VIM scope
+   * @param callSid the session ID of the call requesting the removal
    * 
-   * @return true if the remove process has started correctly, false otherwise
+   * @return a future completed with the outcome of the removal
    */
-  public abstract boolean removeService(String instanceUuid, String callSid);
+  public abstract WrapperFuture removeService(String instanceUuid, String callSid);
 
 
   /**
@@ -67,4 +80,10 @@ public abstract class ComputeWrapper extends AbstractWrapper implements Wrapper
    */
   public abstract ResourceUtilisation getResourceUtilisation();
 
+  /**
+   * Load the state this wrapper needs to serve a request, so that the first request does not pay
+   * for it. Called in background when the adaptor starts. Does nothing by default.
+   */
+  public void warmUp() {}
+
 }
@@ -26,33 +26,20 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
-import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.DeployServiceResponse;
-import sonata.kernel.VimAdaptor.commons.ServiceRecord;
-import sonata.kernel.VimAdaptor.commons.Status;
-import sonata.kernel.VimAdaptor.commons.VduRecord;
-import sonata.kernel.VimAdaptor.commons.VnfRecord;
-import sonata.kernel.VimAdaptor.commons.vnfd.VirtualDeploymentUnit;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.records.ServiceRecord;
+import sonata.kernel.Descriptors.records.Status;
+import sonata.kernel.Descriptors.records.VduRecord;
+import sonata.kernel.Descriptors.records.VnfRecord;
+import sonata.kernel.Descriptors.vnfd.VirtualDeploymentUnit;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.StreamingSerializer;
 
-public class MockWrapper extends ComputeWrapper implements Runnable {
 
-  /*
-   * Utility fields to implement the mock response creation. A real wrapper should instantiate a
-   * suitable object with these fields, able to handle the API call asynchronously, generate a
-   * response and update the observer
-   */
-  private DeployServiceData data;
-  private String sid;
+public class MockWrapper extends ComputeWrapper {
 
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(MockWrapper.class);
   private static final long THREAD_SLEEP = 1000;
@@ -67,9 +54,8 @@ public class MockWrapper extends ComputeWrapper implements Runnable {
   }
 
   @Override
-  public boolean deployService(DeployServiceData data, String callSid) {
-    this.data = data;
-    this.sid = callSid;
+  public WrapperFuture deployService(final DeployServiceData data, final String callSid) {
+    final WrapperFuture future = new WrapperFuture();
     // This is a mock compute wrapper.
 
     /*
@@ -78,22 +64,40 @@ public class MockWrapper extends ComputeWrapper implements Runnable {
      * if the request is acceptable, and if so start a new thread to deal with the perform the
      * needed actions.
      */
-    Thread thread = new Thread(this);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        deploy(data, callSid, future, "DEPLOYED");
+      }
+    });
     thread.start();
-    return true;
+    return future;
   }
 
   @Override
-  public void run() {
+  public WrapperFuture updateService(final DeployServiceData data, final String callSid) {
+    final WrapperFuture future = new WrapperFuture();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        deploy(data, callSid, future, "UPDATED");
+      }
+    });
+    thread.start();
+    return future;
+  }
+
+  private void deploy(DeployServiceData data, String sid, WrapperFuture future,
+      String requestStatus) {
     Logger.info("Deploying Service...");
     try {
       Thread.sleep(THREAD_SLEEP);
     } catch (InterruptedException e) {
       Logger.error(e.getMessage(), e);
     }
-    Logger.info("Service DEPLOYED. Creating response");
+    Logger.info("Service " + requestStatus + ". Creating response");
     DeployServiceResponse response = new DeployServiceResponse();
-    response.setRequestStatus("DEPLOYED");;
+    response.setRequestStatus(requestStatus);
     ServiceRecord sr = new ServiceRecord();
     sr.setStatus(Status.normal_operation);
     sr.setId(data.getNsd().getInstanceUuid());
@@ -120,35 +124,15 @@ public class MockWrapper extends ComputeWrapper implements Runnable {
     }
     response.setNsr(sr);
 
-    Logger.info("Response created. Serializing...");
-
-    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
-    mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
-    mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
-    mapper.setSerializationInclusion(Include.NON_NULL);
-    String body;
-    try {
-      body = mapper.writeValueAsString(response);
-      this.setChanged();
-      Logger.info("Serialized. notifying call processor");
-      WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "SUCCESS", body);
-      this.notifyObservers(update);
-    } catch (JsonProcessingException e) {
-      Logger.error(e.getMessage(), e);
-    }
+    Logger.info("Response created. Notifying call processor");
+    future.complete(
+        WrapperStatusUpdate.withPayload(sid, "SUCCESS", StreamingSerializer.yamlPayload(response)));
   }
 
   @Override
-  public boolean removeService(String instanceUuid, String callSid) {
-    boolean out = true;
-
-    this.setChanged();
+  public WrapperFuture removeService(String instanceUuid, String callSid) {
     String body = "{\"status\":\"SUCCESS\"}";
-    WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "SUCCESS", body);
-    this.notifyObservers(update);
-
-    return out;
+    return WrapperFuture.completed(callSid, "SUCCESS", body);
   }
 
   @Override
@@ -26,7 +26,7 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 import sonata.kernel.VimAdaptor.commons.heat.StackComposition;
 
 public abstract class NetworkingWrapper extends AbstractWrapper implements Wrapper {
@@ -38,6 +38,10 @@ public class ResourceUtilisation {
   public int usedMemory;
   @JsonProperty("memory_total")
   public int totMemory;
+  @JsonProperty("storage_used")
+  public int usedStorage;
+  @JsonProperty("storage_total")
+  public int totStorage;
 
   public int getUsedCores() {
     return usedCores;
@@ -55,6 +59,14 @@ public class ResourceUtilisation {
     return totMemory;
   }
 
+  public int getUsedStorage() {
+    return usedStorage;
+  }
+
+  public int getTotStorage() {
+    return totStorage;
+  }
+
   public void setUsedCores(int usedCores) {
     this.usedCores = usedCores;
   }
@@ -71,6 +83,14 @@ public class ResourceUtilisation {
     this.totMemory = totMemory;
   }
 
+  public void setUsedStorage(int usedStorage) {
+    this.usedStorage = usedStorage;
+  }
+
+  public void setTotStorage(int totStorage) {
+    this.totStorage = totStorage;
+  }
+
   @Override
   public String toString() {
     String out = "totMem: " + totMemory + "/usedMem: " + usedMemory + "\n";
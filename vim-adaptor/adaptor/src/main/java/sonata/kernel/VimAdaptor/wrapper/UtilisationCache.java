@@ -0,0 +1,707 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ *
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ *
+ */
+
+package sonata.kernel.VimAdaptor.wrapper;
+
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.vnfd.ResourceRequirements;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.VirtualDeploymentUnit;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.ResourceAvailabilityData;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cache of the resource utilisation of the registered compute VIMs. A background task refreshes
+ * every VIM in parallel on a fixed period, so availability checks and VIM listings are answered
+ * from memory. Resources requested by deployments still in flight are tracked as reservations and
+ * subtracted from the cached headroom until a refresh reflects them.
+ */
+public class UtilisationCache implements Runnable {
+
+  public static final long REFRESH_PERIOD = 30;
+  public static final long VIM_DEADLINE = 10000;
+
+  public static final String STATUS_OK = "OK";
+  public static final String STATUS_STALE = "STALE";
+  public static final String STATUS_UNREACHABLE = "UNREACHABLE";
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(UtilisationCache.class);
+
+  private static UtilisationCache myInstance = null;
+
+  private ConcurrentHashMap<String, ResourceUtilisation> snapshots;
+  private ConcurrentHashMap<String, Long> snapshotTimes;
+  private ConcurrentHashMap<String, RefreshTask> refreshing;
+  private Hashtable<String, Reservation> reservations;
+  private ScheduledExecutorService scheduler;
+  private ExecutorService workers;
+  private Object collectLock;
+  private Collection collecting;
+
+  protected UtilisationCache() {
+    snapshots = new ConcurrentHashMap<String, ResourceUtilisation>();
+    snapshotTimes = new ConcurrentHashMap<String, Long>();
+    refreshing = new ConcurrentHashMap<String, RefreshTask>();
+    reservations = new Hashtable<String, Reservation>();
+    workers = Executors.newCachedThreadPool(new DaemonThreadFactory());
+    collectLock = new Object();
+    collecting = null;
+  }
+
+  /**
+   * Singleton method to get the instance of the cache.
+   *
+   * @return the instance of the cache
+   */
+  public static synchronized UtilisationCache getInstance() {
+    if (myInstance == null) {
+      myInstance = new UtilisationCache();
+    }
+    return myInstance;
+  }
+
+  /**
+   * Start refreshing the cache in background.
+   */
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+    scheduler.scheduleWithFixedDelay(this, 0, REFRESH_PERIOD, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stop refreshing the cache.
+   */
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      refreshAll();
+    } catch (Exception e) {
+      Logger.error("Error refreshing the VIM utilisation cache: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Refresh the utilisation of every registered compute VIM in parallel, waiting for completion.
+   */
+  public void refreshAll() {
+    ArrayList<String> vimList = WrapperBay.getInstance().getComputeWrapperList();
+    if (vimList == null) {
+      return;
+    }
+    collectStatus(vimList, 0, REFRESH_PERIOD * 1000);
+    // Forget snapshots of VIMs that are no longer registered.
+    snapshots.keySet().retainAll(vimList);
+    snapshotTimes.keySet().retainAll(vimList);
+  }
+
+  /**
+   * Collect the utilisation of all the registered compute VIMs. See
+   * {@link #collect(ArrayList, long, long)}.
+   *
+   * @param maxAge the age in milliseconds above which a cached snapshot is refreshed
+   * @param deadline the maximum time in milliseconds to wait for each VIM
+   * @return the status of each registered VIM, in registration order
+   */
+  public LinkedHashMap<String, String> collect(long maxAge, long deadline) {
+    ArrayList<String> vimList = WrapperBay.getInstance().getComputeWrapperList();
+    if (vimList == null) {
+      vimList = new ArrayList<String>();
+    }
+    return collect(vimList, maxAge, deadline);
+  }
+
+  /**
+   * Collect the utilisation of the given VIMs, querying in parallel the ones whose snapshot is
+   * missing or older than maxAge. Each VIM is given at most deadline milliseconds to answer; the
+   * ones that do not are reported as STALE, if an older snapshot is cached, or UNREACHABLE.
+   * Concurrent callers with the same arguments join the collection already in flight instead of
+   * starting a new one; the others still share the queries of the VIMs already being refreshed.
+   *
+   * @param vimList the UUIDs of the VIMs to collect
+   * @param maxAge the age in milliseconds above which a cached snapshot is refreshed
+   * @param deadline the maximum time in milliseconds to wait for each VIM
+   * @return the status of each VIM, in the order of vimList
+   */
+  public LinkedHashMap<String, String> collect(final ArrayList<String> vimList,
+      final long maxAge, final long deadline) {
+    FutureTask<LinkedHashMap<String, String>> task;
+    boolean joined = false;
+    boolean owner = false;
+    synchronized (collectLock) {
+      if (collecting != null && collecting.matches(vimList, maxAge, deadline)) {
+        task = collecting.task;
+        joined = true;
+      } else {
+        task = new FutureTask<LinkedHashMap<String, String>>(
+            new Callable<LinkedHashMap<String, String>>() {
+              @Override
+              public LinkedHashMap<String, String> call() {
+                return collectStatus(vimList, maxAge, deadline);
+              }
+            });
+        if (collecting == null) {
+          collecting = new Collection(vimList, maxAge, deadline, task);
+          owner = true;
+        }
+      }
+    }
+    if (!joined) {
+      try {
+        task.run();
+      } finally {
+        if (owner) {
+          synchronized (collectLock) {
+            collecting = null;
+          }
+        }
+      }
+    }
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Logger.error("Error collecting VIM utilisation: " + e.getMessage(), e);
+    }
+    // Fall back on whatever is cached.
+    return collectStatus(vimList, Long.MAX_VALUE, 0);
+  }
+
+  private LinkedHashMap<String, String> collectStatus(ArrayList<String> vimList, long maxAge,
+      long deadline) {
+    long now = System.currentTimeMillis();
+    Hashtable<String, Future<ResourceUtilisation>> tasks =
+        new Hashtable<String, Future<ResourceUtilisation>>();
+    for (String vimUuid : vimList) {
+      Long time = snapshotTimes.get(vimUuid);
+      if (time == null || now - time >= maxAge) {
+        tasks.put(vimUuid, submitRefresh(vimUuid));
+      }
+    }
+    long end = now + deadline;
+    LinkedHashMap<String, String> status = new LinkedHashMap<String, String>();
+    for (String vimUuid : vimList) {
+      Future<ResourceUtilisation> task = tasks.get(vimUuid);
+      ResourceUtilisation resource = null;
+      if (task == null) {
+        status.put(vimUuid, STATUS_OK);
+        continue;
+      }
+      try {
+        resource =
+            task.get(Math.max(0, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // The refresh keeps running and updates the cache when the VIM eventually answers.
+        Logger.warn("VIM " + vimUuid + " did not report its utilisation within " + deadline
+            + "ms");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        Logger.warn("Error retrieving the utilisation of VIM " + vimUuid + ": " + e.getMessage());
+      }
+      if (resource != null) {
+        status.put(vimUuid, STATUS_OK);
+      } else if (snapshots.containsKey(vimUuid)) {
+        status.put(vimUuid, STATUS_STALE);
+      } else {
+        status.put(vimUuid, STATUS_UNREACHABLE);
+      }
+    }
+    return status;
+  }
+
+  private Future<ResourceUtilisation> submitRefresh(String vimUuid) {
+    synchronized (refreshing) {
+      RefreshTask task = refreshing.get(vimUuid);
+      if (task == null) {
+        task = new RefreshTask(vimUuid);
+        refreshing.put(vimUuid, task);
+        workers.execute(task);
+      }
+      return task;
+    }
+  }
+
+  /**
+   * Refresh the utilisation of a single VIM, querying it synchronously.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @return the new utilisation of the VIM, or null if the VIM could not be queried
+   */
+  public ResourceUtilisation refreshVim(String vimUuid) {
+    long start = System.currentTimeMillis();
+    ResourceUtilisation resource = queryVim(vimUuid);
+    if (resource != null) {
+      update(vimUuid, resource, start);
+    }
+    return resource;
+  }
+
+  /**
+   * Query a VIM for its current utilisation.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @return the utilisation of the VIM, or null if the VIM could not be queried
+   */
+  protected ResourceUtilisation queryVim(String vimUuid) {
+    ComputeWrapper wr = WrapperBay.getInstance().getComputeWrapper(vimUuid);
+    if (wr == null) {
+      return null;
+    }
+    return wr.getResourceUtilisation();
+  }
+
+  /**
+   * Query the registered VIMs that have no cached utilisation yet.
+   *
+   * @return the list of the registered compute VIMs
+   */
+  public ArrayList<String> ensureLoaded() {
+    return new ArrayList<String>(collect(Long.MAX_VALUE, VIM_DEADLINE).keySet());
+  }
+
+  /**
+   * Schedule the refresh of a single VIM, e.g. right after it has been registered.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   */
+  public void refreshVimLater(String vimUuid) {
+    submitRefresh(vimUuid);
+  }
+
+  /**
+   * Store a new utilisation snapshot for a VIM.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @param resource the utilisation of the VIM
+   * @param queryStart the time the VIM was queried, in milliseconds
+   */
+  public synchronized void update(String vimUuid, ResourceUtilisation resource, long queryStart) {
+    snapshots.put(vimUuid, resource);
+    snapshotTimes.put(vimUuid, queryStart);
+    // Deployments completed before this query are now part of the VIM utilisation.
+    Iterator<Entry<String, Reservation>> it = reservations.entrySet().iterator();
+    while (it.hasNext()) {
+      Reservation reservation = it.next().getValue();
+      if (reservation.vimUuid.equals(vimUuid) && reservation.committedAt > 0
+          && reservation.committedAt < queryStart) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Drop the cached utilisation of a VIM.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   */
+  public synchronized void invalidate(String vimUuid) {
+    snapshots.remove(vimUuid);
+    snapshotTimes.remove(vimUuid);
+  }
+
+  /**
+   * Return the cached utilisation of a VIM.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @return the last utilisation snapshot, or null if the VIM has not been queried yet
+   */
+  public ResourceUtilisation getUtilisation(String vimUuid) {
+    return snapshots.get(vimUuid);
+  }
+
+  /**
+   * Return the time of the last utilisation snapshot of a VIM.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @return the time in milliseconds, or null if the VIM has not been queried yet
+   */
+  public Long getSnapshotTime(String vimUuid) {
+    return snapshotTimes.get(vimUuid);
+  }
+
+  /**
+   * @return true if at least one VIM has a cached utilisation.
+   */
+  public boolean isLoaded() {
+    return !snapshots.isEmpty();
+  }
+
+  /**
+   * Check whether a VIM can host the given demand, considering reservations of deployments in
+   * flight.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @param demand the resources to host
+   * @return true if the VIM has enough headroom, or if its utilisation is unknown
+   */
+  public synchronized boolean hasHeadroom(String vimUuid, Demand demand) {
+    ResourceUtilisation resource = snapshots.get(vimUuid);
+    if (resource == null) {
+      return true;
+    }
+    Demand reserved = new Demand(0, 0, 0);
+    for (Reservation reservation : reservations.values()) {
+      if (reservation.vimUuid.equals(vimUuid)) {
+        reserved = reserved.add(reservation.demand);
+      }
+    }
+    int freeCores = resource.getTotCores() - resource.getUsedCores() - reserved.vcpus;
+    int freeMemory = resource.getTotMemory() - resource.getUsedMemory() - reserved.memory;
+    if (demand.vcpus > freeCores || demand.memory > freeMemory) {
+      return false;
+    }
+    if (resource.getTotStorage() > 0) {
+      int freeStorage = resource.getTotStorage() - resource.getUsedStorage() - reserved.storage;
+      if (demand.storage > freeStorage) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find a cached VIM able to host the given demand.
+   *
+   * @param demand the resources to host
+   * @return the UUID of a suitable VIM, or null if no cached VIM has enough headroom
+   */
+  public synchronized String findVimWithHeadroom(Demand demand) {
+    for (String vimUuid : snapshots.keySet()) {
+      if (hasHeadroom(vimUuid, demand)) {
+        return vimUuid;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reserve resources on a VIM for a deployment in flight.
+   *
+   * @param vimUuid the UUID of the compute VIM
+   * @param instanceUuid the UUID of the service instance being deployed
+   * @param demand the resources needed by the service instance
+   * @return true if the reservation succeeded, false if the VIM cannot host the demand
+   */
+  public synchronized boolean reserve(String vimUuid, String instanceUuid, Demand demand) {
+    reservations.remove(instanceUuid);
+    if (!hasHeadroom(vimUuid, demand)) {
+      return false;
+    }
+    reservations.put(instanceUuid, new Reservation(vimUuid, demand));
+    return true;
+  }
+
+  /**
+   * Mark the deployment of a service instance as completed. The reservation is kept until a refresh
+   * of the VIM accounts for the deployed resources.
+   *
+   * @param instanceUuid the UUID of the service instance
+   */
+  public synchronized void commit(String instanceUuid) {
+    Reservation reservation = reservations.get(instanceUuid);
+    if (reservation != null) {
+      reservation.committedAt = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Release the reservation of a failed deployment.
+   *
+   * @param instanceUuid the UUID of the service instance
+   */
+  public synchronized void release(String instanceUuid) {
+    reservations.remove(instanceUuid);
+  }
+
+  /**
+   * Utility method to clear the cache and the reservations.
+   */
+  public synchronized void clear() {
+    snapshots.clear();
+    snapshotTimes.clear();
+    reservations.clear();
+  }
+
+  /**
+   * An amount of compute resources: vCPUs, memory in MB and storage in GB.
+   */
+  public static class Demand {
+
+    private int vcpus;
+    private int memory;
+    private int storage;
+
+    /**
+     * Create a demand of compute resources.
+     *
+     * @param vcpus the number of virtual cores
+     * @param memory the memory in MB
+     * @param storage the storage in GB
+     */
+    public Demand(int vcpus, int memory, int storage) {
+      this.vcpus = vcpus;
+      this.memory = memory;
+      this.storage = storage;
+    }
+
+    /**
+     * Compute the resources needed by all the VDUs of a service deployment.
+     *
+     * @param data the payload of the deployment request
+     * @return the total demand of the service
+     */
+    public static Demand of(DeployServiceData data) {
+      Demand total = new Demand(0, 0, 0);
+      for (VnfDescriptor vnfd : data.getVnfdList()) {
+        if (vnfd.getVirtualDeploymentUnits() == null) {
+          continue;
+        }
+        for (VirtualDeploymentUnit vdu : vnfd.getVirtualDeploymentUnits()) {
+          ResourceRequirements req = vdu.getResourceRequirements();
+          if (req == null) {
+            continue;
+          }
+          int vcpus = req.getCpu() == null ? 0 : req.getCpu().getVcpus();
+          int memory = req.getMemory() == null ? 0
+              : toMegaBytes(req.getMemory().getSize(), req.getMemory().getSizeUnit());
+          int storage = req.getStorage() == null ? 0
+              : toGigaBytes(req.getStorage().getSize(), req.getStorage().getSizeUnit());
+          total = total.add(new Demand(vcpus, memory, storage));
+        }
+      }
+      return total;
+    }
+
+    /**
+     * Convert a resource availability request in a demand.
+     *
+     * @param data the payload of the resource availability request
+     * @return the requested demand
+     */
+    public static Demand of(ResourceAvailabilityData data) {
+      return new Demand(data.getCpu(), toMegaBytes(data.getMemory(), data.getMemoryUnit()),
+          toGigaBytes(data.getStorage(), data.getStorageUnit()));
+    }
+
+    /**
+     * Memory is counted in MB as the VIM reports it, i.e. 2^20 bytes. As in flavor sizes, the
+     * decimal units of a memory size are read as their binary counterpart, so 2 GB is 2048 MB.
+     */
+    private static int toMegaBytes(double size, MemoryUnit unit) {
+      if (unit == null) {
+        unit = MemoryUnit.GB;
+      }
+      double bytes;
+      switch (unit) {
+        case B:
+          bytes = 1;
+          break;
+        case kB:
+        case KiB:
+          bytes = Math.pow(2, 10);
+          break;
+        case MB:
+        case MiB:
+          bytes = Math.pow(2, 20);
+          break;
+        case GB:
+        case GiB:
+          bytes = Math.pow(2, 30);
+          break;
+        case TB:
+        case TiB:
+          bytes = Math.pow(2, 40);
+          break;
+        default:
+          bytes = Math.pow(2, 50);
+      }
+      return (int) Math.ceil(size * bytes / Math.pow(2, 20));
+    }
+
+    /**
+     * Storage is counted in GB, i.e. 10^9 bytes.
+     */
+    private static int toGigaBytes(double size, MemoryUnit unit) {
+      if (unit == null) {
+        unit = MemoryUnit.GB;
+      }
+      double bytes;
+      switch (unit) {
+        case B:
+          bytes = 1;
+          break;
+        case kB:
+          bytes = 1e3;
+          break;
+        case KiB:
+          bytes = Math.pow(2, 10);
+          break;
+        case MB:
+          bytes = 1e6;
+          break;
+        case MiB:
+          bytes = Math.pow(2, 20);
+          break;
+        case GB:
+          bytes = 1e9;
+          break;
+        case GiB:
+          bytes = Math.pow(2, 30);
+          break;
+        case TB:
+          bytes = 1e12;
+          break;
+        case TiB:
+          bytes = Math.pow(2, 40);
+          break;
+        case PB:
+          bytes = 1e15;
+          break;
+        default:
+          bytes = Math.pow(2, 50);
+      }
+      return (int) Math.ceil(size * bytes / 1e9);
+    }
+
+    public Demand add(Demand other) {
+      return new Demand(vcpus + other.vcpus, memory + other.memory, storage + other.storage);
+    }
+
+    public int getVcpus() {
+      return vcpus;
+    }
+
+    public int getMemory() {
+      return memory;
+    }
+
+    public int getStorage() {
+      return storage;
+    }
+
+    @Override
+    public String toString() {
+      return "vcpus: " + vcpus + " - memory: " + memory + "MB - storage: " + storage + "GB";
+    }
+  }
+
+  private static class Reservation {
+
+    private String vimUuid;
+    private Demand demand;
+    private long committedAt;
+
+    private Reservation(String vimUuid, Demand demand) {
+      this.vimUuid = vimUuid;
+      this.demand = demand;
+      this.committedAt = 0;
+    }
+  }
+
+  private class RefreshTask extends FutureTask<ResourceUtilisation> {
+
+    private String vimUuid;
+
+    private RefreshTask(final String vimUuid) {
+      super(new Callable<ResourceUtilisation>() {
+        @Override
+        public ResourceUtilisation call() {
+          return refreshVim(vimUuid);
+        }
+      });
+      this.vimUuid = vimUuid;
+    }
+
+    @Override
+    protected void done() {
+      refreshing.remove(vimUuid, this);
+    }
+  }
+
+  /**
+   * A collection in flight, with the arguments it was started with.
+   */
+  private static class Collection {
+
+    private final ArrayList<String> vimList;
+    private final long maxAge;
+    private final long deadline;
+    private final FutureTask<LinkedHashMap<String, String>> task;
+
+    Collection(ArrayList<String> vimList, long maxAge, long deadline,
+        FutureTask<LinkedHashMap<String, String>> task) {
+      this.vimList = new ArrayList<String>(vimList);
+      this.maxAge = maxAge;
+      this.deadline = deadline;
+      this.task = task;
+    }
+
+    boolean matches(ArrayList<String> vimList, long maxAge, long deadline) {
+      return this.maxAge == maxAge && this.deadline == deadline && this.vimList.equals(vimList);
+    }
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "utilisation-cache");
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
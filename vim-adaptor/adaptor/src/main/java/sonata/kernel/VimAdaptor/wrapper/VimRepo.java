@@ -41,6 +41,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Hashtable;
 import java.util.Properties;
 
 public class VimRepo {
@@ -49,6 +50,8 @@ public class VimRepo {
   private static final String configFilePath = "/etc/son-mano/postgres.config";
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(VimRepo.class);
   private Properties prop;
+  private Hashtable<String, WrapperRecord> records = new Hashtable<String, WrapperRecord>();
+  private Hashtable<String, WrapperRecord> networkRecords = new Hashtable<String, WrapperRecord>();
 
   /**
    * Create the a VimRepo that read from the config file, connect to the database, and if needed
@@ -132,7 +135,8 @@ public class VimRepo {
         sql = "CREATE TABLE vim " + "(UUID TEXT PRIMARY KEY NOT NULL," + " TYPE TEXT NOT NULL,"
             + " VENDOR TEXT NOT NULL," + " ENDPOINT TEXT NOT NULL," + " USERNAME TEXT NOT NULL,"
             + " TENANT TEXT NOT NULL," + " TENANT_EXT_NET TEXT," + " TENANT_EXT_ROUTER TEXT,"
-            + " PASS TEXT," + " AUTHKEY TEXT);";
+            + " TENANT_CIDR TEXT," + " NESTED_STACKS INTEGER," + " API_RATE DOUBLE PRECISION,"
+            + " API_RATES TEXT," + " PASS TEXT," + " AUTHKEY TEXT);";
         stmt.executeUpdate(sql);
         sql = "CREATE TABLE instances " + "(" + "INSTANCE_UUID TEXT PRIMARY KEY NOT NULL,"
             + " VIM_INSTANCE_UUID TEXT NOT NULL," + " VIM_INSTANCE_NAME TEXT NOT NULL,"
@@ -141,7 +145,26 @@ public class VimRepo {
         sql = "CREATE TABLE link_vim " + "(COMPUTE_UUID TEXT PRIMARY KEY NOT NULL,"
             + " NETWORKING_UUID TEXT NOT NULL);";
         stmt.executeUpdate(sql);
+        sql = "CREATE TABLE instance_parts " + "(PART_UUID TEXT PRIMARY KEY NOT NULL,"
+            + " INSTANCE_UUID TEXT NOT NULL," + " VIM_UUID TEXT NOT NULL);";
+        stmt.executeUpdate(sql);
 
+      } else {
+        // Repositories created before per-VIM address pools lack the tenant CIDR column.
+        stmt = connection.createStatement();
+        sql = "ALTER TABLE vim ADD COLUMN IF NOT EXISTS TENANT_CIDR TEXT;";
+        stmt.executeUpdate(sql);
+        sql = "ALTER TABLE vim ADD COLUMN IF NOT EXISTS NESTED_STACKS INTEGER;";
+        stmt.executeUpdate(sql);
+        sql = "ALTER TABLE vim ADD COLUMN IF NOT EXISTS API_RATE DOUBLE PRECISION;";
+        stmt.executeUpdate(sql);
+        sql = "ALTER TABLE vim ADD COLUMN IF NOT EXISTS API_RATES TEXT;";
+        stmt.executeUpdate(sql);
+        // Nor the table of the services split over several VIMs.
+        sql = "CREATE TABLE IF NOT EXISTS instance_parts "
+            + "(PART_UUID TEXT PRIMARY KEY NOT NULL," + " INSTANCE_UUID TEXT NOT NULL,"
+            + " VIM_UUID TEXT NOT NULL);";
+        stmt.executeUpdate(sql);
       }
 
     } catch (SQLException e) {
@@ -186,6 +209,7 @@ public class VimRepo {
    * @return true for process success
    */
   public boolean writeVimEntry(String uuid, WrapperRecord record) {
+    forget(uuid);
     boolean out = true;
 
     Connection connection = null;
@@ -200,8 +224,8 @@ public class VimRepo {
       connection.setAutoCommit(false);
 
       String sql = "INSERT INTO VIM "
-          + "(UUID, TYPE, VENDOR, ENDPOINT, USERNAME, TENANT, TENANT_EXT_NET, TENANT_EXT_ROUTER, PASS, AUTHKEY) "
-          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
+          + "(UUID, TYPE, VENDOR, ENDPOINT, USERNAME, TENANT, TENANT_EXT_NET, TENANT_EXT_ROUTER, PASS, AUTHKEY, TENANT_CIDR, NESTED_STACKS, API_RATE, API_RATES) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
       stmt = connection.prepareStatement(sql);
       stmt.setString(1, uuid);
       stmt.setString(2, record.getConfig().getWrapperType());
@@ -213,6 +237,10 @@ public class VimRepo {
       stmt.setString(8, record.getConfig().getTenantExtRouter());
       stmt.setString(9, record.getConfig().getAuthPass());
       stmt.setString(10, record.getConfig().getAuthKey());
+      stmt.setString(11, record.getConfig().getTenantCidr());
+      stmt.setInt(12, record.getConfig().getNestedStacks());
+      stmt.setDouble(13, record.getConfig().getApiRate());
+      stmt.setString(14, record.getConfig().getApiRates());
 
       stmt.executeUpdate();
       connection.commit();
@@ -248,6 +276,7 @@ public class VimRepo {
    * @return true for process success
    */
   public boolean removeVimEntry(String uuid) {
+    forget(uuid);
     boolean out = true;
     Connection connection = null;
     PreparedStatement stmt = null;
@@ -298,6 +327,7 @@ public class VimRepo {
    * @return true for process success
    */
   public boolean updateVimEntry(String uuid, WrapperRecord record) {
+    forget(uuid);
     boolean out = true;
 
     Connection connection = null;
@@ -313,8 +343,8 @@ public class VimRepo {
 
 
       String sql = "UPDATE VIM set "
-          + "(TYPE, VENDOR, ENDPOINT, USERNAME, TENANT, TENANT_EXT_NET, TENANT_EXT_ROUTER, PASS, AUTHKEY) "
-          + "VALUES (?,?,?,?,?,?,?,?,?) WHERE UUID=?;";
+          + "(TYPE, VENDOR, ENDPOINT, USERNAME, TENANT, TENANT_EXT_NET, TENANT_EXT_ROUTER, PASS, AUTHKEY, TENANT_CIDR, NESTED_STACKS, API_RATE, API_RATES) "
+          + "VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?) WHERE UUID=?;";
 
       stmt = connection.prepareStatement(sql);
       stmt.setString(1, record.getConfig().getWrapperType());
@@ -326,7 +356,11 @@ public class VimRepo {
       stmt.setString(7, record.getConfig().getTenantExtRouter());
       stmt.setString(8, record.getConfig().getAuthPass());
       stmt.setString(9, record.getConfig().getAuthKey());
-      stmt.setString(10, uuid);
+      stmt.setString(10, record.getConfig().getTenantCidr());
+      stmt.setInt(11, record.getConfig().getNestedStacks());
+      stmt.setDouble(12, record.getConfig().getApiRate());
+      stmt.setString(13, record.getConfig().getApiRates());
+      stmt.setString(14, uuid);
 
 
       stmt.executeUpdate(sql);
@@ -365,6 +399,45 @@ public class VimRepo {
    *         repository
    */
   public WrapperRecord readVimEntry(String uuid) {
+    WrapperRecord cached = records.get(uuid);
+    if (cached != null) {
+      return cached;
+    }
+    return remember(records, uuid, loadVimEntry(uuid));
+  }
+
+  /**
+   * Forget the wrappers kept in memory for a VIM, so they are loaded again from the repository.
+   * 
+   * @param uuid the UUID of the VIM
+   */
+  public void forget(String uuid) {
+    records.remove(uuid);
+    // The links of the networking VIMs are few, drop them all rather than look them up.
+    networkRecords.clear();
+  }
+
+  /**
+   * Keep a wrapper record loaded from the repository, unless another thread did it first. Wrappers
+   * are kept for the lifetime of the adaptor, so the state they cache (e.g. the VIM flavors) is
+   * shared by all the requests.
+   */
+  private static WrapperRecord remember(Hashtable<String, WrapperRecord> table, String key,
+      WrapperRecord record) {
+    if (record == null) {
+      return null;
+    }
+    synchronized (table) {
+      WrapperRecord cached = table.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      table.put(key, record);
+      return record;
+    }
+  }
+
+  private WrapperRecord loadVimEntry(String uuid) {
 
     WrapperRecord output = null;
 
@@ -394,6 +467,10 @@ public class VimRepo {
         String key = rs.getString("AUTHKEY");
         String tenantExtNet = rs.getString("TENANT_EXT_NET");
         String tenantExtRouter = rs.getString("TENANT_EXT_ROUTER");
+        String tenantCidr = rs.getString("TENANT_CIDR");
+        int nestedStacks = rs.getInt("NESTED_STACKS");
+        double apiRate = rs.getDouble("API_RATE");
+        String apiRates = rs.getString("API_RATES");
         WrapperConfiguration config = new WrapperConfiguration();
         config.setUuid(uuid);
         config.setWrapperType(wrapperType);
@@ -405,6 +482,10 @@ public class VimRepo {
         config.setAuthKey(key);
         config.setTenantExtNet(tenantExtNet);
         config.setTenantExtRouter(tenantExtRouter);
+        config.setTenantCidr(tenantCidr);
+        config.setNestedStacks(nestedStacks);
+        config.setApiRate(apiRate);
+        config.setApiRates(apiRates);
 
         Wrapper wrapper = WrapperFactory.createWrapper(config);
         output = new WrapperRecord(wrapper, config, null);
@@ -502,6 +583,7 @@ public class VimRepo {
    * @return true for success
    */
   public boolean writeNetworkVimLink(String computeUuid, String networkingUuid) {
+    networkRecords.remove(computeUuid);
     boolean out = true;
 
     Connection connection = null;
@@ -554,6 +636,14 @@ public class VimRepo {
    * @return
    */
   public WrapperRecord getNetworkVim(String computeUuid) {
+    WrapperRecord cached = networkRecords.get(computeUuid);
+    if (cached != null) {
+      return cached;
+    }
+    return remember(networkRecords, computeUuid, loadNetworkVim(computeUuid));
+  }
+
+  private WrapperRecord loadNetworkVim(String computeUuid) {
     WrapperRecord output = null;
     Connection connection = null;
     PreparedStatement stmt = null;
@@ -583,6 +673,10 @@ public class VimRepo {
         String key = rs.getString("AUTHKEY");
         String tenantExtNet = rs.getString("TENANT_EXT_NET");
         String tenantExtRouter = rs.getString("TENANT_EXT_ROUTER");
+        String tenantCidr = rs.getString("TENANT_CIDR");
+        int nestedStacks = rs.getInt("NESTED_STACKS");
+        double apiRate = rs.getDouble("API_RATE");
+        String apiRates = rs.getString("API_RATES");
         WrapperConfiguration config = new WrapperConfiguration();
         config.setUuid(uuid);
         config.setWrapperType(wrapperType);
@@ -594,6 +688,10 @@ public class VimRepo {
         config.setAuthKey(key);
         config.setTenantExtNet(tenantExtNet);
         config.setTenantExtRouter(tenantExtRouter);
+        config.setTenantCidr(tenantCidr);
+        config.setNestedStacks(nestedStacks);
+        config.setApiRate(apiRate);
+        config.setApiRates(apiRates);
 
         Wrapper wrapper = WrapperFactory.createWrapper(config);
         output = new WrapperRecord(wrapper, config, null);
@@ -998,6 +1096,239 @@ public class VimRepo {
 
   }
 
+  /**
+   * Write the record of a part of a service instance split over several compute VIMs. Each part is
+   * deployed as an instance of its own, identified by the part UUID.
+   * 
+   * @param partUuid the UUID of the part, used as instance UUID on its VIM
+   * @param instanceUuid the uuid of the instance in the NSD
+   * @param vimUuid the uuid of the compute VIM where the part is deployed
+   * 
+   * @return true for process success
+   */
+  public boolean writeInstancePart(String partUuid, String instanceUuid, String vimUuid) {
+    boolean out = true;
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "vimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      String sql = "INSERT INTO INSTANCE_PARTS (PART_UUID, INSTANCE_UUID, VIM_UUID) "
+          + "VALUES (?, ?, ?);";
+      stmt = connection.prepareStatement(sql);
+      stmt.setString(1, partUuid);
+      stmt.setString(2, instanceUuid);
+      stmt.setString(3, vimUuid);
+      stmt.executeUpdate();
+      connection.commit();
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        out = false;
+      }
+    }
+    if (out) {
+      Logger.info("Records created successfully");
+    }
+
+    return out;
+  }
+
+  /**
+   * Delete the record of a part of a service instance.
+   * 
+   * @param partUuid the UUID of the part
+   * 
+   * @return true for process success
+   */
+  public boolean removeInstancePart(String partUuid) {
+    boolean out = true;
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "vimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      String sql = "DELETE FROM INSTANCE_PARTS WHERE PART_UUID=?;";
+      stmt = connection.prepareStatement(sql);
+      stmt.setString(1, partUuid);
+      stmt.executeUpdate();
+      connection.commit();
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        out = false;
+      }
+    }
+    if (out) {
+      Logger.info("Records deleted successfully");
+    }
+
+    return out;
+  }
+
+  /**
+   * Get the parts of a service instance split over several compute VIMs.
+   * 
+   * @param instanceUuid the uuid of the instance in the NSD
+   * 
+   * @return the UUID of the VIM of each part, by part UUID, empty if the instance is not split, or
+   *         null on error
+   */
+  public Hashtable<String, String> getInstanceParts(String instanceUuid) {
+
+    Hashtable<String, String> output = new Hashtable<String, String>();
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    ResultSet rs = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "vimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      stmt = connection.prepareStatement(
+          "SELECT PART_UUID, VIM_UUID FROM INSTANCE_PARTS WHERE INSTANCE_UUID=?;");
+      stmt.setString(1, instanceUuid);
+      rs = stmt.executeQuery();
+
+      while (rs.next()) {
+        output.put(rs.getString("PART_UUID"), rs.getString("VIM_UUID"));
+      }
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (rs != null) {
+          rs.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        output = null;
+
+      }
+    }
+    if (output != null) {
+      Logger.info("Operation done successfully");
+    }
+    return output;
+
+  }
+
+  /**
+   * Map a set of service instances to the compute VIMs hosting them, with a single query.
+   * 
+   * @param instanceUuids the UUIDs of the service instances
+   * @return the UUID of the VIM of each instance found, by instance UUID, or null on error
+   */
+  public Hashtable<String, String> getComputeVimUuidsFromInstances(
+      ArrayList<String> instanceUuids) {
+
+    Hashtable<String, String> output = new Hashtable<String, String>();
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    ResultSet rs = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "vimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      stmt = connection.prepareStatement(
+          "SELECT INSTANCE_UUID, VIM_UUID FROM INSTANCES WHERE INSTANCE_UUID = ANY(?);");
+      stmt.setArray(1, connection.createArrayOf("varchar", instanceUuids.toArray()));
+      rs = stmt.executeQuery();
+
+      while (rs.next()) {
+        output.put(rs.getString("INSTANCE_UUID"), rs.getString("VIM_UUID"));
+      }
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (rs != null) {
+          rs.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        output = null;
+
+      }
+    }
+    if (output != null) {
+      Logger.info("Operation done successfully");
+    }
+    return output;
+
+  }
+
   private Properties parseConfigFile() {
     Properties prop = new Properties();
     try {
@@ -26,7 +26,7 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
 
 public class VlspWrapper extends ComputeWrapper {
 
@@ -35,13 +35,19 @@ public class VlspWrapper extends ComputeWrapper {
   }
 
   @Override
-  public boolean deployService(DeployServiceData data, String callSid) {
+  public WrapperFuture deployService(DeployServiceData data, String callSid) {
     // TODO Auto-generated method stub
-    return false;
+    return WrapperFuture.completed(callSid, "ERROR", "Not implemented");
   }
 
-  public boolean removeService(String instanceUuid, String callSid) {
-    return false;
+  @Override
+  public WrapperFuture updateService(DeployServiceData data, String callSid) {
+    return WrapperFuture.completed(callSid, "ERROR", "Not implemented");
+  }
+
+  @Override
+  public WrapperFuture removeService(String instanceUuid, String callSid) {
+    return WrapperFuture.completed(callSid, "ERROR", "Not implemented");
   }
 
   @Override
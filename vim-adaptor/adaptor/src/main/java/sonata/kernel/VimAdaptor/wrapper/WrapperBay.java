@@ -26,10 +26,16 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.VimAdaptor.commons.IpNetPool;
+
 import java.util.ArrayList;
 
 public class WrapperBay {
 
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(WrapperBay.class);
+
   private static WrapperBay myInstance = null;
 
   private VimRepo repository = null;
@@ -73,6 +79,7 @@ public class WrapperBay {
     } else if (newWrapper.getType().equals("compute")) {
       WrapperRecord record = new WrapperRecord(newWrapper, config, null);
       this.repository.writeVimEntry(config.getUuid(), record);
+      UtilisationCache.getInstance().refreshVimLater(config.getUuid());
       output = "{\"status\":\"COMPLETED\",\"uuid\":\"" + config.getUuid() + "\"}";
     }
 
@@ -103,6 +110,8 @@ public class WrapperBay {
    */
   public String removeComputeWrapper(String uuid) {
     repository.removeVimEntry(uuid);
+    IpNetPool.removeInstance(uuid);
+    UtilisationCache.getInstance().invalidate(uuid);
     return "{\"status\":\"COMPLETED\"}";
   }
 
@@ -151,6 +160,44 @@ public class WrapperBay {
   }
 
 
+  /**
+   * Load in background the wrappers of all the registered compute VIMs and of their networking
+   * VIMs, one VIM per thread, and let each compute wrapper load the state it needs (e.g. the VIM
+   * flavors). The adaptor serves requests in the meantime.
+   */
+  public void warmUp() {
+    ArrayList<String> vimList = getComputeWrapperList();
+    if (vimList == null) {
+      return;
+    }
+    Logger.info("Warming up " + vimList.size() + " compute VIMs");
+    for (final String vimUuid : vimList) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          warmUp(vimUuid);
+        }
+      }, "warm-up-" + vimUuid);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void warmUp(String vimUuid) {
+    long start = System.currentTimeMillis();
+    try {
+      WrapperRecord record = repository.readVimEntry(vimUuid);
+      if (record == null) {
+        return;
+      }
+      ((ComputeWrapper) record.getVimWrapper()).warmUp();
+      repository.getNetworkVim(vimUuid);
+      Logger.info("VIM " + vimUuid + " ready in " + (System.currentTimeMillis() - start) + " ms");
+    } catch (Exception e) {
+      Logger.warn("Unable to warm up VIM " + vimUuid + ": " + e.getMessage());
+    }
+  }
+
   /**
    * Return the VimRepo
    * 
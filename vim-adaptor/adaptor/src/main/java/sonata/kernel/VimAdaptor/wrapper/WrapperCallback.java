@@ -24,20 +24,18 @@
  * 
  */
 
-package sonata.kernel.WimAdaptor.commons;
+package sonata.kernel.VimAdaptor.wrapper;
 
-public enum Status {
-
-  failed("failed"), normal_operation("normal operation"), degraded_operation(
-      "degraded operation"), offline("offline");
-
-  private final String name;
+/**
+ * Callback invoked when an asynchronous wrapper operation completes.
+ */
+public interface WrapperCallback {
 
-  Status(String name) {
-    this.name = name;
-  }
+  /**
+   * Handle the outcome of the operation.
+   * 
+   * @param update the final status update of the operation
+   */
+  public void onComplete(WrapperStatusUpdate update);
 
-  public String toString() {
-    return this.name;
-  }
 }
@@ -38,6 +38,10 @@ public class WrapperConfiguration {
   private String uuid;
   private String tenantExtNet;
   private String tenantExtRouter;
+  private String tenantCidr;
+  private int nestedStacks;
+  private double apiRate;
+  private String apiRates;
 
 
   public String getWrapperType() {
@@ -133,4 +137,47 @@ public class WrapperConfiguration {
     this.tenantExtRouter = tenantExtRouter;
   }
 
+  public String getTenantCidr() {
+    return tenantCidr;
+  }
+
+  public void setTenantCidr(String tenantCidr) {
+    this.tenantCidr = tenantCidr;
+  }
+
+  /**
+   * @return the number of VNFs from which a service is deployed as a parent stack with one nested
+   *         stack per VNF, 0 to always deploy a single stack.
+   */
+  public int getNestedStacks() {
+    return nestedStacks;
+  }
+
+  public void setNestedStacks(int nestedStacks) {
+    this.nestedStacks = nestedStacks;
+  }
+
+  /**
+   * @return the number of API calls per second sent to the VIM, shared by all the classes of
+   *         operation, 0 for no limit.
+   */
+  public double getApiRate() {
+    return apiRate;
+  }
+
+  public void setApiRate(double apiRate) {
+    this.apiRate = apiRate;
+  }
+
+  /**
+   * @return the JSON object capping the rate of some classes of operation, null if none is.
+   */
+  public String getApiRates() {
+    return apiRates;
+  }
+
+  public void setApiRates(String apiRates) {
+    this.apiRates = apiRates;
+  }
+
 }
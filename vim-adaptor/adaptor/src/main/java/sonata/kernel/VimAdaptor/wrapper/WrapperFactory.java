@@ -28,6 +28,7 @@ package sonata.kernel.VimAdaptor.wrapper;
 
 import org.slf4j.LoggerFactory;
 
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
 import sonata.kernel.VimAdaptor.wrapper.odlWrapper.OdlWrapper;
 import sonata.kernel.VimAdaptor.wrapper.openstack.OpenStackHeatWrapper;
 
@@ -54,6 +55,12 @@ public class WrapperFactory {
       output = createStorageWrapper(config);
     }
     if (output != null) {
+      if (config.getApiRate() > 0) {
+        ApiRateLimiter.getInstance(config.getVimEndpoint()).setRate(config.getApiRate());
+      }
+      if (config.getApiRates() != null) {
+        ApiRateLimiter.getInstance(config.getVimEndpoint()).setRates(config.getApiRates());
+      }
       Logger.info("Wrapper created.");
     } else {
       Logger.info("Unable to create wrapper.");
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.wrapper;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending outcome of an asynchronous wrapper operation, such as a service deployment. The
+ * wrapper completes it exactly once with the final WrapperStatusUpdate, and the outcome is routed
+ * only to the callbacks registered on this object by the requesting call processor.
+ */
+public class WrapperFuture implements Future<WrapperStatusUpdate> {
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(WrapperFuture.class);
+
+  private CountDownLatch done;
+  private WrapperStatusUpdate update;
+  private ArrayList<WrapperCallback> callbacks;
+
+  public WrapperFuture() {
+    this.done = new CountDownLatch(1);
+    this.callbacks = new ArrayList<WrapperCallback>();
+  }
+
+  /**
+   * Create a future already completed with the given outcome.
+   * 
+   * @param sid the session ID of the API call
+   * @param status the status of the operation
+   * @param body the detailed description of the outcome
+   * @return the completed future
+   */
+  public static WrapperFuture completed(String sid, String status, String body) {
+    WrapperFuture future = new WrapperFuture();
+    future.complete(new WrapperStatusUpdate(sid, status, body));
+    return future;
+  }
+
+  /**
+   * Complete this future, running the registered callbacks on the calling thread.
+   * 
+   * @param update the final status update of the operation
+   * @return true if this call completed the future, false if it was already completed
+   */
+  public boolean complete(WrapperStatusUpdate update) {
+    ArrayList<WrapperCallback> toRun;
+    synchronized (this) {
+      if (this.update != null) {
+        return false;
+      }
+      this.update = update;
+      toRun = callbacks;
+      callbacks = null;
+    }
+    done.countDown();
+    for (WrapperCallback callback : toRun) {
+      runCallback(callback, update);
+    }
+    return true;
+  }
+
+  /**
+   * Register a callback to be run when the operation completes. If the operation has already
+   * completed, the callback is run immediately on the calling thread.
+   * 
+   * @param callback the callback to run
+   * @return this future, to chain further registrations
+   */
+  public WrapperFuture whenComplete(WrapperCallback callback) {
+    WrapperStatusUpdate current;
+    synchronized (this) {
+      current = update;
+      if (current == null) {
+        callbacks.add(callback);
+      }
+    }
+    if (current != null) {
+      runCallback(callback, current);
+    }
+    return this;
+  }
+
+  private void runCallback(WrapperCallback callback, WrapperStatusUpdate update) {
+    try {
+      callback.onComplete(update);
+    } catch (RuntimeException e) {
+      Logger.error("Error in wrapper callback: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Wrapper operations cannot be cancelled once started.
+   */
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public synchronized boolean isDone() {
+    return update != null;
+  }
+
+  @Override
+  public WrapperStatusUpdate get() throws InterruptedException, ExecutionException {
+    done.await();
+    return update;
+  }
+
+  @Override
+  public WrapperStatusUpdate get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException("Wrapper operation not completed in time");
+    }
+    return update;
+  }
+
+}
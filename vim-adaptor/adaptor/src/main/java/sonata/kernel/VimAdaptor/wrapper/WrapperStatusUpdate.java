@@ -26,15 +26,19 @@
 
 package sonata.kernel.VimAdaptor.wrapper;
 
+import sonata.kernel.AdaptorCommons.messaging.MessagePayload;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+
 public class WrapperStatusUpdate {
 
   private String sid;
   private String status;
   private String body;
+  private MessagePayload payload;
 
   /**
-   * Standard constructor for a WrapperStatusUpdate object. To be used in the Observer pattern
-   * between AbstractCallProcessor and Wrapper.
+   * Standard constructor for a WrapperStatusUpdate object. Used by a Wrapper to complete the
+   * WrapperFuture returned to the requesting call processor.
    * 
    * @param sid The session ID of the API call.
    * @param status a String representing the Wrapper status.
@@ -46,6 +50,22 @@ public class WrapperStatusUpdate {
     this.body = body;
   }
 
+  /**
+   * Create a WrapperStatusUpdate whose detailed description is serialized on demand. Call
+   * processors forwarding it on the MsgBus stream the payload into the outgoing message.
+   * 
+   * @param sid The session ID of the API call.
+   * @param status a String representing the Wrapper status.
+   * @param payload the detailed description of the status update.
+   * @return the status update wrapping the payload.
+   */
+  public static WrapperStatusUpdate withPayload(String sid, String status,
+      MessagePayload payload) {
+    WrapperStatusUpdate update = new WrapperStatusUpdate(sid, status, null);
+    update.payload = payload;
+    return update;
+  }
+
   public String getSid() {
     return sid;
   }
@@ -54,8 +74,21 @@ public class WrapperStatusUpdate {
     return status;
   }
 
-  public String getBody() {
+  /**
+   * @return the detailed description of the status update, serializing the payload if needed.
+   */
+  public synchronized String getBody() {
+    if (body == null && payload != null) {
+      body = ServicePlatformMessage.withPayload(payload, null, null, null, null).getBody();
+    }
     return body;
   }
 
+  /**
+   * @return the payload of this status update, or null if it was created with a String body.
+   */
+  public MessagePayload getPayload() {
+    return payload;
+  }
+
 }
@@ -23,23 +23,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
+import sonata.kernel.AdaptorCommons.ApiRateLimiter.Operation;
+import sonata.kernel.AdaptorCommons.PayloadLog;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ForwardingGraph;
+import sonata.kernel.Descriptors.nsd.NetworkForwardingPath;
+import sonata.kernel.Descriptors.nsd.NetworkFunction;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.ConnectionPointReference;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 import sonata.kernel.VimAdaptor.commons.heat.HeatPort;
 import sonata.kernel.VimAdaptor.commons.heat.StackComposition;
-import sonata.kernel.VimAdaptor.commons.nsd.ForwardingGraph;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkForwardingPath;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkFunction;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.ConnectionPointReference;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
 import sonata.kernel.VimAdaptor.wrapper.NetworkingWrapper;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -182,23 +181,9 @@ public class OdlWrapper extends NetworkingWrapper {
     mapper.setSerializationInclusion(Include.NON_NULL);
     // Logger.info(compositionString);
     String payload = mapper.writeValueAsString(odlPayload);
-    Logger.info(payload);
-
-    int sfcAgentPort = 55555;
-    DatagramSocket clientSocket = new DatagramSocket(sfcAgentPort);
-    InetAddress IPAddress = InetAddress.getByName(config.getVimEndpoint());
-    byte[] sendData = new byte[1024];
-    byte[] receiveData = new byte[1024];
-    sendData = payload.getBytes(Charset.forName("UTF-8"));
-    DatagramPacket sendPacket =
-        new DatagramPacket(sendData, sendData.length, IPAddress, sfcAgentPort);
-    clientSocket.send(sendPacket);
-    DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
-    clientSocket.receive(receivePacket);
-    String response =
-        new String(receivePacket.getData(), 0, receivePacket.getLength(), Charset.forName("UTF-8"));
-    Logger.info("SFC Agent response:\n" + response);
-    clientSocket.close();
+    PayloadLog.info(Logger, "sfc-add", payload);
+
+    String response = sendToAgent(payload, Operation.CREATE);
     if (!response.equals("SUCCESS")) {
       Logger.error("received string length: " + response.length());
       Logger.error("received string: " + response + " not equal SUCCESS");
@@ -215,23 +200,9 @@ public class OdlWrapper extends NetworkingWrapper {
     mapper.setSerializationInclusion(Include.NON_NULL);
     // Logger.info(compositionString);
     String payload = mapper.writeValueAsString(odlPayload);
-    Logger.info(payload);
-
-    int sfcAgentPort = 55555;
-    DatagramSocket clientSocket = new DatagramSocket(sfcAgentPort);
-    InetAddress IPAddress = InetAddress.getByName(config.getVimEndpoint());
-    byte[] sendData = new byte[1024];
-    byte[] receiveData = new byte[1024];
-    sendData = payload.getBytes(Charset.forName("UTF-8"));
-    DatagramPacket sendPacket =
-        new DatagramPacket(sendData, sendData.length, IPAddress, sfcAgentPort);
-    clientSocket.send(sendPacket);
-    DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
-    clientSocket.receive(receivePacket);
-    String response =
-        new String(receivePacket.getData(), 0, receivePacket.getLength(), Charset.forName("UTF-8"));
-    Logger.info("SFC Agent response:\n" + response);
-    clientSocket.close();
+    PayloadLog.info(Logger, "sfc-delete", payload);
+
+    String response = sendToAgent(payload, Operation.DELETE);
 
 
     if (!response.equals("SUCCESS")) {
@@ -242,4 +213,13 @@ public class OdlWrapper extends NetworkingWrapper {
     }
     return;
   }
+
+  private String sendToAgent(String payload, Operation operation) throws Exception {
+    ApiRateLimiter.getInstance(config.getVimEndpoint()).acquire(operation);
+    SfcAgentClient agent =
+        SfcAgentClient.getInstance(config.getVimEndpoint(), SfcAgentClient.DEFAULT_PORT);
+    String response = agent.sendRequest(payload, SfcAgentClient.DEFAULT_TIMEOUT);
+    Logger.info("SFC Agent response:\n" + response);
+    return response;
+  }
 }
@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ *
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ *
+ */
+
+package sonata.kernel.VimAdaptor.wrapper.odlWrapper;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client for the SFC agent running next to the OpenDaylight controller. A single TCP connection is
+ * kept open per agent endpoint and shared by all the wrappers that talk to it. Messages are framed
+ * as a request id, a payload length and the UTF-8 payload. The agent acknowledges each request with
+ * a frame carrying the same id, so several requests can be in flight on the same connection.
+ */
+public class SfcAgentClient implements Runnable {
+
+  public static final int DEFAULT_PORT = 55555;
+  public static final long DEFAULT_TIMEOUT = 30000;
+
+  private static final int connectTimeout = 5000;
+  private static final int maxFrameSize = 64 * 1024 * 1024;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(SfcAgentClient.class);
+
+  private static Hashtable<String, SfcAgentClient> clients =
+      new Hashtable<String, SfcAgentClient>();
+
+  private String host;
+  private int port;
+  private Socket socket;
+  private DataOutputStream out;
+  private DataInputStream in;
+  private AtomicInteger nextRequestId;
+  private ConcurrentHashMap<Integer, PendingRequest> pending;
+
+  /**
+   * Get the shared client for the SFC agent at the given endpoint.
+   *
+   * @param host the address of the SFC agent
+   * @param port the port of the SFC agent
+   * @return the client bound to that endpoint
+   */
+  public static synchronized SfcAgentClient getInstance(String host, int port) {
+    String key = host + ":" + port;
+    SfcAgentClient client = clients.get(key);
+    if (client == null) {
+      client = new SfcAgentClient(host, port);
+      clients.put(key, client);
+    }
+    return client;
+  }
+
+  /**
+   * Close and forget all the shared clients.
+   */
+  public static synchronized void resetInstances() {
+    for (SfcAgentClient client : clients.values()) {
+      client.close();
+    }
+    clients.clear();
+  }
+
+  /**
+   * Create a client for the SFC agent at the given endpoint. The connection is opened lazily.
+   *
+   * @param host the address of the SFC agent
+   * @param port the port of the SFC agent
+   */
+  public SfcAgentClient(String host, int port) {
+    this.host = host;
+    this.port = port;
+    this.nextRequestId = new AtomicInteger(0);
+    this.pending = new ConcurrentHashMap<Integer, PendingRequest>();
+  }
+
+  /**
+   * Send a request to the agent and wait for its acknowledgement.
+   *
+   * @param payload the request payload
+   * @param timeout the maximum time to wait for the acknowledgement, in milliseconds
+   * @return the response of the agent
+   * @throws IOException if the request cannot be sent or the connection drops
+   * @throws TimeoutException if the agent does not answer in time
+   */
+  public String sendRequest(String payload, long timeout) throws IOException, TimeoutException {
+    return submit(payload).getResponse(timeout);
+  }
+
+  /**
+   * Send a request to the agent without waiting for the response. Several requests can be
+   * submitted before collecting their responses.
+   *
+   * @param payload the request payload
+   * @return a handle on the pending request
+   * @throws IOException if the request cannot be sent
+   */
+  public PendingRequest submit(String payload) throws IOException {
+    byte[] data = payload.getBytes(UTF8);
+    int requestId = nextRequestId.incrementAndGet();
+    PendingRequest request = new PendingRequest(requestId);
+    pending.put(requestId, request);
+    DataOutputStream stream = null;
+    try {
+      stream = connect();
+      synchronized (stream) {
+        stream.writeInt(requestId);
+        stream.writeInt(data.length);
+        stream.write(data);
+        stream.flush();
+      }
+    } catch (IOException e) {
+      pending.remove(requestId);
+      if (stream != null) {
+        disconnect(stream, e);
+      }
+      throw e;
+    }
+    return request;
+  }
+
+  /**
+   * @return true if the connection to the agent is currently open.
+   */
+  public synchronized boolean isConnected() {
+    return socket != null && !socket.isClosed();
+  }
+
+  /**
+   * Close the connection to the agent, failing any request still in flight.
+   */
+  public void close() {
+    disconnect(null, new IOException("SFC agent client closed"));
+  }
+
+  private synchronized DataOutputStream connect() throws IOException {
+    if (socket != null && !socket.isClosed()) {
+      return out;
+    }
+    Logger.info("Connecting to SFC agent at " + host + ":" + port);
+    Socket newSocket = new Socket();
+    newSocket.setTcpNoDelay(true);
+    newSocket.setKeepAlive(true);
+    newSocket.connect(new InetSocketAddress(host, port), connectTimeout);
+    socket = newSocket;
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    Thread reader = new Thread(this, "sfc-agent-" + host + ":" + port);
+    reader.setDaemon(true);
+    reader.start();
+    return out;
+  }
+
+  /**
+   * Close the connection a stream belongs to and fail the requests in flight, unless the connection
+   * has already been replaced or closed, e.g. by another thread that saw it fail first.
+   *
+   * @param stream a stream of the failed connection, or null to close the current one
+   * @param cause the error to fail the requests in flight with
+   * @return true if the connection has been closed by this call
+   */
+  private boolean disconnect(Object stream, IOException cause) {
+    synchronized (this) {
+      if (stream != null && stream != out && stream != in) {
+        return false;
+      }
+      if (socket != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          Logger.debug(e.getMessage(), e);
+        }
+      }
+      socket = null;
+      out = null;
+      in = null;
+    }
+    ArrayList<Integer> ids = new ArrayList<Integer>(pending.keySet());
+    for (Integer id : ids) {
+      PendingRequest request = pending.remove(id);
+      if (request != null) {
+        request.fail(cause);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void run() {
+    DataInputStream stream;
+    synchronized (this) {
+      stream = in;
+    }
+    try {
+      while (true) {
+        int requestId = stream.readInt();
+        int length = stream.readInt();
+        if (length < 0 || length > maxFrameSize) {
+          throw new IOException("Invalid frame length from SFC agent: " + length);
+        }
+        byte[] data = new byte[length];
+        stream.readFully(data);
+        PendingRequest request = pending.remove(requestId);
+        if (request == null) {
+          Logger.warn("Discarding SFC agent response for unknown or expired request " + requestId);
+        } else {
+          request.complete(new String(data, UTF8));
+        }
+      }
+    } catch (IOException e) {
+      if (disconnect(stream, e)) {
+        Logger.warn("Connection to SFC agent " + host + ":" + port + " lost: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A request sent to the agent and waiting for its acknowledgement.
+   */
+  public class PendingRequest {
+
+    private int requestId;
+    private CountDownLatch done;
+    private String response;
+    private IOException error;
+
+    private PendingRequest(int requestId) {
+      this.requestId = requestId;
+      this.done = new CountDownLatch(1);
+    }
+
+    public int getRequestId() {
+      return requestId;
+    }
+
+    private void complete(String response) {
+      this.response = response;
+      done.countDown();
+    }
+
+    private void fail(IOException error) {
+      this.error = error;
+      done.countDown();
+    }
+
+    /**
+     * Wait for the agent response to this request.
+     *
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return the response of the agent
+     * @throws IOException if the connection dropped before the response arrived
+     * @throws TimeoutException if the agent does not answer in time
+     */
+    public String getResponse(long timeout) throws IOException, TimeoutException {
+      boolean completed;
+      try {
+        completed = done.await(timeout, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        completed = false;
+      }
+      if (!completed) {
+        pending.remove(requestId);
+        throw new TimeoutException(
+            "No response from SFC agent " + host + ":" + port + " for request " + requestId);
+      }
+      if (error != null) {
+        throw new IOException("Request " + requestId + " to SFC agent failed", error);
+      }
+      return response;
+    }
+  }
+
+}
@@ -26,31 +26,30 @@
 
 package sonata.kernel.VimAdaptor.wrapper.openstack;
 
-import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.DeployServiceResponse;
-import sonata.kernel.VimAdaptor.commons.ServiceRecord;
-import sonata.kernel.VimAdaptor.commons.Status;
-import sonata.kernel.VimAdaptor.commons.VduRecord;
-import sonata.kernel.VimAdaptor.commons.VnfRecord;
-import sonata.kernel.VimAdaptor.commons.VnfcInstance;
+import sonata.kernel.AdaptorCommons.PayloadLog;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.ConnectionPointRecord;
+import sonata.kernel.Descriptors.nsd.InterfaceRecord;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.records.ServiceRecord;
+import sonata.kernel.Descriptors.records.Status;
+import sonata.kernel.Descriptors.records.VduRecord;
+import sonata.kernel.Descriptors.records.VnfRecord;
+import sonata.kernel.Descriptors.records.VnfcInstance;
+import sonata.kernel.Descriptors.vnfd.VirtualDeploymentUnit;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.StreamingSerializer;
 import sonata.kernel.VimAdaptor.commons.heat.HeatPort;
 import sonata.kernel.VimAdaptor.commons.heat.HeatServer;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
+import sonata.kernel.VimAdaptor.commons.heat.HeatTemplateDiff;
 import sonata.kernel.VimAdaptor.commons.heat.StackComposition;
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPointRecord;
-import sonata.kernel.VimAdaptor.commons.nsd.InterfaceRecord;
-import sonata.kernel.VimAdaptor.commons.vnfd.VirtualDeploymentUnit;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
 import sonata.kernel.VimAdaptor.wrapper.NetworkingWrapper;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
 import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
 
 import java.util.ArrayList;
@@ -60,9 +59,11 @@ public class DeployServiceFsm implements Runnable {
 
   private String sid;
   private DeployServiceData data;
-  private OpenStackHeatWrapper wrapper;
+  private WrapperFuture future;
   private OpenStackHeatClient client;
   private HeatTemplate stack;
+  private String stackUuid;
+  private HeatTemplateDiff diff;
   private static final int maxCounter = 10;
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(DeployServiceFsm.class);
 
@@ -70,85 +71,102 @@ public class DeployServiceFsm implements Runnable {
   /**
    * Return an object that handles the FSM needed to deploy a service in OpenStackHeat.
    * 
-   * @param wrapper the Compute wrapper issuing this FSM
+   * @param future the future to complete with the outcome of the deployment
    * @param client the OpenStack client to use for the deployment
    * @param sid the session ID of the service platform call
    * @param data the payload of the service platform call
    * @param stack the HeatStack result of the translation
    */
-  public DeployServiceFsm(OpenStackHeatWrapper wrapper, OpenStackHeatClient client, String sid,
+  public DeployServiceFsm(WrapperFuture future, OpenStackHeatClient client, String sid,
       DeployServiceData data, HeatTemplate stack) {
 
-    this.wrapper = wrapper;
+    this.future = future;
     this.client = client;
     this.sid = sid;
     this.data = data;
     this.stack = stack;
   }
 
+  /**
+   * Return an object that handles the FSM needed to update a running service in OpenStackHeat.
+   * 
+   * @param future the future to complete with the outcome of the update
+   * @param client the OpenStack client to use for the update
+   * @param sid the session ID of the service platform call
+   * @param data the payload of the service platform call
+   * @param stack the HeatStack result of the translation of the updated service
+   * @param stackUuid the OpenStack UUID of the stack of the service
+   * @param diff the difference between the current template of the stack and the new one
+   */
+  public DeployServiceFsm(WrapperFuture future, OpenStackHeatClient client, String sid,
+      DeployServiceData data, HeatTemplate stack, String stackUuid, HeatTemplateDiff diff) {
+    this(future, client, sid, data, stack);
+    this.stackUuid = stackUuid;
+    this.diff = diff;
+  }
+
   @Override
   public void run() {
     DeployServiceResponse response = new DeployServiceResponse();
 
-    Logger.info("Deploying new stack");
-    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
-    mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
-    mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
-    mapper.setSerializationInclusion(Include.NON_NULL);
-    Logger.info("Serializing stack...");
+    boolean isUpdate = this.stackUuid != null;
+    String operation = isUpdate ? "UPDATE" : "CREATE";
+    Logger.info(isUpdate ? "Updating stack " + stackUuid : "Deploying new stack");
     try {
-      String stackString = mapper.writeValueAsString(stack);
-      Logger.info(stackString);
+      if (Logger.isDebugEnabled() || PayloadLog.isFullPayloadEnabled()) {
+        PayloadLog.debug(Logger, "stack-template", StreamingSerializer.toYaml(stack));
+      }
       String stackName = data.getNsd().getName() + data.getNsd().getInstanceUuid();
-      Logger.info("Pushing stack to Heat...");
-      String stackUuid = client.createStack(stackName, stackString);
+      String stackUuid = this.stackUuid;
+      String status = null;
+      if (isUpdate && diff.isEmpty()) {
+        Logger.info("Stack " + stackUuid + " already up to date");
+        status = operation + "_COMPLETE";
+      } else if (isUpdate) {
+        Logger.info("Pushing stack update to Heat...");
+        if (client.updateStack(stackName, stackUuid, stack) == null) {
+          WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "FAIL",
+              "{\"message\":\"unable to contact the VIM to update the service\"}");
+          future.complete(update);
+          return;
+        }
+      } else {
+        Logger.info("Pushing stack to Heat...");
+        stackUuid = client.createStack(stackName, stack, OpenStackHeatClient.TemplateFormat.JSON);
+      }
 
       if (stackUuid == null) {
         WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "FAIL",
             "{\"message\":\"unable to contact the VIM to instantiate the service\"}");
-        wrapper.markAsChanged();
-        wrapper.notifyObservers(update);
+        future.complete(update);
         return;
       }
-      int counter = 0;
-      int wait = 1000;
-      String status = null;
-      while ((status == null || !status.equals("CREATE_COMPLETE")
-          || !status.equals("CREATE_FAILED")) && counter < DeployServiceFsm.maxCounter) {
-        status = client.getStackStatus(stackName, stackUuid);
-        Logger.info("Status of stack " + stackUuid + ": " + status);
-        if (status != null
-            && (status.equals("CREATE_COMPLETE") || status.equals("CREATE_FAILED"))) {
-          break;
-        }
-        try {
-          Thread.sleep(wait);
-        } catch (InterruptedException e) {
-          Logger.error(e.getMessage(), e);
+      status = waitForStack(stackName, stackUuid, operation, status);
+      if (!isUpdate && stack.hasNestedStacks() && (operation + "_FAILED").equals(status)) {
+        // Updating the parent stack to the same template rebuilds only the failed nested stacks.
+        Logger.warn("Creation of stack " + stackUuid + " failed. Retrying the failed VNFs");
+        if (client.updateStack(stackName, stackUuid, stack) != null) {
+          operation = "UPDATE";
+          status = waitForStack(stackName, stackUuid, operation, null);
         }
-        counter++;
-        wait *= 2;
       }
 
       if (status == null) {
         WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "ERROR",
             "unable to contact the VIM to check the instantiation status");
-        wrapper.markAsChanged();
-        wrapper.notifyObservers(update);
+        future.complete(update);
         return;
       }
-      if (status.equals("CREATE_FAILED")) {
+      if (status.equals(operation + "_FAILED")) {
         // client.deleteStack(stackName, instanceUuid);
-        WrapperStatusUpdate update =
-            new WrapperStatusUpdate(this.sid, "ERROR", "Stack Creation Failed.");
-        wrapper.markAsChanged();
-        wrapper.notifyObservers(update);
+        WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "ERROR",
+            isUpdate ? "Stack Update Failed." : "Stack Creation Failed.");
+        future.complete(update);
         return;
       }
 
-      counter = 0;
-      wait = 1000;
+      int counter = 0;
+      int wait = 1000;
       StackComposition composition = null;
       while (composition == null && counter < DeployServiceFsm.maxCounter) {
         Logger.info("Getting composition of stack " + stackUuid);
@@ -165,8 +183,7 @@ public class DeployServiceFsm implements Runnable {
       if (composition == null) {
         WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "ERROR",
             "unable to contact the VIM to check the instantiation status");
-        wrapper.markAsChanged();
-        wrapper.notifyObservers(update);
+        future.complete(update);
         return;
       }
 
@@ -269,23 +286,23 @@ public class DeployServiceFsm implements Runnable {
       response.setVimUuid(data.getVimUuid());
       response.setInstanceName(stackName);
       response.setInstanceVimUuid(stackUuid);
-      response.setRequestStatus("DEPLOYED");
-      String body = mapper.writeValueAsString(response);
+      response.setRequestStatus(isUpdate ? "UPDATED" : "DEPLOYED");
       Logger.info("Response created");
-      // Logger.info("body");
 
-      WrapperBay.getInstance().getVimRepo().writeInstanceEntry(response.getNsr().getId(),
-          response.getInstanceVimUuid(), response.getInstanceName(), data.getVimUuid());
+      if (!isUpdate) {
+        WrapperBay.getInstance().getVimRepo().writeInstanceEntry(response.getNsr().getId(),
+            response.getInstanceVimUuid(), response.getInstanceName(), data.getVimUuid());
+      }
 
-      WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "SUCCESS", body);
-      wrapper.markAsChanged();
-      wrapper.notifyObservers(update);
+      WrapperStatusUpdate update = WrapperStatusUpdate.withPayload(this.sid, "SUCCESS",
+          StreamingSerializer.yamlPayload(response));
+      future.complete(update);
     } catch (Exception e) {
       Logger.error(e.getMessage(), e);
       response.setRequestStatus("FAIL");
       response.setErrorCode("DeploymentError");
       try {
-        String body = mapper.writeValueAsString(response);
+        String body = StreamingSerializer.toYaml(response);
         Logger.info("Error response created");
         // Logger.info("body");
 
@@ -293,12 +310,37 @@ public class DeployServiceFsm implements Runnable {
         // response.getInstanceVimUuid(), response.getInstanceVimUuid());
 
         WrapperStatusUpdate update = new WrapperStatusUpdate(this.sid, "ERROR", body);
-        wrapper.markAsChanged();
-        wrapper.notifyObservers(update);
+        future.complete(update);
       } catch (Exception f) {
         Logger.error("Error while handling Error!", e);
       }
     }
   }
 
+  private String waitForStack(String stackName, String stackUuid, String operation,
+      String status) {
+    int counter = 0;
+    int wait = 1000;
+    while (!isFinal(status, operation) && counter < DeployServiceFsm.maxCounter) {
+      status = client.getStackStatus(stackName, stackUuid);
+      Logger.info("Status of stack " + stackUuid + ": " + status);
+      if (isFinal(status, operation)) {
+        break;
+      }
+      try {
+        Thread.sleep(wait);
+      } catch (InterruptedException e) {
+        Logger.error(e.getMessage(), e);
+      }
+      counter++;
+      wait *= 2;
+    }
+    return status;
+  }
+
+  private static boolean isFinal(String status, String operation) {
+    return status != null
+        && (status.equals(operation + "_COMPLETE") || status.equals(operation + "_FAILED"));
+  }
+
 }
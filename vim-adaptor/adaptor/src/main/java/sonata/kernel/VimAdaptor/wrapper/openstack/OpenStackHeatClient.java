@@ -29,16 +29,27 @@
 package sonata.kernel.VimAdaptor.wrapper.openstack;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.LoggerFactory;
 
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
+import sonata.kernel.AdaptorCommons.ApiRateLimiter.Operation;
+import sonata.kernel.AdaptorCommons.PayloadLog;
+import sonata.kernel.VimAdaptor.commons.StreamingSerializer;
+import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
 import sonata.kernel.VimAdaptor.commons.heat.StackComposition;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by smendel on 4/20/16.
@@ -48,6 +59,13 @@ import java.nio.charset.Charset;
  */
 public class OpenStackHeatClient {
 
+  /**
+   * Serialization formats accepted by Heat for the stack templates.
+   */
+  public enum TemplateFormat {
+    YAML, JSON
+  }
+
   private static final String PYTHON2_7 = "python2.7";
 
   private static final String ADAPTOR_HEAT_API_PY = "/adaptor/heat-api.py";
@@ -62,6 +80,8 @@ public class OpenStackHeatClient {
 
   private String tenantName; // OpenStack tenant name
 
+  private ApiRateLimiter limiter; // rate limiter of the OpenStack endpoint
+
 
   /**
    * Construct a new Openstack Client.
@@ -76,6 +96,7 @@ public class OpenStackHeatClient {
     this.userName = userName;
     this.password = password;
     this.tenantName = tenantName;
+    this.limiter = ApiRateLimiter.getInstance(url);
   }
 
   /**
@@ -87,10 +108,9 @@ public class OpenStackHeatClient {
    */
   public String createStack(String stackName, String template) {
     String uuid = null;
-    String string = null;
 
     Logger.info("Creating stack: " + stackName);
-    Logger.debug("Template:\n" + template);
+    PayloadLog.debug(Logger, "stack-template", template);
     // Logger.debug("User: " + userName);
     // Logger.debug("Tenant: " + tenantName);
     // Logger.debug("Pass: " + password);
@@ -98,40 +118,191 @@ public class OpenStackHeatClient {
 
       // Call the python client for creating the stack
 
+      limiter.acquire(Operation.CREATE);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
           "--configuration", url, userName, password, tenantName, "--create", stackName, template);
       Process process = processBuilder.start();
+      uuid = readCreateOutput(process);
+
+    } catch (Exception e) {
+      Logger.error(
+          "Runtime error creating stack : " + stackName + " error message: " + e.getMessage());
+    }
+
+    return uuid;
+  }
+
+  /**
+   * Create stack, streaming the template to the python client on its standard input. The template
+   * is serialized directly into the pipe, without building it as a String, so it is not subject to
+   * the command line length limits.
+   *
+   * @param stackName - usually service tenant
+   * @param template - the hot template that describes the stack
+   * @param format - the format used to send the template to Heat. JSON is faster to parse for Heat
+   * @return - the uuid of the created stack, if the process failed the returned value is null
+   */
+  public String createStack(String stackName, HeatTemplate template, TemplateFormat format) {
+    String uuid = null;
+
+    Logger.info("Creating stack: " + stackName);
+    try {
+      limiter.acquire(Operation.CREATE);
+      ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
+          "--configuration", url, userName, password, tenantName, "--create", stackName, "-");
+      if (template.hasNestedStacks()) {
+        processBuilder.command().add("--nested");
+      }
+      Process process = processBuilder.start();
+      OutputStream stdOutput = new BufferedOutputStream(process.getOutputStream());
+      if (template.hasNestedStacks()) {
+        writeNested(template, stdOutput);
+      } else if (format == TemplateFormat.JSON) {
+        StreamingSerializer.writeJson(template, stdOutput);
+      } else {
+        StreamingSerializer.writeYaml(template, stdOutput);
+      }
+      stdOutput.close();
+      uuid = readCreateOutput(process);
+
+    } catch (Exception e) {
+      Logger.error(
+          "Runtime error creating stack : " + stackName + " error message: " + e.getMessage());
+    }
+
+    return uuid;
+  }
+
+  /**
+   * Update an existing stack to a new template, streaming the template to the python client on its
+   * standard input. Heat replaces only the resources whose definition changed.
+   *
+   * @param stackName - used for logging, usually service tenant
+   * @param uuid - OpenStack UUID of the stack
+   * @param template - the hot template the stack is updated to
+   * @return - if the update was accepted by OpenStack - 'UPDATED', null if the process failed
+   */
+  public String updateStack(String stackName, String uuid, HeatTemplate template) {
+    String isUpdated = null;
+    String string = null;
 
-      // Read the errors of creating the stack
-      BufferedReader stdError = new BufferedReader(
-          new InputStreamReader(process.getErrorStream(), Charset.forName("UTF-8")));
-      if (stdError.read() != -1) {
-        Logger.error("The errors of creating stack (if any):");
-        while ((string = stdError.readLine()) != null) {
-          Logger.error("  " + string);
-        }
+    Logger.info("Updating stack: " + stackName);
+    try {
+      limiter.acquire(Operation.CREATE);
+      ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
+          "--configuration", url, userName, password, tenantName, "--update", uuid, "-");
+      if (template.hasNestedStacks()) {
+        processBuilder.command().add("--nested");
+      }
+      Process process = processBuilder.start();
+      OutputStream stdOutput = new BufferedOutputStream(process.getOutputStream());
+      if (template.hasNestedStacks()) {
+        writeNested(template, stdOutput);
+      } else {
+        StreamingSerializer.writeJson(template, stdOutput);
       }
-      stdError.close();
-      // Read the results of creating the stack
+      stdOutput.close();
+
       BufferedReader stdInput = new BufferedReader(
           new InputStreamReader(process.getInputStream(), Charset.forName("UTF-8")));
-      Logger.info("The results of creating the stack:");
       while ((string = stdInput.readLine()) != null) {
-        Logger.info("  " + string);
-        uuid = string;
+        isUpdated = string;
       }
       stdInput.close();
       process.destroy();
+      Logger.info(
+          "Update sent for stack: " + stackName + " with uuid: " + uuid + " : " + isUpdated);
+    } catch (Exception e) {
+      Logger.error(
+          "Runtime error updating stack : " + stackName + " error message: " + e.getMessage());
+    }
 
-      if (uuid != null) {
-        Logger.info("UUID of new stack: " + uuid);
-      }
+    return isUpdated;
+  }
+
+  /**
+   * Write a template with nested stacks as a single JSON document, holding the parent template and
+   * the nested templates by file name, as Heat expects them in the files of the stack.
+   */
+  private static void writeNested(HeatTemplate template, OutputStream out) throws IOException {
+    HashMap<String, String> files = new HashMap<String, String>();
+    for (Map.Entry<String, HeatTemplate> file : template.getFiles().entrySet()) {
+      files.put(file.getKey(), StreamingSerializer.toJson(file.getValue()));
+    }
+    HashMap<String, Object> envelope = new HashMap<String, Object>();
+    envelope.put("template", template);
+    envelope.put("files", files);
+    StreamingSerializer.writeJson(envelope, out);
+  }
 
+  /**
+   * Get the template of an existing stack.
+   *
+   * @param stackName - used for logging, usually service tenant
+   * @param uuid - OpenStack UUID of the stack
+   * @return the template the stack was created or last updated with, together with the templates
+   *         of its nested stacks if any, null if the process failed
+   */
+  public HeatTemplate getStackTemplate(String stackName, String uuid) {
+    HeatTemplate template = null;
+    try {
+      limiter.acquire(Operation.LIST);
+      ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
+          "--configuration", url, userName, password, tenantName, "--template", uuid);
+      Process process = processBuilder.start();
+      ObjectMapper mapper = new ObjectMapper(new JsonFactory());
+      mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+      template = mapper.readValue(process.getInputStream(), HeatTemplate.class);
+      process.destroy();
+      boolean nested = false;
+      for (Object resource : template.getResources().values()) {
+        Object type = resource instanceof Map ? ((Map<?, ?>) resource).get("type") : null;
+        nested |= type instanceof String && ((String) type).endsWith(".yaml");
+      }
+      if (nested) {
+        limiter.acquire(Operation.LIST);
+        processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY, "--configuration",
+            url, userName, password, tenantName, "--files", uuid);
+        process = processBuilder.start();
+        HashMap<String, HeatTemplate> files = mapper.readValue(process.getInputStream(),
+            new TypeReference<HashMap<String, HeatTemplate>>() {});
+        process.destroy();
+        template.setFiles(files);
+      }
     } catch (Exception e) {
-      Logger.error(
-          "Runtime error creating stack : " + stackName + " error message: " + e.getMessage());
+      Logger.error("Runtime error getting the template of stack : " + stackName
+          + " error message: " + e.getMessage());
+    }
+    return template;
+  }
+
+  private String readCreateOutput(Process process) throws IOException {
+    String uuid = null;
+    String string = null;
+    // Read the errors of creating the stack
+    BufferedReader stdError = new BufferedReader(
+        new InputStreamReader(process.getErrorStream(), Charset.forName("UTF-8")));
+    if (stdError.read() != -1) {
+      Logger.error("The errors of creating stack (if any):");
+      while ((string = stdError.readLine()) != null) {
+        Logger.error("  " + string);
+      }
     }
+    stdError.close();
+    // Read the results of creating the stack
+    BufferedReader stdInput = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), Charset.forName("UTF-8")));
+    Logger.info("The results of creating the stack:");
+    while ((string = stdInput.readLine()) != null) {
+      Logger.info("  " + string);
+      uuid = string;
+    }
+    stdInput.close();
+    process.destroy();
 
+    if (uuid != null) {
+      Logger.info("UUID of new stack: " + uuid);
+    }
     return uuid;
   }
 
@@ -151,6 +322,7 @@ public class OpenStackHeatClient {
 
     try {
       // Call the python client for the status of the stack
+      limiter.acquire(Operation.POLL);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
           "--configuration", url, userName, password, tenantName, "--status", uuid);
       Process process = processBuilder.start();
@@ -191,6 +363,7 @@ public class OpenStackHeatClient {
 
     try {
       // Call the python client for deleting of the stack
+      limiter.acquire(Operation.DELETE);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
           "--configuration", url, userName, password, tenantName, "--delete", uuid);
       Process process = processBuilder.start();
@@ -236,6 +409,7 @@ public class OpenStackHeatClient {
     StringBuilder builder = new StringBuilder();
     String line = null;
     try {
+      limiter.acquire(Operation.POLL);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_HEAT_API_PY,
           "--configuration", url, userName, password, tenantName, "--composition", uuid);
       Process process = processBuilder.start();
@@ -253,7 +427,7 @@ public class OpenStackHeatClient {
       compositionString = compositionString.replace(": u", " : ");
       ObjectMapper mapper = new ObjectMapper(new JsonFactory());
       mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
-      Logger.info(compositionString);
+      PayloadLog.info(Logger, "stack-composition", compositionString);
       composition = mapper.readValue(compositionString, StackComposition.class);
 
     } catch (Exception e) {
@@ -29,33 +29,43 @@ package sonata.kernel.VimAdaptor.wrapper.openstack;
 
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ConnectionPoint;
+import sonata.kernel.Descriptors.nsd.NetworkFunction;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.nsd.VirtualLink;
+import sonata.kernel.Descriptors.vnfd.VirtualDeploymentUnit;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
 import sonata.kernel.VimAdaptor.commons.IpNetPool;
 import sonata.kernel.VimAdaptor.commons.heat.HeatModel;
 import sonata.kernel.VimAdaptor.commons.heat.HeatResource;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.nsd.ConnectionPoint;
-import sonata.kernel.VimAdaptor.commons.nsd.NetworkFunction;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.nsd.VirtualLink;
-import sonata.kernel.VimAdaptor.commons.vnfd.VirtualDeploymentUnit;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfVirtualLink;
+import sonata.kernel.VimAdaptor.commons.heat.HeatTemplateDiff;
 import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
 import sonata.kernel.VimAdaptor.wrapper.ResourceUtilisation;
 import sonata.kernel.VimAdaptor.wrapper.VimRepo;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.VimAdaptor.wrapper.WrapperCallback;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
 import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Map;
 
 public class OpenStackHeatWrapper extends ComputeWrapper {
 
+  public static final long FLAVOR_TTL = 60000;
+
   private WrapperConfiguration config;
   private IpNetPool myPool;
+  private ArrayList<Flavor> flavors;
+  private long flavorsTime;
 
   private static final org.slf4j.Logger Logger =
       LoggerFactory.getLogger(OpenStackHeatWrapper.class);
@@ -68,42 +78,53 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
   public OpenStackHeatWrapper(WrapperConfiguration config) {
     super();
     this.config = config;
-    this.myPool = IpNetPool.getInstance();
+    this.myPool = IpNetPool.getInstance(config.getUuid(), config.getTenantCidr());
   }
 
   @Override
-  public boolean deployService(DeployServiceData data, String callSid) {
+  public WrapperFuture deployService(DeployServiceData data, String callSid) {
+    WrapperFuture future = new WrapperFuture();
 
     OpenStackHeatClient client = new OpenStackHeatClient(config.getVimEndpoint().toString(),
         config.getAuthUserName(), config.getAuthPass(), config.getTenantName());
 
-    OpenStackNovaClient novaClient = new OpenStackNovaClient(config.getVimEndpoint().toString(),
-        config.getAuthUserName(), config.getAuthPass(), config.getTenantName());
-    ArrayList<Flavor> vimFlavors = novaClient.getFlavors();
-    Collections.sort(vimFlavors);
-    HeatModel stack;
+    ArrayList<Flavor> vimFlavors = getFlavors();
     try {
-      stack = translate(data, vimFlavors);
-
-      HeatTemplate template = new HeatTemplate();
-      for (HeatResource resource : stack.getResources()) {
-        template.putResource(resource.getResourceName(), resource);
-      }
-      DeployServiceFsm fsm = new DeployServiceFsm(this, client, callSid, data, template);
+      HeatTemplate template =
+          buildTemplate(translate(data, vimFlavors, reserveSubnets(data)), data);
+      DeployServiceFsm fsm = new DeployServiceFsm(future, client, callSid, data, template);
 
       Thread thread = new Thread(fsm);
       thread.start();
     } catch (Exception e) {
-      this.setChanged();
       WrapperStatusUpdate errorUpdate = new WrapperStatusUpdate(callSid, "ERROR", e.getMessage());
-      this.notifyObservers(errorUpdate);
-      return false;
+      future.complete(errorUpdate);
     }
 
-    return true;
+    return future;
 
   }
 
+  /**
+   * Returns the compute flavors of the VIM, sorted. The list is kept for FLAVOR_TTL milliseconds,
+   * so the deployments of a burst of requests share a single query to Nova.
+   */
+  private synchronized ArrayList<Flavor> getFlavors() {
+    if (flavors == null || System.currentTimeMillis() - flavorsTime > FLAVOR_TTL) {
+      OpenStackNovaClient novaClient = new OpenStackNovaClient(config.getVimEndpoint(),
+          config.getAuthUserName(), config.getAuthPass(), config.getTenantName());
+      ArrayList<Flavor> vimFlavors = novaClient.getFlavors();
+      Collections.sort(vimFlavors);
+      if (vimFlavors.isEmpty()) {
+        // Do not keep the result of a failed query.
+        return vimFlavors;
+      }
+      flavors = vimFlavors;
+      flavorsTime = System.currentTimeMillis();
+    }
+    return new ArrayList<Flavor>(flavors);
+  }
+
   /**
    * Returns a heat template translated from the given descriptors.
    * 
@@ -114,7 +135,36 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
    */
   public HeatTemplate getHeatTemplateFromSonataDescriptor(DeployServiceData data,
       ArrayList<Flavor> vimFlavors) throws Exception {
-    HeatModel model = this.translate(data, vimFlavors);
+    return buildTemplate(this.translate(data, vimFlavors, reserveSubnets(data)), data);
+  }
+
+  /**
+   * Returns the heat template a running service instance would be updated to, without updating
+   * it. The sub-nets that are still part of the service keep the address range they have in the
+   * current template of the stack, unless their link no longer fits in it. The new and outgrown
+   * ones are given a free address range, which is released before returning, so the address pool
+   * of the VIM is left as it was. A stack made of nested stacks is updated to nested stacks again.
+   * 
+   * @param data the updated service descriptors to translate
+   * @param current the current template of the stack of the service instance, with the templates
+   *        of its nested stacks if any
+   * @param vimFlavors the list of available compute flavors
+   * @return an HeatTemplate object translated from the given descriptors
+   * @throws Exception if unable to translate the descriptor.
+   */
+  public HeatTemplate getHeatTemplateUpdate(DeployServiceData data, HeatTemplate current,
+      ArrayList<Flavor> vimFlavors) throws Exception {
+    ArrayList<String> added = new ArrayList<String>();
+    try {
+      return buildUpdateTemplate(
+          translate(data, vimFlavors, planSubnets(data, current, added, new ArrayList<String>())),
+          current);
+    } finally {
+      myPool.releaseSubnets(data.getNsd().getInstanceUuid(), added);
+    }
+  }
+
+  private static HeatTemplate toTemplate(HeatModel model) {
     HeatTemplate template = new HeatTemplate();
     for (HeatResource resource : model.getResources()) {
       template.putResource(resource.getResourceName(), resource);
@@ -122,28 +172,256 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
     return template;
   }
 
-  private HeatModel translate(DeployServiceData data, ArrayList<Flavor> vimFlavors)
+  /**
+   * Returns the template of a new service, split in a nested stack per VNF if the service has at
+   * least as many VNFs as configured for this VIM.
+   */
+  private HeatTemplate buildTemplate(HeatModel model, DeployServiceData data) throws Exception {
+    int threshold = config.getNestedStacks();
+    if (threshold > 0 && data.getVnfdList().size() >= threshold) {
+      return toNestedTemplate(model);
+    }
+    return toTemplate(model);
+  }
+
+  /**
+   * Returns the template a running stack is updated to, with the same layout as its current one:
+   * changing the layout would replace every resource of the service.
+   */
+  private static HeatTemplate buildUpdateTemplate(HeatModel model, HeatTemplate current)
       throws Exception {
+    if (current.hasNestedStacks()) {
+      return toNestedTemplate(model);
+    }
+    return toTemplate(model);
+  }
 
-    ServiceDescriptor nsd = data.getNsd();
+  /**
+   * Returns a parent template holding the resources shared by the whole service and one nested
+   * stack for each group of the model. Heat creates the nested stacks concurrently, and a failed
+   * one can be rebuilt by updating the parent stack without touching the others. The references
+   * from a nested stack to the resources of the parent become parameters of the nested stack.
+   * 
+   * @param model the translated service
+   * @return the parent template, with the nested ones as its files
+   * @throws Exception if a resource references a resource of another group
+   */
+  private static HeatTemplate toNestedTemplate(HeatModel model) throws Exception {
+    HeatTemplate parent = new HeatTemplate();
+    HashMap<String, HeatTemplate> files = new HashMap<String, HeatTemplate>();
+    for (HeatResource resource : model.getResources()) {
+      String group = model.getGroup(resource.getResourceName());
+      if (group == null) {
+        parent.putResource(resource.getResourceName(), resource);
+        continue;
+      }
+      String fileName = group + ".yaml";
+      HeatTemplate child = files.get(fileName);
+      HeatResource nested = (HeatResource) parent.getResources().get(group);
+      if (child == null) {
+        child = new HeatTemplate();
+        files.put(fileName, child);
+        nested = new HeatResource();
+        nested.setName(group);
+        nested.setType(fileName);
+        parent.putResource(group, nested);
+      }
+      HeatResource copy = new HeatResource();
+      copy.setName(resource.getResourceName());
+      copy.setType(resource.getType());
+      for (Map.Entry<String, Object> property : resource.getProperties().entrySet()) {
+        copy.putProperty(property.getKey(),
+            toNestedValue(property.getValue(), group, model, child, nested));
+      }
+      child.putResource(copy.getResourceName(), copy);
+    }
+    parent.setFiles(files);
+    return parent;
+  }
 
-    // Allocate Ip Addresses on the basis of the service requirements:
-    int numberOfSubnets = 1;
-    int subnetIndex = 0;
+  private static Object toNestedValue(Object value, String group, HeatModel model,
+      HeatTemplate child, HeatResource nested) throws Exception {
+    if (value instanceof ArrayList) {
+      ArrayList<Object> list = new ArrayList<Object>();
+      for (Object item : (ArrayList<?>) value) {
+        list.add(toNestedValue(item, group, model, child, nested));
+      }
+      return list;
+    }
+    if (!(value instanceof Map)) {
+      return value;
+    }
+    Map<?, ?> map = (Map<?, ?>) value;
+    Object target = map.get("get_resource");
+    if (map.size() == 1 && target instanceof String) {
+      String targetGroup = model.getGroup((String) target);
+      if (group.equals(targetGroup)) {
+        return value;
+      }
+      if (targetGroup != null) {
+        throw new Exception("Resource " + target + " of " + targetGroup
+            + " cannot be referenced from the nested stack of " + group);
+      }
+      String parameter = ((String) target).replaceAll("[^A-Za-z0-9_]", "_");
+      child.putParameter(parameter);
+      nested.putProperty(parameter, value);
+      HashMap<String, Object> paramMap = new HashMap<String, Object>();
+      paramMap.put("get_param", parameter);
+      return paramMap;
+    }
+    HashMap<String, Object> copy = new HashMap<String, Object>();
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      copy.put((String) entry.getKey(),
+          toNestedValue(entry.getValue(), group, model, child, nested));
+    }
+    return copy;
+  }
 
+  /**
+   * Returns the names of the sub-nets of the given service, the management one first.
+   */
+  private static ArrayList<String> getSubnetNames(DeployServiceData data) {
+    ServiceDescriptor nsd = data.getNsd();
+    ArrayList<String> names = new ArrayList<String>();
+    names.add(nsd.getName() + ":mgmt:subnet:" + nsd.getInstanceUuid());
     for (VnfDescriptor vnfd : data.getVnfdList()) {
-      ArrayList<VnfVirtualLink> links = vnfd.getVirtualLinks();
-      for (VnfVirtualLink link : links) {
+      for (VnfVirtualLink link : vnfd.getVirtualLinks()) {
         if (!link.getId().equals("mgmt")) {
-          numberOfSubnets++;
+          names.add(vnfd.getName() + ":" + link.getId() + ":subnet:" + nsd.getInstanceUuid());
         }
       }
     }
-    ArrayList<String> subnets = myPool.reserveSubnets(nsd.getInstanceUuid(), numberOfSubnets);
+    return names;
+  }
 
-    if (subnets == null) {
+  /**
+   * Returns the prefix length of each sub-net of the given service, in the same order as
+   * getSubnetNames. Each sub-net is sized on the connection points of its link: the VDU ports of
+   * every VNF for the management one, the VDU ports and the router interface of the VNF for the
+   * others.
+   */
+  private static ArrayList<Integer> getSubnetPrefixes(DeployServiceData data) {
+    ArrayList<Integer> prefixes = new ArrayList<Integer>();
+    int mgmtHosts = 0;
+    for (VnfDescriptor vnfd : data.getVnfdList()) {
+      for (VnfVirtualLink link : vnfd.getVirtualLinks()) {
+        if (link.getId().equals("mgmt")) {
+          // The VNF management connection point has no port, the service router is the gateway.
+          for (String cpRef : link.getConnectionPointsReference()) {
+            if (!cpRef.startsWith("vnf:")) {
+              mgmtHosts++;
+            }
+          }
+        }
+      }
+    }
+    prefixes.add(IpNetPool.getPrefixForHosts(mgmtHosts));
+    for (VnfDescriptor vnfd : data.getVnfdList()) {
+      for (VnfVirtualLink link : vnfd.getVirtualLinks()) {
+        if (!link.getId().equals("mgmt")) {
+          prefixes.add(IpNetPool.getPrefixForHosts(link.getConnectionPointsReference().size()));
+        }
+      }
+    }
+    return prefixes;
+  }
+
+  private Hashtable<String, String> reserveSubnets(DeployServiceData data) throws Exception {
+    // Allocate Ip Addresses on the basis of the service requirements:
+    ArrayList<String> names = getSubnetNames(data);
+    ArrayList<String> subnets =
+        myPool.reserveSubnets(data.getNsd().getInstanceUuid(), getSubnetPrefixes(data));
+
+    if (subnets == null || subnets.size() < names.size()) {
       throw new Exception("Unable to allocate internal addresses. Too many service instances");
     }
+    Hashtable<String, String> cidrs = new Hashtable<String, String>();
+    for (int i = 0; i < names.size(); i++) {
+      cidrs.put(names.get(i), subnets.get(i));
+    }
+    return cidrs;
+  }
+
+  /**
+   * Assign the address ranges of the sub-nets of an updated service, keeping the ones of the
+   * current stack and reserving the missing ones. A sub-net whose link has outgrown its current
+   * range is moved to a new range, and the current one is released with the removed sub-nets.
+   * 
+   * @param data the updated service descriptors
+   * @param current the current template of the stack
+   * @param added filled with the address ranges reserved for the new sub-nets
+   * @param released filled with the address ranges of the sub-nets the update removes
+   * @return the address range of each sub-net, by sub-net name
+   */
+  private Hashtable<String, String> planSubnets(DeployServiceData data, HeatTemplate current,
+      ArrayList<String> added, ArrayList<String> released) throws Exception {
+    ArrayList<HeatTemplate> templates = new ArrayList<HeatTemplate>();
+    templates.add(current);
+    if (current.hasNestedStacks()) {
+      templates.addAll(current.getFiles().values());
+    }
+    Hashtable<String, String> currentCidrs = new Hashtable<String, String>();
+    for (HeatTemplate template : templates) {
+      for (Map.Entry<String, Object> entry : template.getResources().entrySet()) {
+        if (!(entry.getValue() instanceof Map)) {
+          continue;
+        }
+        Map<?, ?> resource = (Map<?, ?>) entry.getValue();
+        if ("OS::Neutron::Subnet".equals(resource.get("type"))
+            && resource.get("properties") instanceof Map) {
+          Object cidr = ((Map<?, ?>) resource.get("properties")).get("cidr");
+          if (cidr instanceof String) {
+            currentCidrs.put(entry.getKey(), (String) cidr);
+          }
+        }
+      }
+    }
+
+    ArrayList<String> names = getSubnetNames(data);
+    ArrayList<Integer> prefixes = getSubnetPrefixes(data);
+    Hashtable<String, String> cidrs = new Hashtable<String, String>();
+    ArrayList<String> missing = new ArrayList<String>();
+    ArrayList<Integer> missingPrefixes = new ArrayList<Integer>();
+    for (int i = 0; i < names.size(); i++) {
+      String name = names.get(i);
+      String cidr = currentCidrs.get(name);
+      if (cidr != null && getPrefix(cidr) <= prefixes.get(i)) {
+        cidrs.put(name, cidr);
+      } else {
+        missing.add(name);
+        missingPrefixes.add(prefixes.get(i));
+      }
+    }
+    ArrayList<String> subnets =
+        myPool.extendReservation(data.getNsd().getInstanceUuid(), missingPrefixes);
+    if (subnets == null) {
+      throw new Exception("Unable to allocate internal addresses for the updated service");
+    }
+    for (int i = 0; i < missing.size(); i++) {
+      cidrs.put(missing.get(i), subnets.get(i));
+    }
+    added.addAll(subnets);
+    for (Map.Entry<String, String> entry : currentCidrs.entrySet()) {
+      if (!entry.getValue().equals(cidrs.get(entry.getKey()))) {
+        released.add(entry.getValue());
+      }
+    }
+    return cidrs;
+  }
+
+  private static int getPrefix(String cidr) {
+    try {
+      return Integer.parseInt(cidr.substring(cidr.indexOf('/') + 1));
+    } catch (NumberFormatException e) {
+      // An unreadable range is treated as too small, so the sub-net gets a new one.
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  private HeatModel translate(DeployServiceData data, ArrayList<Flavor> vimFlavors,
+      Hashtable<String, String> subnetCidrs) throws Exception {
+
+    ServiceDescriptor nsd = data.getNsd();
 
     // Create the management Net and subnet for all the VNFCs and VNFs
     HeatResource mgmtNetwork = new HeatResource();
@@ -161,13 +439,12 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
     mgmtSubnet.setType("OS::Neutron::Subnet");
     mgmtSubnet.setName(nsd.getName() + ":mgmt:subnet:" + nsd.getInstanceUuid());
     mgmtSubnet.putProperty("name", nsd.getName() + ":mgmt:subnet:" + nsd.getInstanceUuid());
-    String cidr = subnets.get(subnetIndex);
+    String cidr = subnetCidrs.get(nsd.getName() + ":mgmt:subnet:" + nsd.getInstanceUuid());
     mgmtSubnet.putProperty("cidr", cidr);
     mgmtSubnet.putProperty("gateway_ip", myPool.getGateway(cidr));
 
     // mgmtSubnet.putProperty("cidr", "192.168." + subnetIndex + ".0/24");
     // mgmtSubnet.putProperty("gateway_ip", "192.168." + subnetIndex + ".1");
-    subnetIndex++;
     HashMap<String, Object> mgmtNetMap = new HashMap<String, Object>();
     mgmtNetMap.put("get_resource", nsd.getName() + ":mgmt:net:" + nsd.getInstanceUuid());
     mgmtSubnet.putProperty("network", mgmtNetMap);
@@ -189,17 +466,30 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
     // links and management links)
 
     ArrayList<VnfDescriptor> vnfs = data.getVnfdList();
+    // A service split over several VIMs only brings part of its VNFs to this one.
+    HashSet<String> localVnfIds = new HashSet<String>();
+    for (NetworkFunction vnf : nsd.getNetworkFunctions()) {
+      for (VnfDescriptor vnfd : vnfs) {
+        if (vnf.getVnfName().equals(vnfd.getName())) {
+          localVnfIds.add(vnf.getVnfId());
+        }
+      }
+    }
     for (VirtualLink link : nsd.getVirtualLinks()) {
       ArrayList<String> connectionPointReference = link.getConnectionPointsReference();
       boolean isInterVnf = true;
+      boolean isLocal = false;
       boolean isMgmt = link.getId().equals("mgmt");
       for (String cpRef : connectionPointReference) {
         if (cpRef.startsWith("ns:")) {
           isInterVnf = false;
           break;
         }
+        if (localVnfIds.contains(cpRef.split(":")[0])) {
+          isLocal = true;
+        }
       }
-      if (isInterVnf && !isMgmt) {
+      if (isInterVnf && isLocal && !isMgmt) {
         HeatResource router = new HeatResource();
         router.setName(nsd.getName() + ":" + link.getId() + ":" + nsd.getInstanceUuid());
         router.setType("OS::Neutron::Router");
@@ -221,13 +511,14 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
           network.setName(vnfd.getName() + ":" + link.getId() + ":net:" + nsd.getInstanceUuid());
           network.putProperty("name",
               vnfd.getName() + ":" + link.getId() + ":net:" + nsd.getInstanceUuid());
-          model.addResource(network);
+          model.addResource(network, vnfd.getName());
           HeatResource subnet = new HeatResource();
           subnet.setType("OS::Neutron::Subnet");
           subnet.setName(vnfd.getName() + ":" + link.getId() + ":subnet:" + nsd.getInstanceUuid());
           subnet.putProperty("name",
               vnfd.getName() + ":" + link.getId() + ":subnet:" + nsd.getInstanceUuid());
-          cidr = subnets.get(subnetIndex);
+          cidr = subnetCidrs
+              .get(vnfd.getName() + ":" + link.getId() + ":subnet:" + nsd.getInstanceUuid());
           subnet.putProperty("cidr", cidr);
           // TODO remove this static DNS allocation in future use and implement the DNS as a VIM
           // config parameter
@@ -237,12 +528,11 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
           // subnet.putProperty("gateway_ip", myPool.getGateway(cidr));
           // subnet.putProperty("cidr", "192.168." + subnetIndex + ".0/24");
           // subnet.putProperty("gateway_ip", "192.168." + subnetIndex + ".1");
-          subnetIndex++;
           HashMap<String, Object> netMap = new HashMap<String, Object>();
           netMap.put("get_resource",
               vnfd.getName() + ":" + link.getId() + ":net:" + nsd.getInstanceUuid());
           subnet.putProperty("network", netMap);
-          model.addResource(subnet);
+          model.addResource(subnet, vnfd.getName());
         }
       }
       // One virtual machine for each VDU
@@ -285,7 +575,7 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
             HashMap<String, Object> netMap = new HashMap<String, Object>();
             netMap.put("get_resource", nsd.getName() + ":mgmt:net:" + nsd.getInstanceUuid());
             port.putProperty("network", netMap);
-            model.addResource(port);
+            model.addResource(port, vnfd.getName());
             mgmtPortNames.add(vnfd.getName() + ":" + cp.getId() + ":" + nsd.getInstanceUuid());
 
             // add the port to the server
@@ -306,7 +596,7 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
                 vnfd.getName() + ":" + linkIdReference + ":net:" + nsd.getInstanceUuid());
             port.putProperty("network", netMap);
 
-            model.addResource(port);
+            model.addResource(port, vnfd.getName());
             // add the port to the server
             HashMap<String, Object> n1 = new HashMap<String, Object>();
             HashMap<String, Object> portMap = new HashMap<String, Object>();
@@ -317,7 +607,7 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
           }
         }
         server.putProperty("networks", net);
-        model.addResource(server);
+        model.addResource(server, vnfd.getName());
       }
 
       // One Router interface per VNF cp connected to a inter-VNF link of the NSD
@@ -387,7 +677,7 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
             HashMap<String, Object> routerMap = new HashMap<String, Object>();
             routerMap.put("get_resource", nsVirtualLink);
             routerInterface.putProperty("router", routerMap);
-            model.addResource(routerInterface);
+            model.addResource(routerInterface, vnfd.getName());
           }
         }
       }
@@ -407,7 +697,7 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
       floatMapPort.put("get_resource", portName);
       floatingIp.putProperty("port_id", floatMapPort);
 
-      model.addResource(floatingIp);
+      model.addResource(floatingIp, model.getGroup(portName));
     }
     model.prepare();
     return model;
@@ -428,7 +718,61 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
 
 
   @Override
-  public boolean removeService(String instanceUuid, String callSid) {
+  public WrapperFuture updateService(DeployServiceData data, String callSid) {
+    WrapperFuture future = new WrapperFuture();
+
+    VimRepo repo = WrapperBay.getInstance().getVimRepo();
+    final String instanceUuid = data.getNsd().getInstanceUuid();
+    Logger.info("Trying to update NS instance: " + instanceUuid);
+    String stackName = repo.getServiceVimName(instanceUuid);
+    String stackUuid = repo.getServiceVimUuid(instanceUuid);
+    if (stackUuid == null) {
+      future.complete(new WrapperStatusUpdate(callSid, "ERROR",
+          "Service instance " + instanceUuid + " not found on this VIM"));
+      return future;
+    }
+
+    OpenStackHeatClient client = new OpenStackHeatClient(config.getVimEndpoint(),
+        config.getAuthUserName(), config.getAuthPass(), config.getTenantName());
+    final ArrayList<String> added = new ArrayList<String>();
+    final ArrayList<String> released = new ArrayList<String>();
+    try {
+      HeatTemplate current = client.getStackTemplate(stackName, stackUuid);
+      if (current == null) {
+        throw new Exception("Unable to retrieve the current template of stack " + stackName);
+      }
+      ArrayList<Flavor> vimFlavors = getFlavors();
+      HeatTemplate template = buildUpdateTemplate(
+          translate(data, vimFlavors, planSubnets(data, current, added, released)), current);
+      HeatTemplateDiff diff = new HeatTemplateDiff(current, template);
+      Logger.info("Stack " + stackName + " update - " + diff);
+
+      // The sub-nets removed by the update are released once it succeeds, the new ones if it
+      // fails.
+      future.whenComplete(new WrapperCallback() {
+        @Override
+        public void onComplete(WrapperStatusUpdate update) {
+          myPool.releaseSubnets(instanceUuid,
+              update.getStatus().equals("SUCCESS") ? released : added);
+        }
+      });
+      DeployServiceFsm fsm =
+          new DeployServiceFsm(future, client, callSid, data, template, stackUuid, diff);
+
+      Thread thread = new Thread(fsm);
+      thread.start();
+    } catch (Exception e) {
+      myPool.releaseSubnets(instanceUuid, added);
+      WrapperStatusUpdate errorUpdate = new WrapperStatusUpdate(callSid, "ERROR", e.getMessage());
+      future.complete(errorUpdate);
+    }
+
+    return future;
+  }
+
+  @Override
+  public WrapperFuture removeService(String instanceUuid, String callSid) {
+    WrapperFuture future = new WrapperFuture();
 
     VimRepo repo = WrapperBay.getInstance().getVimRepo();
     Logger.info("Trying to remove NS instance: " + instanceUuid);
@@ -445,19 +789,24 @@ public class OpenStackHeatWrapper extends ComputeWrapper {
       if (output.equals("DELETED")) {
         repo.removeInstanceEntry(instanceUuid);
         myPool.freeSubnets(instanceUuid);
-        this.setChanged();
         String body = "SUCCESS";
-        WrapperStatusUpdate update = new WrapperStatusUpdate(null, "SUCCESS", body);
-        this.notifyObservers(update);
+        WrapperStatusUpdate update = new WrapperStatusUpdate(callSid, "SUCCESS", body);
+        future.complete(update);
+      } else {
+        WrapperStatusUpdate errorUpdate = new WrapperStatusUpdate(callSid, "ERROR", output);
+        future.complete(errorUpdate);
       }
     } catch (Exception e) {
-      this.setChanged();
       WrapperStatusUpdate errorUpdate = new WrapperStatusUpdate(callSid, "ERROR", e.getMessage());
-      this.notifyObservers(errorUpdate);
-      return false;
+      future.complete(errorUpdate);
     }
 
-    return true;
+    return future;
+  }
+
+  @Override
+  public void warmUp() {
+    getFlavors();
   }
 
   @Override
@@ -35,6 +35,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.LoggerFactory;
 
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
+import sonata.kernel.AdaptorCommons.ApiRateLimiter.Operation;
+import sonata.kernel.AdaptorCommons.PayloadLog;
 import sonata.kernel.VimAdaptor.wrapper.ResourceUtilisation;
 
 import java.io.BufferedReader;
@@ -63,6 +66,8 @@ public class OpenStackNovaClient {
 
   private String tenantName; // OpenStack tenant name
 
+  private ApiRateLimiter limiter; // rate limiter of the OpenStack endpoint
+
 
   /**
    * Construct a new Openstack Nova Client.
@@ -77,6 +82,7 @@ public class OpenStackNovaClient {
     this.userName = userName;
     this.password = password;
     this.tenantName = tenantName;
+    this.limiter = ApiRateLimiter.getInstance(url);
   }
 
   /**
@@ -91,6 +97,7 @@ public class OpenStackNovaClient {
 
     try {
       // Call the python client for the flavors of the openstack instance
+      limiter.acquire(Operation.LIST);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_NOVA_API_PY,
           "--configuration", url, userName, password, tenantName, "--limits");
 
@@ -102,14 +109,14 @@ public class OpenStackNovaClient {
       StringBuilder builder = new StringBuilder();
       String string = null;
       while ((string = stdInput.readLine()) != null) {
-        Logger.info("Line: " + string);
+        Logger.debug("Line: " + string);
         builder.append(string);
       }
       stdInput.close();
       process.destroy();
       String resourceString = builder.toString();
       resourceString = resourceString.replace("'", "\"");
-      Logger.info("Resources: " + resourceString);
+      PayloadLog.info(Logger, "vim-limits", resourceString);
       ObjectMapper mapper = new ObjectMapper(new JsonFactory());
       mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
       // Logger.info(compositionString);
@@ -144,6 +151,7 @@ public class OpenStackNovaClient {
 
     try {
       // Call the python client for the flavors of the openstack instance
+      limiter.acquire(Operation.LIST);
       ProcessBuilder processBuilder = new ProcessBuilder(PYTHON2_7, ADAPTOR_NOVA_API_PY,
           "--configuration", url, userName, password, tenantName, "--flavors");
       Process process = processBuilder.start();
@@ -35,8 +35,8 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.commons.VimResources;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.messaging.TestConsumer;
 import sonata.kernel.VimAdaptor.messaging.TestProducer;
 import sonata.kernel.VimAdaptor.wrapper.WrapperBay;
@@ -61,9 +61,10 @@ public class AdaptorTest implements MessageReceiver {
    * Register, send 4 heartbeat, deregister.
    * 
    * @throws IOException
+   * @throws InterruptedException
    */
   @Test
-  public void testHeartbeating() throws IOException {
+  public void testHeartbeating() throws IOException, InterruptedException {
     BlockingQueue<ServicePlatformMessage> muxQueue =
         new LinkedBlockingQueue<ServicePlatformMessage>();
     BlockingQueue<ServicePlatformMessage> dispatcherQueue =
@@ -75,6 +76,7 @@ public class AdaptorTest implements MessageReceiver {
     int counter = 0;
 
     core.start();
+    Assert.assertTrue(core.awaitRegistration(10000));
     Assert.assertNotNull(core.getUuid());
 
     try {
@@ -95,6 +97,47 @@ public class AdaptorTest implements MessageReceiver {
     Assert.assertTrue(core.getState().equals("STOPPED"));
   }
 
+  /**
+   * Late answers to retried registrations do not change the UUID of the plug-in, and the extra
+   * UUIDs they carry are deregistered.
+   */
+  @Test
+  public void testLateRegistrationResponses() throws InterruptedException {
+    BlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    BlockingQueue<ServicePlatformMessage> dispatcherQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    TestProducer producer = new TestProducer(muxQueue, this);
+    consumer = new TestConsumer(dispatcherQueue);
+    AdaptorCore core = new AdaptorCore(muxQueue, dispatcherQueue, consumer, producer, 2);
+
+    String first = UUID.randomUUID().toString();
+    String second = UUID.randomUUID().toString();
+    core.handleRegistrationResponse(buildRegistrationResponse(core, first));
+    Assert.assertTrue(core.awaitRegistration(100));
+    Assert.assertEquals(first, core.getUuid());
+    Assert.assertTrue(muxQueue.isEmpty());
+
+    // The same answer delivered twice changes nothing.
+    core.handleRegistrationResponse(buildRegistrationResponse(core, first));
+    Assert.assertTrue(muxQueue.isEmpty());
+
+    core.handleRegistrationResponse(buildRegistrationResponse(core, second));
+    Assert.assertEquals(first, core.getUuid());
+    ServicePlatformMessage deregistration = muxQueue.poll();
+    Assert.assertNotNull(deregistration);
+    Assert.assertEquals("platform.management.plugin.deregister", deregistration.getTopic());
+    Assert.assertEquals(second, new JSONObject(deregistration.getBody()).getString("uuid"));
+    Assert.assertFalse(deregistration.getSid().equals(core.getRegistrationSid()));
+    Assert.assertTrue(muxQueue.isEmpty());
+  }
+
+  private ServicePlatformMessage buildRegistrationResponse(AdaptorCore core, String uuid) {
+    String body = "{\"status\":\"OK\",\"uuid\":\"" + uuid + "\",\"error\":\"none\"}";
+    return new ServicePlatformMessage(body, "application/json", core.getRegistrationReplyTopic(),
+        core.getRegistrationSid(), null);
+  }
+
   /**
    * Crete an empty VLSP wrapper
    * 
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.VimAdaptor.wrapper.ComputeWrapper;
+import sonata.kernel.VimAdaptor.wrapper.MockWrapper;
+import sonata.kernel.VimAdaptor.wrapper.WrapperFuture;
+import sonata.kernel.VimAdaptor.wrapper.WrapperStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkCallProcessorTest {
+
+  /**
+   * Run a batch on two VIMs and an unknown one, checking the per-VIM parallelism and the results.
+   */
+  @Test
+  public void testBatch() throws Exception {
+    LinkedBlockingQueue<ServicePlatformMessage> muxQueue =
+        new LinkedBlockingQueue<ServicePlatformMessage>();
+    AdaptorMux mux = new AdaptorMux(muxQueue);
+    ServicePlatformMessage request = new ServicePlatformMessage("{}", "application/json",
+        "infrastructure.service.bulk.remove", "bulk-sid", "bulk-reply");
+
+    final ComputeWrapper wrapper = new MockWrapper(null);
+    final ConcurrentHashMap<String, AtomicInteger> running =
+        new ConcurrentHashMap<String, AtomicInteger>();
+    final ConcurrentHashMap<String, Integer> maxRunning = new ConcurrentHashMap<String, Integer>();
+    AbstractBulkCallProcessor<String> processor =
+        new AbstractBulkCallProcessor<String>(request, "bulk-sid", mux) {
+
+          @Override
+          public boolean process(ServicePlatformMessage message) {
+            return true;
+          }
+
+          @Override
+          protected ComputeWrapper getComputeWrapper(String vimUuid) {
+            return vimUuid.isEmpty() ? null : wrapper;
+          }
+
+          @Override
+          protected WrapperFuture start(ComputeWrapper wr, final String item) {
+            final String vim = item.split("/")[0];
+            running.putIfAbsent(vim, new AtomicInteger(0));
+            final int now = running.get(vim).incrementAndGet();
+            synchronized (maxRunning) {
+              Integer max = maxRunning.get(vim);
+              if (max == null || max < now) {
+                maxRunning.put(vim, now);
+              }
+            }
+            final WrapperFuture future = new WrapperFuture();
+            new Thread(new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  Thread.sleep(50);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                running.get(vim).decrementAndGet();
+                future.complete(new WrapperStatusUpdate("bulk-sid",
+                    item.endsWith("/3") ? "ERROR" : "SUCCESS", "done"));
+              }
+            }).start();
+            return future;
+          }
+
+          @Override
+          protected boolean finish(String item, WrapperStatusUpdate update) {
+            boolean ok = update.getStatus().equals("SUCCESS");
+            sendItemResponse(item, ok ? "SUCCESS" : "fail", ok ? null : update.getBody());
+            return ok;
+          }
+
+          @Override
+          protected String getInstanceUuid(String item) {
+            return item;
+          }
+        };
+
+    Hashtable<String, ArrayList<String>> groups = new Hashtable<String, ArrayList<String>>();
+    groups.put("vim-a", new ArrayList<String>());
+    for (int i = 0; i < 10; i++) {
+      groups.get("vim-a").add("vim-a/" + i);
+    }
+    groups.put("vim-b", new ArrayList<String>());
+    for (int i = 0; i < 4; i++) {
+      groups.get("vim-b").add("vim-b/" + i);
+    }
+    groups.put("", new ArrayList<String>());
+    groups.get("").add("unknown/0");
+    processor.runBatch(groups, 2);
+
+    int items = 0;
+    JSONObject summary = null;
+    while (summary == null) {
+      ServicePlatformMessage message = muxQueue.poll(10, TimeUnit.SECONDS);
+      Assert.assertNotNull("Batch not completed", message);
+      Assert.assertEquals("bulk-reply", message.getTopic());
+      Assert.assertEquals("bulk-sid", message.getSid());
+      JSONObject body = new JSONObject(message.getBody());
+      if (body.getString("request_status").equals("COMPLETED")) {
+        summary = body;
+      } else {
+        Assert.assertTrue(body.has("instance_uuid"));
+        items++;
+      }
+    }
+
+    Assert.assertEquals("One response per item before the summary", 15, items);
+    Assert.assertEquals("vim", summary.getString("scope"));
+    Assert.assertEquals(15, summary.getInt("total"));
+    Assert.assertEquals(12, summary.getInt("succeeded"));
+    Assert.assertEquals(3, summary.getJSONArray("failed").length());
+    Assert.assertEquals(2, maxRunning.get("vim-a").intValue());
+    Assert.assertTrue(maxRunning.get("vim-b") <= 2);
+    Assert.assertNull("Items of an unknown VIM should not be started", maxRunning.get("unknown"));
+  }
+
+}
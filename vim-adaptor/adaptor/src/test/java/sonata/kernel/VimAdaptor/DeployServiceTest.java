@@ -40,17 +40,17 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
-import sonata.kernel.VimAdaptor.commons.DeployServiceResponse;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.records.Status;
+import sonata.kernel.Descriptors.records.VnfRecord;
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
 import sonata.kernel.VimAdaptor.commons.ResourceAvailabilityData;
-import sonata.kernel.VimAdaptor.commons.Status;
-import sonata.kernel.VimAdaptor.commons.VnfRecord;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit.MemoryUnit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.messaging.TestConsumer;
 import sonata.kernel.VimAdaptor.messaging.TestProducer;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
@@ -212,7 +212,8 @@ public class DeployServiceTest implements MessageReceiver {
     ResourceAvailabilityData data = new ResourceAvailabilityData();
 
     data.setCpu(4);
-    data.setMemory(10);
+    // The mock VIM has 10000 MB of memory.
+    data.setMemory(8);
     data.setMemoryUnit(MemoryUnit.GB);
     data.setStorage(50);
     data.setStorageUnit(MemoryUnit.GB);
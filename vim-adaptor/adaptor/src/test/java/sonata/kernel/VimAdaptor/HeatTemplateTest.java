@@ -38,18 +38,23 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
-import sonata.kernel.VimAdaptor.commons.DeployServiceData;
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.Descriptors.vnfd.VnfVirtualLink;
+import sonata.kernel.VimAdaptor.commons.IpNetPool;
+import sonata.kernel.VimAdaptor.commons.StreamingSerializer;
 import sonata.kernel.VimAdaptor.commons.heat.HeatResource;
 import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
-import sonata.kernel.VimAdaptor.commons.nsd.ServiceDescriptor;
-import sonata.kernel.VimAdaptor.commons.vnfd.Unit;
-import sonata.kernel.VimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.VimAdaptor.commons.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.heat.HeatTemplateDiff;
 import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
 import sonata.kernel.VimAdaptor.wrapper.openstack.Flavor;
 import sonata.kernel.VimAdaptor.wrapper.openstack.OpenStackHeatWrapper;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -57,6 +62,8 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 
 /**
@@ -182,4 +189,348 @@ public class HeatTemplateTest {
   }
 
 
+  @Test
+  public void testHeatStreamingSerialize() throws IOException {
+
+    HeatTemplate template = new HeatTemplate();
+    for (int i = 0; i < 500; i++) {
+      HeatResource server = new HeatResource();
+      server.setType("OS::Nova::Server");
+      server.putProperty("name", "server" + i);
+      server.putProperty("flavor", "m1.small");
+      server.putProperty("image", "snappy");
+      ArrayList<HashMap<String, Object>> net = new ArrayList<HashMap<String, Object>>();
+      HashMap<String, Object> n1 = new HashMap<String, Object>();
+      HashMap<String, Object> portMap = new HashMap<String, Object>();
+      portMap.put("get_resource", "port" + i);
+      n1.put("port", portMap);
+      net.add(n1);
+      server.putProperty("networks", net);
+      template.putResource("server" + i, server);
+
+      HeatResource port = new HeatResource();
+      port.setType("OS::Neutron::Port");
+      port.putProperty("network_id", "12345");
+      template.putResource("port" + i, port);
+    }
+
+    ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    ObjectMapper jsonMapper = new ObjectMapper();
+
+    String body = StreamingSerializer.toYaml(template);
+
+    ByteArrayOutputStream yamlOut = new ByteArrayOutputStream();
+    StreamingSerializer.writeYaml(template, yamlOut);
+
+    ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+    StreamingSerializer.writeJson(template, jsonOut);
+
+    Map<?, ?> fromString = yamlMapper.readValue(body, Map.class);
+    Map<?, ?> fromYaml = yamlMapper.readValue(yamlOut.toByteArray(), Map.class);
+    Map<?, ?> fromJson = jsonMapper.readValue(jsonOut.toByteArray(), Map.class);
+    Assert.assertEquals(fromString, fromYaml);
+    Assert.assertEquals(fromString, fromJson);
+    Assert.assertEquals(1000, ((Map<?, ?>) fromJson.get("resources")).size());
+  }
+
+  /**
+   * Translate an updated service against the template of its running stack, checking that the
+   * resources not affected by the update are left as they are.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeatTemplateUpdate() throws Exception {
+
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    ServiceDescriptor sd =
+        mapper.readValue(new File("./YAML/sonata-demo.yml"), ServiceDescriptor.class);
+    sd.setInstanceUuid(UUID.randomUUID().toString());
+    VnfDescriptor vnfd1 = mapper.readValue(new File("./YAML/vtc-vnf-vnfd.yml"), VnfDescriptor.class);
+    VnfDescriptor vnfd2 = mapper.readValue(new File("./YAML/fw-vnf-vnfd.yml"), VnfDescriptor.class);
+
+    DeployServiceData data = new DeployServiceData();
+    data.setServiceDescriptor(sd);
+    data.addVnfDescriptor(vnfd1);
+    data.addVnfDescriptor(vnfd2);
+
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("heat-update-test");
+    config.setTenantExtNet("decd89e2-1681-427e-ac24-6e9f1abb1715");
+    config.setTenantExtRouter("20790da5-2dc1-4c7e-b9c3-a8d590517563");
+    OpenStackHeatWrapper wrapper = new OpenStackHeatWrapper(config);
+
+    ArrayList<Flavor> vimFlavors = new ArrayList<Flavor>();
+    vimFlavors.add(new Flavor("m1.small", 2, 2048, 20));
+
+    // The current template is read back from the VIM as plain JSON.
+    HeatTemplate deployed = wrapper.getHeatTemplateFromSonataDescriptor(data, vimFlavors);
+    ObjectMapper jsonMapper = new ObjectMapper();
+    jsonMapper.setSerializationInclusion(Include.NON_NULL);
+    jsonMapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+    HeatTemplate current = jsonMapper.readValue(jsonMapper.writeValueAsString(deployed),
+        HeatTemplate.class);
+
+    HeatTemplate same = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    HeatTemplateDiff diff = new HeatTemplateDiff(current, same);
+    Assert.assertTrue("Unexpected changes: " + diff, diff.isEmpty());
+    Assert.assertEquals(current.getResources().size(), diff.getUnchanged());
+
+    vnfd2.getVirtualDeploymentUnits().get(0).setVmImage("sonata-vfw-2");
+    HeatTemplate updated = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    diff = new HeatTemplateDiff(current, updated);
+    Assert.assertTrue(diff.getAdded().isEmpty());
+    Assert.assertTrue(diff.getRemoved().isEmpty());
+    Assert.assertEquals("Only the server of the updated VDU should change", 1,
+        diff.getChanged().size());
+
+    // A new link needs a new sub-net, whose address range is not kept by the preview.
+    IpNetPool pool = IpNetPool.getInstance(config.getUuid(), null);
+    ArrayList<String> reservation =
+        new ArrayList<String>(pool.getReservation(sd.getInstanceUuid()));
+    VnfVirtualLink extra = new VnfVirtualLink();
+    extra.setId("extra");
+    extra.setConnectionPointsReference(new ArrayList<String>());
+    vnfd2.getVirtualLinks().add(extra);
+    updated = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    diff = new HeatTemplateDiff(current, updated);
+    Assert.assertTrue(diff.getAdded().contains(vnfd2.getName() + ":extra:subnet:"
+        + sd.getInstanceUuid()));
+    Assert.assertEquals(reservation, pool.getReservation(sd.getInstanceUuid()));
+
+    // A link that outgrows its sub-net moves it to a larger address range, the others are kept.
+    for (VnfVirtualLink link : vnfd1.getVirtualLinks()) {
+      if (link.getId().equals("input")) {
+        for (int i = 0; i < 10; i++) {
+          link.getConnectionPointsReference().add("vdu0" + (i + 2) + ":eth1");
+        }
+      }
+    }
+    updated = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    String suffix = ":subnet:" + sd.getInstanceUuid();
+    Assert.assertTrue(getCidr(updated, vnfd1.getName() + ":input" + suffix).endsWith("/28"));
+    Assert.assertFalse(reservation.contains(getCidr(updated, vnfd1.getName() + ":input" + suffix)));
+    Assert.assertEquals(getCidr(deployed, vnfd1.getName() + ":output" + suffix),
+        getCidr(updated, vnfd1.getName() + ":output" + suffix));
+    Assert.assertEquals(reservation, pool.getReservation(sd.getInstanceUuid()));
+  }
+
+  /**
+   * Translate the demo service with a link of a VNF connecting more ports than fit in a /29,
+   * checking that each sub-net is sized on the connection points of its link.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeatSubnetSizes() throws Exception {
+
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    ServiceDescriptor sd =
+        mapper.readValue(new File("./YAML/sonata-demo.yml"), ServiceDescriptor.class);
+    sd.setInstanceUuid(UUID.randomUUID().toString());
+    VnfDescriptor vnfd1 = mapper.readValue(new File("./YAML/vtc-vnf-vnfd.yml"), VnfDescriptor.class);
+    VnfDescriptor vnfd2 = mapper.readValue(new File("./YAML/fw-vnf-vnfd.yml"), VnfDescriptor.class);
+    VnfVirtualLink input = null;
+    for (VnfVirtualLink link : vnfd1.getVirtualLinks()) {
+      if (link.getId().equals("input")) {
+        input = link;
+      }
+    }
+    for (int i = 0; i < 10; i++) {
+      input.getConnectionPointsReference().add("vdu0" + (i + 2) + ":eth1");
+    }
+
+    DeployServiceData data = new DeployServiceData();
+    data.setServiceDescriptor(sd);
+    data.addVnfDescriptor(vnfd1);
+    data.addVnfDescriptor(vnfd2);
+
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("heat-subnet-test");
+    config.setTenantExtNet("decd89e2-1681-427e-ac24-6e9f1abb1715");
+    config.setTenantExtRouter("20790da5-2dc1-4c7e-b9c3-a8d590517563");
+    OpenStackHeatWrapper wrapper = new OpenStackHeatWrapper(config);
+
+    ArrayList<Flavor> vimFlavors = new ArrayList<Flavor>();
+    vimFlavors.add(new Flavor("m1.small", 2, 2048, 20));
+
+    HeatTemplate template = wrapper.getHeatTemplateFromSonataDescriptor(data, vimFlavors);
+    String suffix = ":subnet:" + sd.getInstanceUuid();
+    // 12 connection points, the network, gateway and broadcast addresses need a /28.
+    Assert.assertTrue(getCidr(template, vnfd1.getName() + ":input" + suffix).endsWith("/28"));
+    Assert.assertTrue(getCidr(template, vnfd1.getName() + ":output" + suffix).endsWith("/29"));
+    // The management sub-net holds a port for the VDU of each VNF.
+    Assert.assertTrue(getCidr(template, sd.getName() + ":mgmt" + suffix).endsWith("/29"));
+  }
+
+  private String getCidr(HeatTemplate template, String subnetName) {
+    HeatResource subnet = (HeatResource) template.getResources().get(subnetName);
+    Assert.assertNotNull("Missing sub-net " + subnetName, subnet);
+    return (String) subnet.getProperties().get("cidr");
+  }
+
+  /**
+   * Translate the demo service as a parent stack with a nested stack per VNF, checking that the
+   * nested stacks only reference the parent through their parameters.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeatTemplateNested() throws Exception {
+
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    ServiceDescriptor sd =
+        mapper.readValue(new File("./YAML/sonata-demo.yml"), ServiceDescriptor.class);
+    sd.setInstanceUuid(UUID.randomUUID().toString());
+    VnfDescriptor vnfd1 = mapper.readValue(new File("./YAML/vtc-vnf-vnfd.yml"), VnfDescriptor.class);
+    VnfDescriptor vnfd2 = mapper.readValue(new File("./YAML/fw-vnf-vnfd.yml"), VnfDescriptor.class);
+
+    DeployServiceData data = new DeployServiceData();
+    data.setServiceDescriptor(sd);
+    data.addVnfDescriptor(vnfd1);
+    data.addVnfDescriptor(vnfd2);
+
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("heat-nested-test");
+    config.setTenantExtNet("decd89e2-1681-427e-ac24-6e9f1abb1715");
+    config.setTenantExtRouter("20790da5-2dc1-4c7e-b9c3-a8d590517563");
+    config.setNestedStacks(2);
+    OpenStackHeatWrapper wrapper = new OpenStackHeatWrapper(config);
+
+    ArrayList<Flavor> vimFlavors = new ArrayList<Flavor>();
+    vimFlavors.add(new Flavor("m1.small", 2, 2048, 20));
+
+    HeatTemplate template = wrapper.getHeatTemplateFromSonataDescriptor(data, vimFlavors);
+    Assert.assertTrue(template.hasNestedStacks());
+    Assert.assertEquals(2, template.getFiles().size());
+
+    for (Map.Entry<String, HeatTemplate> file : template.getFiles().entrySet()) {
+      HeatResource nested = (HeatResource) template.getResources()
+          .get(file.getKey().substring(0, file.getKey().length() - ".yaml".length()));
+      Assert.assertNotNull("Missing nested resource for " + file.getKey(), nested);
+      Assert.assertEquals(file.getKey(), nested.getType());
+      HeatTemplate child = file.getValue();
+      Assert.assertNotNull(child.getParameters());
+      // Every parameter of the nested stack is bound to a resource of the parent.
+      Assert.assertEquals(child.getParameters().keySet(), nested.getProperties().keySet());
+      for (Object value : nested.getProperties().values()) {
+        String target = (String) ((Map<?, ?>) value).get("get_resource");
+        Assert.assertTrue(template.getResources().containsKey(target));
+      }
+      int servers = 0;
+      for (Object resource : child.getResources().values()) {
+        if (((HeatResource) resource).getType().equals("OS::Nova::Server")) {
+          servers++;
+        }
+      }
+      Assert.assertEquals(1, servers);
+      String json = StreamingSerializer.toJson(child);
+      Assert.assertFalse("Nested stack references the parent directly",
+          json.contains(sd.getName() + ":mgmt:net"));
+    }
+
+    config.setNestedStacks(3);
+    Assert.assertFalse(
+        wrapper.getHeatTemplateFromSonataDescriptor(data, vimFlavors).hasNestedStacks());
+  }
+
+  /**
+   * Translate an update of the demo service deployed as nested stacks, checking that the update
+   * keeps the nested layout and changes the nested templates resource by resource.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testHeatTemplateUpdateNested() throws Exception {
+
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    ServiceDescriptor sd =
+        mapper.readValue(new File("./YAML/sonata-demo.yml"), ServiceDescriptor.class);
+    sd.setInstanceUuid(UUID.randomUUID().toString());
+    VnfDescriptor vnfd1 = mapper.readValue(new File("./YAML/vtc-vnf-vnfd.yml"), VnfDescriptor.class);
+    VnfDescriptor vnfd2 = mapper.readValue(new File("./YAML/fw-vnf-vnfd.yml"), VnfDescriptor.class);
+
+    DeployServiceData data = new DeployServiceData();
+    data.setServiceDescriptor(sd);
+    data.addVnfDescriptor(vnfd1);
+    data.addVnfDescriptor(vnfd2);
+
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("heat-update-nested-test");
+    config.setTenantExtNet("decd89e2-1681-427e-ac24-6e9f1abb1715");
+    config.setTenantExtRouter("20790da5-2dc1-4c7e-b9c3-a8d590517563");
+    config.setNestedStacks(2);
+    OpenStackHeatWrapper wrapper = new OpenStackHeatWrapper(config);
+
+    ArrayList<Flavor> vimFlavors = new ArrayList<Flavor>();
+    vimFlavors.add(new Flavor("m1.small", 2, 2048, 20));
+
+    // The current templates are read back from the VIM as plain JSON.
+    HeatTemplate deployed = wrapper.getHeatTemplateFromSonataDescriptor(data, vimFlavors);
+    ObjectMapper jsonMapper = new ObjectMapper();
+    jsonMapper.setSerializationInclusion(Include.NON_NULL);
+    jsonMapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+    HeatTemplate current = jsonMapper.readValue(jsonMapper.writeValueAsString(deployed),
+        HeatTemplate.class);
+    HashMap<String, HeatTemplate> files = new HashMap<String, HeatTemplate>();
+    for (Map.Entry<String, HeatTemplate> file : deployed.getFiles().entrySet()) {
+      files.put(file.getKey(), jsonMapper
+          .readValue(jsonMapper.writeValueAsString(file.getValue()), HeatTemplate.class));
+    }
+    current.setFiles(files);
+
+    HeatTemplate same = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    Assert.assertTrue(same.hasNestedStacks());
+    HeatTemplateDiff diff = new HeatTemplateDiff(current, same);
+    Assert.assertTrue("Unexpected changes: " + diff, diff.isEmpty());
+
+    vnfd2.getVirtualDeploymentUnits().get(0).setVmImage("sonata-vfw-2");
+    HeatTemplate updated = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    diff = new HeatTemplateDiff(current, updated);
+    Assert.assertTrue(diff.getAdded().isEmpty());
+    Assert.assertTrue(diff.getRemoved().isEmpty());
+    Assert.assertEquals("Only the server of the updated VDU should change", 1,
+        diff.getChanged().size());
+
+    // The sub-nets of the nested stacks keep their address range until their link outgrows it.
+    for (VnfVirtualLink link : vnfd1.getVirtualLinks()) {
+      if (link.getId().equals("input")) {
+        for (int i = 0; i < 10; i++) {
+          link.getConnectionPointsReference().add("vdu0" + (i + 2) + ":eth1");
+        }
+      }
+    }
+    updated = wrapper.getHeatTemplateUpdate(data, current, vimFlavors);
+    String suffix = ":subnet:" + sd.getInstanceUuid();
+    String output = vnfd1.getName() + ":output" + suffix;
+    Assert.assertEquals(getNestedCidr(deployed, output), getNestedCidr(updated, output));
+    Assert.assertTrue(getNestedCidr(updated, vnfd1.getName() + ":input" + suffix).endsWith("/28"));
+  }
+
+  private String getNestedCidr(HeatTemplate template, String subnetName) {
+    for (HeatTemplate child : template.getFiles().values()) {
+      if (child.getResources().containsKey(subnetName)) {
+        return getCidr(child, subnetName);
+      }
+    }
+    Assert.fail("Missing sub-net " + subnetName);
+    return null;
+  }
+
 }
@@ -141,4 +141,144 @@ public class IpNetPoolTest {
 
 
   }
+
+  /**
+   * Allocate sub-nets of different sizes for the same instance.
+   * 
+   * 
+   */
+  @Test
+  public void testReserveVariablePrefixes() throws Exception {
+
+    long totAddresses = pool.getFreeAddressesNumber();
+    String instanceUuid = UUID.randomUUID().toString();
+    ArrayList<Integer> prefixes = new ArrayList<Integer>();
+    prefixes.add(29);
+    prefixes.add(IpNetPool.getPrefixForHosts(40));
+    prefixes.add(30);
+    ArrayList<String> myPool = pool.reserveSubnets(instanceUuid, prefixes);
+
+    Assert.assertNotNull("Null pool returned from allocation", myPool);
+    Assert.assertEquals("Unexpected number of subnets", 3, myPool.size());
+    Assert.assertTrue("Unexpected subnet size", myPool.get(0).endsWith("/29"));
+    Assert.assertTrue("Unexpected subnet size", myPool.get(1).endsWith("/26"));
+    Assert.assertTrue("Unexpected subnet size", myPool.get(2).endsWith("/30"));
+    Assert.assertEquals("Addresses have not been reserved", totAddresses - 8 - 64 - 4,
+        pool.getFreeAddressesNumber());
+
+    pool.freeSubnets(instanceUuid);
+
+    Assert.assertEquals("Addresses have not been freed", totAddresses,
+        pool.getFreeAddressesNumber());
+  }
+
+  /**
+   * Free fragmented sub-nets and check that the freed neighbours are merged back.
+   * 
+   * 
+   */
+  @Test
+  public void testCoalesceFreedSubnets() throws Exception {
+
+    IpNetPool smallPool = IpNetPool.getInstance("small-vim", "10.0.0.0/24");
+    Assert.assertEquals("Unexpected pool address space", "10.0.0.0/24", smallPool.getCidr());
+
+    ArrayList<String> uuids = new ArrayList<String>();
+    for (int i = 0; i < 32; i++) {
+      String instanceUuid = UUID.randomUUID().toString();
+      Assert.assertNotNull("Reservation failed", smallPool.reserveSubnets(instanceUuid, 1));
+      uuids.add(instanceUuid);
+    }
+    Assert.assertEquals("Pool should be full", 0, smallPool.getFreeAddressesNumber());
+
+    // Free every other /29, the space is now fragmented and cannot fit a /28.
+    for (int i = 0; i < uuids.size(); i += 2) {
+      smallPool.freeSubnets(uuids.get(i));
+    }
+    ArrayList<Integer> big = new ArrayList<Integer>();
+    big.add(28);
+    Assert.assertNull("A /28 should not fit a fragmented pool",
+        smallPool.reserveSubnets(UUID.randomUUID().toString(), big));
+
+    // Free the rest, the whole /24 must be available again as a single block.
+    for (int i = 1; i < uuids.size(); i += 2) {
+      smallPool.freeSubnets(uuids.get(i));
+    }
+    big.clear();
+    big.add(24);
+    ArrayList<String> whole = smallPool.reserveSubnets(UUID.randomUUID().toString(), big);
+    Assert.assertNotNull("Freed subnets have not been coalesced", whole);
+    Assert.assertEquals("Unexpected subnet", "10.0.0.0/24", whole.get(0));
+  }
+
+  /**
+   * Check that each VIM has its own address space.
+   * 
+   * 
+   */
+  @Test
+  public void testPerVimPools() {
+
+    IpNetPool firstPool = IpNetPool.getInstance("vim-1", "172.16.0.0/16");
+    IpNetPool secondPool = IpNetPool.getInstance("vim-2", null);
+
+    Assert.assertTrue("The same VIM should get the same pool",
+        firstPool == IpNetPool.getInstance("vim-1", "172.16.0.0/16"));
+    Assert.assertEquals("Unexpected pool address space", "192.0.0.0/8", secondPool.getCidr());
+
+    String instanceUuid = UUID.randomUUID().toString();
+    ArrayList<String> myPool = firstPool.reserveSubnets(instanceUuid, 1);
+    Assert.assertEquals("Unexpected subnet", "172.16.0.0/29", myPool.get(0));
+    Assert.assertNull("Reservation leaked to another VIM pool",
+        secondPool.getReservation(instanceUuid));
+  }
+
+  /**
+   * Compute the prefix length needed for a number of hosts.
+   * 
+   * 
+   */
+  @Test
+  public void testPrefixForHosts() {
+    Assert.assertEquals(30, IpNetPool.getPrefixForHosts(1));
+    Assert.assertEquals(29, IpNetPool.getPrefixForHosts(5));
+    Assert.assertEquals(28, IpNetPool.getPrefixForHosts(6));
+    Assert.assertEquals(26, IpNetPool.getPrefixForHosts(40));
+    Assert.assertEquals(24, IpNetPool.getPrefixForHosts(253));
+  }
+
+  /**
+   * Extend a reservation with new subnets and release part of it.
+   * 
+   * 
+   */
+  @Test
+  public void testExtendReservation() throws Exception {
+
+    IpNetPool smallPool = IpNetPool.getInstance("vim-extend", "10.1.0.0/24");
+    String instanceUuid = UUID.randomUUID().toString();
+    ArrayList<String> first = smallPool.reserveSubnets(instanceUuid, 2);
+    ArrayList<String> added = smallPool.extendReservation(instanceUuid, 2);
+    Assert.assertEquals("Unexpected subnet", "10.1.0.16/29", added.get(0));
+    Assert.assertEquals(4, smallPool.getReservation(instanceUuid).size());
+
+    ArrayList<String> released = new ArrayList<String>();
+    released.add(first.get(1));
+    smallPool.releaseSubnets(instanceUuid, released);
+    Assert.assertEquals(3, smallPool.getReservation(instanceUuid).size());
+    Assert.assertFalse(smallPool.getReservation(instanceUuid).contains(first.get(1)));
+
+    Assert.assertNull("Reservation larger than the pool should fail",
+        smallPool.extendReservation(instanceUuid, 30));
+    Assert.assertEquals("A failed extension should not leak subnets", 3,
+        smallPool.getReservation(instanceUuid).size());
+    Assert.assertEquals("Released subnet should be reused", first.get(1),
+        smallPool.extendReservation(instanceUuid, 1).get(0));
+    ArrayList<Integer> prefixes = new ArrayList<Integer>();
+    prefixes.add(27);
+    Assert.assertTrue("Unexpected subnet size",
+        smallPool.extendReservation(instanceUuid, prefixes).get(0).endsWith("/27"));
+    smallPool.freeSubnets(instanceUuid);
+    Assert.assertEquals(256, smallPool.getFreeAddressesNumber());
+  }
 }
@@ -26,7 +26,7 @@
 
 package sonata.kernel.VimAdaptor;
 
-import sonata.kernel.VimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
 public interface MessageReceiver {
 
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.Descriptors.DeployServiceData;
+import sonata.kernel.Descriptors.nsd.ServiceDescriptor;
+import sonata.kernel.Descriptors.vnfd.Unit;
+import sonata.kernel.Descriptors.vnfd.UnitDeserializer;
+import sonata.kernel.Descriptors.vnfd.VnfDescriptor;
+import sonata.kernel.VimAdaptor.commons.heat.HeatResource;
+import sonata.kernel.VimAdaptor.commons.heat.HeatTemplate;
+import sonata.kernel.VimAdaptor.wrapper.WrapperConfiguration;
+import sonata.kernel.VimAdaptor.wrapper.openstack.Flavor;
+import sonata.kernel.VimAdaptor.wrapper.openstack.OpenStackHeatWrapper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MultiVimDeploymentTest {
+
+  private DeployServiceData data;
+
+  /**
+   * Load the demo service, deployed on a single VIM.
+   */
+  @Before
+  public void setUp() throws Exception {
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Unit.class, new UnitDeserializer());
+    mapper.registerModule(module);
+    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    data = new DeployServiceData();
+    data.setVimUuid("pop-1");
+    data.setServiceDescriptor(
+        mapper.readValue(new File("./YAML/sonata-demo.yml"), ServiceDescriptor.class));
+    data.addVnfDescriptor(mapper.readValue(new File("./YAML/vtc-vnf-vnfd.yml"),
+        VnfDescriptor.class));
+    data.addVnfDescriptor(mapper.readValue(new File("./YAML/fw-vnf-vnfd.yml"),
+        VnfDescriptor.class));
+  }
+
+  /**
+   * A service without a VIM mapping, or mapped to a single VIM, is not split.
+   */
+  @Test
+  public void testSingleVim() throws Exception {
+    LinkedHashMap<String, DeployServiceData> parts = MultiVimDeployment.split(data);
+    Assert.assertEquals(1, parts.size());
+    Assert.assertSame(data, parts.get(data.getNsd().getInstanceUuid()));
+
+    HashMap<String, String> mapping = new HashMap<String, String>();
+    mapping.put("vnf_firewall", "pop-1");
+    data.setVimMapping(mapping);
+    Assert.assertEquals(1, MultiVimDeployment.split(data).size());
+  }
+
+  /**
+   * Split the demo service over two VIMs and translate each part.
+   */
+  @Test
+  public void testSplit() throws Exception {
+    HashMap<String, String> mapping = new HashMap<String, String>();
+    mapping.put("vnf_firewall", "pop-2");
+    data.setVimMapping(mapping);
+    String instanceUuid = data.getNsd().getInstanceUuid();
+
+    LinkedHashMap<String, DeployServiceData> parts = MultiVimDeployment.split(data);
+    Assert.assertEquals(2, parts.size());
+    DeployServiceData first = parts.get(instanceUuid + "-0");
+    DeployServiceData second = parts.get(instanceUuid + "-1");
+    Assert.assertEquals("The default VIM should come first", "pop-1", first.getVimUuid());
+    Assert.assertEquals("pop-2", second.getVimUuid());
+    Assert.assertEquals(instanceUuid + "-0", first.getNsd().getInstanceUuid());
+    Assert.assertEquals(instanceUuid, data.getNsd().getInstanceUuid());
+    Assert.assertEquals(1, first.getVnfdList().size());
+    Assert.assertEquals("vtc-vnf", first.getVnfdList().get(0).getName());
+    Assert.assertEquals("fw-vnf", second.getVnfdList().get(0).getName());
+
+    ArrayList<Flavor> vimFlavors = new ArrayList<Flavor>();
+    vimFlavors.add(new Flavor("m1.small", 2, 2048, 20));
+    for (DeployServiceData part : parts.values()) {
+      WrapperConfiguration config = new WrapperConfiguration();
+      config.setUuid(part.getVimUuid());
+      config.setTenantExtNet("decd89e2-1681-427e-ac24-6e9f1abb1715");
+      config.setTenantExtRouter("20790da5-2dc1-4c7e-b9c3-a8d590517563");
+      HeatTemplate template =
+          new OpenStackHeatWrapper(config).getHeatTemplateFromSonataDescriptor(part, vimFlavors);
+      int servers = 0;
+      for (Map.Entry<String, Object> resource : template.getResources().entrySet()) {
+        if (((HeatResource) resource.getValue()).getType().equals("OS::Nova::Server")) {
+          servers++;
+        }
+        Assert.assertTrue("Resource of the other part: " + resource.getKey(),
+            resource.getKey().contains(part.getNsd().getInstanceUuid()));
+      }
+      Assert.assertTrue("No servers in the part template", servers > 0);
+    }
+  }
+
+  /**
+   * A VNF without a VIM cannot be deployed.
+   */
+  @Test(expected = Exception.class)
+  public void testMissingVim() throws Exception {
+    data.setVimUuid(null);
+    HashMap<String, String> mapping = new HashMap<String, String>();
+    mapping.put("vnf_firewall", "pop-2");
+    data.setVimMapping(mapping);
+    MultiVimDeployment.split(data);
+  }
+
+}
@@ -26,6 +26,9 @@
 
 package sonata.kernel.VimAdaptor.messaging;
 
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+
 import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 
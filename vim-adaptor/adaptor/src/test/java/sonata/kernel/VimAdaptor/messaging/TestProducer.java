@@ -26,6 +26,8 @@
 
 package sonata.kernel.VimAdaptor.messaging;
 
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusProducer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.VimAdaptor.MessageReceiver;
 
 import java.io.IOException;
@@ -69,13 +71,13 @@ public class TestProducer extends AbstractMsgBusProducer {
       String registrationResponse = "{\"status\":\"OK\",\"uuid\":\"" + UUID.randomUUID().toString()
           + "\",\"error\":\"none\"}";
       ServicePlatformMessage response = new ServicePlatformMessage(registrationResponse,
-          "application/json", "platform.management.plugin.register", message.getSid(), null);
+          "application/json", message.getReplyTo(), message.getSid(), null);
       output.forwardToConsumer(response);
     }
     if (message.getTopic().equals("platform.management.plugin.deregister")) {
       String registrationResponse = "{\"status\":\"OK\"}";
       ServicePlatformMessage response = new ServicePlatformMessage(registrationResponse,
-          "application/json", "platform.management.plugin.deregister", message.getSid(), null);
+          "application/json", message.getReplyTo(), message.getSid(), null);
       output.forwardToConsumer(response);
     }
     if (message.getTopic().contains("heartbeat")) {
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.wrapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stand-in for the SFC agent, speaking the length-framed protocol of the SfcAgentClient on a local
+ * port. Every request is recorded and acknowledged with the configured response.
+ */
+public class LocalSfcAgent implements Runnable {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private ServerSocket serverSocket;
+  private List<String> requests;
+  private List<Socket> connections;
+  private volatile String response = "SUCCESS";
+  private volatile boolean silent = false;
+  private volatile int connectionCount = 0;
+
+  /**
+   * Start the agent on an ephemeral port of the loopback interface.
+   */
+  public LocalSfcAgent() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    requests = Collections.synchronizedList(new ArrayList<String>());
+    connections = Collections.synchronizedList(new ArrayList<Socket>());
+    Thread thread = new Thread(this);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public List<String> getRequests() {
+    return requests;
+  }
+
+  public int getConnectionCount() {
+    return connectionCount;
+  }
+
+  public void setResponse(String response) {
+    this.response = response;
+  }
+
+  /**
+   * When silent, the agent reads requests but never acknowledges them.
+   */
+  public void setSilent(boolean silent) {
+    this.silent = silent;
+  }
+
+  /**
+   * Drop all open connections, as a restarting agent would.
+   */
+  public void dropConnections() throws IOException {
+    synchronized (connections) {
+      for (Socket socket : connections) {
+        socket.close();
+      }
+      connections.clear();
+    }
+  }
+
+  /**
+   * Stop the agent.
+   */
+  public void stop() throws IOException {
+    serverSocket.close();
+    dropConnections();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        final Socket socket = serverSocket.accept();
+        connectionCount++;
+        connections.add(socket);
+        Thread handler = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            serve(socket);
+          }
+        });
+        handler.setDaemon(true);
+        handler.start();
+      }
+    } catch (IOException e) {
+      // Server socket closed.
+    }
+  }
+
+  private void serve(Socket socket) {
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      while (true) {
+        int requestId = in.readInt();
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        requests.add(new String(data, UTF8));
+        if (!silent) {
+          byte[] answer = response.getBytes(UTF8);
+          out.writeInt(requestId);
+          out.writeInt(answer.length);
+          out.write(answer);
+          out.flush();
+        }
+      }
+    } catch (IOException e) {
+      // Connection closed.
+    }
+  }
+}
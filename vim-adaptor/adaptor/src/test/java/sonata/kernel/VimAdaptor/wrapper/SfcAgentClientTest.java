@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.wrapper;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.VimAdaptor.wrapper.odlWrapper.SfcAgentClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeoutException;
+
+public class SfcAgentClientTest {
+
+  private LocalSfcAgent agent;
+  private SfcAgentClient client;
+
+  @Before
+  public void setUp() throws IOException {
+    agent = new LocalSfcAgent();
+    client = new SfcAgentClient("127.0.0.1", agent.getPort());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    client.close();
+    agent.stop();
+  }
+
+  /**
+   * Send several requests on the same connection and check each gets its own acknowledgement.
+   */
+  @Test
+  public void testPersistentConnection() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals("SUCCESS", client.sendRequest("{\"action\":\"add\"}", 5000));
+    }
+    Assert.assertEquals("The connection should be reused", 1, agent.getConnectionCount());
+    Assert.assertEquals(5, agent.getRequests().size());
+  }
+
+  /**
+   * Submit requests without waiting for responses, then collect them.
+   */
+  @Test
+  public void testPipelinedRequests() throws Exception {
+    ArrayList<SfcAgentClient.PendingRequest> inFlight =
+        new ArrayList<SfcAgentClient.PendingRequest>();
+    for (int i = 0; i < 20; i++) {
+      inFlight.add(client.submit("{\"request\":" + i + "}"));
+    }
+    for (SfcAgentClient.PendingRequest request : inFlight) {
+      Assert.assertEquals("SUCCESS", request.getResponse(5000));
+    }
+    Assert.assertEquals(20, agent.getRequests().size());
+  }
+
+  /**
+   * Payloads larger than a datagram must arrive untruncated.
+   */
+  @Test
+  public void testLargePayload() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() < 256 * 1024) {
+      builder.append("{\"mac\":\"fa:16:3e:00:00:00\",\"position\":0},");
+    }
+    String payload = builder.toString();
+    Assert.assertEquals("SUCCESS", client.sendRequest(payload, 5000));
+    Assert.assertEquals("Payload truncated", payload, agent.getRequests().get(0));
+  }
+
+  /**
+   * A silent agent must produce a timeout rather than an unbounded wait.
+   */
+  @Test(expected = TimeoutException.class)
+  public void testTimeout() throws Exception {
+    agent.setSilent(true);
+    client.sendRequest("{\"action\":\"delete\"}", 200);
+  }
+
+  /**
+   * After the agent drops the connection, the client reconnects on the next request.
+   */
+  @Test
+  public void testReconnect() throws Exception {
+    Assert.assertEquals("SUCCESS", client.sendRequest("first", 5000));
+    agent.dropConnections();
+    // Wait for the client to notice the connection loss.
+    for (int i = 0; i < 50 && client.isConnected(); i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals("SUCCESS", client.sendRequest("second", 5000));
+    Assert.assertEquals(2, agent.getConnectionCount());
+  }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+package sonata.kernel.VimAdaptor.wrapper;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.Descriptors.vnfd.Unit.MemoryUnit;
+import sonata.kernel.VimAdaptor.commons.ResourceAvailabilityData;
+import sonata.kernel.VimAdaptor.wrapper.UtilisationCache.Demand;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UtilisationCacheTest {
+
+  private UtilisationCache cache;
+
+  @Before
+  public void setUp() {
+    cache = UtilisationCache.getInstance();
+    cache.clear();
+    ResourceUtilisation resource = new ResourceUtilisation();
+    resource.setTotCores(10);
+    resource.setUsedCores(2);
+    resource.setTotMemory(16384);
+    resource.setUsedMemory(4096);
+    resource.setTotStorage(100);
+    resource.setUsedStorage(20);
+    cache.update("vim-1", resource, System.currentTimeMillis());
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+  }
+
+  /**
+   * Check the availability against the cached headroom of the VIM.
+   */
+  @Test
+  public void testHeadroom() {
+    Assert.assertTrue(cache.hasHeadroom("vim-1", new Demand(8, 12288, 80)));
+    Assert.assertFalse(cache.hasHeadroom("vim-1", new Demand(9, 1024, 10)));
+    Assert.assertFalse(cache.hasHeadroom("vim-1", new Demand(1, 12289, 10)));
+    Assert.assertFalse(cache.hasHeadroom("vim-1", new Demand(1, 1024, 81)));
+    Assert.assertEquals("vim-1", cache.findVimWithHeadroom(new Demand(4, 2048, 10)));
+    Assert.assertNull(cache.findVimWithHeadroom(new Demand(40, 2048, 10)));
+    // Unknown VIMs are not rejected.
+    Assert.assertTrue(cache.hasHeadroom("vim-2", new Demand(40, 2048, 10)));
+  }
+
+  /**
+   * Check that reservations of deployments in flight reduce the headroom until released or
+   * accounted for by a refresh.
+   */
+  @Test
+  public void testReservations() {
+    Assert.assertTrue(cache.reserve("vim-1", "deploy-1", new Demand(6, 8192, 50)));
+    Assert.assertFalse(cache.reserve("vim-1", "deploy-2", new Demand(4, 1024, 10)));
+    Assert.assertTrue(cache.reserve("vim-1", "deploy-2", new Demand(2, 1024, 10)));
+
+    cache.release("deploy-2");
+    Assert.assertTrue(cache.hasHeadroom("vim-1", new Demand(2, 4096, 30)));
+
+    cache.commit("deploy-1");
+    Assert.assertFalse(cache.hasHeadroom("vim-1", new Demand(4, 1024, 10)));
+
+    // A refresh that started after the commit replaces the reservation.
+    ResourceUtilisation resource = new ResourceUtilisation();
+    resource.setTotCores(10);
+    resource.setUsedCores(8);
+    resource.setTotMemory(16384);
+    resource.setUsedMemory(12288);
+    cache.update("vim-1", resource, System.currentTimeMillis() + 1);
+    Assert.assertTrue(cache.hasHeadroom("vim-1", new Demand(2, 4096, 500)));
+  }
+
+  /**
+   * Check the conversion of the requested units in MB of memory and GB of storage.
+   */
+  @Test
+  public void testDemandUnits() {
+    ResourceAvailabilityData data = new ResourceAvailabilityData();
+    data.setCpu(4);
+    data.setMemory(2);
+    data.setMemoryUnit(MemoryUnit.GB);
+    data.setStorage(1);
+    data.setStorageUnit(MemoryUnit.TB);
+    Demand demand = Demand.of(data);
+    Assert.assertEquals(4, demand.getVcpus());
+    Assert.assertEquals(2048, demand.getMemory());
+    Assert.assertEquals(1000, demand.getStorage());
+
+    data.setMemory(512);
+    data.setMemoryUnit(MemoryUnit.MiB);
+    data.setStorage(10);
+    data.setStorageUnit(MemoryUnit.GiB);
+    demand = Demand.of(data);
+    Assert.assertEquals(512, demand.getMemory());
+    Assert.assertEquals(11, demand.getStorage());
+
+    data.setMemory(2);
+    data.setMemoryUnit(MemoryUnit.GiB);
+    data.setStorage(512);
+    data.setStorageUnit(MemoryUnit.MiB);
+    demand = Demand.of(data);
+    Assert.assertEquals(2048, demand.getMemory());
+    Assert.assertEquals(1, demand.getStorage());
+
+    data.setMemory(1536);
+    data.setMemoryUnit(MemoryUnit.KiB);
+    demand = Demand.of(data);
+    Assert.assertEquals(2, demand.getMemory());
+  }
+
+  /**
+   * Collect several VIMs in parallel, one of them hanging, and check the partial result.
+   */
+  @Test
+  public void testParallelCollection() {
+    SlowVimCache slowCache = new SlowVimCache();
+    slowCache.latency.put("vim-fast-1", 200L);
+    slowCache.latency.put("vim-fast-2", 200L);
+    slowCache.latency.put("vim-stale", 5000L);
+    slowCache.latency.put("vim-down", 5000L);
+    slowCache.update("vim-stale", new ResourceUtilisation(), 0);
+    ArrayList<String> vimList = new ArrayList<String>(slowCache.latency.keySet());
+
+    long start = System.currentTimeMillis();
+    LinkedHashMap<String, String> status = slowCache.collect(vimList, 1000, 800);
+    long elapsed = System.currentTimeMillis() - start;
+
+    Assert.assertTrue("Collection took " + elapsed + "ms", elapsed < 2000);
+    Assert.assertEquals(vimList, new ArrayList<String>(status.keySet()));
+    Assert.assertEquals(UtilisationCache.STATUS_OK, status.get("vim-fast-1"));
+    Assert.assertEquals(UtilisationCache.STATUS_OK, status.get("vim-fast-2"));
+    Assert.assertEquals(UtilisationCache.STATUS_STALE, status.get("vim-stale"));
+    Assert.assertEquals(UtilisationCache.STATUS_UNREACHABLE, status.get("vim-down"));
+    Assert.assertNotNull(slowCache.getUtilisation("vim-fast-1"));
+  }
+
+  /**
+   * Issue concurrent collections and check that each VIM is queried once.
+   */
+  @Test
+  public void testSingleFlightCollection() throws InterruptedException {
+    final SlowVimCache slowCache = new SlowVimCache();
+    slowCache.latency.put("vim-1", 500L);
+    slowCache.latency.put("vim-2", 500L);
+    final ArrayList<String> vimList = new ArrayList<String>(slowCache.latency.keySet());
+    final AtomicInteger completed = new AtomicInteger(0);
+
+    ArrayList<Thread> callers = new ArrayList<Thread>();
+    for (int i = 0; i < 5; i++) {
+      Thread caller = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          LinkedHashMap<String, String> status = slowCache.collect(vimList, 0, 2000);
+          if (!status.containsValue(UtilisationCache.STATUS_UNREACHABLE)) {
+            completed.incrementAndGet();
+          }
+        }
+      });
+      callers.add(caller);
+      caller.start();
+    }
+    for (Thread caller : callers) {
+      caller.join();
+    }
+    Assert.assertEquals(5, completed.get());
+    Assert.assertEquals(2, slowCache.queries.get());
+  }
+
+  /**
+   * Issue a collection while another one with different arguments is in flight, and check that it
+   * gets the status of its own VIMs within its own deadline.
+   */
+  @Test
+  public void testConcurrentCollectionArguments() throws InterruptedException {
+    final SlowVimCache slowCache = new SlowVimCache();
+    slowCache.latency.put("vim-1", 1000L);
+    slowCache.latency.put("vim-2", 100L);
+    final ArrayList<String> first = new ArrayList<String>();
+    first.add("vim-1");
+    Thread caller = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        slowCache.collect(first, 0, 2000);
+      }
+    });
+    caller.start();
+    Thread.sleep(100);
+
+    ArrayList<String> second = new ArrayList<String>();
+    second.add("vim-1");
+    second.add("vim-2");
+    long start = System.currentTimeMillis();
+    LinkedHashMap<String, String> status = slowCache.collect(second, 0, 300);
+    long elapsed = System.currentTimeMillis() - start;
+    caller.join();
+
+    Assert.assertTrue("Collection took " + elapsed + "ms", elapsed < 800);
+    Assert.assertEquals(second, new ArrayList<String>(status.keySet()));
+    Assert.assertEquals(UtilisationCache.STATUS_UNREACHABLE, status.get("vim-1"));
+    Assert.assertEquals(UtilisationCache.STATUS_OK, status.get("vim-2"));
+    // The refresh of vim-1 already in flight is shared.
+    Assert.assertEquals(2, slowCache.queries.get());
+  }
+
+  private static class SlowVimCache extends UtilisationCache {
+
+    private Hashtable<String, Long> latency = new Hashtable<String, Long>();
+    private AtomicInteger queries = new AtomicInteger(0);
+
+    @Override
+    protected ResourceUtilisation queryVim(String vimUuid) {
+      queries.incrementAndGet();
+      try {
+        Thread.sleep(latency.get(vimUuid));
+      } catch (InterruptedException e) {
+        return null;
+      }
+      ResourceUtilisation resource = new ResourceUtilisation();
+      resource.setTotCores(10);
+      resource.setTotMemory(1024);
+      return resource;
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.VimAdaptor.wrapper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class WrapperFutureTest {
+
+  /**
+   * Register callbacks before and after completion and check each runs once with the outcome.
+   */
+  @Test
+  public void testCallbacks() throws Exception {
+    final ArrayList<String> received = new ArrayList<String>();
+    WrapperCallback callback = new WrapperCallback() {
+      @Override
+      public void onComplete(WrapperStatusUpdate update) {
+        received.add(update.getSid() + ":" + update.getStatus());
+      }
+    };
+    WrapperFuture future = new WrapperFuture();
+    future.whenComplete(callback);
+    Assert.assertFalse(future.isDone());
+    Assert.assertTrue(received.isEmpty());
+
+    Assert.assertTrue(future.complete(new WrapperStatusUpdate("sid-1", "SUCCESS", "body")));
+    Assert.assertFalse(future.complete(new WrapperStatusUpdate("sid-1", "ERROR", "late")));
+    future.whenComplete(callback);
+
+    Assert.assertTrue(future.isDone());
+    Assert.assertEquals(2, received.size());
+    Assert.assertEquals("sid-1:SUCCESS", received.get(0));
+    Assert.assertEquals("sid-1:SUCCESS", received.get(1));
+    Assert.assertEquals("body", future.get().getBody());
+  }
+
+  /**
+   * Complete a future from another thread and wait for it.
+   */
+  @Test
+  public void testCompletionFromWrapperThread() throws Exception {
+    final WrapperFuture future = new WrapperFuture();
+    try {
+      future.get(10, TimeUnit.MILLISECONDS);
+      Assert.fail("Future completed without an outcome");
+    } catch (TimeoutException e) {
+      // Expected.
+    }
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        future.complete(new WrapperStatusUpdate("sid-2", "ERROR", "failure"));
+      }
+    }).start();
+    WrapperStatusUpdate update = future.get(5, TimeUnit.SECONDS);
+    Assert.assertEquals("ERROR", update.getStatus());
+    Assert.assertEquals("sid-2", update.getSid());
+  }
+
+}
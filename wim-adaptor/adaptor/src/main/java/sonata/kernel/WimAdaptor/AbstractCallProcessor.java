@@ -29,7 +29,8 @@ package sonata.kernel.WimAdaptor;
 
 import java.util.Observer;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
 public abstract class AbstractCallProcessor implements Runnable, Observer {
 
@@ -41,13 +42,13 @@ public abstract class AbstractCallProcessor implements Runnable, Observer {
     return sid;
   }
 
-  public WimAdaptorMux getMux() {
+  public AdaptorMux getMux() {
     return mux;
   }
 
   private ServicePlatformMessage message;
   private String sid;
-  private WimAdaptorMux mux;
+  private AdaptorMux mux;
 
   /**
    * Abtract class for an API call processor. The processo runs on a thread an processes a
@@ -55,9 +56,9 @@ public abstract class AbstractCallProcessor implements Runnable, Observer {
    * 
    * @param message The ServicePlatformMessage to process
    * @param sid the Session Identifier for this API call
-   * @param mux the WimAdaptorMux where response messages are to be sent.
+   * @param mux the AdaptorMux where response messages are to be sent.
    */
-  public AbstractCallProcessor(ServicePlatformMessage message, String sid, WimAdaptorMux mux) {
+  public AbstractCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
     this.message = message;
     this.sid = sid;
     this.mux = mux;
@@ -34,7 +34,8 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.WimAdaptor.wrapper.WrapperBay;
 import sonata.kernel.WimAdaptor.wrapper.WrapperConfiguration;
 
@@ -47,7 +48,7 @@ public class AddWimCallProcessor extends AbstractCallProcessor {
    * @param sid the session ID of thi API call
    * @param mux the Adaptor Mux to which send responses.
    */
-  public AddWimCallProcessor(ServicePlatformMessage message, String sid, WimAdaptorMux mux) {
+  public AddWimCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
     super(message, sid, mux);
 
   }
@@ -74,6 +75,13 @@ public class AddWimCallProcessor extends AbstractCallProcessor {
     for (int i = 0; i < jsonServicedSegments.length(); i++) {
       servicedSegments.add(jsonServicedSegments.getString(i));
     }
+    // Optional VTN settings, the wrapper falls back to its defaults when they are absent.
+    String vtnTenant = jsonObject.optString("vtn_tenant", null);
+    String vtnBridge = jsonObject.optString("vtn_bridge", null);
+    JSONArray jsonFlowConditions = jsonObject.optJSONArray("flow_conditions");
+    // Optional rate of the API calls sent to the WIM.
+    double apiRate = jsonObject.optDouble("api_rate", 0);
+    JSONObject jsonApiRates = jsonObject.optJSONObject("api_rates");
 
 
     config.setUuid(UUID.randomUUID().toString());
@@ -83,6 +91,15 @@ public class AddWimCallProcessor extends AbstractCallProcessor {
     config.setAuthUserName(authUser);
     config.setAuthPass(authPass);
     config.setServicedSegments(servicedSegments);
+    config.setVtnTenant(vtnTenant);
+    config.setVtnBridge(vtnBridge);
+    if (jsonFlowConditions != null) {
+      config.setFlowConditions(jsonFlowConditions.toString());
+    }
+    config.setApiRate(apiRate);
+    if (jsonApiRates != null) {
+      config.setApiRates(jsonApiRates.toString());
+    }
     String output = null;
     boolean out = true;
 
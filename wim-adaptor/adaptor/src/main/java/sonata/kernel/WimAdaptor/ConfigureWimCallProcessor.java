@@ -1,30 +1,32 @@
 package sonata.kernel.WimAdaptor;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Observable;
 
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
-import sonata.kernel.WimAdaptor.commons.DeployServiceResponse;
-import sonata.kernel.WimAdaptor.commons.Status;
-import sonata.kernel.WimAdaptor.commons.VnfRecord;
-import sonata.kernel.WimAdaptor.commons.vnfd.UnitDeserializer;
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.DescriptorMapper;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.records.Status;
+import sonata.kernel.Descriptors.records.VnfRecord;
 import sonata.kernel.WimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.WimAdaptor.wrapper.WrapperRecord;
 
 public class ConfigureWimCallProcessor extends AbstractCallProcessor {
 
   private static final org.slf4j.Logger Logger =
       LoggerFactory.getLogger(ConfigureWimCallProcessor.class);
 
-  public ConfigureWimCallProcessor(ServicePlatformMessage message, String sid, WimAdaptorMux mux) {
+  public ConfigureWimCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
     super(message, sid, mux);
   }
 
@@ -38,36 +40,58 @@ public class ConfigureWimCallProcessor extends AbstractCallProcessor {
 
     DeployServiceResponse response = null;
     boolean out = true;;
-    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    SimpleModule module = new SimpleModule();
-    module.addDeserializer(sonata.kernel.WimAdaptor.commons.vnfd.Unit.class,
-        new UnitDeserializer());
-    mapper.registerModule(module);
-    mapper.enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING);
+    ObjectMapper mapper = DescriptorMapper.newMapper(new YAMLFactory());
     mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
     mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
     mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
     mapper.setSerializationInclusion(Include.NON_NULL);
     try {
-      response = mapper.readValue(message.getBody(), DeployServiceResponse.class);
+      // A VIM Adaptor running in the same JVM hands over the response object itself.
+      if (message.getValue() instanceof DeployServiceResponse) {
+        response = (DeployServiceResponse) message.getValue();
+      } else {
+        response = mapper.readValue(message.getBody(), DeployServiceResponse.class);
+      }
       Logger.info("payload parsed");
     } catch (Exception e) {
       Logger.error("Error deploying the system: " + e.getMessage(), e);
       this.sendToMux(new ServicePlatformMessage(
           "{\"request_status\":\"fail\",\"message\":\"Deployment Error\"}", "application/json",
           message.getReplyTo(), message.getSid(), null));
-      out = false;
+      return false;
     }
 
     String instanceId = response.getNsr().getId();
-    String vimId = response.getVimUuid();
+    // A service spanning several PoPs lists all its segments, otherwise only vimUuid is set.
+    ArrayList<String> segments = new ArrayList<String>();
+    if (response.getVimList() != null) {
+      segments.addAll(response.getVimList());
+    }
+    if (segments.isEmpty()) {
+      segments.add(response.getVimUuid());
+    }
+
+    ArrayList<WimWrapper> wims = new ArrayList<WimWrapper>();
+    HashSet<String> wimUuids = new HashSet<String>();
+    for (String segment : segments) {
+      WrapperRecord record = WrapperBay.getInstance().getWimRecord(segment);
+      if (record == null) {
+        Logger.error("No WIM serving the network segment " + segment);
+        sendResponse("{\"request_status\":\"ERROR\",\"module\":\"WimAdaptor\",\"message\":\""
+            + "No WIM serving the network segment " + segment + "\"}");
+        return false;
+      }
+      // Segments served by the same WIM are configured once.
+      if (wimUuids.add(record.getConfig().getUuid())) {
+        wims.add((WimWrapper) record.getWimWrapper());
+      }
+    }
 
-    WimWrapper wim = (WimWrapper) WrapperBay.getInstance().getWimRecord(vimId).getWimWrapper();
-    wim.addObserver(this);
-    Logger.debug("Configuring WIM...");
+    Logger.debug("Configuring " + wims.size() + " WIM(s)...");
     ServicePlatformMessage responseMessage = null;
-    if (wim.configureNetwork(instanceId)) {
+    if (new WanConfigurator().configure(instanceId, wims)) {
       response.setVimUuid(null);
+      response.setVimList(null);
       response.getNsr().setStatus(Status.normal_operation);
       for (VnfRecord vnfr : response.getVnfrs()) {
         vnfr.setStatus(Status.normal_operation);
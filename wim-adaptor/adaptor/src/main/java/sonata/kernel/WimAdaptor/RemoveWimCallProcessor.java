@@ -31,7 +31,8 @@ import java.util.Observable;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 import sonata.kernel.WimAdaptor.wrapper.WrapperBay;
 
 public class RemoveWimCallProcessor extends AbstractCallProcessor {
@@ -43,7 +44,7 @@ public class RemoveWimCallProcessor extends AbstractCallProcessor {
    * @param sid the session ID of thi API call
    * @param mux the Adaptor Mux to which send responses.
    */
-  public RemoveWimCallProcessor(ServicePlatformMessage message, String sid, WimAdaptorMux mux) {
+  public RemoveWimCallProcessor(ServicePlatformMessage message, String sid, AdaptorMux mux) {
     super(message, sid, mux);
 
   }
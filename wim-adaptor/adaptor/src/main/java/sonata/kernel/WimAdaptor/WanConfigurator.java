@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configures the WAN of a service instance across all the WIMs involved. The WIMs are configured
+ * concurrently, so the configuration takes about as long as the slowest one. If any WIM fails, the
+ * configuration is rolled back on the WIMs that had already succeeded.
+ */
+public class WanConfigurator {
+
+  public static final long DEFAULT_TIMEOUT = 60000;
+
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(WanConfigurator.class);
+
+  private static ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "wan-configurator");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private long timeout;
+
+  /**
+   * Create a configurator that waits at most the default timeout for each WIM.
+   */
+  public WanConfigurator() {
+    this(DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Create a configurator.
+   *
+   * @param timeout the maximum time to wait for the WIMs to be configured, in milliseconds
+   */
+  public WanConfigurator(long timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Configure the WAN for a service instance on all the given WIMs.
+   *
+   * @param instanceId the ID of the service instance
+   * @param wims the WIMs serving the segments of the service
+   * @return true if all the WIMs have been configured, false if the configuration has been rolled
+   *         back
+   */
+  public boolean configure(final String instanceId, List<WimWrapper> wims) {
+    ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (final WimWrapper wim : wims) {
+      results.add(executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+          return wim.configureNetwork(instanceId);
+        }
+      }));
+    }
+
+    long deadline = System.currentTimeMillis() + timeout;
+    ArrayList<WimWrapper> configured = new ArrayList<WimWrapper>();
+    boolean out = true;
+    for (int i = 0; i < wims.size(); i++) {
+      Boolean result;
+      try {
+        result = results.get(i).get(Math.max(0, deadline - System.currentTimeMillis()),
+            TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+        Logger.error("Error configuring WIM: " + e.getCause().getMessage(), e.getCause());
+        result = false;
+      } catch (TimeoutException e) {
+        Logger.error("Timeout configuring WIM for instance " + instanceId);
+        // The outcome is unknown, make sure the WIM is left clean.
+        results.get(i).cancel(true);
+        configured.add(wims.get(i));
+        result = false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result = false;
+      }
+      if (result != null && result) {
+        configured.add(wims.get(i));
+      } else {
+        out = false;
+      }
+    }
+
+    if (!out && !configured.isEmpty()) {
+      Logger.warn("WAN configuration of instance " + instanceId + " failed. Rolling back "
+          + configured.size() + " WIM(s)");
+      rollback(instanceId, configured);
+    }
+    return out;
+  }
+
+  private void rollback(final String instanceId, List<WimWrapper> wims) {
+    ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (final WimWrapper wim : wims) {
+      results.add(executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+          return wim.removeNetConfiguration(instanceId);
+        }
+      }));
+    }
+    long deadline = System.currentTimeMillis() + timeout;
+    for (Future<Boolean> result : results) {
+      try {
+        if (!result.get(Math.max(0, deadline - System.currentTimeMillis()),
+            TimeUnit.MILLISECONDS)) {
+          Logger.error("Unable to roll back the WAN configuration of instance " + instanceId);
+        }
+      } catch (Exception e) {
+        Logger.error("Unable to roll back the WAN configuration of instance " + instanceId, e);
+      }
+    }
+  }
+
+}
@@ -27,6 +27,8 @@
 package sonata.kernel.WimAdaptor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -34,31 +36,39 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.slf4j.LoggerFactory;
 
-import sonata.kernel.WimAdaptor.messaging.AbstractMsgBusConsumer;
-import sonata.kernel.WimAdaptor.messaging.AbstractMsgBusProducer;
-import sonata.kernel.WimAdaptor.messaging.MsgBusConsumer;
-import sonata.kernel.WimAdaptor.messaging.MsgBusProducer;
-import sonata.kernel.WimAdaptor.messaging.RabbitMqConsumer;
-import sonata.kernel.WimAdaptor.messaging.RabbitMqProducer;
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.AdaptorPlugin;
+import sonata.kernel.AdaptorCommons.HeartBeat;
+import sonata.kernel.AdaptorCommons.LocalChannel;
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusProducer;
+import sonata.kernel.AdaptorCommons.messaging.BrokerConfig;
+import sonata.kernel.AdaptorCommons.messaging.MsgBusProducer;
+import sonata.kernel.AdaptorCommons.messaging.RabbitMqConsumer;
+import sonata.kernel.AdaptorCommons.messaging.RabbitMqProducer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.TrafficClass;
 import sonata.kernel.WimAdaptor.wrapper.WimRepo;
 import sonata.kernel.WimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.WimAdaptor.wrapper.WrapperRecord;
 
 
 
-public class WimAdaptorCore {
+public class WimAdaptorCore implements AdaptorPlugin {
 
   public static final String APP_ID = "sonata.kernel.WimAdapter";
-  private MsgBusConsumer northConsumer;
+  private static final String configureTopic = "infrastructure.wan.configure";
+  private AbstractMsgBusConsumer northConsumer;
   private MsgBusProducer northProducer;
   private WimAdaptorDispatcher dispatcher;
-  private WimAdaptorMux mux;
+  private AdaptorMux mux;
   private String status;
   private HeartBeat heartbeat;
   private double rate;
   private Object writeLock = new Object();
   private String uuid;
   private String registrationSid;
+  private String replyTopic = APP_ID + ".reply." + UUID.randomUUID().toString();
 
   private static final String version = "0.0.1";
   private static final String description = "Service Platform WIM Infrastructure Adapter";
@@ -68,7 +78,7 @@ public class WimAdaptorCore {
   /**
    * utility constructor for Tests. Allows attaching mock MsgBus to the adaptor plug-in Manager.
    * 
-   * @param muxQueue A Java BlockingQueue for the WimAdaptorMux
+   * @param muxQueue A Java BlockingQueue for the AdaptorMux
    * @param dispatcherQueue A Java BlockingQueue for the WimAdaptorDispatcher
    * @param consumer The consumer queuing messages in the dispatcher queue
    * @param producer The producer de-queuing messages from the mux queue
@@ -77,8 +87,9 @@ public class WimAdaptorCore {
   public WimAdaptorCore(BlockingQueue<ServicePlatformMessage> muxQueue,
       BlockingQueue<ServicePlatformMessage> dispatcherQueue, AbstractMsgBusConsumer consumer,
       AbstractMsgBusProducer producer, double rate) {
-    mux = new WimAdaptorMux(muxQueue);
+    mux = new AdaptorMux(muxQueue);
     dispatcher = new WimAdaptorDispatcher(dispatcherQueue, mux, this);
+    consumer.subscribe(dispatcher.getRoutingTable());
     northConsumer = consumer;
     northProducer = producer;
     WimRepo repo = new WimRepo();
@@ -98,7 +109,7 @@ public class WimAdaptorCore {
     // - Mux and queue
     BlockingQueue<ServicePlatformMessage> muxQueue =
         new LinkedBlockingQueue<ServicePlatformMessage>();
-    mux = new WimAdaptorMux(muxQueue);
+    mux = new AdaptorMux(muxQueue);
 
     // - Dispatcher and queue
     BlockingQueue<ServicePlatformMessage> dispatcherQueue =
@@ -111,13 +122,31 @@ public class WimAdaptorCore {
 
     // - Northbound interface
 
-    northConsumer = new RabbitMqConsumer(dispatcherQueue);
-    northProducer = new RabbitMqProducer(muxQueue);
+    RabbitMqConsumer consumer = new RabbitMqConsumer(dispatcherQueue, APP_ID, "WimAdaptor");
+    consumer.subscribe(dispatcher.getRoutingTable());
+    consumer.retireTopic("infrastructure.wan.#");
+    consumer.retireTopic("platform.management.plugin.register");
+    consumer.retireTopic("platform.management.plugin.deregister");
+    for (TrafficClass trafficClass : loadTrafficClasses()) {
+      consumer.addLane(trafficClass, dispatcher.addLane(trafficClass));
+    }
+    northConsumer = consumer;
+    northProducer = new RabbitMqProducer(muxQueue, APP_ID);
 
     status = "READY";
 
   }
 
+  private static ArrayList<TrafficClass> loadTrafficClasses() {
+    try {
+      return BrokerConfig.load().getTrafficClasses();
+    } catch (IOException e) {
+      Logger.warn("Unable to load the traffic classes, all the topics share the default lane: "
+          + e.getMessage());
+      return new ArrayList<TrafficClass>();
+    }
+  }
+
   /**
    * Start the adaptor engines. Starts reading messages from the MsgBus
    * 
@@ -128,9 +157,17 @@ public class WimAdaptorCore {
     northProducer.connectToBus();
     northConsumer.connectToBus();
     northProducer.startProducing();
+    // - Load the state of the registered WIMs before serving requests for them
+    for (WrapperRecord record : WrapperBay.getInstance().loadWimRecords()) {
+      if (record.getWimWrapper() instanceof WimWrapper) {
+        ((WimWrapper) record.getWimWrapper()).reconcile();
+      }
+    }
     northConsumer.startConsuming();
 
     dispatcher.start();
+    // - Serve the VIM Adaptor running in the same JVM, if any, without the MsgBus
+    LocalChannel.getInstance().register(configureTopic, northConsumer, mux);
 
     register();
     status = "RUNNING";
@@ -144,7 +181,7 @@ public class WimAdaptorCore {
         + WimAdaptorCore.version + "\",\"description\":\"" + WimAdaptorCore.description + "\"}";
     String topic = "platform.management.plugin.register";
     ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json", topic,
-        java.util.UUID.randomUUID().toString(), topic);
+        UUID.randomUUID().toString(), getRegistrationReplyTopic());
     synchronized (writeLock) {
       try {
         this.registrationSid = message.getSid();
@@ -160,7 +197,7 @@ public class WimAdaptorCore {
     String body = "{\"uuid\":\"" + this.uuid + "\"}";
     String topic = "platform.management.plugin.deregister";
     ServicePlatformMessage message = new ServicePlatformMessage(body, "application/json", topic,
-        java.util.UUID.randomUUID().toString(), topic);
+        UUID.randomUUID().toString(), getDeregistrationReplyTopic());
     synchronized (writeLock) {
       try {
         this.registrationSid = message.getSid();
@@ -177,6 +214,7 @@ public class WimAdaptorCore {
    * Stop the engines: Message production and consumption, heart-beat.
    */
   public void stop() {
+    LocalChannel.getInstance().unregister(configureTopic);
     this.deregister();
     this.heartbeat.stop();
     northProducer.stopProducing();
@@ -206,6 +244,7 @@ public class WimAdaptorCore {
   /**
    * @return this plug-in UUID.
    */
+  @Override
   public String getUuid() {
     return this.uuid;
   }
@@ -214,6 +253,7 @@ public class WimAdaptorCore {
   /**
    * @return The status of this plug-in.
    */
+  @Override
   public String getState() {
     return this.status;
   }
@@ -272,4 +312,18 @@ public class WimAdaptorCore {
   public String getRegistrationSid() {
     return registrationSid;
   }
+
+  /**
+   * @return the private topic on which the plugin-manager replies to the registration.
+   */
+  public String getRegistrationReplyTopic() {
+    return replyTopic + ".register";
+  }
+
+  /**
+   * @return the private topic on which the plugin-manager replies to the deregistration.
+   */
+  public String getDeregistrationReplyTopic() {
+    return replyTopic + ".deregister";
+  }
 }
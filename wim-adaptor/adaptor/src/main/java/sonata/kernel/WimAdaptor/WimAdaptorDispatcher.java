@@ -26,20 +26,24 @@
 
 package sonata.kernel.WimAdaptor;
 
+import java.util.ArrayList;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.AdaptorMux;
+import sonata.kernel.AdaptorCommons.Lane;
+import sonata.kernel.AdaptorCommons.RoutingTable;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.TrafficClass;
 
 
 public class WimAdaptorDispatcher implements Runnable {
 
-  private BlockingQueue<ServicePlatformMessage> myQueue;
-  private Executor myThreadPool;
-  private boolean stop = false;
-  private WimAdaptorMux mux;
+  private Lane defaultLane;
+  private ArrayList<Lane> lanes;
+  private AdaptorMux mux;
   private WimAdaptorCore core;
+  private RoutingTable routingTable;
 
   /**
    * Create an WimAdaptorDispatcher attached to the queue. CallProcessor will be bind to the
@@ -47,63 +51,97 @@ public class WimAdaptorDispatcher implements Runnable {
    * 
    * @param queue the queue the dispatcher is attached to
    * 
-   * @param mux the WimAdaptorMux the CallProcessors will be attached to
+   * @param mux the AdaptorMux the CallProcessors will be attached to
    */
-  public WimAdaptorDispatcher(BlockingQueue<ServicePlatformMessage> queue, WimAdaptorMux mux,
+  public WimAdaptorDispatcher(BlockingQueue<ServicePlatformMessage> queue, AdaptorMux mux,
       WimAdaptorCore core) {
-    myQueue = queue;
-    myThreadPool = Executors.newCachedThreadPool();
     this.mux = mux;
     this.core = core;
+    this.routingTable = buildRoutingTable();
+    this.defaultLane = new Lane(TrafficClass.DEFAULT, queue, routingTable, 0);
+    this.lanes = new ArrayList<Lane>();
+    this.lanes.add(defaultLane);
   }
 
   @Override
   public void run() {
-    ServicePlatformMessage message;
-    do {
-      try {
-        message = myQueue.take();
-
-        if (isRegistrationResponse(message)) {
-          this.core.handleRegistrationResponse(message);
-        } else if (isDeregistrationResponse(message)) {
-          this.core.handleDeregistrationResponse(message);
-        } else {
-          if (message.getTopic().endsWith("wan.add")) {
-            myThreadPool.execute(new AddWimCallProcessor(message, message.getSid(), mux));
-          } else if (message.getTopic().endsWith("wan.remove")) {
-            myThreadPool.execute(new RemoveWimCallProcessor(message, message.getSid(), mux));
-          } else if (message.getTopic().endsWith("wan.configure")) {
-            myThreadPool.execute(new ConfigureWimCallProcessor(message, message.getSid(), mux));
-          }
-        }
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
-    } while (!stop);
+    defaultLane.run();
   }
 
-  // private void handleManagementMessage(ServicePlatformMessage message) {
-  //
-  // }
-
+  /**
+   * Serve a traffic class on its own lane, with its own queue and worker pool.
+   * 
+   * @param trafficClass the traffic class
+   * @return the queue of the lane, in which the consumer enqueues the messages of the class
+   */
+  public BlockingQueue<ServicePlatformMessage> addLane(TrafficClass trafficClass) {
+    BlockingQueue<ServicePlatformMessage> queue = new LinkedBlockingQueue<ServicePlatformMessage>();
+    lanes.add(new Lane(trafficClass, queue, routingTable));
+    return queue;
+  }
 
-  private boolean isRegistrationResponse(ServicePlatformMessage message) {
-    return message.getTopic().equals("platform.management.plugin.register")
-        && message.getSid().equals(core.getRegistrationSid());
+  /**
+   * @return the routing table of this dispatcher, from which the MsgBus bindings are generated.
+   */
+  public RoutingTable getRoutingTable() {
+    return routingTable;
   }
 
-  private boolean isDeregistrationResponse(ServicePlatformMessage message) {
-    return message.getTopic().equals("platform.management.plugin.deregister")
-        && message.getSid().equals(core.getRegistrationSid());
+  private RoutingTable buildRoutingTable() {
+    RoutingTable table = new RoutingTable();
+    table.addRoute("infrastructure.wan.add", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new AddWimCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.wan.remove", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new RemoveWimCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    table.addRoute("infrastructure.wan.configure", new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        new ConfigureWimCallProcessor(message, message.getSid(), mux).run();
+      }
+    });
+    // Plug-in manager replies
+    table.addReplyRoute(core.getRegistrationReplyTopic(), new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        if (message.getSid().equals(core.getRegistrationSid())) {
+          core.handleRegistrationResponse(message);
+        }
+      }
+    });
+    table.addReplyRoute(core.getDeregistrationReplyTopic(), new RoutingTable.Route() {
+      @Override
+      public void handle(ServicePlatformMessage message) {
+        if (message.getSid().equals(core.getRegistrationSid())) {
+          core.handleDeregistrationResponse(message);
+        }
+      }
+    });
+    return table;
   }
 
+  /**
+   * Start the lanes of the dispatcher.
+   */
   public void start() {
-    Thread thread = new Thread(this);
-    thread.start();
+    for (Lane lane : lanes) {
+      lane.start();
+    }
   }
 
+  /**
+   * Stop the lanes of the dispatcher.
+   */
   public void stop() {
-    this.stop = true;
+    for (Lane lane : lanes) {
+      lane.stop();
+    }
   }
 }
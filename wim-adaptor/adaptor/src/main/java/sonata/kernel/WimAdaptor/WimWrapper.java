@@ -31,4 +31,10 @@ public abstract class WimWrapper extends AbstractWrapper implements Wrapper {
    */
   public abstract boolean removeNetConfiguration(String instanceId);
 
+  /**
+   * Bring the state the wrapper keeps about the WAN in line with the WIM, e.g. when the adaptor
+   * starts. Wrappers that keep no state do nothing.
+   */
+  public void reconcile() {}
+
 }
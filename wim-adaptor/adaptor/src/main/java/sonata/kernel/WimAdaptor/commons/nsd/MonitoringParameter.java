@@ -1,60 +0,0 @@
-/**
- * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
- * 
- * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
- * in compliance with the License. You may obtain a copy of the License at
- * 
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied. See the License for the specific language governing permissions and limitations under
- * the License.
- * 
- * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
- * may be used to endorse or promote products derived from this software without specific prior
- * written permission.
- * 
- * This work has been performed in the framework of the SONATA project, funded by the European
- * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
- * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
- * (www.sonata-nfv.eu).
- *
- * @author Dario Valocchi (Ph.D.), UCL
- * 
- */
-
-package sonata.kernel.WimAdaptor.commons.nsd;
-
-public class MonitoringParameter {
-
-  private String desc;
-  private String metric;
-  private String unit;
-
-  public String getDesc() {
-    return desc;
-  }
-
-  public String getMetric() {
-    return metric;
-  }
-
-  public String getUnit() {
-    return unit;
-  }
-
-  public void setDesc(String desc) {
-    this.desc = desc;
-  }
-
-  public void setMetric(String metric) {
-    this.metric = metric;
-  }
-
-  public void setUnit(String unit) {
-    this.unit = unit;
-  }
-
-
-}
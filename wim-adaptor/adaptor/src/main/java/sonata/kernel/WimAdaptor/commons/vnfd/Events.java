@@ -1,81 +0,0 @@
-/**
- * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
- * 
- * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
- * in compliance with the License. You may obtain a copy of the License at
- * 
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied. See the License for the specific language governing permissions and limitations under
- * the License.
- * 
- * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
- * may be used to endorse or promote products derived from this software without specific prior
- * written permission.
- * 
- * This work has been performed in the framework of the SONATA project, funded by the European
- * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
- * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
- * (www.sonata-nfv.eu).
- *
- * @author Dario Valocchi (Ph.D.), UCL
- * 
- */
-
-package sonata.kernel.WimAdaptor.commons.vnfd;
-
-import com.fasterxml.jackson.annotation.JsonProperty;
-
-public class Events {
-
-  private VnfEvent start;
-  private VnfEvent stop;
-  private VnfEvent restart;
-  @JsonProperty("scale-in")
-  private VnfEvent scaleIn;
-  @JsonProperty("scale-out")
-  private VnfEvent scaleOut;
-
-  public VnfEvent getStart() {
-    return start;
-  }
-
-  public VnfEvent getStop() {
-    return stop;
-  }
-
-  public VnfEvent getRestart() {
-    return restart;
-  }
-
-  public VnfEvent getScaleIn() {
-    return scaleIn;
-  }
-
-  public VnfEvent getScaleOut() {
-    return scaleOut;
-  }
-
-  public void setStart(VnfEvent start) {
-    this.start = start;
-  }
-
-  public void setStop(VnfEvent stop) {
-    this.stop = stop;
-  }
-
-  public void setRestart(VnfEvent restart) {
-    this.restart = restart;
-  }
-
-  public void setScaleIn(VnfEvent scaleIn) {
-    this.scaleIn = scaleIn;
-  }
-
-  public void setScaleOut(VnfEvent scaleOut) {
-    this.scaleOut = scaleOut;
-  }
-
-}
@@ -37,6 +37,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Hashtable;
 import java.util.Properties;
 
 import org.json.JSONObject;
@@ -48,6 +49,9 @@ public class WimRepo {
 
   private final static String configFilePath = "/etc/son-mano/postgres.config";
   private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(WimRepo.class);
+  private static final String FLOW_USERS_TABLE = "CREATE TABLE IF NOT EXISTS flow_users "
+      + "(WIM_UUID TEXT NOT NULL," + " CONDITION TEXT NOT NULL," + " INSTANCE_UUID TEXT NOT NULL,"
+      + " PRIMARY KEY (WIM_UUID, CONDITION, INSTANCE_UUID));";
   private Properties prop;
 
   /**
@@ -130,12 +134,27 @@ public class WimRepo {
         stmt = connection.createStatement();
         sql = "CREATE TABLE wim " + "(UUID TEXT PRIMARY KEY NOT NULL," + " TYPE TEXT,"
             + " VENDOR TEXT NOT NULL," + " ENDPOINT TEXT NOT NULL," + " USERNAME TEXT NOT NULL,"
-            + " PASS TEXT," + " AUTHKEY TEXT);";
+            + " PASS TEXT," + " AUTHKEY TEXT," + " VTN_TENANT TEXT," + " VTN_BRIDGE TEXT,"
+            + " FLOW_CONDITIONS TEXT," + " API_RATE DOUBLE PRECISION," + " API_RATES TEXT);";
         stmt.executeUpdate(sql);
         sql = "CREATE TABLE serviced_segments " + "(NETWORK_SEGMENT TEXT PRIMARY KEY NOT NULL,"
             + " WIM_UUID TEXT NOT NULL REFERENCES wim(UUID));";
         stmt.executeUpdate(sql);
+        sql = FLOW_USERS_TABLE;
+        stmt.executeUpdate(sql);
 
+      } else {
+        // Repositories created before the VTN settings were configurable lack their columns.
+        stmt = connection.createStatement();
+        sql = "ALTER TABLE wim ADD COLUMN IF NOT EXISTS VTN_TENANT TEXT,"
+            + " ADD COLUMN IF NOT EXISTS VTN_BRIDGE TEXT,"
+            + " ADD COLUMN IF NOT EXISTS FLOW_CONDITIONS TEXT,"
+            + " ADD COLUMN IF NOT EXISTS API_RATE DOUBLE PRECISION,"
+            + " ADD COLUMN IF NOT EXISTS API_RATES TEXT;";
+        stmt.executeUpdate(sql);
+        // Nor the table of the service instances using the flows of each WIM.
+        sql = FLOW_USERS_TABLE;
+        stmt.executeUpdate(sql);
       }
 
     } catch (SQLException e) {
@@ -192,8 +211,9 @@ public class WimRepo {
               prop.getProperty("user"), prop.getProperty("pass"));
       connection.setAutoCommit(false);
 
-      String sql = "INSERT INTO WIM (UUID, TYPE, VENDOR, ENDPOINT, USERNAME, PASS, AUTHKEY) "
-          + "VALUES (?, ?, ?, ?, ?, ?, ?);";
+      String sql = "INSERT INTO WIM (UUID, TYPE, VENDOR, ENDPOINT, USERNAME, PASS, AUTHKEY, "
+          + "VTN_TENANT, VTN_BRIDGE, FLOW_CONDITIONS, API_RATE, API_RATES) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
       stmt = connection.prepareStatement(sql);
       stmt.setString(1, uuid);
       stmt.setString(2, record.getConfig().getWrapperType());
@@ -202,6 +222,11 @@ public class WimRepo {
       stmt.setString(5, record.getConfig().getAuthUserName());
       stmt.setString(6, record.getConfig().getAuthPass());
       stmt.setString(7, record.getConfig().getAuthKey());
+      stmt.setString(8, record.getConfig().getVtnTenant());
+      stmt.setString(9, record.getConfig().getVtnBridge());
+      stmt.setString(10, record.getConfig().getFlowConditions());
+      stmt.setDouble(11, record.getConfig().getApiRate());
+      stmt.setString(12, record.getConfig().getApiRates());
       stmt.executeUpdate();
       connection.commit();
       stmt.close();
@@ -266,6 +291,13 @@ public class WimRepo {
       connection.commit();
       stmt.close();
 
+      sql = "DELETE from FLOW_USERS where WIM_UUID=?;";
+      stmt = connection.prepareStatement(sql);
+      stmt.setString(1, uuid);
+      stmt.executeUpdate();
+      connection.commit();
+      stmt.close();
+
       sql = "DELETE from WIM where UUID=?;";
       stmt = connection.prepareStatement(sql);
       stmt.setString(1, uuid);
@@ -319,8 +351,9 @@ public class WimRepo {
       connection.setAutoCommit(false);
 
 
-      String sql = "UPDATE WIM set (TYPE, VENDOR, ENDPOINT, USERNAME, PASS, AUTHKEY) "
-          + "VALUES (?,?,?,?,?,?) WHERE UUID=?;";
+      String sql = "UPDATE WIM set (TYPE, VENDOR, ENDPOINT, USERNAME, PASS, AUTHKEY, VTN_TENANT, "
+          + "VTN_BRIDGE, FLOW_CONDITIONS, API_RATE, API_RATES) "
+          + "VALUES (?,?,?,?,?,?,?,?,?,?,?) WHERE UUID=?;";
 
       stmt = connection.prepareStatement(sql);
       stmt.setString(1, record.getConfig().getWrapperType());
@@ -329,7 +362,12 @@ public class WimRepo {
       stmt.setString(4, record.getConfig().getAuthUserName());
       stmt.setString(5, record.getConfig().getAuthPass());
       stmt.setString(6, record.getConfig().getAuthKey());
-      stmt.setString(7, uuid);
+      stmt.setString(7, record.getConfig().getVtnTenant());
+      stmt.setString(8, record.getConfig().getVtnBridge());
+      stmt.setString(9, record.getConfig().getFlowConditions());
+      stmt.setDouble(10, record.getConfig().getApiRate());
+      stmt.setString(11, record.getConfig().getApiRates());
+      stmt.setString(12, uuid);
 
 
       stmt.executeUpdate(sql);
@@ -360,7 +398,8 @@ public class WimRepo {
   }
 
   /**
-   * Retrieve the wrapper record with the specified UUID from the repository.
+   * Retrieve the wrapper record with the specified UUID from the repository, with the network
+   * segments it serves.
    * 
    * @param uuid the UUID of the wrapper to retrieve
    * 
@@ -394,6 +433,11 @@ public class WimRepo {
         String user = rs.getString("USERNAME");
         String pass = rs.getString("PASS");
         String key = rs.getString("AUTHKEY");
+        String vtnTenant = rs.getString("VTN_TENANT");
+        String vtnBridge = rs.getString("VTN_BRIDGE");
+        String flowConditions = rs.getString("FLOW_CONDITIONS");
+        double apiRate = rs.getDouble("API_RATE");
+        String apiRates = rs.getString("API_RATES");
 
         WrapperConfiguration config = new WrapperConfiguration();
         config.setUuid(uuid);
@@ -403,8 +447,25 @@ public class WimRepo {
         config.setAuthUserName(user);
         config.setAuthPass(pass);
         config.setAuthKey(key);
+        config.setVtnTenant(vtnTenant);
+        config.setVtnBridge(vtnBridge);
+        config.setFlowConditions(flowConditions);
+        config.setApiRate(apiRate);
+        config.setApiRates(apiRates);
+        rs.close();
+        stmt.close();
 
-        Wrapper wrapper = WrapperFactory.createWrapper(config);
+        stmt = connection.prepareStatement(
+            "SELECT NETWORK_SEGMENT FROM SERVICED_SEGMENTS WHERE WIM_UUID=?;");
+        stmt.setString(1, uuid);
+        rs = stmt.executeQuery();
+        ArrayList<String> servicedSegments = new ArrayList<String>();
+        while (rs.next()) {
+          servicedSegments.add(rs.getString("NETWORK_SEGMENT"));
+        }
+        config.setServicedSegments(servicedSegments);
+
+        Wrapper wrapper = WrapperFactory.createWrapper(config, this);
         output = new WrapperRecord(wrapper, config);
 
 
@@ -476,6 +537,11 @@ public class WimRepo {
         String user = rs.getString("USERNAME");
         String pass = rs.getString("PASS");
         String key = rs.getString("AUTHKEY");
+        String vtnTenant = rs.getString("VTN_TENANT");
+        String vtnBridge = rs.getString("VTN_BRIDGE");
+        String flowConditions = rs.getString("FLOW_CONDITIONS");
+        double apiRate = rs.getDouble("API_RATE");
+        String apiRates = rs.getString("API_RATES");
 
         WrapperConfiguration config = new WrapperConfiguration();
         config.setUuid(uuid);
@@ -485,8 +551,13 @@ public class WimRepo {
         config.setAuthUserName(user);
         config.setAuthPass(pass);
         config.setAuthKey(key);
+        config.setVtnTenant(vtnTenant);
+        config.setVtnBridge(vtnBridge);
+        config.setFlowConditions(flowConditions);
+        config.setApiRate(apiRate);
+        config.setApiRates(apiRates);
 
-        Wrapper wrapper = WrapperFactory.createWrapper(config);
+        Wrapper wrapper = WrapperFactory.createWrapper(config, this);
         output = new WrapperRecord(wrapper, config);
 
 
@@ -521,6 +592,188 @@ public class WimRepo {
 
   }
 
+  /**
+   * Retrieve the UUID of the WIM serving the given network segment.
+   * 
+   * @param netSegment the network segment, i.e. the UUID of the attached VIM
+   * 
+   * @return the UUID of the WIM, null if no WIM serves that segment or an error occurs
+   */
+  public String readWimUuidFromNetSegment(String netSegment) {
+
+    String output = null;
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    ResultSet rs = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "wimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      stmt = connection
+          .prepareStatement("SELECT WIM_UUID FROM SERVICED_SEGMENTS WHERE NETWORK_SEGMENT=?;");
+      stmt.setString(1, netSegment);
+      rs = stmt.executeQuery();
+      if (rs.next()) {
+        output = rs.getString("WIM_UUID");
+      }
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      output = null;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (rs != null) {
+          rs.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        output = null;
+      }
+    }
+    return output;
+  }
+
+  /**
+   * Record that a service instance uses the flows of a flow condition of a WIM.
+   * 
+   * @param wimUuid the UUID of the WIM
+   * @param condition the name of the flow condition
+   * @param instanceUuid the UUID of the service instance
+   * @return true for process success
+   */
+  public boolean writeFlowUser(String wimUuid, String condition, String instanceUuid) {
+    return updateFlowUser("INSERT INTO FLOW_USERS (WIM_UUID, CONDITION, INSTANCE_UUID) "
+        + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING;", wimUuid, condition, instanceUuid);
+  }
+
+  /**
+   * Record that a service instance no longer uses the flows of a flow condition of a WIM.
+   * 
+   * @param wimUuid the UUID of the WIM
+   * @param condition the name of the flow condition
+   * @param instanceUuid the UUID of the service instance
+   * @return true for process success
+   */
+  public boolean removeFlowUser(String wimUuid, String condition, String instanceUuid) {
+    return updateFlowUser(
+        "DELETE FROM FLOW_USERS WHERE WIM_UUID=? AND CONDITION=? AND INSTANCE_UUID=?;", wimUuid,
+        condition, instanceUuid);
+  }
+
+  private boolean updateFlowUser(String sql, String wimUuid, String condition,
+      String instanceUuid) {
+    boolean out = true;
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "wimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+      stmt = connection.prepareStatement(sql);
+      stmt.setString(1, wimUuid);
+      stmt.setString(2, condition);
+      stmt.setString(3, instanceUuid);
+      stmt.executeUpdate();
+      connection.commit();
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      out = false;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        out = false;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Retrieve the service instances using the flows of each flow condition of a WIM.
+   * 
+   * @param wimUuid the UUID of the WIM
+   * @return the UUIDs of the service instances by flow condition name, null if an error occurs
+   */
+  public Hashtable<String, ArrayList<String>> readFlowUsers(String wimUuid) {
+    Hashtable<String, ArrayList<String>> out = new Hashtable<String, ArrayList<String>>();
+
+    Connection connection = null;
+    PreparedStatement stmt = null;
+    ResultSet rs = null;
+    try {
+      Class.forName("org.postgresql.Driver");
+      connection =
+          DriverManager.getConnection(
+              "jdbc:postgresql://" + prop.getProperty("repo_host") + ":"
+                  + prop.getProperty("repo_port") + "/" + "wimregistry",
+              prop.getProperty("user"), prop.getProperty("pass"));
+      connection.setAutoCommit(false);
+
+      stmt = connection
+          .prepareStatement("SELECT CONDITION, INSTANCE_UUID FROM FLOW_USERS WHERE WIM_UUID=?;");
+      stmt.setString(1, wimUuid);
+      rs = stmt.executeQuery();
+      while (rs.next()) {
+        String condition = rs.getString("CONDITION");
+        ArrayList<String> users = out.get(condition);
+        if (users == null) {
+          users = new ArrayList<String>();
+          out.put(condition, users);
+        }
+        users.add(rs.getString("INSTANCE_UUID"));
+      }
+    } catch (SQLException e) {
+      Logger.error(e.getMessage(), e);
+      out = null;
+    } catch (ClassNotFoundException e) {
+      Logger.error(e.getMessage(), e);
+      out = null;
+    } finally {
+      try {
+        if (stmt != null) {
+          stmt.close();
+        }
+        if (rs != null) {
+          rs.close();
+        }
+        if (connection != null) {
+          connection.close();
+        }
+      } catch (SQLException e) {
+        Logger.error(e.getMessage(), e);
+        out = null;
+      }
+    }
+    return out;
+  }
+
   /**
    * List the compute WIMs stored in the repository.
    * 
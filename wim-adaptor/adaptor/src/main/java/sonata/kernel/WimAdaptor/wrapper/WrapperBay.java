@@ -26,6 +26,10 @@
 
 package sonata.kernel.WimAdaptor.wrapper;
 
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Map;
+
 
 public class WrapperBay {
 
@@ -33,7 +37,16 @@ public class WrapperBay {
 
   private WimRepo repository = null;
 
-  private WrapperBay() {}
+  // Records of the loaded WIMs by UUID, each WIM has a single wrapper whatever its segments.
+  private Hashtable<String, WrapperRecord> wimIndex;
+  // Routing index from the serviced network segment (i.e. the attached VIM) to the WIM record.
+  private Hashtable<String, WrapperRecord> segmentIndex;
+  private long generation;
+
+  private WrapperBay() {
+    this.wimIndex = new Hashtable<String, WrapperRecord>();
+    this.segmentIndex = new Hashtable<String, WrapperRecord>();
+  }
 
   /**
    * Singleton method to get the instance of the wrapperbay.
@@ -53,8 +66,11 @@ public class WrapperBay {
    * 
    * @param repo the Database reader/writer to store the wrappers
    */
-  public void setRepo(WimRepo repo) {
+  public synchronized void setRepo(WimRepo repo) {
     this.repository = repo;
+    this.wimIndex.clear();
+    this.segmentIndex.clear();
+    this.generation++;
   }
 
   /**
@@ -65,27 +81,122 @@ public class WrapperBay {
    */
   public String registerWrapper(WrapperConfiguration config) {
 
-    Wrapper newWrapper = WrapperFactory.createWrapper(config);
+    Wrapper newWrapper = WrapperFactory.createWrapper(config, this.repository);
     String output = "";
     if (newWrapper == null) {
       output = "{\"status\":\"ERROR\",\"message:\"Cannot Attach To Wim\"}";
     } else {
       WrapperRecord record = new WrapperRecord(newWrapper, config);
       this.repository.writeWimEntry(config.getUuid(), record);
+      synchronized (this) {
+        generation++;
+        index(record);
+      }
       output = "{\"status\":\"COMPLETED\",\"uuid\":\"" + config.getUuid() + "\"}";
     }
 
     return output;
   }
 
+  /**
+   * Return the record of the WIM serving the given network segment. The routing index is looked up
+   * first, so the repository is only queried the first time a segment is resolved. A WIM is loaded
+   * once, with all the segments it serves, so every segment of a WIM resolves to the same wrapper
+   * and shares its flow state.
+   * 
+   * @param vimUuid the network segment, i.e. the UUID of the attached VIM
+   * @return the WrapperRecord of the WIM, null if no WIM serves that segment
+   */
   public WrapperRecord getWimRecord(String vimUuid) {
-    WrapperRecord out;
-    out = this.repository.readWimEntryFromNetSegment(vimUuid);
+    WrapperRecord out = segmentIndex.get(vimUuid);
+    if (out == null) {
+      long readGeneration;
+      synchronized (this) {
+        readGeneration = generation;
+      }
+      String wimUuid = this.repository.readWimUuidFromNetSegment(vimUuid);
+      if (wimUuid != null) {
+        out = loadWimRecord(wimUuid, readGeneration);
+      }
+    }
     return out;
   }
 
+  /**
+   * Load the records of all the WIMs of the repository that are not loaded yet, e.g. when the
+   * adaptor starts.
+   * 
+   * @return the records of all the registered WIMs
+   */
+  public ArrayList<WrapperRecord> loadWimRecords() {
+    long readGeneration;
+    synchronized (this) {
+      readGeneration = generation;
+    }
+    ArrayList<WrapperRecord> out = new ArrayList<WrapperRecord>();
+    ArrayList<String> uuids = this.repository.listWims();
+    if (uuids == null) {
+      return out;
+    }
+    for (String uuid : uuids) {
+      WrapperRecord record = loadWimRecord(uuid, readGeneration);
+      if (record != null) {
+        out.add(record);
+      }
+    }
+    return out;
+  }
+
+  private WrapperRecord loadWimRecord(String wimUuid, long readGeneration) {
+    WrapperRecord out = wimIndex.get(wimUuid);
+    if (out != null) {
+      return out;
+    }
+    out = this.repository.readWimEntry(wimUuid);
+    synchronized (this) {
+      WrapperRecord loaded = wimIndex.get(wimUuid);
+      if (loaded != null) {
+        // Loaded by another thread in the meantime, keep a single wrapper for the WIM.
+        return loaded;
+      }
+      // Do not index a record read while WIMs were being added or removed.
+      if (out != null && readGeneration == generation) {
+        index(out);
+      }
+    }
+    return out;
+  }
+
+  private void index(WrapperRecord record) {
+    wimIndex.put(record.getConfig().getUuid(), record);
+    if (record.getConfig().getServicedSegments() != null) {
+      for (String segment : record.getConfig().getServicedSegments()) {
+        segmentIndex.put(segment, record);
+      }
+    }
+  }
+
+  /**
+   * Remove a WIM wrapper from the repository and from the routing index.
+   * 
+   * @param uuid the UUID of the WIM to remove
+   * @return a JSON formatted string with the result of the operation
+   */
   public String removeWimWrapper(String uuid) {
     repository.removeWimEntry(uuid);
+    synchronized (this) {
+      generation++;
+      wimIndex.remove(uuid);
+      ArrayList<String> segments = new ArrayList<String>();
+      for (Map.Entry<String, WrapperRecord> entry : segmentIndex.entrySet()) {
+        if (uuid.equals(entry.getValue().getConfig().getUuid())) {
+          segments.add(entry.getKey());
+        }
+      }
+      for (String segment : segments) {
+        segmentIndex.remove(segment);
+      }
+    }
     return "{\"status\":\"COMPLETED\"}";
   }
 
@@ -38,6 +38,11 @@ public class WrapperConfiguration {
   private String authKey;
   private String uuid;
   private ArrayList<String> servicedSegments;
+  private String vtnTenant;
+  private String vtnBridge;
+  private String flowConditions;
+  private double apiRate;
+  private String apiRates;
 
   public String getWrapperType() {
     return wrapperType;
@@ -105,7 +110,12 @@ public class WrapperConfiguration {
     out += "WimEndpount: " + wimEndpoint + "\n\r";
     out += "User: " + authUserName + "\n\r";
     out += "pass: " + authPass + "\n\r";
-    out += "serviced_segments: \n\r" + servicedSegments;
+    out += "serviced_segments: \n\r" + servicedSegments + "\n\r";
+    out += "vtn_tenant: " + vtnTenant + "\n\r";
+    out += "vtn_bridge: " + vtnBridge + "\n\r";
+    out += "flow_conditions: " + flowConditions + "\n\r";
+    out += "api_rate: " + apiRate + "\n\r";
+    out += "api_rates: " + apiRates;
     return out;
   }
 
@@ -117,4 +127,54 @@ public class WrapperConfiguration {
     this.servicedSegments = servicedSegments;
   }
 
+  public String getVtnTenant() {
+    return vtnTenant;
+  }
+
+  public void setVtnTenant(String vtnTenant) {
+    this.vtnTenant = vtnTenant;
+  }
+
+  public String getVtnBridge() {
+    return vtnBridge;
+  }
+
+  public void setVtnBridge(String vtnBridge) {
+    this.vtnBridge = vtnBridge;
+  }
+
+  /**
+   * @return the JSON array describing the flow conditions set by the wrapper, null for defaults.
+   */
+  public String getFlowConditions() {
+    return flowConditions;
+  }
+
+  public void setFlowConditions(String flowConditions) {
+    this.flowConditions = flowConditions;
+  }
+
+  /**
+   * @return the number of API calls per second sent to the WIM, shared by all the classes of
+   *         operation, 0 for no limit.
+   */
+  public double getApiRate() {
+    return apiRate;
+  }
+
+  public void setApiRate(double apiRate) {
+    this.apiRate = apiRate;
+  }
+
+  /**
+   * @return the JSON object capping the rate of some classes of operation, null if none is.
+   */
+  public String getApiRates() {
+    return apiRates;
+  }
+
+  public void setApiRates(String apiRates) {
+    this.apiRates = apiRates;
+  }
+
 }
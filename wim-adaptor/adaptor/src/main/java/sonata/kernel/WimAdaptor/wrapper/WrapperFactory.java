@@ -26,6 +26,7 @@
 
 package sonata.kernel.WimAdaptor.wrapper;
 
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
 import sonata.kernel.WimAdaptor.wrapper.vtn.VtnWrapper;
 
 public class WrapperFactory {
@@ -34,14 +35,22 @@ public class WrapperFactory {
    * Uses the parser configuration to create the relevant Wrapper.
    * 
    * @param config the WrapperConfiguration object describing the wrapper to create.
+   * @param repo the repository in which the wrapper records the state it has to keep across
+   *        restarts
    * @return the brand new wrapper
    */
-  public static Wrapper createWrapper(WrapperConfiguration config) {
+  public static Wrapper createWrapper(WrapperConfiguration config, WimRepo repo) {
     Wrapper output = null;
     System.out.println("  [WrapperFactory] - creating wrapper...");
 
     if (config.getWimVendor().equals("VTN")) {
-      output = new VtnWrapper(config);
+      output = new VtnWrapper(config, repo);
+    }
+    if (output != null && config.getApiRate() > 0) {
+      ApiRateLimiter.getInstance(config.getWimEndpoint()).setRate(config.getApiRate());
+    }
+    if (output != null && config.getApiRates() != null) {
+      ApiRateLimiter.getInstance(config.getWimEndpoint()).setRates(config.getApiRates());
     }
 
     System.out.println("  [WrapperFactory] - Wrapper created...");
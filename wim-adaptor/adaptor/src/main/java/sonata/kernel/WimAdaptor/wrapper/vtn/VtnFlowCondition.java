@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor.wrapper.vtn;
+
+import java.util.ArrayList;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A flow condition installed by the VTN wrapper. Traffic from the source to the destination network
+ * entering the VTN bridge on the ingress interface is redirected to the redirect interface while the
+ * WAN is configured for a service, and back to the default interface when the configuration is
+ * removed.
+ */
+public class VtnFlowCondition {
+
+  private String name;
+  private String sourceNetwork;
+  private String destinationNetwork;
+  private String ingressInterface;
+  private String redirectInterface;
+  private String defaultInterface;
+
+  /**
+   * Create a flow condition.
+   *
+   * @param name the name of the flow condition in the VTN coordinator
+   * @param sourceNetwork the source network to match, in CIDR notation
+   * @param destinationNetwork the destination network to match, in CIDR notation
+   * @param ingressInterface the VTN interface the flow filter is applied to
+   * @param redirectInterface the VTN interface the matching flows are sent to when configured
+   * @param defaultInterface the VTN interface the matching flows are sent to when not configured
+   */
+  public VtnFlowCondition(String name, String sourceNetwork, String destinationNetwork,
+      String ingressInterface, String redirectInterface, String defaultInterface) {
+    this.name = name;
+    this.sourceNetwork = sourceNetwork;
+    this.destinationNetwork = destinationNetwork;
+    this.ingressInterface = ingressInterface;
+    this.redirectInterface = redirectInterface;
+    this.defaultInterface = defaultInterface;
+  }
+
+  /**
+   * @return the flow condition used when the WIM has been registered without any.
+   */
+  public static VtnFlowCondition getDefault() {
+    return new VtnFlowCondition("green", "10.100.16.40/32", "10.100.32.40/32", "if8", "if10",
+        "if6");
+  }
+
+  /**
+   * Parse a list of flow conditions from the JSON array stored in the WIM configuration.
+   *
+   * @param json the JSON array of conditions, each one with the name, source_network,
+   *        destination_network, ingress_interface, redirect_interface and default_interface fields
+   * @return the parsed conditions, or the default condition if json is null
+   */
+  public static ArrayList<VtnFlowCondition> parseList(String json) {
+    ArrayList<VtnFlowCondition> out = new ArrayList<VtnFlowCondition>();
+    if (json == null) {
+      out.add(getDefault());
+      return out;
+    }
+    JSONArray array = new JSONArray(json);
+    for (int i = 0; i < array.length(); i++) {
+      JSONObject object = array.getJSONObject(i);
+      out.add(new VtnFlowCondition(object.getString("name"), object.getString("source_network"),
+          object.getString("destination_network"), object.getString("ingress_interface"),
+          object.getString("redirect_interface"), object.getString("default_interface")));
+    }
+    return out;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getSourceNetwork() {
+    return sourceNetwork;
+  }
+
+  public String getDestinationNetwork() {
+    return destinationNetwork;
+  }
+
+  public String getIngressInterface() {
+    return ingressInterface;
+  }
+
+  public String getRedirectInterface() {
+    return redirectInterface;
+  }
+
+  public String getDefaultInterface() {
+    return defaultInterface;
+  }
+
+  /**
+   * Check whether another condition matches the same flows as this one.
+   *
+   * @param other the condition to compare
+   * @return true if both conditions have the same name and match the same networks
+   */
+  public boolean hasSameMatch(VtnFlowCondition other) {
+    return other != null && name.equals(other.name) && equal(sourceNetwork, other.sourceNetwork)
+        && equal(destinationNetwork, other.destinationNetwork);
+  }
+
+  private static boolean equal(String first, String second) {
+    return first == null ? second == null : first.equals(second);
+  }
+
+  @Override
+  public String toString() {
+    return "VtnFlowCondition{name='" + name + "', " + sourceNetwork + " -> " + destinationNetwork
+        + ", " + ingressInterface + " -> " + redirectInterface + "/" + defaultInterface + "}";
+  }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor.wrapper.vtn;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+/**
+ * State of the flows installed by a VTN wrapper in its controller. For each flow condition, i.e.
+ * each segment pair handled by the WIM, the cache records the installed match, the interface the
+ * ingress filter currently redirects to, and the service instances that need the redirect. An entry
+ * missing from the cache means that the state in the controller is unknown, so the next operation
+ * on that condition goes to the controller.
+ */
+public class VtnFlowStateCache {
+
+  private Hashtable<String, VtnFlowCondition> conditions;
+  private Hashtable<String, String> redirects;
+  private Hashtable<String, HashSet<String>> instances;
+  private boolean reconciled;
+
+  /**
+   * Create an empty cache, where the state of all the flows is unknown.
+   */
+  public VtnFlowStateCache() {
+    this.conditions = new Hashtable<String, VtnFlowCondition>();
+    this.redirects = new Hashtable<String, String>();
+    this.instances = new Hashtable<String, HashSet<String>>();
+    this.reconciled = false;
+  }
+
+  /**
+   * @param condition the condition to check
+   * @return true if the condition is known to be installed with the same match
+   */
+  public synchronized boolean isConditionInstalled(VtnFlowCondition condition) {
+    return condition.hasSameMatch(conditions.get(condition.getName()));
+  }
+
+  public synchronized void setCondition(VtnFlowCondition installed) {
+    conditions.put(installed.getName(), installed);
+  }
+
+  public synchronized void forgetCondition(String name) {
+    conditions.remove(name);
+  }
+
+  /**
+   * @param condition the name of the flow condition
+   * @return the interface the matching flows are redirected to, or null if unknown
+   */
+  public synchronized String getRedirect(String condition) {
+    return redirects.get(condition);
+  }
+
+  public synchronized void setRedirect(String condition, String destinationInterface) {
+    redirects.put(condition, destinationInterface);
+  }
+
+  public synchronized void forgetRedirect(String condition) {
+    redirects.remove(condition);
+  }
+
+  /**
+   * Record that a service instance needs the redirect of a flow condition.
+   *
+   * @param condition the name of the flow condition
+   * @param instanceId the ID of the service instance
+   * @return true if the instance was not already recorded
+   */
+  public synchronized boolean addInstance(String condition, String instanceId) {
+    HashSet<String> users = instances.get(condition);
+    if (users == null) {
+      users = new HashSet<String>();
+      instances.put(condition, users);
+    }
+    return users.add(instanceId);
+  }
+
+  /**
+   * Record that a service instance no longer needs the redirect of a flow condition.
+   *
+   * @param condition the name of the flow condition
+   * @param instanceId the ID of the service instance
+   * @return the number of instances still needing the redirect
+   */
+  public synchronized int removeInstance(String condition, String instanceId) {
+    HashSet<String> users = instances.get(condition);
+    if (users == null) {
+      return 0;
+    }
+    users.remove(instanceId);
+    if (users.isEmpty()) {
+      instances.remove(condition);
+      return 0;
+    }
+    return users.size();
+  }
+
+  /**
+   * @param condition the name of the flow condition
+   * @param instanceId the ID of the service instance
+   * @return true if the instance is recorded as using the redirect of the condition
+   */
+  public synchronized boolean hasInstance(String condition, String instanceId) {
+    HashSet<String> users = instances.get(condition);
+    return users != null && users.contains(instanceId);
+  }
+
+  /**
+   * Replace the recorded instances with the ones read from the repository.
+   *
+   * @param users the IDs of the service instances by flow condition name
+   */
+  public synchronized void setInstances(Hashtable<String, ArrayList<String>> users) {
+    instances.clear();
+    for (String condition : users.keySet()) {
+      instances.put(condition, new HashSet<String>(users.get(condition)));
+    }
+  }
+
+  public synchronized boolean isReconciled() {
+    return reconciled;
+  }
+
+  public synchronized void setReconciled(boolean reconciled) {
+    this.reconciled = reconciled;
+  }
+
+}
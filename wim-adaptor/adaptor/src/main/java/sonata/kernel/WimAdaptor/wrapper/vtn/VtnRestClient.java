@@ -0,0 +1,374 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor.wrapper.vtn;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.LoggerFactory;
+
+import sonata.kernel.AdaptorCommons.ApiRateLimiter;
+import sonata.kernel.AdaptorCommons.ApiRateLimiter.Operation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+
+/**
+ * Client for the RESTCONF API of the OpenDaylight VTN coordinator. Requests are sent through
+ * HttpURLConnection, whose responses are always read to the end so that the underlying keep-alive
+ * connection goes back to the JVM connection pool and is reused by the following requests (the size
+ * of the pool is set by the http.maxConnections system property, 5 by default). The client holds no
+ * per-request state and can be shared by concurrent callers.
+ */
+public class VtnRestClient {
+
+  public static final int DEFAULT_PORT = 8181;
+
+  private static final String RESTCONF_PATH = "/restconf/";
+  private static final int connectTimeout = 5000;
+  private static final int readTimeout = 30000;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final String BASE64_ALPHABET =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+  private static final org.slf4j.Logger Logger = LoggerFactory.getLogger(VtnRestClient.class);
+
+  private String baseUrl;
+  private String authorization;
+  private ApiRateLimiter limiter;
+
+  /**
+   * Construct a new VTN REST client.
+   *
+   * @param endpoint the address of the VTN coordinator, either a host name (the default RESTCONF
+   *        port is used) or a full http URL without the RESTCONF path
+   * @param userName the user to authenticate with the VTN coordinator
+   * @param password the password to authenticate with the VTN coordinator
+   */
+  public VtnRestClient(String endpoint, String userName, String password) {
+    String base = endpoint;
+    if (!base.startsWith("http://") && !base.startsWith("https://")) {
+      base = "http://" + base + ":" + DEFAULT_PORT;
+    }
+    while (base.endsWith("/")) {
+      base = base.substring(0, base.length() - 1);
+    }
+    this.baseUrl = base + RESTCONF_PATH;
+    this.authorization = "Basic " + base64((userName + ":" + password).getBytes(UTF8));
+    this.limiter = ApiRateLimiter.getInstance(endpoint);
+  }
+
+  /**
+   * Create or update a VTN.
+   *
+   * @param tenant the name of the VTN
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean setupVtn(String tenant) {
+    JSONObject input = new JSONObject();
+    input.put("tenant-name", tenant);
+    return invoke("vtn:update-vtn", input);
+  }
+
+  /**
+   * Create or update a virtual bridge in a VTN.
+   *
+   * @param tenant the name of the VTN
+   * @param bridge the name of the virtual bridge
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean setupBridge(String tenant, String bridge) {
+    JSONObject input = new JSONObject();
+    input.put("tenant-name", tenant);
+    input.put("bridge-name", bridge);
+    return invoke("vtn-vbridge:update-vbridge", input);
+  }
+
+  /**
+   * Delete a VTN.
+   *
+   * @param tenant the name of the VTN
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean deleteVtn(String tenant) {
+    JSONObject input = new JSONObject();
+    input.put("tenant-name", tenant);
+    return invoke("vtn:remove-vtn", input);
+  }
+
+  /**
+   * Create or update a flow condition matching the source and destination networks.
+   *
+   * @param condition the flow condition to set
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean setFlowCondition(VtnFlowCondition condition) {
+    JSONObject inetMatch = new JSONObject();
+    inetMatch.put("source-network", condition.getSourceNetwork());
+    inetMatch.put("destination-network", condition.getDestinationNetwork());
+    JSONObject match = new JSONObject();
+    match.put("index", "1");
+    match.put("vtn-inet-match", inetMatch);
+    JSONObject input = new JSONObject();
+    input.put("name", condition.getName());
+    input.put("vtn-flow-match", new JSONArray().put(match));
+    return invoke("vtn-flow-condition:set-flow-condition", input);
+  }
+
+  /**
+   * Remove a flow condition.
+   *
+   * @param name the name of the flow condition
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean removeFlowCondition(String name) {
+    JSONObject input = new JSONObject();
+    input.put("name", name);
+    return invoke("vtn-flow-condition:remove-flow-condition", input);
+  }
+
+  /**
+   * Set a flow filter on a VTN interface, redirecting the flows matching a condition to another
+   * interface of the same bridge.
+   *
+   * @param tenant the name of the VTN
+   * @param bridge the name of the virtual bridge
+   * @param ingressInterface the interface the filter is applied to
+   * @param condition the name of the flow condition to match
+   * @param destinationInterface the interface the matching flows are redirected to
+   * @return true if the operation has been completed without error, false otherwise
+   */
+  public boolean setRedirectFilter(String tenant, String bridge, String ingressInterface,
+      String condition, String destinationInterface) {
+    JSONObject destination = new JSONObject();
+    destination.put("bridge-name", bridge);
+    destination.put("interface-name", destinationInterface);
+    JSONObject redirect = new JSONObject();
+    redirect.put("redirect-destination", destination);
+    redirect.put("output", "true");
+    JSONObject filter = new JSONObject();
+    filter.put("index", "1");
+    filter.put("condition", condition);
+    filter.put("vtn-redirect-filter", redirect);
+    JSONObject input = new JSONObject();
+    input.put("output", "false");
+    input.put("tenant-name", tenant);
+    input.put("bridge-name", bridge);
+    input.put("interface-name", ingressInterface);
+    input.put("vtn-flow-filter", new JSONArray().put(filter));
+    return invoke("vtn-flow-filter:set-flow-filter", input);
+  }
+
+  private boolean invoke(String operation, JSONObject input) {
+    try {
+      int status = post(operation, input);
+      if (status != HttpURLConnection.HTTP_OK) {
+        Logger.error("VTN operation " + operation + " failed with HTTP status " + status);
+        return false;
+      }
+      return true;
+    } catch (IOException e) {
+      Logger.error("Runtime error invoking VTN operation " + operation + ": " + e.getMessage(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Read a flow condition from the operational state of the VTN coordinator.
+   *
+   * @param name the name of the flow condition
+   * @return the installed condition, with only the name and the matched networks set, or null if
+   *         the condition does not exist
+   * @throws IOException if the coordinator cannot be reached or returns an error
+   */
+  public VtnFlowCondition readFlowCondition(String name) throws IOException {
+    JSONObject state =
+        get("vtn-flow-condition:vtn-flow-conditions/vtn-flow-condition/" + encode(name));
+    if (state == null) {
+      return null;
+    }
+    JSONArray matches = state.getJSONArray("vtn-flow-condition").getJSONObject(0)
+        .optJSONArray("vtn-flow-match");
+    if (matches == null || matches.length() == 0) {
+      return new VtnFlowCondition(name, null, null, null, null, null);
+    }
+    JSONObject inetMatch = matches.getJSONObject(0).optJSONObject("vtn-inet-match");
+    if (inetMatch == null) {
+      return new VtnFlowCondition(name, null, null, null, null, null);
+    }
+    return new VtnFlowCondition(name, inetMatch.optString("source-network", null),
+        inetMatch.optString("destination-network", null), null, null, null);
+  }
+
+  /**
+   * Read the interface the flows matching a condition are redirected to by the input filter of a
+   * VTN interface.
+   *
+   * @param tenant the name of the VTN
+   * @param bridge the name of the virtual bridge
+   * @param ingressInterface the interface the filter is applied to
+   * @param condition the name of the flow condition
+   * @return the redirect destination interface, or null if no such redirect filter exists
+   * @throws IOException if the coordinator cannot be reached or returns an error
+   */
+  public String readRedirectDestination(String tenant, String bridge, String ingressInterface,
+      String condition) throws IOException {
+    JSONObject state = get("vtn:vtns/vtn/" + encode(tenant) + "/vbridge/" + encode(bridge)
+        + "/vinterface/" + encode(ingressInterface));
+    if (state == null) {
+      return null;
+    }
+    JSONObject inputFilter =
+        state.getJSONArray("vinterface").getJSONObject(0).optJSONObject("vinterface-input-filter");
+    JSONArray filters = inputFilter == null ? null : inputFilter.optJSONArray("vtn-flow-filter");
+    if (filters == null) {
+      return null;
+    }
+    for (int i = 0; i < filters.length(); i++) {
+      JSONObject filter = filters.getJSONObject(i);
+      JSONObject redirect = filter.optJSONObject("vtn-redirect-filter");
+      if (condition.equals(filter.optString("condition")) && redirect != null) {
+        return redirect.getJSONObject("redirect-destination").optString("interface-name", null);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Post an RPC to the VTN coordinator.
+   *
+   * @param operation the RESTCONF operation, e.g. vtn:update-vtn
+   * @param input the content of the input element of the request
+   * @return the HTTP status code of the response
+   * @throws IOException if the coordinator cannot be reached
+   */
+  int post(String operation, JSONObject input) throws IOException {
+    byte[] body = new JSONObject().put("input", input).toString().getBytes(UTF8);
+    limiter.acquire(operation.contains(":remove-") || operation.contains(":delete-")
+        ? Operation.DELETE : Operation.CREATE);
+    int status = send("POST", "operations/" + operation, body, null);
+    Logger.debug("VTN operation " + operation + " returned " + status);
+    return status;
+  }
+
+  /**
+   * Read a subtree of the operational state of the VTN coordinator.
+   *
+   * @param path the path of the subtree, relative to the operational datastore
+   * @return the subtree, or null if it does not exist
+   * @throws IOException if the coordinator cannot be reached or returns an error
+   */
+  JSONObject get(String path) throws IOException {
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    limiter.acquire(Operation.POLL);
+    int status = send("GET", "operational/" + path, null, response);
+    if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+      return null;
+    }
+    if (status != HttpURLConnection.HTTP_OK) {
+      throw new IOException("Reading VTN state " + path + " failed with HTTP status " + status);
+    }
+    return new JSONObject(new String(response.toByteArray(), UTF8));
+  }
+
+  private int send(String method, String path, byte[] body, OutputStream response)
+      throws IOException {
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", "application/json");
+    connection.setRequestProperty("Authorization", authorization);
+    if (body != null) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      OutputStream out = connection.getOutputStream();
+      try {
+        out.write(body);
+      } finally {
+        out.close();
+      }
+    }
+    int status = connection.getResponseCode();
+    InputStream in = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream()
+        : connection.getErrorStream();
+    if (in != null) {
+      // Always drain the response so that the connection can be reused.
+      byte[] buffer = new byte[4096];
+      try {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          if (response != null && status == HttpURLConnection.HTTP_OK) {
+            response.write(buffer, 0, read);
+          }
+        }
+      } finally {
+        in.close();
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Encode bytes in Base64 with padding, as required by the Basic authentication scheme.
+   *
+   * @param data the bytes to encode
+   * @return the encoded string
+   */
+  private static String base64(byte[] data) {
+    StringBuilder out = new StringBuilder((data.length + 2) / 3 * 4);
+    for (int i = 0; i < data.length; i += 3) {
+      int chunk = (data[i] & 0xff) << 16;
+      if (i + 1 < data.length) {
+        chunk |= (data[i + 1] & 0xff) << 8;
+      }
+      if (i + 2 < data.length) {
+        chunk |= data[i + 2] & 0xff;
+      }
+      out.append(BASE64_ALPHABET.charAt(chunk >> 18 & 0x3f));
+      out.append(BASE64_ALPHABET.charAt(chunk >> 12 & 0x3f));
+      out.append(i + 1 < data.length ? BASE64_ALPHABET.charAt(chunk >> 6 & 0x3f) : '=');
+      out.append(i + 2 < data.length ? BASE64_ALPHABET.charAt(chunk & 0x3f) : '=');
+    }
+    return out.toString();
+  }
+
+  private static String encode(String segment) throws IOException {
+    return URLEncoder.encode(segment, "UTF-8").replace("+", "%20");
+  }
+
+  @Override
+  public String toString() {
+    return "VtnRestClient{" + "url='" + baseUrl + '\'' + '}';
+  }
+
+}
@@ -26,21 +26,58 @@
 
 package sonata.kernel.WimAdaptor.wrapper.vtn;
 
+import java.util.ArrayList;
+import java.util.Hashtable;
+
 import org.slf4j.LoggerFactory;
 
 import sonata.kernel.WimAdaptor.ConfigureWimCallProcessor;
 import sonata.kernel.WimAdaptor.WimWrapper;
+import sonata.kernel.WimAdaptor.wrapper.WimRepo;
 import sonata.kernel.WimAdaptor.wrapper.WrapperConfiguration;
 
 public class VtnWrapper extends WimWrapper {
 
+  public static final String DEFAULT_TENANT = "vtn7";
+  public static final String DEFAULT_BRIDGE = "vbr4";
+
   private WrapperConfiguration config;
+  private VtnRestClient client;
+  private String tenant;
+  private String bridge;
+  private ArrayList<VtnFlowCondition> conditions;
+  private VtnFlowStateCache flowState;
+  private WimRepo repo;
   private static final org.slf4j.Logger Logger =
       LoggerFactory.getLogger(ConfigureWimCallProcessor.class);
 
+  /**
+   * Create a wrapper for the VTN coordinator described by the configuration. The VTN tenant, the
+   * virtual bridge and the flow conditions fall back to the defaults when not configured.
+   *
+   * @param config the configuration of the WIM
+   */
   public VtnWrapper(WrapperConfiguration config) {
+    this(config, null);
+  }
+
+  /**
+   * Create a wrapper for the VTN coordinator described by the configuration, which records the
+   * service instances using its flows in the repository so that they survive a restart.
+   *
+   * @param config the configuration of the WIM
+   * @param repo the repository of the WIMs, or null to keep the instances in memory only
+   */
+  public VtnWrapper(WrapperConfiguration config, WimRepo repo) {
     super();
+    this.repo = repo;
     this.config = config;
+    this.client = new VtnRestClient(this.config.getWimEndpoint(), this.config.getAuthUserName(),
+        this.config.getAuthPass());
+    this.tenant = config.getVtnTenant() != null ? config.getVtnTenant() : DEFAULT_TENANT;
+    this.bridge = config.getVtnBridge() != null ? config.getVtnBridge() : DEFAULT_BRIDGE;
+    this.conditions = VtnFlowCondition.parseList(config.getFlowConditions());
+    this.flowState = new VtnFlowStateCache();
   }
 
   @Override
@@ -49,36 +86,156 @@ public class VtnWrapper extends WimWrapper {
   }
 
 
+  /**
+   * Configure the flows needed by a service instance. Flows already installed in the controller are
+   * not sent again, so repeating the call for the same instance is answered from the flow state
+   * cache.
+   */
   @Override
-  public boolean configureNetwork(String instanceId) {
+  public synchronized boolean configureNetwork(String instanceId) {
     boolean out = true;
-    VtnClient client = new VtnClient(this.config.getWimEndpoint(), this.config.getAuthUserName(),
-        this.config.getAuthPass());
-    /**
-     * Logger.info("Setting up the VTN for the service"); out = out && client.setupVtn(instanceId);
-     * if (out){ Logger.info("VTN created"); } else { Logger.error("Unable to create VTN"); }
-     * Comment it out, as for the moment, new vtn will not be created
-     */
-    Logger.info("Setting up the flow rules in the VTN");
-    out = out && client.setupFlow("vtn7", "green");
+    reconcile(false);
+    Logger.info("Setting up the flow rules in the VTN " + tenant);
+    for (VtnFlowCondition condition : conditions) {
+      String name = condition.getName();
+      if (!flowState.isConditionInstalled(condition)) {
+        if (client.setFlowCondition(condition)) {
+          flowState.setCondition(condition);
+        } else {
+          flowState.forgetCondition(name);
+          out = false;
+          continue;
+        }
+      }
+      if (!condition.getRedirectInterface().equals(flowState.getRedirect(name))) {
+        if (client.setRedirectFilter(tenant, bridge, condition.getIngressInterface(), name,
+            condition.getRedirectInterface())) {
+          flowState.setRedirect(name, condition.getRedirectInterface());
+        } else {
+          flowState.forgetRedirect(name);
+          out = false;
+          continue;
+        }
+      }
+      if (flowState.addInstance(name, instanceId) && isPersistent()
+          && !repo.writeFlowUser(config.getUuid(), name, instanceId)) {
+        Logger.warn("Unable to store instance " + instanceId + " of flow condition " + name);
+      }
+    }
     if (out) {
       Logger.info("Flow rules created");
     } else {
-      Logger.error("Unable to create flow rules. GOING ON NONETHELESS");
+      Logger.error("Unable to create flow rules");
     }
-    // FIXME This is a DEBUG edit! ! Remove me ASAP!
-    // return out;
-    return true;
+    return out;
   }
 
+  /**
+   * Remove the flows of a service instance. The redirect of a flow condition is reset only when no
+   * other configured instance needs it, and only if it is not already in its default state. The
+   * instances using a redirect are not stored in the controller but in the WIM repository, so an
+   * instance the repository does not know is left alone rather than taking the redirect away from
+   * instances it cannot see.
+   */
   @Override
-  public boolean removeNetConfiguration(String instanceId) {
-    String condition = "green";
-    VtnClient client = new VtnClient(this.config.getWimEndpoint(), this.config.getAuthUserName(),
-        this.config.getAuthPass());
-    // return client.deleteVtn(instanceId); commenting for clarity
-    return client.modifyFlow(condition);
+  public synchronized boolean removeNetConfiguration(String instanceId) {
+    boolean out = true;
+    reconcile(false);
+    for (VtnFlowCondition condition : conditions) {
+      String name = condition.getName();
+      if (!flowState.hasInstance(name, instanceId)) {
+        Logger.info("Instance " + instanceId + " does not use flow condition " + name);
+        continue;
+      }
+      int remaining = flowState.removeInstance(name, instanceId);
+      if (isPersistent() && !repo.removeFlowUser(config.getUuid(), name, instanceId)) {
+        Logger.warn("Unable to remove instance " + instanceId + " of flow condition " + name);
+      }
+      if (remaining > 0) {
+        continue;
+      }
+      if (condition.getDefaultInterface().equals(flowState.getRedirect(name))) {
+        continue;
+      }
+      if (client.setRedirectFilter(tenant, bridge, condition.getIngressInterface(), name,
+          condition.getDefaultInterface())) {
+        flowState.setRedirect(name, condition.getDefaultInterface());
+      } else {
+        flowState.forgetRedirect(name);
+        out = false;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Load the state of the flows handled by this wrapper from the controller, and the instances
+   * using them from the repository. It runs when the adaptor starts and before the first operation
+   * of the wrapper; the state of the flows that cannot be read stays unknown.
+   */
+  @Override
+  public void reconcile() {
+    reconcile(true);
   }
 
+  /**
+   * Load the state of the flows handled by this wrapper from the controller, and the instances
+   * using them from the repository.
+   *
+   * @param force reload the state even if it has already been loaded
+   */
+  public synchronized void reconcile(boolean force) {
+    if (flowState.isReconciled() && !force) {
+      return;
+    }
+    flowState.setReconciled(true);
+    Logger.info("Reconciling the flow state of VTN " + tenant + " with the controller");
+    if (isPersistent()) {
+      Hashtable<String, ArrayList<String>> users = repo.readFlowUsers(config.getUuid());
+      if (users != null) {
+        flowState.setInstances(users);
+      } else {
+        Logger.warn("Unable to read the instances using the flows of VTN " + tenant);
+      }
+    }
+    for (VtnFlowCondition condition : conditions) {
+      String name = condition.getName();
+      try {
+        VtnFlowCondition installed = client.readFlowCondition(name);
+        if (installed != null) {
+          flowState.setCondition(installed);
+        } else {
+          flowState.forgetCondition(name);
+        }
+        String redirect =
+            client.readRedirectDestination(tenant, bridge, condition.getIngressInterface(), name);
+        if (redirect != null) {
+          flowState.setRedirect(name, redirect);
+        } else {
+          flowState.forgetRedirect(name);
+        }
+      } catch (Exception e) {
+        Logger.warn("Unable to read the state of flow condition " + name + ": " + e.getMessage());
+        flowState.forgetCondition(name);
+        flowState.forgetRedirect(name);
+      }
+    }
+  }
+
+  private boolean isPersistent() {
+    return repo != null && config.getUuid() != null;
+  }
+
+  public VtnFlowStateCache getFlowState() {
+    return flowState;
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  public ArrayList<VtnFlowCondition> getConditions() {
+    return conditions;
+  }
 
 }
@@ -26,7 +26,7 @@
 
 package sonata.kernel.WimAdaptor;
 
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
 
 public interface MessageReceiver {
 
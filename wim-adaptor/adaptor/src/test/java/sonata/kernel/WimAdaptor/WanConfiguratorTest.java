@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sonata.kernel.WimAdaptor.vtn.VtnControllerStub;
+import sonata.kernel.WimAdaptor.wrapper.WrapperConfiguration;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnWrapper;
+
+/**
+ * Unit tests for the parallel multi-WIM configuration.
+ */
+public class WanConfiguratorTest {
+
+  @Test
+  public void testParallelConfiguration() {
+    ArrayList<WimWrapper> wims = new ArrayList<WimWrapper>();
+    ArrayList<FakeWim> fakes = new ArrayList<FakeWim>();
+    for (int i = 0; i < 4; i++) {
+      FakeWim wim = new FakeWim(300, true);
+      wims.add(wim);
+      fakes.add(wim);
+    }
+
+    long start = System.currentTimeMillis();
+    boolean out = new WanConfigurator().configure("instance", wims);
+    long elapsed = System.currentTimeMillis() - start;
+
+    Assert.assertTrue(out);
+    // Four segments of 300ms each take about as long as a single one.
+    Assert.assertTrue("Segments were configured sequentially: " + elapsed + "ms", elapsed < 900);
+    for (FakeWim wim : fakes) {
+      Assert.assertEquals(1, wim.configured.get());
+      Assert.assertEquals(0, wim.removed.get());
+    }
+  }
+
+  @Test
+  public void testRollbackOnFailure() {
+    FakeWim good1 = new FakeWim(50, true);
+    FakeWim good2 = new FakeWim(100, true);
+    FakeWim bad = new FakeWim(10, false);
+    ArrayList<WimWrapper> wims = new ArrayList<WimWrapper>();
+    wims.add(good1);
+    wims.add(bad);
+    wims.add(good2);
+
+    Assert.assertFalse(new WanConfigurator().configure("instance", wims));
+    Assert.assertEquals(1, good1.removed.get());
+    Assert.assertEquals(1, good2.removed.get());
+    Assert.assertEquals(0, bad.removed.get());
+  }
+
+  @Test
+  public void testRollbackOnVtnFailure() throws IOException {
+    VtnControllerStub good = new VtnControllerStub();
+    VtnControllerStub bad = new VtnControllerStub();
+    bad.setFailureStatus(500);
+    try {
+      ArrayList<WimWrapper> wims = new ArrayList<WimWrapper>();
+      wims.add(new VtnWrapper(buildVtnConfig(good)));
+      wims.add(new VtnWrapper(buildVtnConfig(bad)));
+
+      Assert.assertFalse(new WanConfigurator().configure("instance", wims));
+      // The flows set up in the healthy WIM are taken down again: the flow condition and redirect
+      // are installed, then the redirect is reset.
+      Assert.assertEquals(3, good.getOperations().size());
+      Assert.assertEquals("vtn-flow-filter:set-flow-filter", good.getOperations().get(2));
+    } finally {
+      good.stop();
+      bad.stop();
+    }
+  }
+
+  @Test
+  public void testRollbackOnTimeout() {
+    FakeWim good = new FakeWim(10, true);
+    FakeWim slow = new FakeWim(2000, true);
+    ArrayList<WimWrapper> wims = new ArrayList<WimWrapper>();
+    wims.add(good);
+    wims.add(slow);
+
+    Assert.assertFalse(new WanConfigurator(200).configure("instance", wims));
+    Assert.assertEquals(1, good.removed.get());
+    Assert.assertEquals(1, slow.removed.get());
+  }
+
+  private static WrapperConfiguration buildVtnConfig(VtnControllerStub controller) {
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setWimEndpoint(controller.getEndpoint());
+    config.setAuthUserName("admin");
+    config.setAuthPass("admin");
+    return config;
+  }
+
+  private static class FakeWim extends WimWrapper {
+
+    private long delay;
+    private boolean result;
+    private AtomicInteger configured = new AtomicInteger();
+    private AtomicInteger removed = new AtomicInteger();
+
+    FakeWim(long delay, boolean result) {
+      this.delay = delay;
+      this.result = result;
+    }
+
+    @Override
+    public boolean configureNetwork(String instanceId) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        return false;
+      }
+      configured.incrementAndGet();
+      return result;
+    }
+
+    @Override
+    public boolean removeNetConfiguration(String instanceId) {
+      removed.incrementAndGet();
+      return true;
+    }
+  }
+
+}
@@ -51,12 +51,12 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
-import sonata.kernel.WimAdaptor.commons.DeployServiceResponse;
-import sonata.kernel.WimAdaptor.commons.Status;
-import sonata.kernel.WimAdaptor.messaging.ServicePlatformMessage;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+import sonata.kernel.Descriptors.records.DeployServiceResponse;
+import sonata.kernel.Descriptors.records.Status;
 import sonata.kernel.WimAdaptor.messaging.TestConsumer;
 import sonata.kernel.WimAdaptor.messaging.TestProducer;
-import sonata.kernel.WimAdaptor.wrapper.vtn.VtnClient;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnRestClient;
 
 
 /**
@@ -279,7 +279,7 @@ public class WimAdaptorTest implements MessageReceiver {
 
     // Clean the VTN
 
-    VtnClient c = new VtnClient("10.30.0.13", "admin", "admin");
+    VtnRestClient c = new VtnRestClient("10.30.0.13", "admin", "admin");
     boolean delete = c.deleteVtn(response.getNsr().getId());
     Assert.assertTrue("unable to delete the service configuration in VTN", delete);
   }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.WimAdaptor.wrapper.WimRepo;
+import sonata.kernel.WimAdaptor.wrapper.WrapperBay;
+import sonata.kernel.WimAdaptor.wrapper.WrapperConfiguration;
+import sonata.kernel.WimAdaptor.wrapper.WrapperRecord;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnWrapper;
+
+/**
+ * Unit tests for the WrapperBay routing index.
+ */
+public class WrapperBayTest {
+
+  private CountingRepo repo;
+
+  @Before
+  public void setUp() {
+    repo = new CountingRepo();
+    WrapperBay.getInstance().setRepo(repo);
+  }
+
+  @Test
+  public void testSegmentResolutionIsCached() {
+    repo.writeWimEntry("wim1", new WrapperRecord(null, buildConfig("wim1", "segment1")));
+
+    WrapperRecord first = WrapperBay.getInstance().getWimRecord("segment1");
+    WrapperRecord second = WrapperBay.getInstance().getWimRecord("segment1");
+    Assert.assertNotNull(first);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, repo.reads);
+
+    Assert.assertNull(WrapperBay.getInstance().getWimRecord("unknown"));
+    Assert.assertEquals(2, repo.reads);
+  }
+
+  @Test
+  public void testAddAndRemoveUpdateTheIndex() {
+    WrapperConfiguration config = buildConfig("wim2", "segment2");
+    WrapperBay.getInstance().registerWrapper(config);
+
+    WrapperRecord record = WrapperBay.getInstance().getWimRecord("segment2");
+    Assert.assertNotNull(record);
+    Assert.assertEquals("wim2", record.getConfig().getUuid());
+    Assert.assertEquals(0, repo.reads);
+
+    WrapperBay.getInstance().removeWimWrapper("wim2");
+    Assert.assertNull(WrapperBay.getInstance().getWimRecord("segment2"));
+    Assert.assertEquals(1, repo.reads);
+  }
+
+  @Test
+  public void testSegmentsOfAWimShareItsWrapper() {
+    WrapperConfiguration config = buildConfig("wim3", "segment3");
+    config.getServicedSegments().add("segment4");
+    repo.writeWimEntry("wim3", new WrapperRecord(null, config));
+
+    WrapperRecord first = WrapperBay.getInstance().getWimRecord("segment3");
+    WrapperRecord second = WrapperBay.getInstance().getWimRecord("segment4");
+    Assert.assertNotNull(first);
+    Assert.assertSame(first, second);
+    Assert.assertSame(first.getWimWrapper(), second.getWimWrapper());
+    Assert.assertEquals(1, repo.reads);
+    Assert.assertEquals(1, repo.loads);
+
+    // Loading all the WIMs, e.g. at start-up, reuses the wrapper already loaded.
+    repo.writeWimEntry("wim4", new WrapperRecord(null, buildConfig("wim4", "segment5")));
+    ArrayList<WrapperRecord> records = WrapperBay.getInstance().loadWimRecords();
+    Assert.assertEquals(2, records.size());
+    Assert.assertTrue(records.contains(first));
+    Assert.assertEquals(2, repo.loads);
+    Assert.assertNotNull(WrapperBay.getInstance().getWimRecord("segment5"));
+    Assert.assertEquals(1, repo.reads);
+  }
+
+  private WrapperConfiguration buildConfig(String uuid, String segment) {
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid(uuid);
+    config.setWimVendor("VTN");
+    config.setWimEndpoint("127.0.0.1");
+    config.setAuthUserName("admin");
+    config.setAuthPass("admin");
+    ArrayList<String> segments = new ArrayList<String>();
+    segments.add(segment);
+    config.setServicedSegments(segments);
+    return config;
+  }
+
+  /**
+   * In-memory repository counting the segment lookups and the WIM loads that reach it. Each load
+   * creates a new wrapper, as the database repository does.
+   */
+  private static class CountingRepo extends WimRepo {
+
+    private Hashtable<String, WrapperConfiguration> wims =
+        new Hashtable<String, WrapperConfiguration>();
+    private int reads = 0;
+    private int loads = 0;
+
+    @Override
+    public boolean writeWimEntry(String uuid, WrapperRecord record) {
+      wims.put(uuid, record.getConfig());
+      return true;
+    }
+
+    @Override
+    public boolean removeWimEntry(String uuid) {
+      wims.remove(uuid);
+      return true;
+    }
+
+    @Override
+    public String readWimUuidFromNetSegment(String netSegment) {
+      reads++;
+      for (WrapperConfiguration config : wims.values()) {
+        if (config.getServicedSegments().contains(netSegment)) {
+          return config.getUuid();
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public WrapperRecord readWimEntry(String uuid) {
+      loads++;
+      WrapperConfiguration config = wims.get(uuid);
+      return config == null ? null : new WrapperRecord(new VtnWrapper(config), config);
+    }
+
+    @Override
+    public ArrayList<String> listWims() {
+      return new ArrayList<String>(wims.keySet());
+    }
+  }
+
+}
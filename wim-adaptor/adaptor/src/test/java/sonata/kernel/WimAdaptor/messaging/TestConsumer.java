@@ -29,6 +29,9 @@ package sonata.kernel.WimAdaptor.messaging;
 import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 
+import sonata.kernel.AdaptorCommons.messaging.AbstractMsgBusConsumer;
+import sonata.kernel.AdaptorCommons.messaging.ServicePlatformMessage;
+
 public class TestConsumer extends AbstractMsgBusConsumer {
 
   public TestConsumer(BlockingQueue<ServicePlatformMessage> dispatcherQueue) {
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor.vtn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the RESTCONF API of the VTN coordinator. It accepts every operation, records the
+ * inputs it receives and the client connections they arrived on, and serves the flow conditions and
+ * flow filters that have been set through the operational datastore.
+ */
+public class VtnControllerStub implements HttpHandler {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private HttpServer server;
+  private int failureStatus;
+  private List<String> operations;
+  private List<JSONObject> inputs;
+  private Set<InetSocketAddress> connections;
+  private Map<String, JSONObject> flowConditions;
+  private Map<String, JSONObject> flowFilters;
+  private AtomicInteger reads;
+  private volatile String authorization;
+
+  /**
+   * Start the controller on an ephemeral local port.
+   *
+   * @throws IOException if the server cannot be started
+   */
+  public VtnControllerStub() throws IOException {
+    operations = Collections.synchronizedList(new ArrayList<String>());
+    inputs = Collections.synchronizedList(new ArrayList<JSONObject>());
+    connections = Collections.synchronizedSet(new HashSet<InetSocketAddress>());
+    flowConditions = new ConcurrentHashMap<String, JSONObject>();
+    flowFilters = new ConcurrentHashMap<String, JSONObject>();
+    reads = new AtomicInteger();
+    // The JDK server writes the response headers and body separately, avoid Nagle delays.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/restconf/operations/", this);
+    server.createContext("/restconf/operational/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        handleRead(exchange);
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  public String getEndpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * Make the controller answer every following request with the given status, 0 to answer 200.
+   *
+   * @param status the HTTP status to return
+   */
+  public void setFailureStatus(int status) {
+    this.failureStatus = status;
+  }
+
+  /**
+   * @return the Authorization header of the last request served.
+   */
+  public String getAuthorization() {
+    return authorization;
+  }
+
+  public List<String> getOperations() {
+    return operations;
+  }
+
+  public List<JSONObject> getInputs() {
+    return inputs;
+  }
+
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * @return the number of reads of the operational datastore served so far.
+   */
+  public int getReadCount() {
+    return reads.get();
+  }
+
+  /**
+   * Forget the state of the controller, as if it had been restarted.
+   */
+  public void clearState() {
+    flowConditions.clear();
+    flowFilters.clear();
+  }
+
+  public void stop() {
+    server.stop(0);
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    connections.add(exchange.getRemoteAddress());
+    authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    String path = exchange.getRequestURI().getPath();
+    InputStream in = exchange.getRequestBody();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      body.write(buffer, 0, read);
+    }
+    in.close();
+    String operation = path.substring(path.lastIndexOf('/') + 1);
+    JSONObject input = new JSONObject(new String(body.toByteArray(), UTF8)).getJSONObject("input");
+    operations.add(operation);
+    inputs.add(input);
+
+    int status = failureStatus == 0 ? 200 : failureStatus;
+    if (status == 200) {
+      if (operation.equals("vtn-flow-condition:set-flow-condition")) {
+        flowConditions.put(input.getString("name"), input);
+      } else if (operation.equals("vtn-flow-filter:set-flow-filter")) {
+        flowFilters.put(input.getString("tenant-name") + "/" + input.getString("bridge-name") + "/"
+            + input.getString("interface-name"), input);
+      }
+    }
+    sendJson(exchange, status, "{}");
+  }
+
+  private void handleRead(HttpExchange exchange) throws IOException {
+    connections.add(exchange.getRemoteAddress());
+    reads.incrementAndGet();
+    String path = exchange.getRequestURI().getPath().substring("/restconf/operational/".length());
+    String[] elements = path.split("/");
+    JSONObject state = null;
+    if (path.startsWith("vtn-flow-condition:vtn-flow-conditions/vtn-flow-condition/")) {
+      JSONObject input = flowConditions.get(elements[2]);
+      if (input != null) {
+        JSONObject condition = new JSONObject();
+        condition.put("name", input.getString("name"));
+        condition.put("vtn-flow-match", input.getJSONArray("vtn-flow-match"));
+        state = new JSONObject().put("vtn-flow-condition", new JSONArray().put(condition));
+      }
+    } else if (path.startsWith("vtn:vtns/vtn/") && elements.length == 7) {
+      JSONObject input = flowFilters.get(elements[2] + "/" + elements[4] + "/" + elements[6]);
+      if (input != null) {
+        JSONObject vinterface = new JSONObject();
+        vinterface.put("name", elements[6]);
+        vinterface.put("vinterface-input-filter",
+            new JSONObject().put("vtn-flow-filter", input.getJSONArray("vtn-flow-filter")));
+        state = new JSONObject().put("vinterface", new JSONArray().put(vinterface));
+      }
+    }
+    if (state == null) {
+      sendJson(exchange, 404, "{\"errors\":{}}");
+    } else {
+      sendJson(exchange, 200, state.toString());
+    }
+  }
+
+  private void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] response = body.getBytes(UTF8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, response.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(response);
+    out.close();
+  }
+
+}
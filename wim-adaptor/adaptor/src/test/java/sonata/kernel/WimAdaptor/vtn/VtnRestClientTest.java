@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2015 SONATA-NFV, UCL, NOKIA, NCSR Demokritos ALL RIGHTS RESERVED.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * Neither the name of the SONATA-NFV, UCL, NOKIA, NCSR Demokritos nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without specific prior
+ * written permission.
+ * 
+ * This work has been performed in the framework of the SONATA project, funded by the European
+ * Commission under Grant number 671517 through the Horizon 2020 and 5G-PPP programmes. The authors
+ * would like to acknowledge the contributions of their colleagues of the SONATA partner consortium
+ * (www.sonata-nfv.eu).
+ *
+ * @author Dario Valocchi (Ph.D.), UCL
+ * 
+ */
+
+package sonata.kernel.WimAdaptor.vtn;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sonata.kernel.WimAdaptor.wrapper.WimRepo;
+import sonata.kernel.WimAdaptor.wrapper.WrapperConfiguration;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnFlowCondition;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnRestClient;
+import sonata.kernel.WimAdaptor.wrapper.vtn.VtnWrapper;
+
+/**
+ * Unit tests for the VTN REST client, run against a stand-in VTN coordinator.
+ */
+public class VtnRestClientTest {
+
+  private VtnControllerStub controller;
+
+  @Before
+  public void startController() throws IOException {
+    controller = new VtnControllerStub();
+  }
+
+  @After
+  public void stopController() {
+    controller.stop();
+  }
+
+  @Test
+  public void testConfigureWithConfiguredTenantAndConditions() {
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("wim1");
+    config.setWimEndpoint(controller.getEndpoint());
+    config.setAuthUserName("admin");
+    config.setAuthPass("admin");
+    config.setVtnTenant("tenant1");
+    config.setVtnBridge("bridge1");
+    config.setFlowConditions("[{\"name\":\"blue\",\"source_network\":\"10.0.0.1/32\","
+        + "\"destination_network\":\"10.0.0.2/32\",\"ingress_interface\":\"if1\","
+        + "\"redirect_interface\":\"if2\",\"default_interface\":\"if3\"}]");
+    VtnWrapper wrapper = new VtnWrapper(config);
+
+    Assert.assertTrue(wrapper.configureNetwork("instance"));
+    Assert.assertEquals(2, controller.getOperations().size());
+    Assert.assertEquals("vtn-flow-condition:set-flow-condition",
+        controller.getOperations().get(0));
+    JSONObject condition = controller.getInputs().get(0);
+    Assert.assertEquals("blue", condition.getString("name"));
+    Assert.assertEquals("10.0.0.1/32", condition.getJSONArray("vtn-flow-match").getJSONObject(0)
+        .getJSONObject("vtn-inet-match").getString("source-network"));
+
+    Assert.assertEquals("vtn-flow-filter:set-flow-filter", controller.getOperations().get(1));
+    JSONObject filter = controller.getInputs().get(1);
+    Assert.assertEquals("tenant1", filter.getString("tenant-name"));
+    Assert.assertEquals("bridge1", filter.getString("bridge-name"));
+    Assert.assertEquals("if1", filter.getString("interface-name"));
+    Assert.assertEquals("if2", filter.getJSONArray("vtn-flow-filter").getJSONObject(0)
+        .getJSONObject("vtn-redirect-filter").getJSONObject("redirect-destination")
+        .getString("interface-name"));
+
+    Assert.assertTrue(wrapper.removeNetConfiguration("instance"));
+    Assert.assertEquals(3, controller.getOperations().size());
+    Assert.assertEquals("if3", controller.getInputs().get(2).getJSONArray("vtn-flow-filter")
+        .getJSONObject(0).getJSONObject("vtn-redirect-filter")
+        .getJSONObject("redirect-destination").getString("interface-name"));
+  }
+
+  @Test
+  public void testDefaultTenantAndCondition() {
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("wim1");
+    config.setWimEndpoint(controller.getEndpoint());
+    config.setAuthUserName("admin");
+    config.setAuthPass("admin");
+    VtnWrapper wrapper = new VtnWrapper(config);
+
+    Assert.assertEquals(VtnWrapper.DEFAULT_TENANT, wrapper.getTenant());
+    Assert.assertEquals(1, wrapper.getConditions().size());
+    Assert.assertEquals("green", wrapper.getConditions().get(0).getName());
+  }
+
+  @Test
+  public void testErrorStatus() {
+    VtnRestClient client = new VtnRestClient(controller.getEndpoint(), "admin", "admin");
+    Assert.assertTrue(client.setupVtn("tenant1"));
+    controller.setFailureStatus(404);
+    Assert.assertFalse(client.setupVtn("tenant1"));
+    Assert.assertFalse(client.deleteVtn("tenant1"));
+    controller.setFailureStatus(0);
+    Assert.assertTrue(client.deleteVtn("tenant1"));
+  }
+
+  @Test
+  public void testReadState() throws IOException {
+    VtnRestClient client = new VtnRestClient(controller.getEndpoint(), "admin", "admin");
+    VtnFlowCondition condition = VtnFlowCondition.getDefault();
+    Assert.assertNull(client.readFlowCondition(condition.getName()));
+    Assert.assertNull(client.readRedirectDestination("vtn7", "vbr4", "if8", "green"));
+
+    Assert.assertTrue(client.setFlowCondition(condition));
+    Assert.assertTrue(client.setRedirectFilter("vtn7", "vbr4", "if8", "green", "if10"));
+    Assert.assertTrue(condition.hasSameMatch(client.readFlowCondition(condition.getName())));
+    Assert.assertEquals("if10", client.readRedirectDestination("vtn7", "vbr4", "if8", "green"));
+    Assert.assertNull(client.readRedirectDestination("vtn7", "vbr4", "if8", "blue"));
+  }
+
+  @Test
+  public void testIdempotentConfiguration() {
+    VtnWrapper wrapper = new VtnWrapper(buildDefaultConfig());
+
+    Assert.assertTrue(wrapper.configureNetwork("instance1"));
+    Assert.assertEquals(2, controller.getOperations().size());
+    // Retries and other instances sharing the same flows are answered locally.
+    Assert.assertTrue(wrapper.configureNetwork("instance1"));
+    Assert.assertTrue(wrapper.configureNetwork("instance2"));
+    Assert.assertEquals(2, controller.getOperations().size());
+
+    // An instance that never used the flows does not take them away from the others.
+    Assert.assertTrue(wrapper.removeNetConfiguration("instance3"));
+    Assert.assertEquals(2, controller.getOperations().size());
+
+    // The redirect is reset only when the last instance using it is removed.
+    Assert.assertTrue(wrapper.removeNetConfiguration("instance1"));
+    Assert.assertEquals(2, controller.getOperations().size());
+    Assert.assertTrue(wrapper.removeNetConfiguration("instance2"));
+    Assert.assertEquals(3, controller.getOperations().size());
+    Assert.assertTrue(wrapper.removeNetConfiguration("instance2"));
+    Assert.assertEquals(3, controller.getOperations().size());
+
+    Assert.assertTrue(wrapper.configureNetwork("instance1"));
+    Assert.assertEquals(4, controller.getOperations().size());
+    Assert.assertEquals("vtn-flow-filter:set-flow-filter", controller.getOperations().get(3));
+  }
+
+  @Test
+  public void testReconcileOnStartup() {
+    FlowUserRepo repo = new FlowUserRepo();
+    VtnWrapper before = new VtnWrapper(buildDefaultConfig(), repo);
+    Assert.assertTrue(before.configureNetwork("instance1"));
+    Assert.assertEquals(2, controller.getOperations().size());
+
+    // A new wrapper, e.g. after an adaptor restart, learns the flows from the controller and the
+    // instances using them from the repository.
+    VtnWrapper after = new VtnWrapper(buildDefaultConfig(), repo);
+    int reads = controller.getReadCount();
+    after.reconcile();
+    Assert.assertTrue(controller.getReadCount() > reads);
+    Assert.assertTrue(after.configureNetwork("instance2"));
+    Assert.assertEquals(2, controller.getOperations().size());
+
+    // The instances configured before the restart keep the redirect for each other.
+    Assert.assertTrue(after.removeNetConfiguration("instance1"));
+    Assert.assertEquals(2, controller.getOperations().size());
+    VtnFlowCondition condition = after.getConditions().get(0);
+    Assert.assertEquals(condition.getRedirectInterface(),
+        after.getFlowState().getRedirect(condition.getName()));
+    Assert.assertTrue(after.removeNetConfiguration("instance2"));
+    Assert.assertEquals(3, controller.getOperations().size());
+    Assert.assertTrue(repo.users.isEmpty());
+
+    // An instance the repository does not know is left alone.
+    Assert.assertTrue(after.removeNetConfiguration("instance9"));
+    Assert.assertEquals(3, controller.getOperations().size());
+
+    // Changes made behind the wrapper back are picked up by a forced reconciliation.
+    controller.clearState();
+    after.reconcile(true);
+    Assert.assertTrue(after.configureNetwork("instance1"));
+    Assert.assertEquals(5, controller.getOperations().size());
+  }
+
+  /**
+   * In-memory stand-in for the flow users table of the WIM repository.
+   */
+  private static class FlowUserRepo extends WimRepo {
+
+    private HashSet<String> users = new HashSet<String>();
+
+    @Override
+    public boolean writeFlowUser(String wimUuid, String condition, String instanceUuid) {
+      users.add(wimUuid + " " + condition + " " + instanceUuid);
+      return true;
+    }
+
+    @Override
+    public boolean removeFlowUser(String wimUuid, String condition, String instanceUuid) {
+      users.remove(wimUuid + " " + condition + " " + instanceUuid);
+      return true;
+    }
+
+    @Override
+    public Hashtable<String, ArrayList<String>> readFlowUsers(String wimUuid) {
+      Hashtable<String, ArrayList<String>> out = new Hashtable<String, ArrayList<String>>();
+      for (String user : users) {
+        String[] fields = user.split(" ");
+        if (!fields[0].equals(wimUuid)) {
+          continue;
+        }
+        if (!out.containsKey(fields[1])) {
+          out.put(fields[1], new ArrayList<String>());
+        }
+        out.get(fields[1]).add(fields[2]);
+      }
+      return out;
+    }
+  }
+
+  private WrapperConfiguration buildDefaultConfig() {
+    WrapperConfiguration config = new WrapperConfiguration();
+    config.setUuid("wim1");
+    config.setWimEndpoint(controller.getEndpoint());
+    config.setAuthUserName("admin");
+    config.setAuthPass("admin");
+    return config;
+  }
+
+  @Test
+  public void testConnectionReuse() {
+    VtnRestClient client = new VtnRestClient(controller.getEndpoint(), "admin", "admin");
+    VtnFlowCondition condition = VtnFlowCondition.getDefault();
+    int flows = 50;
+    for (int i = 0; i < flows; i++) {
+      Assert.assertTrue(client.setFlowCondition(condition));
+      Assert.assertTrue(client.setRedirectFilter("vtn7", "vbr4", condition.getIngressInterface(),
+          condition.getName(), condition.getRedirectInterface()));
+    }
+    Assert.assertEquals(2 * flows, controller.getOperations().size());
+    // Every request has been sent on the same kept-alive connection.
+    Assert.assertEquals(1, controller.getConnectionCount());
+  }
+
+  @Test
+  public void testBasicAuthorization() {
+    VtnFlowCondition condition = VtnFlowCondition.getDefault();
+    Assert.assertTrue(
+        new VtnRestClient(controller.getEndpoint(), "admin", "admin").setFlowCondition(condition));
+    Assert.assertEquals("Basic YWRtaW46YWRtaW4=", controller.getAuthorization());
+    Assert.assertTrue(
+        new VtnRestClient(controller.getEndpoint(), "ab", "c").setFlowCondition(condition));
+    Assert.assertEquals("Basic YWI6Yw==", controller.getAuthorization());
+  }
+
+  /**
+   * Measure the rate of flow installations over the kept-alive connection. Only runs with
+   * -Dbenchmark=true.
+   */
+  @Test
+  public void testFlowThroughput() {
+    Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+    VtnRestClient client = new VtnRestClient(controller.getEndpoint(), "admin", "admin");
+    VtnFlowCondition condition = VtnFlowCondition.getDefault();
+    int flows = 500;
+    // Warm up the connection pool.
+    client.setFlowCondition(condition);
+    long start = System.nanoTime();
+    for (int i = 0; i < flows; i++) {
+      Assert.assertTrue(client.setFlowCondition(condition));
+      Assert.assertTrue(client.setRedirectFilter("vtn7", "vbr4", condition.getIngressInterface(),
+          condition.getName(), condition.getRedirectInterface()));
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.println("[VtnRestClientTest] " + flows + " flows in " + elapsed / 1000000 + "ms ("
+        + (flows * 1000000000L / elapsed) + " flows/s) over " + controller.getConnectionCount()
+        + " connection(s)");
+    Assert.assertEquals(1, controller.getConnectionCount());
+  }
+
+}
@@ -3,6 +3,14 @@ set -e
 echo "Setting environment"
 /setenv.sh
 
+echo "Installing adaptor-commons"
+cd /adaptor-commons
+mvn -q install
+
+echo "Installing descriptors"
+cd /descriptors
+mvn -q install
+
 echo "Doing maven test"
 cd /adaptor
 mvn -q -Dcheckstyle.config.location=google_checks.xml checkstyle:checkstyle findbugs:findbugs cobertura:cobertura